@@ -24,6 +24,11 @@ import fr.kazejiyu.discord.rpc.integration.extensions.EditorInputToRichPresenceA
 import fr.kazejiyu.discord.rpc.integration.languages.Language;
 import fr.kazejiyu.discord.rpc.integration.settings.GlobalPreferences;
 import fr.kazejiyu.discord.rpc.integration.settings.UserPreferences;
+import fr.kazejiyu.discord.rpc.integration.wording.FileWordingVariables;
+import fr.kazejiyu.discord.rpc.integration.wording.WordingContext;
+import fr.kazejiyu.discord.rpc.integration.wording.WordingTemplate;
+import fr.kazejiyu.discord.rpc.integration.wording.WordingVariableRegistry;
+import fr.kazejiyu.discord.rpc.integration.wording.WordingVariables;
 
 /**
  * <p>Default implementation of {@link EditorInputToRichPresenceAdapter}.</p>
@@ -80,13 +85,17 @@ public class DefaultClassFileEditorInputRichPresence implements EditorInputToRic
 	        Optional<IProject> project = projectDependingOn(fileInput.getClassFile());
 	        
 	        UserPreferences applicablePreferences = project.map(preferences::getApplicablePreferencesFor)
-	        											   .orElse(preferences);
+	        											   .orElseGet(preferences::snapshot);
+	        
+	        WordingVariables variables = new FileWordingVariables(applicablePreferences, fileName, Language.JAVA, 
+	        		project.map(IProject::getName).orElse("undetermined"))
+	        		.orElse(WordingVariableRegistry.contributedVariables(new WordingContext(project.orElse(null), fileName, Language.JAVA)));
 	        
 	        RichPresence presence = new ImmutableRichPresence()
 	        		.withProject(project.orElse(null))
 	                .withLanguage(Language.JAVA)
-	                .withDetails(detailsOf(applicablePreferences, project, fileName))
-	                .withState(stateOf(applicablePreferences, project, fileName))
+	                .withDetails(detailsOf(applicablePreferences, variables))
+	                .withState(stateOf(applicablePreferences, variables))
 	                .withLargeImageText(largeImageTextOf(applicablePreferences, fileName));
 	        
 	        return Optional.of(presence);
@@ -104,28 +113,14 @@ public class DefaultClassFileEditorInputRichPresence implements EditorInputToRic
 		return Optional.ofNullable(classFile.getJavaProject().getProject());
 	}
 
-	private static String detailsOf(UserPreferences preferences, Optional<IProject> project, String fileName) {
-        String template = preferences.getCustomDetailsWording().orElse(DEFAULT_DETAILS_TEMPLATE);
-        
-        template = template.replace("${file}", preferences.showsFileName() ? fileName : "?");
-        template = template.replace("${file.baseName}", preferences.showsFileName() ? getBaseFileName(fileName) : "?");
-        template = template.replace("${file.extension}", preferences.showsFileName() ? getFileExtension(fileName) : "?");
-        template = template.replace("${language}", Language.JAVA.getName());
-        template = template.replace("${project}", preferences.showsProjectName() ? project.map(IProject::getName).orElse("undetermined") : "?");
-        
-        return template;
+	private static String detailsOf(UserPreferences preferences, WordingVariables variables) {
+        return WordingTemplate.compile(preferences.getCustomDetailsWording().orElse(DEFAULT_DETAILS_TEMPLATE))
+                              .render(variables);
     }
 
-    private static String stateOf(UserPreferences preferences, Optional<IProject> project, String fileName) {
-        String template = preferences.getCustomStateWording().orElse(DEFAULT_STATE_TEMPLATE);
-        
-        template = template.replace("${file}", preferences.showsFileName() ? fileName : "?");
-        template = template.replace("${file.baseName}", preferences.showsFileName() ? getBaseFileName(fileName) : "?");
-        template = template.replace("${file.extension}", preferences.showsFileName() ? getFileExtension(fileName) : "?");
-        template = template.replace("${language}", Language.JAVA.getName());
-        template = template.replace("${project}", preferences.showsProjectName() ? project.map(IProject::getName).orElse("undetermined") : "?");
-        
-        return template;
+    private static String stateOf(UserPreferences preferences, WordingVariables variables) {
+        return WordingTemplate.compile(preferences.getCustomStateWording().orElse(DEFAULT_STATE_TEMPLATE))
+                              .render(variables);
     }
 
     private static String largeImageTextOf(UserPreferences preferences, String fileName) {
@@ -134,19 +129,5 @@ public class DefaultClassFileEditorInputRichPresence implements EditorInputToRic
         }
         return labelOf(Language.JAVA, fileName);
     }
-    
-    private static String getFileExtension(String fileName) {
-        if (!fileName.contains(".") || fileName.endsWith(".")) {
-            return "";
-        }
-        return fileName.substring(fileName.lastIndexOf('.') + 1);
-    }
-    
-    private static String getBaseFileName(String fileName) {
-        if (!fileName.contains(".") || fileName.endsWith(".")) {
-            return fileName;
-        }
-        return fileName.substring(0, fileName.lastIndexOf('.'));
-    }
 
 }
@@ -21,9 +21,15 @@ import org.eclipse.ui.IFileEditorInput;
 import fr.kazejiyu.discord.rpc.integration.core.ImmutableRichPresence;
 import fr.kazejiyu.discord.rpc.integration.core.RichPresence;
 import fr.kazejiyu.discord.rpc.integration.extensions.EditorInputToRichPresenceAdapter;
-import fr.kazejiyu.discord.rpc.integration.languages.Language;
+import fr.kazejiyu.discord.rpc.integration.languages.LanguageDescriptor;
+import fr.kazejiyu.discord.rpc.integration.languages.LanguageDetector;
 import fr.kazejiyu.discord.rpc.integration.settings.GlobalPreferences;
 import fr.kazejiyu.discord.rpc.integration.settings.UserPreferences;
+import fr.kazejiyu.discord.rpc.integration.wording.FileWordingVariables;
+import fr.kazejiyu.discord.rpc.integration.wording.WordingContext;
+import fr.kazejiyu.discord.rpc.integration.wording.WordingTemplate;
+import fr.kazejiyu.discord.rpc.integration.wording.WordingVariableRegistry;
+import fr.kazejiyu.discord.rpc.integration.wording.WordingVariables;
 
 /**
  * <p>Default implementation of {@link EditorInputToRichPresenceAdapter}.</p>
@@ -73,40 +79,28 @@ public class DefaultFileEditorInputRichPresence implements EditorInputToRichPres
         IProject project = file.getProject();
         
         UserPreferences applicablePreferences = preferences.getApplicablePreferencesFor(project);
-        Language language = languageOf(applicablePreferences, file);
+        LanguageDescriptor language = languageOf(applicablePreferences, file);
+        WordingVariables variables = new FileWordingVariables(applicablePreferences, file.getName(), language, nameOf(project, applicablePreferences))
+                .orElse(WordingVariableRegistry.contributedVariables(new WordingContext(project, file.getName(), language)));
         
         RichPresence presence = new ImmutableRichPresence() 
                 .withProject(project)
                 .withLanguage(language)
-                .withDetails(detailsOf(applicablePreferences, project, language, file))
-                .withState(stateOf(applicablePreferences, project, language, file))
+                .withDetails(detailsOf(applicablePreferences, variables))
+                .withState(stateOf(applicablePreferences, variables))
                 .withLargeImageText(largeImageTextOf(applicablePreferences, file));
         
         return Optional.of(presence);
     }
 
-    private static String detailsOf(UserPreferences preferences, IProject project, Language language, IFile file) {
-        String template = preferences.getCustomDetailsWording().orElse(DEFAULT_DETAILS_TEMPLATE);
-        
-        template = template.replace("${file}", preferences.showsFileName() ? file.getName() : "?");
-        template = template.replace("${file.baseName}", preferences.showsFileName() ? getBaseFileName(file) : "?");
-        template = template.replace("${file.extension}", preferences.showsFileName() ? getFileExtension(file) : "?");
-        template = template.replace("${language}", language.getName());
-        template = template.replace("${project}", preferences.showsProjectName() ? nameOf(project, preferences) : "?");
-        
-        return template;
+    private static String detailsOf(UserPreferences preferences, WordingVariables variables) {
+        return WordingTemplate.compile(preferences.getCustomDetailsWording().orElse(DEFAULT_DETAILS_TEMPLATE))
+                              .render(variables);
     }
 
-    private static String stateOf(UserPreferences preferences, IProject project, Language language, IFile file) {
-        String template = preferences.getCustomStateWording().orElse(DEFAULT_STATE_TEMPLATE);
-        
-        template = template.replace("${file}", preferences.showsFileName() ? file.getName() : "?");
-        template = template.replace("${file.baseName}", preferences.showsFileName() ? getBaseFileName(file) : "?");
-        template = template.replace("${file.extension}", preferences.showsFileName() ? getFileExtension(file) : "?");
-        template = template.replace("${language}", language.getName());
-        template = template.replace("${project}", preferences.showsProjectName() ? nameOf(project, preferences) : "?");
-        
-        return template;
+    private static String stateOf(UserPreferences preferences, WordingVariables variables) {
+        return WordingTemplate.compile(preferences.getCustomStateWording().orElse(DEFAULT_STATE_TEMPLATE))
+                              .render(variables);
     }
 
     /** Returns either the name of the project, or "an unknown project" is project == null. */
@@ -117,35 +111,19 @@ public class DefaultFileEditorInputRichPresence implements EditorInputToRichPres
         return preferences.getProjectName().orElseGet(project::getName);
     }
 
-    private static Language languageOf(UserPreferences preferences, IFile file) {
+    private static LanguageDescriptor languageOf(UserPreferences preferences, IFile file) {
         if (! preferences.showsLanguageIcon()) {
-            return Language.UNKNOWN;
+            return LanguageDescriptor.UNKNOWN;
         }
-        return Language.fromFileName(file.getName());
+        return LanguageDetector.getDefault().descriptorOf(file);
     }
 
     private static String largeImageTextOf(UserPreferences preferences, IFile file) {
         if (! preferences.showsLanguageIcon()) {
             return "";
         }
-        Language language = Language.fromFileName(file.getName());
+        LanguageDescriptor language = LanguageDetector.getDefault().descriptorOf(file);
         return labelOf(language, file.getName());
     }
-    
-    private static String getFileExtension(IFile file) {
-        String fileName = file.getName();
-        if (!fileName.contains(".") || fileName.endsWith(".")) {
-            return "";
-        }
-        return fileName.substring(fileName.lastIndexOf('.') + 1);
-    }
-    
-    private static String getBaseFileName(IFile file) {
-        String fileName = file.getName();
-        if (!fileName.contains(".") || fileName.endsWith(".")) {
-            return fileName;
-        }
-        return fileName.substring(0, fileName.lastIndexOf('.'));
-    }
 
 }
@@ -22,9 +22,15 @@ import org.eclipse.ui.ide.FileStoreEditorInput;
 import fr.kazejiyu.discord.rpc.integration.core.ImmutableRichPresence;
 import fr.kazejiyu.discord.rpc.integration.core.RichPresence;
 import fr.kazejiyu.discord.rpc.integration.extensions.EditorInputToRichPresenceAdapter;
-import fr.kazejiyu.discord.rpc.integration.languages.Language;
+import fr.kazejiyu.discord.rpc.integration.languages.LanguageDescriptor;
+import fr.kazejiyu.discord.rpc.integration.languages.LanguageDetector;
 import fr.kazejiyu.discord.rpc.integration.settings.GlobalPreferences;
 import fr.kazejiyu.discord.rpc.integration.settings.UserPreferences;
+import fr.kazejiyu.discord.rpc.integration.wording.FileWordingVariables;
+import fr.kazejiyu.discord.rpc.integration.wording.WordingContext;
+import fr.kazejiyu.discord.rpc.integration.wording.WordingTemplate;
+import fr.kazejiyu.discord.rpc.integration.wording.WordingVariableRegistry;
+import fr.kazejiyu.discord.rpc.integration.wording.WordingVariables;
 
 /**
  * <p>Default implementation of {@link EditorInputToRichPresenceAdapter}.</p>
@@ -77,71 +83,44 @@ public class DefaultURIEditorInputRichPresence implements EditorInputToRichPrese
         IURIEditorInput uriInput = (IURIEditorInput) input;
         URI fileURI = uriInput.getURI();
         File file = new File(fileURI.getPath());
-        Language language = languageOf(preferences, file);
+        UserPreferences snapshot = preferences.snapshot();
+        LanguageDescriptor language = languageOf(snapshot, file);
+        WordingVariables variables = new FileWordingVariables(snapshot, file.getName(), language, "unknown project")
+                .orElse(WordingVariableRegistry.contributedVariables(new WordingContext(null, file.getName(), language)));
         
         ImmutableRichPresence presence = new ImmutableRichPresence();
         presence = presence
                 .withLanguage(language)
-                .withDetails(detailsOf(preferences, language, file))
-                .withState(stateOf(preferences, language, file))
-                .withLargeImageText(largeImageTextOf(preferences, file));
+                .withDetails(detailsOf(snapshot, variables))
+                .withState(stateOf(snapshot, variables))
+                .withLargeImageText(largeImageTextOf(snapshot, file));
         
         return Optional.of(presence);
     }
 
-    private static String detailsOf(UserPreferences preferences, Language language, File file) {
-        String template = preferences.getCustomDetailsWording().orElse(DEFAULT_DETAILS_TEMPLATE);
-        
-        template = template.replace("${file}", preferences.showsFileName() ? file.getName() : "?");
-        template = template.replace("${file.baseName}", preferences.showsFileName() ? getBaseFileName(file) : "?");
-        template = template.replace("${file.extension}", preferences.showsFileName() ? getFileExtension(file) : "?");
-        template = template.replace("${language}", language.getName());
-        template = template.replace("${project}", preferences.showsProjectName() ? "unknown project" : "?");
-        
-        return template;
+    private static String detailsOf(UserPreferences preferences, WordingVariables variables) {
+        return WordingTemplate.compile(preferences.getCustomDetailsWording().orElse(DEFAULT_DETAILS_TEMPLATE))
+                              .render(variables);
     }
 
-    private static String stateOf(UserPreferences preferences, Language language, File file) {
-        String template = preferences.getCustomDetailsWording().orElse(DEFAULT_STATE_TEMPLATE);
-        
-        template = template.replace("${file}", preferences.showsFileName() ? file.getName() : "?");
-        template = template.replace("${file.baseName}", preferences.showsFileName() ? getBaseFileName(file) : "?");
-        template = template.replace("${file.extension}", preferences.showsFileName() ? getFileExtension(file) : "?");
-        template = template.replace("${language}", language.getName());
-        template = template.replace("${project}", preferences.showsProjectName() ? "unknown project" : "?");
-        
-        return template;
+    private static String stateOf(UserPreferences preferences, WordingVariables variables) {
+        return WordingTemplate.compile(preferences.getCustomStateWording().orElse(DEFAULT_STATE_TEMPLATE))
+                              .render(variables);
     }
 
-    private static Language languageOf(UserPreferences preferences, File file) {
+    private static LanguageDescriptor languageOf(UserPreferences preferences, File file) {
         if (! preferences.showsLanguageIcon()) {
-            return Language.UNKNOWN;
+            return LanguageDescriptor.UNKNOWN;
         }
-        return Language.fromFileName(file.getName());
+        return LanguageDetector.getDefault().descriptorOf(file.getName());
     }
 
     private static String largeImageTextOf(UserPreferences preferences, File file) {
         if (! preferences.showsLanguageIcon()) {
             return "";
         }
-        Language language = Language.fromFileName(file.getName());
+        LanguageDescriptor language = LanguageDetector.getDefault().descriptorOf(file.getName());
         return labelOf(language, file.getName());
     }
-    
-    private static String getFileExtension(File file) {
-        String fileName = file.getName();
-        if (!fileName.contains(".") || fileName.endsWith(".")) {
-            return "";
-        }
-        return fileName.substring(fileName.lastIndexOf('.') + 1);
-    }
-    
-    private static String getBaseFileName(File file) {
-        String fileName = file.getName();
-        if (!fileName.contains(".") || fileName.endsWith(".")) {
-            return fileName;
-        }
-        return fileName.substring(0, fileName.lastIndexOf('.'));
-    }
 
 }
@@ -15,12 +15,12 @@ import static fr.kazejiyu.discord.rpc.integration.languages.Language.GIT;
 import static fr.kazejiyu.discord.rpc.integration.languages.Language.SCALA;
 import static fr.kazejiyu.discord.rpc.integration.languages.Language.TERMINAL;
 import static fr.kazejiyu.discord.rpc.integration.languages.Language.TEXT;
-import static fr.kazejiyu.discord.rpc.integration.languages.Language.UNKNOWN;
 
 import fr.kazejiyu.discord.rpc.integration.languages.Language;
+import fr.kazejiyu.discord.rpc.integration.languages.LanguageDescriptor;
 
 /**
- * Creates a label for a given {@link Language}.
+ * Creates a label for a given language, either a built-in {@link Language} or a contributed one.
  * 
  * @author Emmanuel CHEBBI
  */
@@ -32,9 +32,15 @@ final class LanguageLabel {
     }
     
     protected static String labelOf(Language language, String fileName) {
-        if (language == UNKNOWN) {
+        return labelOf(LanguageDescriptor.of(language), fileName);
+    }
+    
+    protected static String labelOf(LanguageDescriptor descriptor, String fileName) {
+        if (descriptor.isUnknown()) {
             return "";
         }
+        Language language = descriptor.builtIn().orElse(null);
+        
         if (language == BINARY) {
             return "Binary file";
         }
@@ -53,7 +59,7 @@ final class LanguageLabel {
         if (language == TEXT) {
             return "Text file";
         }
-        return "Programming in " + language.getName();
+        return "Programming in " + descriptor.getName();
     }
 
 }
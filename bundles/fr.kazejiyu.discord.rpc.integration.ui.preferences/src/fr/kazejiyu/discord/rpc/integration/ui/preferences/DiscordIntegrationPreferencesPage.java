@@ -9,6 +9,15 @@
  ******************************************************************************/
 package fr.kazejiyu.discord.rpc.integration.ui.preferences;
 
+import static fr.kazejiyu.discord.rpc.integration.settings.Settings.CLEAR_PRESENCE_WHEN_IDLE;
+import static fr.kazejiyu.discord.rpc.integration.settings.Settings.DISCORD_TRANSPORT;
+import static fr.kazejiyu.discord.rpc.integration.settings.Settings.DISCORD_TRANSPORT_IPC;
+import static fr.kazejiyu.discord.rpc.integration.settings.Settings.DISCORD_TRANSPORT_NATIVE;
+import static fr.kazejiyu.discord.rpc.integration.settings.Settings.EDITOR_ACTIVATION_DEBOUNCE;
+import static fr.kazejiyu.discord.rpc.integration.settings.Settings.EDITOR_TRACKING;
+import static fr.kazejiyu.discord.rpc.integration.settings.Settings.EDITOR_TRACKING_PARTS_ONLY;
+import static fr.kazejiyu.discord.rpc.integration.settings.Settings.EDITOR_TRACKING_SELECTIONS;
+import static fr.kazejiyu.discord.rpc.integration.settings.Settings.IDLE_TIMEOUT;
 import static fr.kazejiyu.discord.rpc.integration.settings.Settings.RESET_ELAPSED_TIME;
 import static fr.kazejiyu.discord.rpc.integration.settings.Settings.RESET_ELAPSED_TIME_ON_NEW_FILE;
 import static fr.kazejiyu.discord.rpc.integration.settings.Settings.RESET_ELAPSED_TIME_ON_NEW_PROJECT;
@@ -17,6 +26,7 @@ import static fr.kazejiyu.discord.rpc.integration.settings.Settings.SHOW_ELAPSED
 import static fr.kazejiyu.discord.rpc.integration.settings.Settings.SHOW_FILE_NAME;
 import static fr.kazejiyu.discord.rpc.integration.settings.Settings.*;
 import static fr.kazejiyu.discord.rpc.integration.settings.Settings.SHOW_RICH_PRESENCE;
+import static fr.kazejiyu.discord.rpc.integration.settings.Settings.USE_CONNECTION_POOL;
 import static org.eclipse.swt.events.SelectionListener.widgetSelectedAdapter;
 
 import org.eclipse.core.runtime.preferences.InstanceScope;
@@ -35,6 +45,7 @@ import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
 import org.eclipse.swt.widgets.Group;
 import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Spinner;
 import org.eclipse.ui.IWorkbench;
 import org.eclipse.ui.IWorkbenchPreferencePage;
 import org.eclipse.ui.preferences.ScopedPreferenceStore;
@@ -70,6 +81,19 @@ public class DiscordIntegrationPreferencesPage extends PreferencePage implements
     private Button resetTimeOnStartup;
     private Button resetTimeOnNewProject;
     private Button resetTimeOnNewFile;
+    private Button useNativeTransport;
+    private Button useIpcTransport;
+    private Button useConnectionPool;
+    /**
+     * The time without activity after which the user is considered idle, in minutes.
+     */
+    private Spinner idleTimeout;
+    private Button clearPresenceWhenIdle;
+    private Button trackSelections;
+    /**
+     * The time to wait before showing a newly activated editor, in milliseconds.
+     */
+    private Spinner editorActivationDebounce;
 
     @Override
     public void init(IWorkbench workbench) {
@@ -91,6 +115,8 @@ public class DiscordIntegrationPreferencesPage extends PreferencePage implements
         createActivationToggle(area);
         createPrivacyGroup(area);
         createElapsedTimeGroup(area);
+        createConnectionGroup(area);
+        createActivityGroup(area);
         
         // Initialize fields from preferences
         performDefaults();
@@ -122,6 +148,16 @@ public class DiscordIntegrationPreferencesPage extends PreferencePage implements
         resetTimeOnNewProject.setSelection(RESET_ELAPSED_TIME_ON_NEW_PROJECT.property().equals(elapsedTimeResetTrigger));
         resetTimeOnNewFile.setSelection(RESET_ELAPSED_TIME_ON_NEW_FILE.property().equals(elapsedTimeResetTrigger));
         
+        boolean usesIpcTransport = DISCORD_TRANSPORT_IPC.property().equals(getPreferenceStore().getString(DISCORD_TRANSPORT.property()));
+        useNativeTransport.setSelection(! usesIpcTransport);
+        useIpcTransport.setSelection(usesIpcTransport);
+        useConnectionPool.setSelection(getPreferenceStore().getBoolean(USE_CONNECTION_POOL.property()));
+        
+        idleTimeout.setSelection(getPreferenceStore().getInt(IDLE_TIMEOUT.property()));
+        clearPresenceWhenIdle.setSelection(getPreferenceStore().getBoolean(CLEAR_PRESENCE_WHEN_IDLE.property()));
+        trackSelections.setSelection(EDITOR_TRACKING_SELECTIONS.property().equals(getPreferenceStore().getString(EDITOR_TRACKING.property())));
+        editorActivationDebounce.setSelection(getPreferenceStore().getInt(EDITOR_ACTIVATION_DEBOUNCE.property()));
+        
         updateEnabledProperty();
         
         super.performDefaults();
@@ -145,6 +181,25 @@ public class DiscordIntegrationPreferencesPage extends PreferencePage implements
         else if (resetTimeOnNewFile.getSelection()) {
             getPreferenceStore().setValue(RESET_ELAPSED_TIME.property(), RESET_ELAPSED_TIME_ON_NEW_FILE.property());
         }
+        
+        if (useIpcTransport.getSelection()) {
+            getPreferenceStore().setValue(DISCORD_TRANSPORT.property(), DISCORD_TRANSPORT_IPC.property());
+        }
+        else {
+            getPreferenceStore().setValue(DISCORD_TRANSPORT.property(), DISCORD_TRANSPORT_NATIVE.property());
+        }
+        getPreferenceStore().setValue(USE_CONNECTION_POOL.property(), useConnectionPool.getSelection());
+        
+        getPreferenceStore().setValue(IDLE_TIMEOUT.property(), idleTimeout.getSelection());
+        getPreferenceStore().setValue(CLEAR_PRESENCE_WHEN_IDLE.property(), clearPresenceWhenIdle.getSelection());
+        
+        if (trackSelections.getSelection()) {
+            getPreferenceStore().setValue(EDITOR_TRACKING.property(), EDITOR_TRACKING_SELECTIONS.property());
+        }
+        else {
+            getPreferenceStore().setValue(EDITOR_TRACKING.property(), EDITOR_TRACKING_PARTS_ONLY.property());
+        }
+        getPreferenceStore().setValue(EDITOR_ACTIVATION_DEBOUNCE.property(), editorActivationDebounce.getSelection());
         return true;
     }
 
@@ -240,6 +295,65 @@ public class DiscordIntegrationPreferencesPage extends PreferencePage implements
         resetTimeOnNewFile.setToolTipText("Resets the time when a new file is open");
     }
 
+    private void createConnectionGroup(Composite parent) {
+        GridLayout layout = new GridLayout();
+        layout.marginWidth = 10;
+        layout.marginHeight = 5;
+        
+        Group group = createGroup(parent, " &Connect to Discord with (requires a restart): ");
+        group.setLayout(layout);
+        GridDataFactory.fillDefaults().indent(LayoutConstants.getIndent(), 0).applyTo(group);
+        
+        useNativeTransport = new Button(group, SWT.RADIO);
+        useNativeTransport.setText("The native discord-rpc library");
+        useNativeTransport.setToolTipText("Relies on a native library shipped with the plug-in, works on Windows, Linux and macOS");
+        
+        useIpcTransport = new Button(group, SWT.RADIO);
+        useIpcTransport.setText("The built-in Java client");
+        useIpcTransport.setToolTipText("Does not load any native library, requires Java 16 or later on Linux or macOS");
+        useIpcTransport.addSelectionListener(widgetSelectedAdapter(event -> this.updateEnabledProperty()));
+        
+        useConnectionPool = new Button(group, SWT.CHECK);
+        useConnectionPool.setText("Keep connections to recently used Discord applications open");
+        useConnectionPool.setToolTipText("Makes switching between projects using different Discord applications faster, requires the built-in Java client");
+        GridDataFactory.fillDefaults().indent(LayoutConstants.getIndent(), 0).applyTo(useConnectionPool);
+    }
+
+    private void createActivityGroup(Composite parent) {
+        GridLayout layout = new GridLayout(2, false);
+        layout.marginWidth = 10;
+        layout.marginHeight = 5;
+        
+        Group group = createGroup(parent, " Acti&vity (requires a restart): ");
+        group.setLayout(layout);
+        GridDataFactory.fillDefaults().indent(LayoutConstants.getIndent(), 0).applyTo(group);
+        
+        Label idleTimeoutLabel = new Label(group, SWT.NONE);
+        idleTimeoutLabel.setText("Consider me idle after (minutes, 0 to never):");
+        
+        idleTimeout = new Spinner(group, SWT.BORDER);
+        idleTimeout.setValues(0, 0, 24 * 60, 0, 1, 10);
+        idleTimeout.setToolTipText("The time without using the keyboard nor the mouse after which Discord shows that you are idle");
+        idleTimeout.addModifyListener(event -> this.updateEnabledProperty());
+        
+        clearPresenceWhenIdle = new Button(group, SWT.CHECK);
+        clearPresenceWhenIdle.setText("Hide the Rich Presence while idle");
+        clearPresenceWhenIdle.setToolTipText("Check to show nothing on Discord while idle, uncheck to show \"Idle\"");
+        GridDataFactory.fillDefaults().span(2, 1).applyTo(clearPresenceWhenIdle);
+        
+        trackSelections = new Button(group, SWT.CHECK);
+        trackSelections.setText("Also track the active editor through selections");
+        trackSelections.setToolTipText("Check if the active editor is not always detected, uncheck to only rely on editor activations");
+        GridDataFactory.fillDefaults().span(2, 1).applyTo(trackSelections);
+        
+        Label debounceLabel = new Label(group, SWT.NONE);
+        debounceLabel.setText("Wait before showing a newly activated editor (ms):");
+        
+        editorActivationDebounce = new Spinner(group, SWT.BORDER);
+        editorActivationDebounce.setValues(0, 0, 5_000, 0, 50, 500);
+        editorActivationDebounce.setToolTipText("Only the editor you settle on is shown when cycling through editors, shown right away if 0");
+    }
+
     /**
      * Makes sure fields are only enabled if Show Rich Presence is true.
      */
@@ -252,6 +366,15 @@ public class DiscordIntegrationPreferencesPage extends PreferencePage implements
         resetTimeOnStartup.setEnabled(showRichPresence.getSelection());
         resetTimeOnNewProject.setEnabled(showRichPresence.getSelection());
         resetTimeOnNewFile.setEnabled(showRichPresence.getSelection());
+        
+        useNativeTransport.setEnabled(showRichPresence.getSelection());
+        useIpcTransport.setEnabled(showRichPresence.getSelection());
+        useConnectionPool.setEnabled(showRichPresence.getSelection() && useIpcTransport.getSelection());
+        
+        idleTimeout.setEnabled(showRichPresence.getSelection());
+        clearPresenceWhenIdle.setEnabled(showRichPresence.getSelection() && idleTimeout.getSelection() > 0);
+        trackSelections.setEnabled(showRichPresence.getSelection());
+        editorActivationDebounce.setEnabled(showRichPresence.getSelection());
     }
     
     private static Group createGroup(Composite parent, String title) {
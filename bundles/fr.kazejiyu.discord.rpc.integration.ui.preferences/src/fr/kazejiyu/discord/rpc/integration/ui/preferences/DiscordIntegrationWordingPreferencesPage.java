@@ -35,7 +35,7 @@ import org.eclipse.ui.IWorkbench;
 import org.eclipse.ui.IWorkbenchPreferencePage;
 import org.eclipse.ui.preferences.ScopedPreferenceStore;
 
-import fr.kazejiyu.discord.rpc.integration.ui.preferences.internal.CustomWordingVariables;
+import fr.kazejiyu.discord.rpc.integration.ui.preferences.internal.AvailableWordingVariable;
 import fr.kazejiyu.discord.rpc.integration.ui.preferences.internal.LambdaLabelProvider;
 
 /**
@@ -149,13 +149,13 @@ public class DiscordIntegrationWordingPreferencesPage extends PreferencePage imp
         
         TableViewerColumn colTemplate = new TableViewerColumn(variablesTable, SWT.FILL | SWT.H_SCROLL | SWT.V_SCROLL);
         colTemplate.getColumn().setText("Variable");
-        colTemplate.setLabelProvider(new LambdaLabelProvider<>(CustomWordingVariables::template));
+        colTemplate.setLabelProvider(new LambdaLabelProvider<>(AvailableWordingVariable::template));
         
         TableViewerColumn colDescription = new TableViewerColumn(variablesTable, SWT.FILL | SWT.H_SCROLL | SWT.V_SCROLL);
         colDescription.getColumn().setText("Replaced by");
-        colDescription.setLabelProvider(new LambdaLabelProvider<>(CustomWordingVariables::replacedBy));
+        colDescription.setLabelProvider(new LambdaLabelProvider<>(AvailableWordingVariable::replacedBy));
         
-        variablesTable.setInput(CustomWordingVariables.values());
+        variablesTable.setInput(AvailableWordingVariable.all());
         colTemplate.getColumn().pack();
         colDescription.getColumn().pack();
     }
@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Copyright (C) 2018-2020 Emmanuel CHEBBI
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ ******************************************************************************/
+package fr.kazejiyu.discord.rpc.integration.ui.preferences.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import fr.kazejiyu.discord.rpc.integration.wording.WordingVariableContribution;
+import fr.kazejiyu.discord.rpc.integration.wording.WordingVariableRegistry;
+
+/**
+ * <p>A variable that can be used by the user when defining a custom wording.</p>
+ * 
+ * <p>Either one of the {@link CustomWordingVariables built-in variables} or a variable contributed
+ * by another plug-in.</p>
+ * 
+ * @author Emmanuel CHEBBI
+ */
+public final class AvailableWordingVariable {
+    
+    private final String template;
+    
+    private final String replacedBy;
+    
+    private AvailableWordingVariable(String template, String replacedBy) {
+        this.template = template;
+        this.replacedBy = replacedBy;
+    }
+    
+    /**
+     * Returns the variables that can currently be used, the built-in ones first.
+     * @return the variables that can currently be used
+     */
+    public static List<AvailableWordingVariable> all() {
+        List<AvailableWordingVariable> variables = new ArrayList<>();
+        
+        for (CustomWordingVariables builtIn : CustomWordingVariables.values()) {
+            variables.add(new AvailableWordingVariable(builtIn.template(), builtIn.replacedBy()));
+        }
+        WordingVariableRegistry.getDefault().ifPresent(registry -> {
+            for (WordingVariableContribution contributed : registry.contributions().values()) {
+                String template = "${" + contributed.name() + "}";
+                
+                // built-in variables cannot be overridden
+                if (variables.stream().noneMatch(variable -> variable.template.equals(template))) {
+                    variables.add(new AvailableWordingVariable(template, contributed.description()));
+                }
+            }
+        });
+        return variables;
+    }
+    
+    /**
+     * Returns the template associated with the variable.
+     * @return the template associated with the variable
+     */
+    public String template() {
+        return template;
+    }
+    
+    /**
+     * Returns a description of the value by which the variable is replaced.
+     * @return a description of the value by which the variable is replaced.
+     */
+    public String replacedBy() {
+        return replacedBy;
+    }
+
+}
@@ -10,7 +10,7 @@
 package fr.kazejiyu.discord.rpc.integration.ui.preferences.internal;
 
 /**
- * The variables that can be used by the user when defining a custom wording.
+ * The variables built in the plug-in that can be used by the user when defining a custom wording.
  */
 public enum CustomWordingVariables {
     
@@ -35,7 +35,7 @@ import org.osgi.service.prefs.BackingStoreException;
 
 import fr.kazejiyu.discord.rpc.integration.Activator;
 import fr.kazejiyu.discord.rpc.integration.Plugin;
-import fr.kazejiyu.discord.rpc.integration.ui.preferences.internal.CustomWordingVariables;
+import fr.kazejiyu.discord.rpc.integration.ui.preferences.internal.AvailableWordingVariable;
 import fr.kazejiyu.discord.rpc.integration.ui.preferences.internal.LambdaLabelProvider;
 
 /**
@@ -140,13 +140,13 @@ public class ProjectPropertiesWordingPage extends AbstractPropertyPage {
         
         TableViewerColumn colTemplate = new TableViewerColumn(variablesTable, SWT.FILL | SWT.H_SCROLL | SWT.V_SCROLL);
         colTemplate.getColumn().setText("Variable");
-        colTemplate.setLabelProvider(new LambdaLabelProvider<>(CustomWordingVariables::template));
+        colTemplate.setLabelProvider(new LambdaLabelProvider<>(AvailableWordingVariable::template));
         
         TableViewerColumn colDescription = new TableViewerColumn(variablesTable, SWT.FILL | SWT.H_SCROLL | SWT.V_SCROLL);
         colDescription.getColumn().setText("Replaced by");
-        colDescription.setLabelProvider(new LambdaLabelProvider<>(CustomWordingVariables::replacedBy));
+        colDescription.setLabelProvider(new LambdaLabelProvider<>(AvailableWordingVariable::replacedBy));
         
-        variablesTable.setInput(CustomWordingVariables.values());
+        variablesTable.setInput(AvailableWordingVariable.all());
         colTemplate.getColumn().pack();
         colDescription.getColumn().pack();
     }
@@ -11,26 +11,51 @@ package fr.kazejiyu.discord.rpc.integration;
 
 import static fr.kazejiyu.discord.rpc.integration.settings.Settings.DEFAULT_DISCORD_APPLICATION_ID;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.RegistryFactory;
 import org.eclipse.core.runtime.preferences.InstanceScope;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.ui.IStartup;
 import org.eclipse.ui.IWorkbench;
-import org.eclipse.ui.IWorkbenchPage;
 import org.eclipse.ui.IWorkbenchWindow;
 import org.eclipse.ui.PlatformUI;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
 import org.osgi.framework.BundleContext;
+import org.osgi.framework.FrameworkUtil;
 
+import fr.kazejiyu.discord.rpc.integration.core.CallbackPump;
+import fr.kazejiyu.discord.rpc.integration.core.DeduplicatingDiscordRpc;
+import fr.kazejiyu.discord.rpc.integration.core.DiscordConnectionPool;
+import fr.kazejiyu.discord.rpc.integration.core.DiscordRpcLifecycle;
 import fr.kazejiyu.discord.rpc.integration.core.DiscordRpcProxy;
-import fr.kazejiyu.discord.rpc.integration.extensions.EditorRichPresenceFromInput;
+import fr.kazejiyu.discord.rpc.integration.core.DiscordRpcPublisher;
+import fr.kazejiyu.discord.rpc.integration.core.NativeLibraryCache;
+import fr.kazejiyu.discord.rpc.integration.core.RateLimitedDiscordRpc;
+import fr.kazejiyu.discord.rpc.integration.core.ReconnectingDiscordRpc;
+import fr.kazejiyu.discord.rpc.integration.core.ipc.DiscordIpcClient;
+import fr.kazejiyu.discord.rpc.integration.core.ipc.UnixDomainSocketConnector;
 import fr.kazejiyu.discord.rpc.integration.extensions.internal.EditorRichPresenceFromExtensions;
 import fr.kazejiyu.discord.rpc.integration.files.AddListenerOnWindowOpened;
 import fr.kazejiyu.discord.rpc.integration.files.EditionContext;
 import fr.kazejiyu.discord.rpc.integration.files.EditorToRichPresenceAdapter;
+import fr.kazejiyu.discord.rpc.integration.files.IdleDetector;
 import fr.kazejiyu.discord.rpc.integration.files.OnPostShutdown;
+import fr.kazejiyu.discord.rpc.integration.files.TrackingMode;
 import fr.kazejiyu.discord.rpc.integration.files.UpdateDiscordOnEditorChange;
+import fr.kazejiyu.discord.rpc.integration.languages.LanguageDetector;
+import fr.kazejiyu.discord.rpc.integration.languages.LanguageRegistry;
 import fr.kazejiyu.discord.rpc.integration.settings.GlobalPreferences;
+import fr.kazejiyu.discord.rpc.integration.settings.ProjectPreferencesRegistry;
 import fr.kazejiyu.discord.rpc.integration.settings.UpdateDiscordOnSettingChange;
+import fr.kazejiyu.discord.rpc.integration.wording.WordingVariableRegistry;
 
 /**
  * <p>Setup the Discord Rich Presence for Eclipse IDE plug-in.</p>
@@ -50,11 +75,21 @@ public class Activator extends AbstractUIPlugin implements IStartup {
     public static final String PLUGIN_ID = "fr.kazejiyu.discord.rpc.integration"; //$NON-NLS-1$
 
     /** Used to communicate with Discord. */
-    private DiscordRpcProxy discord;
+    private DiscordRpcLifecycle discord;
     
     private UpdateDiscordOnEditorChange editorChangeListener;
+    
+    /** Pauses the presence while the user is away, {@code null} if idleness is not detected. */
+    private IdleDetector idleDetector;
+    
+    /** Finds the adapters contributed to the editor_input_adapter extension point. */
+    private EditorRichPresenceFromExtensions adapters;
 
-    private GlobalPreferences preferences = new GlobalPreferences();
+    /** Keeps the preferences of the projects opened in the workspace. */
+    private ProjectPreferencesRegistry projectPreferences;
+    
+    /** User's preferences, shared by all the components of the plug-in. */
+    private GlobalPreferences preferences;
     
     @Override
     @SuppressWarnings({"checkstyle:illegalcatch"})
@@ -63,9 +98,14 @@ public class Activator extends AbstractUIPlugin implements IStartup {
             // Caution: following methods have side effects which impose a precise call-order, do not change it!
             //          (mutability have been chosen over purity because it makes this method easier to read)
             
+            loadPreferences();
             connectToDiscord();
+            loadAdapters();
             listenForSelectionChanges();
             listenForGlobalSettingChanges();
+            detectIdleness();
+            showLateWordingVariables();
+            showLateLanguages();
             showActivePartInDiscord();
         } 
         catch (Exception e) {
@@ -74,9 +114,21 @@ public class Activator extends AbstractUIPlugin implements IStartup {
         }
     }
 
+    /** Creates the preferences shared by the whole plug-in, until it is stopped. */
+    private void loadPreferences() {
+        projectPreferences = ProjectPreferencesRegistry.listeningTo(ResourcesPlugin.getWorkspace());
+        preferences = new GlobalPreferences(projectPreferences);
+    }
+
     /** Initializes the connection to Discord and shows nothing. */
     private void connectToDiscord() {
-        discord = new DiscordRpcProxy();
+        // Discord is notified from a dedicated thread so that a stalled client never freezes the UI,
+        // presences that would not change what Discord shows are not sent at all
+        // and the remaining ones are throttled so that Discord does not silently drop them.
+        // The connection is re-established in the background whenever Discord is (re)started,
+        // and Discord's events are pumped from the same thread at a rate depending on the state of the connection.
+        ScheduledExecutorService discordThread = DiscordRpcPublisher.newPublishingExecutor();
+        discord = new DiscordRpcPublisher(new DeduplicatingDiscordRpc(createConnection(discordThread)), discordThread);
         
         // Do not initialize any connection if the user does not want to
         if (! preferences.showsRichPresence()) {
@@ -99,17 +151,100 @@ public class Activator extends AbstractUIPlugin implements IStartup {
         discord.showNothing();
     }
     
+    /**
+     * Creates the object managing the connection to Discord, according to user's preferences:
+     *      - either a single connection, replaced each time another Discord application has to be used,
+     *      - or a pool keeping connections to recently used Discord applications open.
+     */
+    private DiscordRpcLifecycle createConnection(ScheduledExecutorService discordThread) {
+        if (! preferences.usesConnectionPool()) {
+            return supervise(createTransport(), discordThread);
+        }
+        if (! preferences.usesIpcTransport() || ! UnixDomainSocketConnector.isSupported()) {
+            Plugin.log("Connections to Discord can only be pooled with the built-in Discord client, falling back to a single connection");
+            return supervise(createTransport(), discordThread);
+        }
+        return new DiscordConnectionPool(() -> supervise(new DiscordIpcClient(), discordThread), discordThread);
+    }
+    
+    /** Wraps the given transport so that the connection is kept alive and Discord's limits are respected. */
+    private static DiscordRpcLifecycle supervise(DiscordRpcLifecycle transport, ScheduledExecutorService discordThread) {
+        return new ReconnectingDiscordRpc(
+                new RateLimitedDiscordRpc(new CallbackPump(transport, discordThread), discordThread),
+                discordThread);
+    }
+    
+    /** 
+     * Creates the object actually talking to Discord, according to user's preferences:
+     *      - either the native discord-rpc library,
+     *      - or the pure Java IPC client, if the JVM supports Unix domain sockets.
+     */
+    private DiscordRpcLifecycle createTransport() {
+        if (! preferences.usesIpcTransport()) {
+            return createNativeTransport();
+        }
+        if (! UnixDomainSocketConnector.isSupported()) {
+            Plugin.log("The built-in Discord client requires Java 16 or later, falling back to the native library");
+            return createNativeTransport();
+        }
+        return new DiscordIpcClient();
+    }
+    
+    /** Creates the object talking to Discord through the native library, loaded from the plug-in's state location. */
+    private static DiscordRpcLifecycle createNativeTransport() {
+        loadNativeLibrary();
+        return new DiscordRpcProxy();
+    }
+    
+    /** 
+     * Loads the native discord-rpc library from the plug-in's state location, extracting it if necessary,
+     * so that JNA does not extract it into a new temporary file on each start.
+     */
+    private static void loadNativeLibrary() {
+        Path cacheDirectory = Platform.getStateLocation(FrameworkUtil.getBundle(Activator.class)).append("native").toFile().toPath();
+        Optional<NativeLibraryCache> cache = NativeLibraryCache.forCurrentPlatform(cacheDirectory);
+        
+        if (! cache.isPresent()) {
+            Plugin.trace(Plugin.TRACE_NATIVE_LIBRARY, "No discord-rpc library is shipped for this platform, leaving it to JNA");
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            Path directory = cache.get().install();
+            long installed = System.nanoTime();
+            Path library = cache.get().load();
+            long loaded = System.nanoTime();
+            
+            Plugin.trace(Plugin.TRACE_NATIVE_LIBRARY, String.format("discord-rpc library %s %s in %d ms, loaded from %s in %d ms", 
+                    cache.get().extractions() == 0 ? "found in" : "extracted to", directory, 
+                    TimeUnit.NANOSECONDS.toMillis(installed - start), 
+                    library, TimeUnit.NANOSECONDS.toMillis(loaded - installed)));
+        }
+        catch (IOException e) {
+            Plugin.logException("Unable to extract the discord-rpc library into the plug-in's state location", e);
+        }
+        catch (UnsatisfiedLinkError e) {
+            // DiscordRpcProxy will fail the same way, nothing more to report
+            Plugin.trace(Plugin.TRACE_NATIVE_LIBRARY, "Unable to load the discord-rpc library: " + e.getMessage());
+        }
+    }
+    
+    /** Looks for the adapters contributed by other plug-ins, and for the ones contributed later on. */
+    private void loadAdapters() {
+        adapters = new EditorRichPresenceFromExtensions(RegistryFactory.getRegistry());
+    }
+    
     /**
      * Sets up a listener that will:
      *      - be notified each time a global preference (see {@link InstanceScope#INSTANCE}) is modified,
      *      - update Discord to show information according to the new preferences.
      */
     private void listenForGlobalSettingChanges() {
-        EditorRichPresenceFromInput adapters = new EditorRichPresenceFromExtensions(RegistryFactory.getRegistry());
         EditorToRichPresenceAdapter editingContextToRichPresenceAdapter = new EditorToRichPresenceAdapter(preferences, adapters);
         EditionContext editingContext = editorChangeListener.editingContext();
         
-        UpdateDiscordOnSettingChange updateDiscord = new UpdateDiscordOnSettingChange(editingContext, editingContextToRichPresenceAdapter, discord, preferences);
+        UpdateDiscordOnSettingChange updateDiscord = new UpdateDiscordOnSettingChange(editingContext, editingContextToRichPresenceAdapter, discord, preferences, 
+                                                                                      editorChangeListener::isIdle);
         preferences.addSettingChangeListener(updateDiscord);
     }
     
@@ -123,16 +258,73 @@ public class Activator extends AbstractUIPlugin implements IStartup {
      *      - the connection with Discord is closed when the workbench is closed. 
      */
     private void listenForSelectionChanges() {
-        EditorRichPresenceFromInput adapters = new EditorRichPresenceFromExtensions(RegistryFactory.getRegistry());
         EditorToRichPresenceAdapter editingContextToRichPresenceAdapter = new EditorToRichPresenceAdapter(preferences, adapters);
         
-        editorChangeListener = new UpdateDiscordOnEditorChange(discord, editingContextToRichPresenceAdapter);
+        editorChangeListener = new UpdateDiscordOnEditorChange(discord, editingContextToRichPresenceAdapter, preferences, 
+                                                               preferences.getEditorActivationDebounce());
+        TrackingMode mode = preferences.tracksSelections() ? TrackingMode.SELECTIONS_AND_PARTS : TrackingMode.PARTS_ONLY;
+        AddListenerOnWindowOpened<UpdateDiscordOnEditorChange> tracker = new AddListenerOnWindowOpened<>(editorChangeListener, mode);
         final IWorkbench workbench = PlatformUI.getWorkbench();
         
-        workbench.addWindowListener(new AddListenerOnWindowOpened<>(editorChangeListener));
+        workbench.addWindowListener(tracker);
         workbench.addWorkbenchListener(new OnPostShutdown(iworkbench -> discord.close()));
         workbench.getDisplay()
-                 .asyncExec(listenForSelectionInOpenedWindows(workbench, editorChangeListener));
+                 .asyncExec(listenForSelectionInOpenedWindows(workbench, tracker));
+    }
+    
+    /** 
+     * Sets up a detector that will:
+     *      - show an "Idle" presence, or nothing, when the user stops using the workbench for a while,
+     *      - show the last selected editor again once the user is back.
+     */
+    private void detectIdleness() {
+        Duration timeout = preferences.getIdleTimeout();
+        
+        if (timeout.isZero()) {
+            return;
+        }
+        Runnable onIdle = preferences.clearsPresenceWhenIdle() ? editorChangeListener::showNothingWhileIdle
+                                                                : editorChangeListener::showIdle;
+        Display display = PlatformUI.getWorkbench().getDisplay();
+        
+        idleDetector = new IdleDetector(timeout, onIdle, editorChangeListener::showLastSelectedEditor, 
+                                        (delay, task) -> display.timerExec((int) delay, task), System::nanoTime);
+        display.asyncExec(() -> idleDetector.install(display));
+    }
+    
+    /** 
+     * Sets up a listener that will show the last selected editor again each time the value of an expensive
+     * wording variable is known, since the presence has been rendered with an empty value in the meantime.
+     */
+    private void showLateWordingVariables() {
+        Display display = PlatformUI.getWorkbench().getDisplay();
+        
+        WordingVariableRegistry.getDefault().ifPresent(variables -> variables.addValueChangeListener(() -> {
+            if (! display.isDisposed()) {
+                display.asyncExec(this::showLastSelectedEditorUnlessIdle);
+            }
+        }));
+    }
+    
+    /** 
+     * Sets up a listener that will show the last selected editor again each time the language of a file is
+     * guessed from its first bytes, since the presence has been shown with an unknown language in the meantime.
+     */
+    private void showLateLanguages() {
+        Display display = PlatformUI.getWorkbench().getDisplay();
+        
+        LanguageDetector.getDefault().addSniffListener(() -> {
+            if (! display.isDisposed()) {
+                display.asyncExec(this::showLastSelectedEditorUnlessIdle);
+            }
+        });
+    }
+    
+    /** Shows the last selected editor again, unless Discord is showing that the user is idle. */
+    private void showLastSelectedEditorUnlessIdle() {
+        if (! editorChangeListener.isIdle()) {
+            editorChangeListener.showLastSelectedEditor();
+        }
     }
     
     private void showActivePartInDiscord() {
@@ -143,7 +335,22 @@ public class Activator extends AbstractUIPlugin implements IStartup {
     @SuppressWarnings({"checkstyle:illegalcatch"})
     public void stop(BundleContext context) throws Exception {
         try {
-            discord.shutdown();
+            if (idleDetector != null) {
+                stopDetectingIdleness();
+            }
+            if (adapters != null) {
+                adapters.close();
+            }
+            // also stops the thread computing expensive wording variables
+            WordingVariableRegistry.getIfCreated().ifPresent(WordingVariableRegistry::close);
+            LanguageDetector.getIfCreated().ifPresent(LanguageDetector::close);
+            LanguageRegistry.getDefault().ifPresent(LanguageRegistry::close);
+            if (preferences != null) {
+                preferences.dispose();
+                projectPreferences.close();
+            }
+            // also stops the thread talking to Discord
+            discord.close();
         }
         catch (Exception e) {
             // 'Exception' is caught on purpose in order to handle any unexpected error properly
@@ -154,17 +361,26 @@ public class Activator extends AbstractUIPlugin implements IStartup {
         }
     }
     
-    /** Adds fileChangeListener as an ISelectionListener to each opened window. */
-    private static Runnable listenForSelectionInOpenedWindows(IWorkbench workbench, UpdateDiscordOnEditorChange editorChangeListener) {
+    /** Removes the filters of the idle detector from the display, or only stops it if the workbench is gone. */
+    private void stopDetectingIdleness() {
+        if (! PlatformUI.isWorkbenchRunning()) {
+            idleDetector.stop();
+            return;
+        }
+        Display display = PlatformUI.getWorkbench().getDisplay();
+        
+        if (display.isDisposed()) {
+            idleDetector.stop();
+            return;
+        }
+        display.syncExec(() -> idleDetector.uninstall(display));
+    }
+    
+    /** Lets tracker add its listener to each opened window. */
+    private static Runnable listenForSelectionInOpenedWindows(IWorkbench workbench, AddListenerOnWindowOpened<?> tracker) {
         return () -> {
             for (IWorkbenchWindow window : workbench.getWorkbenchWindows()) {
-                if (window != null) {
-                    window.getSelectionService().addSelectionListener(editorChangeListener);
-                    
-                    for (IWorkbenchPage page : window.getPages()) {
-                        page.addPartListener(editorChangeListener);
-                    }
-                }
+                tracker.windowOpened(window);
             }
         };
     }
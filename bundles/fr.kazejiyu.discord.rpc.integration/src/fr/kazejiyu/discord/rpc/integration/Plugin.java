@@ -10,6 +10,7 @@
 package fr.kazejiyu.discord.rpc.integration;
 
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.ui.statushandlers.StatusManager;
 
@@ -27,6 +28,18 @@ public final class Plugin {
     /** ID of the 'editor_input_adapter' extension point. */
     public static final String EDITOR_INPUT_ADAPTER_EXTENSION_ID = "fr.kazejiyu.discord.rpc.integration.editor_input_adapter";
     
+    /** ID of the 'wording_variable' extension point. */
+    public static final String WORDING_VARIABLE_EXTENSION_ID = "fr.kazejiyu.discord.rpc.integration.wording_variable";
+    
+    /** ID of the 'language' extension point. */
+    public static final String LANGUAGE_EXTENSION_ID = "fr.kazejiyu.discord.rpc.integration.language";
+    
+    /** Tracing option enabling all the other ones. */
+    public static final String TRACE_DEBUG = ID + "/debug";
+    
+    /** Tracing option reporting how long loading the native discord-rpc library takes. */
+    public static final String TRACE_NATIVE_LIBRARY = TRACE_DEBUG + "/native";
+    
     private Plugin() {
         // does not make sense to instantiate it
     }
@@ -88,4 +101,35 @@ public final class Plugin {
         IStatus status = new Status(IStatus.ERROR, ID, message, e);
         StatusManager.getManager().handle(status, StatusManager.LOG | StatusManager.SHOW);
     }
+    
+    /**
+     * Returns whether the given tracing option is enabled.
+     * 
+     * @param option
+     *          The tracing option, as declared in the <i>.options</i> file.
+     * 
+     * @return {@code true} if the option is enabled, {@code false} otherwise
+     * 
+     * @see #trace(String, String)
+     */
+    public static boolean isTracing(String option) {
+        return Boolean.parseBoolean(Platform.getDebugOption(TRACE_DEBUG))
+            && Boolean.parseBoolean(Platform.getDebugOption(option));
+    }
+    
+    /**
+     * Prints a specified message on the standard output if the given tracing option is enabled.
+     * 
+     * @param option
+     *          The tracing option, as declared in the <i>.options</i> file.
+     * @param message
+     *          The message to print.
+     * 
+     * @see #isTracing(String)
+     */
+    public static void trace(String option, String message) {
+        if (isTracing(option)) {
+            System.out.println("[" + option + "] " + message);
+        }
+    }
 }
@@ -0,0 +1,218 @@
+/*******************************************************************************
+ * Copyright (C) 2018-2020 Emmanuel CHEBBI
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ ******************************************************************************/
+package fr.kazejiyu.discord.rpc.integration.core;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Forwards calls to another {@link DiscordRpcLifecycle} and regularly asks it to process Discord's events.</p>
+ *
+ * <p>Discord's events (connection acknowledged, connection lost, errors) are only delivered when
+ * {@link DiscordRpcLifecycle#pollEvents()} is called. This class calls it from a background scheduler
+ * as long as a connection is requested, at a rate depending on the state of the connection:</p>
+ * <ul>
+ *     <li>every {@link #DEFAULT_FAST_DELAY} while the connection is pending, so that it is noticed quickly,</li>
+ *     <li>less and less often once the connection is ready, down to every {@link #DEFAULT_SLOW_DELAY},</li>
+ *     <li>not at all when the wrapped instance is disconnected, until {@link #initialize(String)} is called again.</li>
+ * </ul>
+ *
+ * <p>Any change of state brings the rate back to the fastest one.</p>
+ *
+ * @author Emmanuel CHEBBI
+ */
+public class CallbackPump implements DiscordRpcLifecycle {
+
+    /** The delay between two polls while the connection is pending. */
+    public static final Duration DEFAULT_FAST_DELAY = Duration.ofMillis(100);
+
+    /** The longest delay between two polls once the connection is ready. */
+    public static final Duration DEFAULT_SLOW_DELAY = Duration.ofSeconds(2);
+
+    /** The instance actually talking to Discord. */
+    private final DiscordRpcLifecycle discord;
+
+    /** Runs the polls. */
+    private final ScheduledExecutorService scheduler;
+
+    /** The delay between two polls while the connection is pending, in nanoseconds. */
+    private final long fastDelayInNanos;
+
+    /** The longest delay between two polls once the connection is ready, in nanoseconds. */
+    private final long slowDelayInNanos;
+
+    /** The next scheduled poll, {@code null} if there is none. */
+    private ScheduledFuture<?> nextPoll;
+
+    /** The state of the wrapped instance observed during the latest poll. */
+    private ConnectionState lastState;
+
+    /** The delay before the next poll, in nanoseconds. */
+    private long delayInNanos;
+
+    private final AtomicLong polls = new AtomicLong();
+
+    /**
+     * Creates a new instance polling events every {@link #DEFAULT_FAST_DELAY} while connecting
+     * and up to every {@link #DEFAULT_SLOW_DELAY} once connected.
+     *
+     * @param discord
+     *          The instance actually talking to Discord.
+     *          Must not be {@code null}.
+     * @param scheduler
+     *          Runs the polls.
+     *          Should run its tasks on the thread calling this instance.
+     *          Must not be {@code null}.
+     */
+    public CallbackPump(DiscordRpcLifecycle discord, ScheduledExecutorService scheduler) {
+        this(discord, scheduler, DEFAULT_FAST_DELAY, DEFAULT_SLOW_DELAY);
+    }
+
+    /**
+     * Creates a new instance polling events at the given rates.
+     *
+     * @param discord
+     *          The instance actually talking to Discord.
+     *          Must not be {@code null}.
+     * @param scheduler
+     *          Runs the polls.
+     *          Should run its tasks on the thread calling this instance.
+     *          Must not be {@code null}.
+     * @param fastDelay
+     *          The delay between two polls while the connection is pending.
+     *          Must be positive.
+     * @param slowDelay
+     *          The longest delay between two polls once the connection is ready.
+     *          Must not be shorter than {@code fastDelay}.
+     *
+     * @throws IllegalArgumentException if a delay is not valid
+     */
+    public CallbackPump(DiscordRpcLifecycle discord, ScheduledExecutorService scheduler, Duration fastDelay, Duration slowDelay) {
+        this.discord = requireNonNull(discord, "The Discord proxy must not be null");
+        this.scheduler = requireNonNull(scheduler, "The scheduler must not be null");
+        requireNonNull(fastDelay, "The fast delay must not be null");
+        requireNonNull(slowDelay, "The slow delay must not be null");
+
+        if (fastDelay.isNegative() || fastDelay.isZero()) {
+            throw new IllegalArgumentException("The fast delay must be positive");
+        }
+        if (slowDelay.compareTo(fastDelay) < 0) {
+            throw new IllegalArgumentException("The slow delay must not be shorter than the fast one");
+        }
+        this.fastDelayInNanos = fastDelay.toNanos();
+        this.slowDelayInNanos = slowDelay.toNanos();
+    }
+
+    @Override
+    public synchronized void initialize(String applicationId) {
+        cancelNextPoll();
+        discord.initialize(applicationId);
+
+        lastState = null;
+        schedulePoll(fastDelayInNanos);
+    }
+
+    @Override
+    public boolean isConnected() {
+        return discord.isConnected();
+    }
+
+    @Override
+    public ConnectionState connectionState() {
+        return discord.connectionState();
+    }
+
+    @Override
+    public synchronized void pollEvents() {
+        discord.pollEvents();
+    }
+
+    @Override
+    public Optional<String> discordApplicationId() {
+        return discord.discordApplicationId();
+    }
+
+    @Override
+    public void show(RichPresence rp) {
+        discord.show(rp);
+    }
+
+    @Override
+    public void showNothing() {
+        discord.showNothing();
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        cancelNextPoll();
+        lastState = null;
+        discord.shutdown();
+    }
+
+    /** Processes Discord's events, then schedules the next poll according to the state of the connection. */
+    private synchronized void poll() {
+        nextPoll = null;
+
+        discord.pollEvents();
+        polls.incrementAndGet();
+
+        ConnectionState state = discord.connectionState();
+
+        if (state == ConnectionState.DISCONNECTED || state == ConnectionState.BACKING_OFF) {
+            // nothing to receive until a new connection is requested
+            lastState = state;
+            return;
+        }
+        if (state != lastState || state != ConnectionState.READY) {
+            delayInNanos = fastDelayInNanos;
+        }
+        else {
+            // the connection is stable, there is no need to poll as often
+            delayInNanos = Math.min(delayInNanos * 2, slowDelayInNanos);
+        }
+        lastState = state;
+        schedulePoll(delayInNanos);
+    }
+
+    private void schedulePoll(long delayInNanos) {
+        this.delayInNanos = delayInNanos;
+
+        try {
+            nextPoll = scheduler.schedule(this::poll, delayInNanos, TimeUnit.NANOSECONDS);
+        }
+        catch (RejectedExecutionException e) {
+            // the scheduler has been shut down, nothing left to poll
+            nextPoll = null;
+        }
+    }
+
+    private void cancelNextPoll() {
+        if (nextPoll != null) {
+            nextPoll.cancel(false);
+            nextPoll = null;
+        }
+    }
+
+    /**
+     * Returns the number of times Discord's events have been polled by this instance so far.
+     * @return the number of polls
+     */
+    public long polls() {
+        return polls.get();
+    }
+
+}
@@ -0,0 +1,33 @@
+/*******************************************************************************
+ * Copyright (C) 2018-2020 Emmanuel CHEBBI
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ ******************************************************************************/
+package fr.kazejiyu.discord.rpc.integration.core;
+
+/**
+ * The states of the connection between Eclipse IDE and a Discord client.
+ *
+ * @author Emmanuel CHEBBI
+ *
+ * @see DiscordRpcLifecycle#connectionState()
+ */
+public enum ConnectionState {
+
+    /** No connection has been requested, or the connection has been lost. */
+    DISCONNECTED,
+
+    /** A connection has been requested but Discord did not acknowledge it yet. */
+    CONNECTING,
+
+    /** Discord acknowledged the connection and accepts presences. */
+    READY,
+
+    /** The connection failed, another attempt will be made later. */
+    BACKING_OFF
+
+}
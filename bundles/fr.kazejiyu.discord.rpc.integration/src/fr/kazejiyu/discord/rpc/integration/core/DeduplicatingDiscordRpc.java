@@ -0,0 +1,186 @@
+/*******************************************************************************
+ * Copyright (C) 2018-2020 Emmanuel CHEBBI
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ ******************************************************************************/
+package fr.kazejiyu.discord.rpc.integration.core;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import fr.kazejiyu.discord.rpc.integration.languages.LanguageDescriptor;
+
+/**
+ * <p>Forwards calls to another {@link DiscordRpcLifecycle} but drops the presences that would not
+ * change what Discord currently shows.</p>
+ *
+ * <p>A presence is dropped when the fields actually sent to Discord (state, details, start timestamp,
+ * large image key and large image text) are equal to the ones of the last presence sent.
+ * Connecting to or disconnecting from Discord forgets about the last presence sent.</p>
+ *
+ * @author Emmanuel CHEBBI
+ */
+public class DeduplicatingDiscordRpc implements DiscordRpcLifecycle {
+
+    /** The instance actually talking to Discord. */
+    private final DiscordRpcLifecycle discord;
+
+    /** The payload of the last presence sent to Discord, {@code null} if there is none. */
+    private volatile Payload lastSent;
+
+    private final AtomicLong sentUpdates = new AtomicLong();
+    private final AtomicLong suppressedUpdates = new AtomicLong();
+
+    /**
+     * Creates a new instance forwarding calls to the given one.
+     *
+     * @param discord
+     *          The instance actually talking to Discord.
+     *          Must not be {@code null}.
+     */
+    public DeduplicatingDiscordRpc(DiscordRpcLifecycle discord) {
+        this.discord = requireNonNull(discord, "The Discord proxy must not be null");
+    }
+
+    @Override
+    public void initialize(String applicationId) {
+        lastSent = null;
+        discord.initialize(applicationId);
+    }
+
+    @Override
+    public void switchTo(String applicationId) {
+        lastSent = null;
+        discord.switchTo(applicationId);
+    }
+
+    @Override
+    public boolean isConnected() {
+        return discord.isConnected();
+    }
+
+    @Override
+    public ConnectionState connectionState() {
+        return discord.connectionState();
+    }
+
+    @Override
+    public void pollEvents() {
+        discord.pollEvents();
+    }
+
+    @Override
+    public Optional<String> discordApplicationId() {
+        return discord.discordApplicationId();
+    }
+
+    @Override
+    public void show(RichPresence rp) {
+        requireNonNull(rp, "The rich presence must not be null");
+
+        Payload payload = new Payload(rp);
+
+        if (isAlreadyShown(payload)) {
+            return;
+        }
+        discord.show(rp);
+        recordSent(payload);
+    }
+
+    @Override
+    public void showNothing() {
+        if (isAlreadyShown(Payload.EMPTY)) {
+            return;
+        }
+        discord.showNothing();
+        recordSent(Payload.EMPTY);
+    }
+
+    private boolean isAlreadyShown(Payload payload) {
+        if (payload.equals(lastSent)) {
+            suppressedUpdates.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    private void recordSent(Payload payload) {
+        sentUpdates.incrementAndGet();
+
+        // The presence is not shown if Discord is not connected:
+        // do not remember it so that it is sent again once connected
+        lastSent = discord.isConnected() ? payload : null;
+    }
+
+    @Override
+    public void shutdown() {
+        lastSent = null;
+        discord.shutdown();
+    }
+
+    /**
+     * Returns the number of presences forwarded to Discord so far.
+     * @return the number of presences forwarded
+     */
+    public long sentUpdates() {
+        return sentUpdates.get();
+    }
+
+    /**
+     * Returns the number of presences dropped so far because they would not have changed Discord's UI.
+     * @return the number of presences dropped
+     */
+    public long suppressedUpdates() {
+        return suppressedUpdates.get();
+    }
+
+    /** The fields of a presence that are actually sent to Discord. */
+    private static final class Payload {
+
+        /** The payload sent by {@link DiscordRpcLifecycle#showNothing()}. */
+        private static final Payload EMPTY = new Payload(new ImmutableRichPresence());
+
+        private final String state;
+        private final String details;
+        private final Long startTimestamp;
+        private final String largeImageKey;
+        private final String largeImageText;
+
+        Payload(RichPresence rp) {
+            this.state = rp.getState().orElse(null);
+            this.details = rp.getDetails().orElse(null);
+            this.startTimestamp = rp.getStartTimestamp().orElse(null);
+            this.largeImageKey = rp.getLanguageDescriptor().map(LanguageDescriptor::getKey).orElse(null);
+            this.largeImageText = rp.getLargeImageText().orElse(null);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(state, details, startTimestamp, largeImageKey, largeImageText);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Payload)) {
+                return false;
+            }
+            Payload other = (Payload) obj;
+            return Objects.equals(state, other.state)
+                && Objects.equals(details, other.details)
+                && Objects.equals(startTimestamp, other.startTimestamp)
+                && Objects.equals(largeImageKey, other.largeImageKey)
+                && Objects.equals(largeImageText, other.largeImageText);
+        }
+    }
+
+}
@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * Copyright (C) 2018-2020 Emmanuel CHEBBI
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ ******************************************************************************/
+package fr.kazejiyu.discord.rpc.integration.core;
+
+import com.sun.jna.Native;
+import com.sun.jna.NativeLibrary;
+import com.sun.jna.Pointer;
+
+import club.minnced.discord.rpc.DiscordRPC;
+
+/**
+ * <p>Direct-mapped bindings to the functions of the native discord-rpc library called the most often.</p>
+ *
+ * <p>{@link DiscordRPC#INSTANCE} goes through a reflective proxy which boxes the arguments of each call
+ * and converts {@link com.sun.jna.Structure Structure}s and Strings to native memory.
+ * The functions declared here are bound directly to the native library and only take raw pointers,
+ * so calling them does not allocate anything on the Java heap.</p>
+ *
+ * <p>The bindings are registered on first use. If they cannot be, {@link #isAvailable()} returns {@code false}
+ * and {@link DiscordRPC#INSTANCE} must be used instead.</p>
+ *
+ * @author Emmanuel CHEBBI
+ */
+final class DirectDiscordRpc {
+
+    /** Whether the functions have been bound to the native library. */
+    private static final boolean IS_AVAILABLE = register();
+
+    private DirectDiscordRpc() {
+        // static methods only
+    }
+
+    /**
+     * Returns whether the direct-mapped functions can be called.
+     * @return {@code true} if the functions are bound to the native library, {@code false} otherwise
+     */
+    static boolean isAvailable() {
+        return IS_AVAILABLE;
+    }
+
+    /**
+     * Sends the presence to Discord.
+     *
+     * @param presence
+     *          Points to a {@code DiscordRichPresence} struct, as written by {@link NativeRichPresence}.
+     *          The struct and its strings can be reused as soon as the function returns.
+     */
+    static native void Discord_UpdatePresence(Pointer presence);
+
+    /** Processes the events sent by Discord and calls the corresponding handlers. */
+    static native void Discord_RunCallbacks();
+
+    @SuppressWarnings({"checkstyle:illegalcatch"})
+    private static boolean register() {
+        try {
+            // Look for the library where DiscordRPC does, so that it is only extracted and loaded once
+            ClassLoader classLoader = DiscordRPC.class.getClassLoader();
+            Native.register(DirectDiscordRpc.class, NativeLibrary.getInstance(NativeLibraryCache.LIBRARY_NAME, classLoader));
+            return true;
+        }
+        catch (LinkageError | RuntimeException e) {
+            // the native library or JNA's dispatcher cannot be loaded on this platform
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,388 @@
+/*******************************************************************************
+ * Copyright (C) 2018-2020 Emmanuel CHEBBI
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ ******************************************************************************/
+package fr.kazejiyu.discord.rpc.integration.core;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * <p>Keeps connections to several Discord applications open and forwards calls to the one in use.</p>
+ *
+ * <p>Connecting to Discord takes a few seconds. When the user switches between projects configured with
+ * different Discord applications, {@link #switchTo(String)} hands presences over to a connection that
+ * is already open instead of closing the current connection and opening a new one.</p>
+ *
+ * <p>Connections that are not in use are asked to {@link DiscordRpcLifecycle#showNothing() show nothing}
+ * and stay open until either:</p>
+ * <ul>
+ *     <li>they have not been used for a given time, or</li>
+ *     <li>the pool is full and they are the least recently used ones.</li>
+ * </ul>
+ *
+ * <p>Each connection is created by a factory and must be able to live alongside the others:
+ * the native discord-rpc library, which handles a single connection per process, cannot be pooled.</p>
+ *
+ * @author Emmanuel CHEBBI
+ */
+public class DiscordConnectionPool implements DiscordRpcLifecycle {
+
+    /** The maximum number of connections kept open. */
+    public static final int DEFAULT_MAX_CONNECTIONS = 3;
+
+    /** How long a connection that is not in use is kept open. */
+    public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(5);
+
+    /** Creates the connections. */
+    private final Supplier<DiscordRpcLifecycle> connectionFactory;
+
+    /** Closes the idle connections. */
+    private final ScheduledExecutorService scheduler;
+
+    /** The maximum number of connections kept open. */
+    private final int maxConnections;
+
+    /** How long a connection that is not in use is kept open, in nanoseconds. */
+    private final long idleTimeoutInNanos;
+
+    /** Returns the current time, in nanoseconds. */
+    private final LongSupplier nanoClock;
+
+    /** The open connections by application ID, from the least to the most recently used. */
+    private final Map<String, PooledConnection> connections = new LinkedHashMap<>(8, 0.75f, true);
+
+    /** The connection in use, {@code null} if there is none. */
+    private volatile PooledConnection active;
+
+    /** The next closing of idle connections, {@code null} if there is none. */
+    private ScheduledFuture<?> eviction;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Creates a new pool keeping at most {@link #DEFAULT_MAX_CONNECTIONS} connections open,
+     * each of them for {@link #DEFAULT_IDLE_TIMEOUT} once not in use.
+     *
+     * @param connectionFactory
+     *          Creates the connections. Must return a new instance on each call.
+     *          Must not be {@code null}.
+     * @param scheduler
+     *          Closes the idle connections.
+     *          Should run its tasks on the thread calling this instance.
+     *          Must not be {@code null}.
+     */
+    public DiscordConnectionPool(Supplier<DiscordRpcLifecycle> connectionFactory, ScheduledExecutorService scheduler) {
+        this(connectionFactory, scheduler, DEFAULT_MAX_CONNECTIONS, DEFAULT_IDLE_TIMEOUT);
+    }
+
+    /**
+     * Creates a new pool.
+     *
+     * @param connectionFactory
+     *          Creates the connections. Must return a new instance on each call.
+     *          Must not be {@code null}.
+     * @param scheduler
+     *          Closes the idle connections.
+     *          Should run its tasks on the thread calling this instance.
+     *          Must not be {@code null}.
+     * @param maxConnections
+     *          The maximum number of connections kept open.
+     *          Must be positive.
+     * @param idleTimeout
+     *          How long a connection that is not in use is kept open.
+     *          Must not be negative.
+     *
+     * @throws IllegalArgumentException if {@code maxConnections} or {@code idleTimeout} is not valid
+     */
+    public DiscordConnectionPool(Supplier<DiscordRpcLifecycle> connectionFactory, ScheduledExecutorService scheduler, int maxConnections, Duration idleTimeout) {
+        this(connectionFactory, scheduler, maxConnections, idleTimeout, System::nanoTime);
+    }
+
+    /**
+     * Creates a new pool.
+     *
+     * @param connectionFactory
+     *          Creates the connections. Must return a new instance on each call.
+     *          Must not be {@code null}.
+     * @param scheduler
+     *          Closes the idle connections.
+     *          Must not be {@code null}.
+     * @param maxConnections
+     *          The maximum number of connections kept open.
+     *          Must be positive.
+     * @param idleTimeout
+     *          How long a connection that is not in use is kept open.
+     *          Must not be negative.
+     * @param nanoClock
+     *          Returns the current time, in nanoseconds. Used to detect idle connections.
+     *          Must not be {@code null}.
+     *
+     * @throws IllegalArgumentException if {@code maxConnections} or {@code idleTimeout} is not valid
+     */
+    DiscordConnectionPool(Supplier<DiscordRpcLifecycle> connectionFactory, ScheduledExecutorService scheduler, int maxConnections, Duration idleTimeout, LongSupplier nanoClock) {
+        this.connectionFactory = requireNonNull(connectionFactory, "The connection factory must not be null");
+        this.scheduler = requireNonNull(scheduler, "The scheduler must not be null");
+        this.nanoClock = requireNonNull(nanoClock, "The clock must not be null");
+        requireNonNull(idleTimeout, "The idle timeout must not be null");
+
+        if (maxConnections <= 0) {
+            throw new IllegalArgumentException("The maximum number of connections must be positive");
+        }
+        if (idleTimeout.isNegative()) {
+            throw new IllegalArgumentException("The idle timeout must not be negative");
+        }
+        this.maxConnections = maxConnections;
+        this.idleTimeoutInNanos = idleTimeout.toNanos();
+    }
+
+    /**
+     * Uses a connection to the given Discord application, opening it if required.
+     * Equivalent to {@link #switchTo(String)}.
+     */
+    @Override
+    public void initialize(String applicationId) {
+        switchTo(applicationId);
+    }
+
+    /**
+     * Uses a connection to the given Discord application, opening it if required.
+     * The connection previously in use is kept open.
+     */
+    @Override
+    public synchronized void switchTo(String applicationId) {
+        requireNonNull(applicationId, "The application ID must not be null");
+
+        PooledConnection previous = active;
+
+        if (previous != null && previous.applicationId.equals(applicationId)) {
+            return;
+        }
+        PooledConnection connection = connections.get(applicationId);
+
+        if (connection == null) {
+            misses.incrementAndGet();
+            connection = new PooledConnection(applicationId, connectionFactory.get());
+            connections.put(applicationId, connection);
+            connection.discord.initialize(applicationId);
+        }
+        else {
+            hits.incrementAndGet();
+        }
+        active = connection;
+
+        if (previous != null) {
+            previous.discord.showNothing();
+            previous.idleSince = nanoClock.getAsLong();
+        }
+        evictLeastRecentlyUsed();
+        scheduleEviction();
+    }
+
+    @Override
+    public boolean isConnected() {
+        PooledConnection connection = active;
+        return connection != null && connection.discord.isConnected();
+    }
+
+    @Override
+    public ConnectionState connectionState() {
+        PooledConnection connection = active;
+
+        if (connection == null) {
+            return ConnectionState.DISCONNECTED;
+        }
+        return connection.discord.connectionState();
+    }
+
+    @Override
+    public synchronized void pollEvents() {
+        for (PooledConnection connection : connections.values()) {
+            connection.discord.pollEvents();
+        }
+    }
+
+    @Override
+    public Optional<String> discordApplicationId() {
+        PooledConnection connection = active;
+
+        if (connection == null) {
+            return Optional.empty();
+        }
+        return connection.discord.discordApplicationId();
+    }
+
+    @Override
+    public void show(RichPresence rp) {
+        requireNonNull(rp, "The rich presence must not be null");
+        PooledConnection connection = active;
+
+        if (connection != null) {
+            connection.discord.show(rp);
+        }
+    }
+
+    @Override
+    public void showNothing() {
+        PooledConnection connection = active;
+
+        if (connection != null) {
+            connection.discord.showNothing();
+        }
+    }
+
+    /** Closes every connection, including the one in use. */
+    @Override
+    public synchronized void shutdown() {
+        cancelEviction();
+        active = null;
+
+        for (PooledConnection connection : connections.values()) {
+            connection.discord.shutdown();
+        }
+        connections.clear();
+    }
+
+    /** Closes the least recently used connections until the pool is not over its capacity. */
+    private void evictLeastRecentlyUsed() {
+        Iterator<PooledConnection> leastRecentlyUsedFirst = connections.values().iterator();
+
+        while (connections.size() > maxConnections && leastRecentlyUsedFirst.hasNext()) {
+            PooledConnection connection = leastRecentlyUsedFirst.next();
+
+            if (connection != active) {
+                leastRecentlyUsedFirst.remove();
+                evict(connection);
+            }
+        }
+    }
+
+    /** Closes the connections that have not been used for too long. */
+    private synchronized void evictIdleConnections() {
+        eviction = null;
+        long now = nanoClock.getAsLong();
+
+        List<PooledConnection> idleConnections = new ArrayList<>();
+
+        for (PooledConnection connection : connections.values()) {
+            if (connection != active && now - connection.idleSince >= idleTimeoutInNanos) {
+                idleConnections.add(connection);
+            }
+        }
+        for (PooledConnection connection : idleConnections) {
+            connections.remove(connection.applicationId);
+            evict(connection);
+        }
+        scheduleEviction();
+    }
+
+    private void evict(PooledConnection connection) {
+        evictions.incrementAndGet();
+        connection.discord.shutdown();
+    }
+
+    /** Schedules the closing of the connection that has been idle for the longest time, if any. */
+    private void scheduleEviction() {
+        if (eviction != null) {
+            return;
+        }
+        long now = nanoClock.getAsLong();
+        long delayInNanos = Long.MAX_VALUE;
+
+        for (PooledConnection connection : connections.values()) {
+            if (connection != active) {
+                delayInNanos = Math.min(delayInNanos, Math.max(0, connection.idleSince + idleTimeoutInNanos - now));
+            }
+        }
+        if (delayInNanos == Long.MAX_VALUE) {
+            // every open connection is in use
+            return;
+        }
+        try {
+            eviction = scheduler.schedule(this::evictIdleConnections, delayInNanos, TimeUnit.NANOSECONDS);
+        }
+        catch (RejectedExecutionException e) {
+            // the scheduler has been shut down, the connections are about to be closed anyway
+            eviction = null;
+        }
+    }
+
+    private void cancelEviction() {
+        if (eviction != null) {
+            eviction.cancel(false);
+            eviction = null;
+        }
+    }
+
+    /**
+     * Returns the number of connections currently open, including the one in use.
+     * @return the number of open connections
+     */
+    public synchronized int size() {
+        return connections.size();
+    }
+
+    /**
+     * Returns the number of switches that reused a connection already open so far.
+     * @return the number of switches that did not require a new connection
+     */
+    public long hits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of connections opened so far.
+     * @return the number of switches that required a new connection
+     */
+    public long misses() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of connections closed so far because the pool was full or because they were idle.
+     * @return the number of evicted connections
+     */
+    public long evictions() {
+        return evictions.get();
+    }
+
+    /** A connection kept open by the pool. */
+    private static final class PooledConnection {
+
+        /** The ID of the Discord application the connection is made to. */
+        private final String applicationId;
+
+        /** The connection itself. */
+        private final DiscordRpcLifecycle discord;
+
+        /** When the connection stopped being used, in nanoseconds. */
+        private long idleSince;
+
+        PooledConnection(String applicationId, DiscordRpcLifecycle discord) {
+            this.applicationId = applicationId;
+            this.discord = requireNonNull(discord, "The connection factory must not return null");
+        }
+    }
+
+}
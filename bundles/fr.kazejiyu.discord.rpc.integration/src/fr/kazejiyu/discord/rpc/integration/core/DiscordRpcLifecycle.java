@@ -26,13 +26,50 @@ public interface DiscordRpcLifecycle extends AutoCloseable {
      */
     void initialize(String applicationId);
     
+    /**
+     * <p>Replaces the current connection by a connection to another Discord application.</p>
+     * 
+     * <p>By default, shutdowns the current connection then initializes a new one.
+     * Implementations may override this method to make the switch cheaper.</p>
+     * 
+     * @param applicationId
+     *          The ID of the Discord application to connect.
+     * 
+     * @see #initialize(String)
+     * @see #shutdown()
+     */
+    default void switchTo(String applicationId) {
+        shutdown();
+        initialize(applicationId);
+    }
+    
     /**
      * Returns whether the instance is currently connected to a Discord client.
      * @return {@code true} if the instance is connected to a Discord client,
      *            {@code false} otherwise
      */
     boolean isConnected();
-    
+
+    /**
+     * <p>Returns the current state of the connection to Discord.</p>
+     *
+     * <p>By default, derives the state from {@link #isConnected()}.</p>
+     *
+     * @return the current state of the connection
+     */
+    default ConnectionState connectionState() {
+        return isConnected() ? ConnectionState.READY : ConnectionState.DISCONNECTED;
+    }
+
+    /**
+     * <p>Processes the events sent by Discord since the last call, without blocking.</p>
+     *
+     * <p>Has no effect by default.</p>
+     */
+    default void pollEvents() {
+        // nothing to do by default
+    }
+
     /**
      * Returns whether the proxy is connected to the given Discord application.
      * 
@@ -10,12 +10,13 @@
 package fr.kazejiyu.discord.rpc.integration.core;
 
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 
 import club.minnced.discord.rpc.DiscordEventHandlers;
 import club.minnced.discord.rpc.DiscordRPC;
 import club.minnced.discord.rpc.DiscordRichPresence;
 import fr.kazejiyu.discord.rpc.integration.Plugin;
-import fr.kazejiyu.discord.rpc.integration.languages.Language;
+import fr.kazejiyu.discord.rpc.integration.languages.LanguageDescriptor;
 
 /**
  * Sends {@link RichPresence}s to Discord.<br>
@@ -26,37 +27,73 @@ import fr.kazejiyu.discord.rpc.integration.languages.Language;
  */
 public class DiscordRpcProxy implements DiscordRpcLifecycle {
     
-    /** Whether the proxy is connected to a Discord client. */
-    private boolean isConnected = false;
+    /** Key of the image shown as small icon in Discord. */
+    public static final String ECLIPSE_LOGO_KEY = "eclipse-ide-logo";
+    
+    /** Text shown when hovering the small icon in Discord. */
+    public static final String ECLIPSE_LOGO_TEXT = "Eclipse IDE";
+    
+    /** The presence showing nothing but the Eclipse IDE logo. */
+    private static final RichPresence NOTHING = new ImmutableRichPresence();
+    
+    /** The state of the connection, updated from the callbacks of the native library. */
+    private final AtomicReference<ConnectionState> connectionState = new AtomicReference<>(ConnectionState.DISCONNECTED);
     
     /** The ID of the Discord application we're currently connected to. */
-    private String discordApplicationId;
+    private volatile String discordApplicationId;
+    
+    /**
+     * The handlers given to the native library, {@code null} when disconnected.
+     * Kept for the whole connection since JNA only holds weak references to callbacks.
+     */
+    private volatile DiscordEventHandlers handlers;
+    
+    /** The struct reused to send presences through {@link DirectDiscordRpc}, created on first use. */
+    private NativeRichPresence nativePresence;
     
     @Override
     public void initialize(String applicationId) {
-        DiscordRPC.INSTANCE.Discord_Initialize(applicationId, createHandlers(), true, "");
-
-        // Following attributes should be set in the 'ready' handlers
-        // but for some reason it does not work very well.
-        // Maybe just temporal issues? May investigate if I find the time to.
-        
-        this.isConnected = true;
         this.discordApplicationId = applicationId;
+        this.connectionState.set(ConnectionState.CONNECTING);
+        
+        // The native library connects asynchronously: the state becomes READY
+        // once the 'ready' handler is called by Discord_RunCallbacks (see pollEvents)
+        this.handlers = createHandlers();
+        DiscordRPC.INSTANCE.Discord_Initialize(applicationId, handlers, true, "");
     }
     
     /** Returns the handlers handling Discord events. */
     private DiscordEventHandlers createHandlers() {
         DiscordEventHandlers handlers = new DiscordEventHandlers();
-        handlers.ready = user -> isConnected = true;
+        handlers.ready = user -> connectionState.compareAndSet(ConnectionState.CONNECTING, ConnectionState.READY);
         handlers.errored = (status, message) -> Plugin.log(message);
-        handlers.disconnected = (status, message) -> isConnected = false;
+        // the native library tries to reconnect on its own
+        handlers.disconnected = (status, message) -> connectionState.compareAndSet(ConnectionState.READY, ConnectionState.CONNECTING);
         
         return handlers;
     }
     
     @Override
     public boolean isConnected() {
-        return this.isConnected;
+        return connectionState.get() == ConnectionState.READY;
+    }
+    
+    @Override
+    public ConnectionState connectionState() {
+        return connectionState.get();
+    }
+    
+    @Override
+    public void pollEvents() {
+        if (connectionState.get() == ConnectionState.DISCONNECTED) {
+            return;
+        }
+        if (DirectDiscordRpc.isAvailable()) {
+            DirectDiscordRpc.Discord_RunCallbacks();
+        }
+        else {
+            DiscordRPC.INSTANCE.Discord_RunCallbacks();
+        }
     }
     
     @Override
@@ -67,33 +104,54 @@ public class DiscordRpcProxy implements DiscordRpcLifecycle {
         return Optional.of(discordApplicationId);
     }
     
+    /**
+     * {@inheritDoc}
+     * 
+     * <p>When possible, the presence is written into a struct allocated once and sent through
+     * direct-mapped native calls so that showing a presence does not allocate anything.</p>
+     */
     @Override
-    public void show(RichPresence rp) {
-        if (isConnected) {
-            DiscordRichPresence presence = new DiscordRichPresence();
-            
-            presence.smallImageKey = "eclipse-ide-logo";
-            presence.smallImageText = "Eclipse IDE";
-            
-            rp.getState().ifPresent(state -> presence.state = state);
-            rp.getDetails().ifPresent(details -> presence.details = details);
-            rp.getStartTimestamp().ifPresent(start -> presence.startTimestamp = start);
-            rp.getLargeImageText().ifPresent(text -> presence.largeImageText = text);
-            rp.getLanguage().map(Language::getKey).ifPresent(key -> presence.largeImageKey = key);
-            
-            DiscordRPC.INSTANCE.Discord_UpdatePresence(presence);
-            DiscordRPC.INSTANCE.Discord_RunCallbacks();
+    public synchronized void show(RichPresence rp) {
+        if (! isConnected()) {
+            return;
+        }
+        if (DirectDiscordRpc.isAvailable()) {
+            if (nativePresence == null) {
+                nativePresence = new NativeRichPresence();
+            }
+            DirectDiscordRpc.Discord_UpdatePresence(nativePresence.encode(rp));
         }
+        else {
+            DiscordRPC.INSTANCE.Discord_UpdatePresence(toDiscordRichPresence(rp));
+        }
+    }
+    
+    /** Converts the given presence to a struct understood by {@link DiscordRPC#INSTANCE}. */
+    private static DiscordRichPresence toDiscordRichPresence(RichPresence rp) {
+        DiscordRichPresence presence = new DiscordRichPresence();
+        
+        presence.smallImageKey = ECLIPSE_LOGO_KEY;
+        presence.smallImageText = ECLIPSE_LOGO_TEXT;
+        
+        rp.getState().ifPresent(state -> presence.state = state);
+        rp.getDetails().ifPresent(details -> presence.details = details);
+        rp.getStartTimestamp().ifPresent(start -> presence.startTimestamp = start);
+        rp.getLargeImageText().ifPresent(text -> presence.largeImageText = text);
+        rp.getLanguageDescriptor().map(LanguageDescriptor::getKey).ifPresent(key -> presence.largeImageKey = key);
+        
+        return presence;
     }
     
     @Override
     public void showNothing() {
-        show(new ImmutableRichPresence());
+        show(NOTHING);
     }
     
     @Override
     public void shutdown() {
+        this.connectionState.set(ConnectionState.DISCONNECTED);
         DiscordRPC.INSTANCE.Discord_Shutdown();
-        this.isConnected = false;
+        // the native library no longer calls the handlers once shut down
+        this.handlers = null;
     }
 }
@@ -0,0 +1,334 @@
+/*******************************************************************************
+ * Copyright (C) 2018-2020 Emmanuel CHEBBI
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ ******************************************************************************/
+package fr.kazejiyu.discord.rpc.integration.core;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+import fr.kazejiyu.discord.rpc.integration.Plugin;
+
+/**
+ * <p>Forwards calls to another {@link DiscordRpcLifecycle} from a dedicated thread.</p>
+ *
+ * <p>Talking to Discord means calling native code that may block for an unknown amount of time.
+ * This class makes sure that the caller, usually the UI thread, never waits for it:</p>
+ * <ul>
+ *     <li>presences are put in a one-slot mailbox; when several presences are sent before
+ *     the publishing thread gets a chance to run, only the latest one is forwarded,</li>
+ *     <li>{@link #initialize(String)}, {@link #switchTo(String)} and {@link #shutdown()} are forwarded in the order they are called.</li>
+ * </ul>
+ *
+ * <p>The time spent by a presence between the call to {@link #show(RichPresence)} and the moment
+ * it is handed to the wrapped instance can be queried with {@link #lastLatency()}, {@link #maxLatency()}
+ * and {@link #averageLatency()}.</p>
+ *
+ * @author Emmanuel CHEBBI
+ */
+public class DiscordRpcPublisher implements DiscordRpcLifecycle {
+
+    /** Name of the thread forwarding the calls. */
+    private static final String THREAD_NAME = "Discord Rich Presence publisher";
+
+    /** How long {@link #close()} waits for pending calls to complete. */
+    private static final long CLOSE_TIMEOUT_IN_MILLIS = 1_000;
+
+    /** The instance actually talking to Discord. */
+    private final DiscordRpcLifecycle discord;
+
+    /** Runs the calls to {@link #discord}. */
+    private final ExecutorService executor;
+
+    /** Returns the current time, in nanoseconds. */
+    private final LongSupplier nanoClock;
+
+    /** The latest presence waiting to be published, {@code null} if there is none. */
+    private final AtomicReference<PendingPresence> mailbox = new AtomicReference<>();
+
+    /** Whether a connection has been requested. */
+    private volatile boolean isConnected = false;
+
+    /** The ID of the Discord application to which a connection has been requested. */
+    private volatile String discordApplicationId;
+
+    private final AtomicLong publishedPresences = new AtomicLong();
+    private final AtomicLong totalLatencyInNanos = new AtomicLong();
+    private final AtomicLong lastLatencyInNanos = new AtomicLong();
+    private final AtomicLong maxLatencyInNanos = new AtomicLong();
+
+    /**
+     * Creates a new publisher forwarding calls to the given instance from its own thread.
+     *
+     * @param discord
+     *          The instance actually talking to Discord.
+     *          Must not be {@code null}.
+     */
+    public DiscordRpcPublisher(DiscordRpcLifecycle discord) {
+        this(discord, newPublishingExecutor());
+    }
+
+    /**
+     * Creates a new publisher forwarding calls to the given instance by using the given executor.
+     *
+     * @param discord
+     *          The instance actually talking to Discord.
+     *          Must not be {@code null}.
+     * @param executor
+     *          Runs the calls to {@code discord}. Must run its tasks sequentially, in submission order.
+     *          Is shut down when the publisher is closed.
+     *          Must not be {@code null}.
+     *
+     * @see #newPublishingExecutor()
+     */
+    public DiscordRpcPublisher(DiscordRpcLifecycle discord, ExecutorService executor) {
+        this(discord, executor, System::nanoTime);
+    }
+
+    /**
+     * Creates a new publisher forwarding calls to the given instance by using the given executor.
+     *
+     * @param discord
+     *          The instance actually talking to Discord.
+     *          Must not be {@code null}.
+     * @param executor
+     *          Runs the calls to {@code discord}. Must run its tasks sequentially, in submission order.
+     *          Must not be {@code null}.
+     * @param nanoClock
+     *          Returns the current time, in nanoseconds. Used to compute latencies.
+     *          Must not be {@code null}.
+     */
+    DiscordRpcPublisher(DiscordRpcLifecycle discord, ExecutorService executor, LongSupplier nanoClock) {
+        this.discord = requireNonNull(discord, "The Discord proxy must not be null");
+        this.executor = requireNonNull(executor, "The executor must not be null");
+        this.nanoClock = requireNonNull(nanoClock, "The clock must not be null");
+    }
+
+    /**
+     * <p>Creates an executor suitable to publish presences.</p>
+     *
+     * <p>The executor runs its tasks on a single daemon thread. It can be shared with the instances
+     * wrapped by the publisher that need to schedule tasks so that Discord is always called from the same thread.</p>
+     *
+     * @return a new executor suitable to publish presences
+     */
+    public static ScheduledExecutorService newPublishingExecutor() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, DiscordRpcPublisher::newPublishingThread);
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        return executor;
+    }
+
+    private static Thread newPublishingThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, THREAD_NAME);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    @Override
+    public void initialize(String applicationId) {
+        PendingPresence pending = mailbox.getAndSet(null);
+
+        isConnected = true;
+        discordApplicationId = applicationId;
+
+        submit(() -> {
+            publish(pending);
+            discord.initialize(applicationId);
+        });
+    }
+
+    @Override
+    public void switchTo(String applicationId) {
+        PendingPresence pending = mailbox.getAndSet(null);
+
+        isConnected = true;
+        discordApplicationId = applicationId;
+
+        submit(() -> {
+            publish(pending);
+            discord.switchTo(applicationId);
+        });
+    }
+
+    @Override
+    public boolean isConnected() {
+        return isConnected;
+    }
+
+    @Override
+    public ConnectionState connectionState() {
+        if (! isConnected) {
+            return ConnectionState.DISCONNECTED;
+        }
+        return discord.connectionState();
+    }
+
+    @Override
+    public void pollEvents() {
+        submit(discord::pollEvents);
+    }
+
+    @Override
+    public Optional<String> discordApplicationId() {
+        if (! isConnected()) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(discordApplicationId);
+    }
+
+    @Override
+    public void show(RichPresence rp) {
+        requireNonNull(rp, "The rich presence must not be null");
+        post(new PendingPresence(rp, nanoClock.getAsLong()));
+    }
+
+    @Override
+    public void showNothing() {
+        post(new PendingPresence(null, nanoClock.getAsLong()));
+    }
+
+    /** Puts the presence in the mailbox and, if it was empty, schedules its publication. */
+    private void post(PendingPresence presence) {
+        PendingPresence previous = mailbox.getAndSet(presence);
+
+        if (previous == null) {
+            submit(() -> publish(mailbox.getAndSet(null)));
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        PendingPresence pending = mailbox.getAndSet(null);
+
+        isConnected = false;
+
+        submit(() -> {
+            publish(pending);
+            discord.shutdown();
+        });
+    }
+
+    /**
+     * Shutdowns the connection to Discord, then stops the publishing thread.
+     * Waits a bit for the pending calls to complete so that Discord is properly notified.
+     */
+    @Override
+    public void close() {
+        shutdown();
+        executor.shutdown();
+
+        try {
+            executor.awaitTermination(CLOSE_TIMEOUT_IN_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Forwards the presence to the wrapped instance and records how long it waited. */
+    private void publish(PendingPresence pending) {
+        if (pending == null) {
+            return;
+        }
+        if (pending.presence == null) {
+            discord.showNothing();
+        }
+        else {
+            discord.show(pending.presence);
+        }
+        record(nanoClock.getAsLong() - pending.postedAt);
+    }
+
+    private void record(long latencyInNanos) {
+        publishedPresences.incrementAndGet();
+        totalLatencyInNanos.addAndGet(latencyInNanos);
+        lastLatencyInNanos.set(latencyInNanos);
+        maxLatencyInNanos.accumulateAndGet(latencyInNanos, Math::max);
+    }
+
+    @SuppressWarnings({"checkstyle:illegalcatch"})
+    private void submit(Runnable task) {
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                }
+                catch (Exception e) {
+                    // 'Exception' is caught on purpose: the publishing thread must survive any error
+                    Plugin.logException("An error occurred while communicating with Discord", e);
+                }
+            });
+        }
+        catch (RejectedExecutionException e) {
+            // the publisher has been closed, nothing left to do
+        }
+    }
+
+    /**
+     * Returns the number of presences forwarded to the wrapped instance so far.
+     * @return the number of presences published
+     */
+    public long publishedPresences() {
+        return publishedPresences.get();
+    }
+
+    /**
+     * Returns the time spent in the mailbox by the latest published presence.
+     * @return the latency of the latest published presence, {@link Duration#ZERO} if none has been published yet
+     */
+    public Duration lastLatency() {
+        return Duration.ofNanos(lastLatencyInNanos.get());
+    }
+
+    /**
+     * Returns the longest time spent in the mailbox by a published presence.
+     * @return the maximum latency, {@link Duration#ZERO} if no presence has been published yet
+     */
+    public Duration maxLatency() {
+        return Duration.ofNanos(maxLatencyInNanos.get());
+    }
+
+    /**
+     * Returns the average time spent in the mailbox by published presences.
+     * @return the average latency, {@link Duration#ZERO} if no presence has been published yet
+     */
+    public Duration averageLatency() {
+        long count = publishedPresences.get();
+
+        if (count == 0) {
+            return Duration.ZERO;
+        }
+        return Duration.ofNanos(totalLatencyInNanos.get() / count);
+    }
+
+    /** A presence waiting to be published. */
+    private static final class PendingPresence {
+
+        /** The presence to show, {@code null} to show nothing. */
+        private final RichPresence presence;
+
+        /** When the presence has been posted, in nanoseconds. */
+        private final long postedAt;
+
+        PendingPresence(RichPresence presence, long postedAt) {
+            this.presence = presence;
+            this.postedAt = postedAt;
+        }
+    }
+
+}
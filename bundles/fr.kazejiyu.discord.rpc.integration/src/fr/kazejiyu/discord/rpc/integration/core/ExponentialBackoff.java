@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright (C) 2018-2020 Emmanuel CHEBBI
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ ******************************************************************************/
+package fr.kazejiyu.discord.rpc.integration.core;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.function.DoubleSupplier;
+
+/**
+ * <p>Computes how long to wait before trying again an operation that keeps failing.</p>
+ *
+ * <p>The delay doubles after each failed attempt, from {@code initialDelay} up to {@code maxDelay}.
+ * A random jitter picks the actual delay between half and all of that value so that several
+ * instances failing at the same moment do not try again all together.</p>
+ *
+ * <p>This class is immutable, hence thread-safe as long as its source of randomness is.</p>
+ *
+ * @author Emmanuel CHEBBI
+ */
+public final class ExponentialBackoff {
+
+    /** The delay before the first retry, in nanoseconds. */
+    private final long initialDelayInNanos;
+
+    /** The longest delay between two attempts, in nanoseconds. */
+    private final long maxDelayInNanos;
+
+    /** Returns random numbers between 0 (inclusive) and 1 (exclusive). */
+    private final DoubleSupplier random;
+
+    /**
+     * Creates a new backoff policy.
+     *
+     * @param initialDelay
+     *          The delay before the first retry. Must be strictly positive.
+     * @param maxDelay
+     *          The longest delay between two attempts. Must not be shorter than {@code initialDelay}.
+     * @param random
+     *          Returns random numbers between 0 (inclusive) and 1 (exclusive), used to compute the jitter.
+     *          Must not be {@code null}.
+     */
+    public ExponentialBackoff(Duration initialDelay, Duration maxDelay, DoubleSupplier random) {
+        requireNonNull(initialDelay, "The initial delay must not be null");
+        requireNonNull(maxDelay, "The maximum delay must not be null");
+
+        if (initialDelay.isZero() || initialDelay.isNegative()) {
+            throw new IllegalArgumentException("The initial delay must be strictly positive");
+        }
+        if (maxDelay.compareTo(initialDelay) < 0) {
+            throw new IllegalArgumentException("The maximum delay must not be shorter than the initial delay");
+        }
+        this.initialDelayInNanos = initialDelay.toNanos();
+        this.maxDelayInNanos = maxDelay.toNanos();
+        this.random = requireNonNull(random, "The source of randomness must not be null");
+    }
+
+    /**
+     * Returns how long to wait after the given number of failed attempts.
+     *
+     * @param failedAttempts
+     *          The number of attempts that failed in a row. Must be strictly positive.
+     *
+     * @return how long to wait before the next attempt
+     */
+    public Duration delayAfter(int failedAttempts) {
+        if (failedAttempts <= 0) {
+            throw new IllegalArgumentException("The number of failed attempts must be strictly positive");
+        }
+        long ceiling = initialDelayInNanos;
+
+        for (int i = 1; i < failedAttempts && ceiling < maxDelayInNanos; ++i) {
+            ceiling *= 2;
+        }
+        ceiling = Math.min(ceiling, maxDelayInNanos);
+
+        long half = ceiling / 2;
+        return Duration.ofNanos(half + (long) (random.getAsDouble() * (ceiling - half)));
+    }
+
+}
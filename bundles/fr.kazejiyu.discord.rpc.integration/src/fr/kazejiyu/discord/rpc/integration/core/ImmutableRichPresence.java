@@ -9,13 +9,12 @@
  ******************************************************************************/
 package fr.kazejiyu.discord.rpc.integration.core;
 
-import static fr.kazejiyu.discord.rpc.integration.languages.Language.UNKNOWN;
-
 import java.util.Optional;
 
 import org.eclipse.core.resources.IProject;
 
 import fr.kazejiyu.discord.rpc.integration.languages.Language;
+import fr.kazejiyu.discord.rpc.integration.languages.LanguageDescriptor;
 
 /**
  * <p>Defines the elements to show in Discord.</p>
@@ -30,24 +29,39 @@ public final class ImmutableRichPresence implements RichPresence {
     
     private final long startTimestamp;
     
-    private final Language language;
+    private final LanguageDescriptor language;
     
     private final String largeImageText;
     
     private final IProject project;
+    
+    // The Optionals are built once so that getters do not allocate anything,
+    // presences being read each time they are sent to Discord
+    
+    private final Optional<String> optionalDetails;
+    
+    private final Optional<String> optionalState;
+    
+    private final Optional<Long> optionalStartTimestamp;
+    
+    private final Optional<Language> optionalLanguage;
+    
+    private final Optional<LanguageDescriptor> optionalLanguageDescriptor;
+    
+    private final Optional<String> optionalLargeImageText;
 
     /**
      * Creates a new instance that will show nothing on Discord.
      */
     public ImmutableRichPresence() {
-        this("", "", -1L, UNKNOWN, "", null);
+        this("", "", -1L, LanguageDescriptor.UNKNOWN, "", null);
     }
     
     /**
      * Kept private because there are too many parameters.
      * Users should use with* methods instead. 
      */
-    private ImmutableRichPresence(String details, String state, long startTimestamp, Language language,
+    private ImmutableRichPresence(String details, String state, long startTimestamp, LanguageDescriptor language,
             String largeImageText, IProject project) {
         this.details = details;
         this.state = state;
@@ -55,15 +69,19 @@ public final class ImmutableRichPresence implements RichPresence {
         this.language = language;
         this.largeImageText = largeImageText;
         this.project = project;
+        
+        this.optionalDetails = details.isEmpty() ? Optional.empty() : Optional.of(details);
+        this.optionalState = state.isEmpty() ? Optional.empty() : Optional.of(state);
+        this.optionalStartTimestamp = startTimestamp < 0 ? Optional.empty() : Optional.of(startTimestamp);
+        this.optionalLanguage = language.isUnknown() ? Optional.empty() : language.builtIn();
+        this.optionalLanguageDescriptor = language.isUnknown() ? Optional.empty() : Optional.of(language);
+        this.optionalLargeImageText = largeImageText.isEmpty() ? Optional.empty() : Optional.of(largeImageText);
     }
 
 
     @Override
     public Optional<String> getDetails() {
-        if (details.isEmpty()) {
-            return Optional.empty();
-        }
-        return Optional.of(details);
+        return optionalDetails;
     }
 
     /**
@@ -90,10 +108,7 @@ public final class ImmutableRichPresence implements RichPresence {
 
     @Override
     public Optional<String> getState() {
-        if (state.isEmpty()) {
-            return Optional.empty();
-        }
-        return Optional.of(state);
+        return optionalState;
     }
 
     /**
@@ -120,10 +135,7 @@ public final class ImmutableRichPresence implements RichPresence {
     
     @Override
     public Optional<Long> getStartTimestamp() {
-        if (startTimestamp < 0) {
-            return Optional.empty();
-        }
-        return Optional.of(startTimestamp);
+        return optionalStartTimestamp;
     }
 
     /**
@@ -166,10 +178,12 @@ public final class ImmutableRichPresence implements RichPresence {
     
     @Override
     public Optional<Language> getLanguage() {
-        if (language == UNKNOWN) {
-            return Optional.empty();
-        }
-        return Optional.of(language);
+        return optionalLanguage;
+    }
+    
+    @Override
+    public Optional<LanguageDescriptor> getLanguageDescriptor() {
+        return optionalLanguageDescriptor;
     }
 
     /**
@@ -186,11 +200,29 @@ public final class ImmutableRichPresence implements RichPresence {
      * @return a new presence specifying a different timestamp
      */
     public ImmutableRichPresence withLanguage(Language language) {
+        return withLanguage(language == null ? null : LanguageDescriptor.of(language));
+    }
+
+    /**
+     * Creates a new presence similar to this one but with a different language.<br>
+     * <br>
+     * The language defines the large icon to show in Discord. Unlike {@link #withLanguage(Language)},
+     * the language may have been contributed by another plug-in.<br>
+     * <br>
+     * If the argument is either null or {@link LanguageDescriptor#UNKNOWN}, it is considered as
+     * no language and no icon will be shown in Discord.
+     * 
+     * @param language
+     *             The language of the active file.
+     * 
+     * @return a new presence specifying a different language
+     */
+    public ImmutableRichPresence withLanguage(LanguageDescriptor language) {
         return new ImmutableRichPresence(
             details,
             state,
             startTimestamp,
-            language == null ? UNKNOWN : language,
+            language == null ? LanguageDescriptor.UNKNOWN : language,
             largeImageText,
             project
         );
@@ -198,10 +230,7 @@ public final class ImmutableRichPresence implements RichPresence {
     
     @Override
     public Optional<String> getLargeImageText() {
-        if (largeImageText.isEmpty()) {
-            return Optional.empty();
-        }
-        return Optional.of(largeImageText);
+        return optionalLargeImageText;
     }
 
     /**
@@ -283,7 +312,7 @@ public final class ImmutableRichPresence implements RichPresence {
         else if (!details.equals(other.details)) {
             return false;
         }
-        if (language != other.language) {
+        if (!language.equals(other.language)) {
             return false;
         }
         if (largeImageText == null) {
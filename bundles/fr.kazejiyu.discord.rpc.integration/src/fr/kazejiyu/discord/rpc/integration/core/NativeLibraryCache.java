@@ -0,0 +1,272 @@
+/*******************************************************************************
+ * Copyright (C) 2018-2020 Emmanuel CHEBBI
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ ******************************************************************************/
+package fr.kazejiyu.discord.rpc.integration.core;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.jna.NativeLibrary;
+import com.sun.jna.Platform;
+
+import club.minnced.discord.rpc.DiscordRPC;
+
+/**
+ * <p>Keeps a copy of the native discord-rpc library in a directory owned by the plug-in.</p>
+ *
+ * <p>By default, JNA extracts the library from its jar into a new temporary file each time it is loaded,
+ * that is on every start of Eclipse IDE. This class extracts it once, into a sub-directory named after
+ * the SHA-256 of the library, and tells JNA to load it from there.</p>
+ *
+ * <p>The hashes of the libraries shipped with the plug-in are known in advance. Hence, on later starts,
+ * the copy is only checked against the expected hash and the jar is not even opened. A copy that does not
+ * match is extracted again.</p>
+ *
+ * @author Emmanuel CHEBBI
+ */
+public final class NativeLibraryCache {
+
+    /** The name of the native library, as used by {@link DiscordRPC}. */
+    static final String LIBRARY_NAME = "discord-rpc";
+
+    /** The SHA-256 of the libraries shipped in discord-rpc-release-v3.4.0.jar, by resource path. */
+    private static final Map<String, String> SHIPPED_LIBRARIES;
+
+    static {
+        Map<String, String> libraries = new HashMap<>();
+        libraries.put("darwin/libdiscord-rpc.dylib", "b10996f734b278987a146602150c39df1798147bdb6d8c76d496b1e4bfb88076");
+        libraries.put("linux-x86-64/libdiscord-rpc.so", "fc5fd6b8b7951b43bec9c4b6baa53a2f5779ef1588b22768b6c5cc39fc5e7a4a");
+        libraries.put("win32-x86-64/discord-rpc.dll", "5cc2e504800cf4ed2f4781364f661ea22349658ddc391b5d54195e573109d87b");
+        libraries.put("win32-x86/discord-rpc.dll", "ef7404768c7183bdce9e46666a121a89b77be40060d0aea4d67804cf0e5ce6d8");
+        SHIPPED_LIBRARIES = Collections.unmodifiableMap(libraries);
+    }
+
+    private static final int BUFFER_SIZE = 8192;
+
+    /** The directory containing one sub-directory per version of the library. */
+    private final Path cacheDirectory;
+
+    /** The name of the library file, e.g. {@code libdiscord-rpc.so}. */
+    private final String fileName;
+
+    /** The expected SHA-256 of the library, as an hexadecimal string. */
+    private final String sha256;
+
+    /** Opens the library shipped with the plug-in. */
+    private final LibrarySource source;
+
+    private final AtomicLong extractions = new AtomicLong();
+
+    /**
+     * Opens the library shipped with the plug-in.
+     */
+    @FunctionalInterface
+    interface LibrarySource {
+
+        /**
+         * Opens the library.
+         * @return a stream reading the library, or {@code null} if it cannot be found
+         * @throws IOException if the library cannot be opened
+         */
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * Creates a cache for the library shipped for the current platform.
+     *
+     * @param cacheDirectory
+     *          The directory where the library is extracted.
+     *          Must not be {@code null}.
+     *
+     * @return the cache, or nothing if no library is shipped for the current platform
+     */
+    public static Optional<NativeLibraryCache> forCurrentPlatform(Path cacheDirectory) {
+        requireNonNull(cacheDirectory, "The cache directory must not be null");
+
+        String fileName = System.mapLibraryName(LIBRARY_NAME);
+        String resource = Platform.RESOURCE_PREFIX + "/" + fileName;
+        String sha256 = SHIPPED_LIBRARIES.get(resource);
+
+        if (sha256 == null) {
+            return Optional.empty();
+        }
+        ClassLoader classLoader = DiscordRPC.class.getClassLoader();
+        return Optional.of(new NativeLibraryCache(cacheDirectory, fileName, sha256, () -> classLoader.getResourceAsStream(resource)));
+    }
+
+    /**
+     * Creates a new cache.
+     *
+     * @param cacheDirectory
+     *          The directory where the library is extracted.
+     *          Must not be {@code null}.
+     * @param fileName
+     *          The name of the library file.
+     *          Must not be {@code null}.
+     * @param sha256
+     *          The expected SHA-256 of the library, as an hexadecimal string.
+     *          Must not be {@code null}.
+     * @param source
+     *          Opens the library shipped with the plug-in.
+     *          Must not be {@code null}.
+     */
+    NativeLibraryCache(Path cacheDirectory, String fileName, String sha256, LibrarySource source) {
+        this.cacheDirectory = requireNonNull(cacheDirectory, "The cache directory must not be null");
+        this.fileName = requireNonNull(fileName, "The file name must not be null");
+        this.sha256 = requireNonNull(sha256, "The hash of the library must not be null");
+        this.source = requireNonNull(source, "The source of the library must not be null");
+    }
+
+    /**
+     * Returns the path of the cached copy of the library.
+     * @return the path of the cached copy, which may not exist yet
+     */
+    public Path library() {
+        return cacheDirectory.resolve(sha256).resolve(fileName);
+    }
+
+    /**
+     * <p>Ensures that the cached copy of the library exists and is intact, extracting it if necessary.</p>
+     *
+     * @return the directory containing the library
+     *
+     * @throws IOException if the library cannot be extracted or if the extracted library
+     *                     does not have the expected hash
+     */
+    public Path install() throws IOException {
+        Path library = library();
+
+        if (Files.isRegularFile(library) && sha256.equals(sha256Of(library))) {
+            return library.getParent();
+        }
+        extract(library);
+        extractions.incrementAndGet();
+
+        return library.getParent();
+    }
+
+    /**
+     * <p>Loads the cached copy of the library.</p>
+     *
+     * <p>Must be called after {@link #install()} and before the library is used by {@link DiscordRPC}
+     * for the first time, so that JNA looks for the library in the cache instead of extracting it again.</p>
+     *
+     * @return the file from which the library has been loaded
+     *
+     * @throws UnsatisfiedLinkError if the library cannot be loaded
+     */
+    public Path load() {
+        NativeLibrary.addSearchPath(LIBRARY_NAME, library().getParent().toString());
+        return NativeLibrary.getInstance(LIBRARY_NAME, DiscordRPC.class.getClassLoader()).getFile().toPath();
+    }
+
+    private void extract(Path library) throws IOException {
+        Files.createDirectories(library.getParent());
+        Path temporary = Files.createTempFile(library.getParent(), fileName, ".tmp");
+
+        try {
+            String actualSha256 = copy(temporary);
+
+            if (! sha256.equals(actualSha256)) {
+                throw new IOException("The extracted " + fileName + " has an unexpected SHA-256: " + actualSha256);
+            }
+            move(temporary, library);
+        }
+        finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /** Copies the library to the given file and returns its SHA-256. */
+    private String copy(Path target) throws IOException {
+        MessageDigest digest = newSha256Digest();
+
+        try (InputStream in = source.open()) {
+            if (in == null) {
+                throw new IOException("Unable to find " + fileName + " among the libraries shipped with the plug-in");
+            }
+            try (OutputStream out = Files.newOutputStream(target)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+
+                while ((read = in.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                    out.write(buffer, 0, read);
+                }
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static String sha256Of(Path file) throws IOException {
+        MessageDigest digest = newSha256Digest();
+
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    private static MessageDigest newSha256Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16))
+               .append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Returns the number of times the library has been extracted so far.
+     * @return the number of extractions
+     */
+    public long extractions() {
+        return extractions.get();
+    }
+
+}
@@ -0,0 +1,213 @@
+/*******************************************************************************
+ * Copyright (C) 2018-2020 Emmanuel CHEBBI
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ ******************************************************************************/
+package fr.kazejiyu.discord.rpc.integration.core;
+
+import static fr.kazejiyu.discord.rpc.integration.core.DiscordRpcProxy.ECLIPSE_LOGO_KEY;
+import static fr.kazejiyu.discord.rpc.integration.core.DiscordRpcProxy.ECLIPSE_LOGO_TEXT;
+import static java.util.Objects.requireNonNull;
+
+import java.nio.ByteBuffer;
+import java.util.Optional;
+
+import com.sun.jna.Memory;
+import com.sun.jna.Pointer;
+
+import club.minnced.discord.rpc.DiscordRichPresence;
+import fr.kazejiyu.discord.rpc.integration.languages.LanguageDescriptor;
+
+/**
+ * <p>Writes {@link RichPresence}s into a {@code DiscordRichPresence} struct allocated once in native memory.</p>
+ *
+ * <p>Each text field has its own preallocated native buffer, in which the text is encoded in UTF-8 and truncated
+ * to the length accepted by Discord. A buffer is only rewritten when the text it holds changes and the constant
+ * small image fields are encoded once for all. As a consequence, {@link #encode(RichPresence)} does not allocate
+ * anything on the Java heap.</p>
+ *
+ * <p>The struct is overwritten by each call: this class is not thread-safe.</p>
+ *
+ * @author Emmanuel CHEBBI
+ *
+ * @see DirectDiscordRpc#Discord_UpdatePresence(Pointer)
+ */
+final class NativeRichPresence {
+
+    /** The maximum length of a text shown by Discord, in bytes. */
+    static final int MAX_TEXT_LENGTH = 128;
+
+    /** The maximum length of an image key, in bytes. */
+    static final int MAX_KEY_LENGTH = 32;
+
+    /** The struct handed to the native library. */
+    private final Memory struct;
+
+    private final long startTimestampOffset;
+
+    private final NativeString state;
+    private final NativeString details;
+    private final NativeString largeImageKey;
+    private final NativeString largeImageText;
+
+    /** Kept so that their buffers, pointed to by the struct, are not freed. */
+    private final NativeString smallImageKey;
+    private final NativeString smallImageText;
+
+    /** Creates a new struct showing nothing but the Eclipse IDE logo. */
+    NativeRichPresence() {
+        Layout layout = new Layout();
+
+        struct = new Memory(layout.size());
+        struct.clear();
+
+        state = new NativeString(layout.offsetOf("state"), MAX_TEXT_LENGTH);
+        details = new NativeString(layout.offsetOf("details"), MAX_TEXT_LENGTH);
+        largeImageKey = new NativeString(layout.offsetOf("largeImageKey"), MAX_KEY_LENGTH);
+        largeImageText = new NativeString(layout.offsetOf("largeImageText"), MAX_TEXT_LENGTH);
+        startTimestampOffset = layout.offsetOf("startTimestamp");
+
+        // The small image never changes
+        smallImageKey = new NativeString(layout.offsetOf("smallImageKey"), MAX_KEY_LENGTH);
+        smallImageText = new NativeString(layout.offsetOf("smallImageText"), MAX_TEXT_LENGTH);
+        smallImageKey.write(ECLIPSE_LOGO_KEY);
+        smallImageText.write(ECLIPSE_LOGO_TEXT);
+    }
+
+    /**
+     * Writes the given presence into the struct.
+     *
+     * @param rp
+     *          The presence to write.
+     *          Must not be {@code null}.
+     *
+     * @return a pointer to the struct, valid until the next call
+     */
+    Pointer encode(RichPresence rp) {
+        requireNonNull(rp, "The rich presence must not be null");
+
+        state.write(textOf(rp.getState()));
+        details.write(textOf(rp.getDetails()));
+        largeImageText.write(textOf(rp.getLargeImageText()));
+
+        Optional<LanguageDescriptor> language = rp.getLanguageDescriptor();
+        largeImageKey.write(language.isPresent() ? language.get().getKey() : null);
+
+        Optional<Long> startTimestamp = rp.getStartTimestamp();
+        struct.setLong(startTimestampOffset, startTimestamp.isPresent() ? startTimestamp.get().longValue() : 0L);
+
+        return struct;
+    }
+
+    private static String textOf(Optional<String> text) {
+        return text.isPresent() ? text.get() : null;
+    }
+
+    /** A text field of the struct, pointing to its own native buffer. */
+    private final class NativeString {
+
+        /** The offset of the field in the struct. */
+        private final long offset;
+
+        /** The maximum length of the text, in bytes. */
+        private final int maxLength;
+
+        /** Holds the text encoded in UTF-8, followed by a NUL character. */
+        private final Memory buffer;
+
+        /** A view of {@link #buffer}. */
+        private final ByteBuffer bytes;
+
+        /** The text currently held by the buffer, {@code null} if the field is unset. */
+        private String text;
+
+        NativeString(long offset, int maxLength) {
+            this.offset = offset;
+            this.maxLength = maxLength;
+            this.buffer = new Memory(maxLength + 1L);
+            this.bytes = buffer.getByteBuffer(0, maxLength + 1L);
+        }
+
+        /** Makes the field point to the given text, or to nothing if it is {@code null} or empty. */
+        void write(String newText) {
+            if (newText == null || newText.isEmpty()) {
+                text = null;
+                struct.setPointer(offset, null);
+                return;
+            }
+            if (! newText.equals(text)) {
+                int length = encodeUtf8(newText, bytes, maxLength);
+                bytes.put(length, (byte) 0);
+                text = newText;
+            }
+            struct.setPointer(offset, buffer);
+        }
+    }
+
+    /**
+     * Encodes the given text in UTF-8 at the beginning of the given buffer, without allocating anything.
+     * The text is truncated to {@code maxLength} bytes without splitting any character.
+     * Unpaired surrogates are replaced by '?'.
+     *
+     * @return the number of bytes written
+     */
+    static int encodeUtf8(String text, ByteBuffer out, int maxLength) {
+        int position = 0;
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+
+            if (c < 0x80) {
+                if (position + 1 > maxLength) {
+                    break;
+                }
+                out.put(position++, (byte) c);
+            }
+            else if (c < 0x800) {
+                if (position + 2 > maxLength) {
+                    break;
+                }
+                out.put(position++, (byte) (0xC0 | (c >> 6)));
+                out.put(position++, (byte) (0x80 | (c & 0x3F)));
+            }
+            else if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+                if (position + 4 > maxLength) {
+                    break;
+                }
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                out.put(position++, (byte) (0xF0 | (codePoint >> 18)));
+                out.put(position++, (byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                out.put(position++, (byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                out.put(position++, (byte) (0x80 | (codePoint & 0x3F)));
+            }
+            else if (Character.isSurrogate(c)) {
+                if (position + 1 > maxLength) {
+                    break;
+                }
+                out.put(position++, (byte) '?');
+            }
+            else {
+                if (position + 3 > maxLength) {
+                    break;
+                }
+                out.put(position++, (byte) (0xE0 | (c >> 12)));
+                out.put(position++, (byte) (0x80 | ((c >> 6) & 0x3F)));
+                out.put(position++, (byte) (0x80 | (c & 0x3F)));
+            }
+        }
+        return position;
+    }
+
+    /** Gives access to the layout of the struct, as computed by JNA for the current platform. */
+    private static final class Layout extends DiscordRichPresence {
+
+        long offsetOf(String field) {
+            return fieldOffset(field);
+        }
+    }
+
+}
@@ -16,6 +16,7 @@ import java.util.Optional;
 import org.eclipse.core.resources.IProject;
 
 import fr.kazejiyu.discord.rpc.integration.languages.Language;
+import fr.kazejiyu.discord.rpc.integration.languages.LanguageDescriptor;
 import fr.kazejiyu.discord.rpc.integration.settings.UserPreferences;
 
 /**
@@ -63,6 +64,14 @@ public final class PreferredRichPresence implements RichPresence {
         return presence.getLanguage();
     }
     
+    @Override
+    public Optional<LanguageDescriptor> getLanguageDescriptor() {
+        if (! preferences.showsLanguageIcon()) {
+            return Optional.empty();
+        }
+        return presence.getLanguageDescriptor();
+    }
+    
     @Override
     public Optional<Long> getStartTimestamp() {
         if (! preferences.showsElapsedTime()) {
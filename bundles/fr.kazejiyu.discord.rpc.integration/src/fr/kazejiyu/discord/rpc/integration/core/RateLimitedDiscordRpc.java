@@ -0,0 +1,200 @@
+/*******************************************************************************
+ * Copyright (C) 2018-2020 Emmanuel CHEBBI
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ ******************************************************************************/
+package fr.kazejiyu.discord.rpc.integration.core;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Forwards calls to another {@link DiscordRpcLifecycle} while limiting the number of presences sent to Discord.</p>
+ *
+ * <p>Discord silently drops the presences sent too often (roughly more than 5 every 20 seconds).
+ * When the limit is reached this class keeps only the most recent presence and sends it as soon as
+ * the limit allows it, so that Discord always ends up showing the last presence.</p>
+ *
+ * @author Emmanuel CHEBBI
+ *
+ * @see TokenBucket
+ */
+public class RateLimitedDiscordRpc implements DiscordRpcLifecycle {
+
+    /** The number of presences Discord accepts per {@link #DEFAULT_PERIOD}. */
+    public static final int DEFAULT_CAPACITY = 5;
+
+    /** The period during which Discord accepts {@link #DEFAULT_CAPACITY} presences. */
+    public static final Duration DEFAULT_PERIOD = Duration.ofSeconds(20);
+
+    /** The instance actually talking to Discord. */
+    private final DiscordRpcLifecycle discord;
+
+    /** Decides whether a presence can be sent right away. */
+    private final TokenBucket bucket;
+
+    /** Sends the pending presence once the limit allows it. */
+    private final ScheduledExecutorService scheduler;
+
+    /** Sends the latest presence that has been held back, {@code null} if there is none. */
+    private Runnable pending;
+
+    /** The scheduled sending of {@link #pending}, {@code null} if there is none. */
+    private ScheduledFuture<?> flush;
+
+    private final AtomicLong deferredUpdates = new AtomicLong();
+
+    /**
+     * Creates a new instance sending at most {@link #DEFAULT_CAPACITY} presences every {@link #DEFAULT_PERIOD}.
+     *
+     * @param discord
+     *          The instance actually talking to Discord.
+     *          Must not be {@code null}.
+     * @param scheduler
+     *          Used to send held back presences once the limit allows it.
+     *          Should run its tasks on the thread calling this instance.
+     *          Must not be {@code null}.
+     */
+    public RateLimitedDiscordRpc(DiscordRpcLifecycle discord, ScheduledExecutorService scheduler) {
+        this(discord, scheduler, new TokenBucket(DEFAULT_CAPACITY, DEFAULT_PERIOD, System::nanoTime));
+    }
+
+    /**
+     * Creates a new instance sending presences according to the given bucket.
+     *
+     * @param discord
+     *          The instance actually talking to Discord.
+     *          Must not be {@code null}.
+     * @param scheduler
+     *          Used to send held back presences once the limit allows it.
+     *          Should run its tasks on the thread calling this instance.
+     *          Must not be {@code null}.
+     * @param bucket
+     *          Decides whether a presence can be sent right away.
+     *          Must not be {@code null}.
+     */
+    public RateLimitedDiscordRpc(DiscordRpcLifecycle discord, ScheduledExecutorService scheduler, TokenBucket bucket) {
+        this.discord = requireNonNull(discord, "The Discord proxy must not be null");
+        this.scheduler = requireNonNull(scheduler, "The scheduler must not be null");
+        this.bucket = requireNonNull(bucket, "The token bucket must not be null");
+    }
+
+    @Override
+    public synchronized void initialize(String applicationId) {
+        discardPending();
+        discord.initialize(applicationId);
+    }
+
+    @Override
+    public boolean isConnected() {
+        return discord.isConnected();
+    }
+
+    @Override
+    public ConnectionState connectionState() {
+        return discord.connectionState();
+    }
+
+    @Override
+    public synchronized void pollEvents() {
+        discord.pollEvents();
+    }
+
+    @Override
+    public Optional<String> discordApplicationId() {
+        return discord.discordApplicationId();
+    }
+
+    @Override
+    public void show(RichPresence rp) {
+        requireNonNull(rp, "The rich presence must not be null");
+        send(() -> discord.show(rp));
+    }
+
+    @Override
+    public void showNothing() {
+        send(discord::showNothing);
+    }
+
+    /** Sends the presence right away if the limit allows it, holds it back otherwise. */
+    private synchronized void send(Runnable presence) {
+        if (pending != null) {
+            // a flush is already scheduled, it will send this presence instead
+            pending = presence;
+            deferredUpdates.incrementAndGet();
+            return;
+        }
+        if (bucket.tryConsume()) {
+            presence.run();
+            return;
+        }
+        pending = presence;
+        deferredUpdates.incrementAndGet();
+        scheduleFlush();
+    }
+
+    private void scheduleFlush() {
+        long delay = bucket.timeUntilNextToken().toNanos();
+
+        try {
+            flush = scheduler.schedule(this::flush, delay, TimeUnit.NANOSECONDS);
+        }
+        catch (RejectedExecutionException e) {
+            // the scheduler has been shut down, there is no point in keeping the presence
+            pending = null;
+            flush = null;
+        }
+    }
+
+    /** Sends the held back presence, or waits a bit more if the limit still does not allow it. */
+    private synchronized void flush() {
+        if (pending == null) {
+            return;
+        }
+        if (! bucket.tryConsume()) {
+            scheduleFlush();
+            return;
+        }
+        Runnable presence = pending;
+        pending = null;
+        flush = null;
+        presence.run();
+    }
+
+    private void discardPending() {
+        pending = null;
+
+        if (flush != null) {
+            flush.cancel(false);
+            flush = null;
+        }
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        discardPending();
+        discord.shutdown();
+    }
+
+    /**
+     * Returns the number of presences that have been held back because of the limit so far.
+     * Includes those that have been replaced by a more recent presence before being sent.
+     *
+     * @return the number of presences held back
+     */
+    public long deferredUpdates() {
+        return deferredUpdates.get();
+    }
+
+}
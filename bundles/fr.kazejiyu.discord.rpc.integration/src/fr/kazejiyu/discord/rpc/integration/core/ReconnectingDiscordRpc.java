@@ -0,0 +1,337 @@
+/*******************************************************************************
+ * Copyright (C) 2018-2020 Emmanuel CHEBBI
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ ******************************************************************************/
+package fr.kazejiyu.discord.rpc.integration.core;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * <p>Forwards calls to another {@link DiscordRpcLifecycle} and keeps the connection to Discord alive.</p>
+ *
+ * <p>Once a connection has been requested with {@link #initialize(String)}, this class supervises
+ * the wrapped instance from a background scheduler and goes through the following {@link ConnectionState}s:</p>
+ * <ul>
+ *     <li>{@link ConnectionState#CONNECTING CONNECTING} while waiting for Discord to acknowledge the connection,</li>
+ *     <li>{@link ConnectionState#READY READY} once it did; the connection is then checked from time to time,</li>
+ *     <li>{@link ConnectionState#BACKING_OFF BACKING_OFF} when the connection failed or has been lost;
+ *     another attempt is made after a delay growing exponentially (see {@link ExponentialBackoff}),</li>
+ *     <li>{@link ConnectionState#DISCONNECTED DISCONNECTED} once {@link #shutdown()} has been called.</li>
+ * </ul>
+ *
+ * <p>Presences shown while the connection is not ready are not forwarded. Only the latest one is kept,
+ * and is sent as soon as the connection becomes ready. That way, Discord shows the right presence
+ * even when it is started after Eclipse IDE, or restarted while Eclipse IDE is running.</p>
+ *
+ * @author Emmanuel CHEBBI
+ */
+public class ReconnectingDiscordRpc implements DiscordRpcLifecycle {
+
+    /** The delay before the first reconnection attempt. */
+    public static final Duration DEFAULT_INITIAL_DELAY = Duration.ofSeconds(2);
+
+    /** The longest delay between two reconnection attempts. */
+    public static final Duration DEFAULT_MAX_DELAY = Duration.ofMinutes(2);
+
+    /** How long Discord has to acknowledge a connection before it is considered failed. */
+    static final Duration HANDSHAKE_TIMEOUT = Duration.ofSeconds(10);
+
+    /** How often a ready connection is checked. */
+    static final Duration HEALTH_CHECK_PERIOD = Duration.ofSeconds(15);
+
+    /** The delay before checking a pending connection for the first time, doubled after each check. */
+    private static final long FIRST_POLL_DELAY_IN_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    /** The longest delay between two checks of a pending connection. */
+    private static final long MAX_POLL_DELAY_IN_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /** The instance actually talking to Discord. */
+    private final DiscordRpcLifecycle discord;
+
+    /** Runs the checks and the reconnection attempts. */
+    private final ScheduledExecutorService scheduler;
+
+    /** Computes the delay between two reconnection attempts. */
+    private final ExponentialBackoff backoff;
+
+    /** Returns the current time, in nanoseconds. */
+    private final LongSupplier nanoClock;
+
+    /** The current state of the connection. */
+    private final AtomicReference<ConnectionState> state = new AtomicReference<>(ConnectionState.DISCONNECTED);
+
+    /** The ID of the Discord application to connect to, {@code null} if no connection is requested. */
+    private volatile String applicationId;
+
+    /** Sends the latest presence shown while the connection was not ready, {@code null} if there is none. */
+    private Runnable pending;
+
+    /** Sends the latest presence forwarded to the wrapped instance, {@code null} if there is none. */
+    private Runnable lastSent;
+
+    /** The next scheduled check or reconnection attempt, {@code null} if there is none. */
+    private ScheduledFuture<?> nextTask;
+
+    /** The number of connection attempts that failed in a row. */
+    private int failedAttempts;
+
+    /** When the current connection attempt started, in nanoseconds. */
+    private long connectingSince;
+
+    /** The delay before checking the pending connection again, in nanoseconds. */
+    private long pollDelayInNanos;
+
+    private final AtomicLong reconnectionAttempts = new AtomicLong();
+
+    /**
+     * Creates a new instance retrying to connect with a delay between {@link #DEFAULT_INITIAL_DELAY}
+     * and {@link #DEFAULT_MAX_DELAY}.
+     *
+     * @param discord
+     *          The instance actually talking to Discord.
+     *          Must not be {@code null}.
+     * @param scheduler
+     *          Runs the checks and the reconnection attempts.
+     *          Should run its tasks on the thread calling this instance.
+     *          Must not be {@code null}.
+     */
+    public ReconnectingDiscordRpc(DiscordRpcLifecycle discord, ScheduledExecutorService scheduler) {
+        this(discord, scheduler, new ExponentialBackoff(DEFAULT_INITIAL_DELAY, DEFAULT_MAX_DELAY, Math::random));
+    }
+
+    /**
+     * Creates a new instance retrying to connect according to the given policy.
+     *
+     * @param discord
+     *          The instance actually talking to Discord.
+     *          Must not be {@code null}.
+     * @param scheduler
+     *          Runs the checks and the reconnection attempts.
+     *          Should run its tasks on the thread calling this instance.
+     *          Must not be {@code null}.
+     * @param backoff
+     *          Computes the delay between two reconnection attempts.
+     *          Must not be {@code null}.
+     */
+    public ReconnectingDiscordRpc(DiscordRpcLifecycle discord, ScheduledExecutorService scheduler, ExponentialBackoff backoff) {
+        this(discord, scheduler, backoff, System::nanoTime);
+    }
+
+    /**
+     * Creates a new instance retrying to connect according to the given policy.
+     *
+     * @param discord
+     *          The instance actually talking to Discord.
+     *          Must not be {@code null}.
+     * @param scheduler
+     *          Runs the checks and the reconnection attempts.
+     *          Must not be {@code null}.
+     * @param backoff
+     *          Computes the delay between two reconnection attempts.
+     *          Must not be {@code null}.
+     * @param nanoClock
+     *          Returns the current time, in nanoseconds. Used to detect handshake timeouts.
+     *          Must not be {@code null}.
+     */
+    ReconnectingDiscordRpc(DiscordRpcLifecycle discord, ScheduledExecutorService scheduler, ExponentialBackoff backoff, LongSupplier nanoClock) {
+        this.discord = requireNonNull(discord, "The Discord proxy must not be null");
+        this.scheduler = requireNonNull(scheduler, "The scheduler must not be null");
+        this.backoff = requireNonNull(backoff, "The backoff policy must not be null");
+        this.nanoClock = requireNonNull(nanoClock, "The clock must not be null");
+    }
+
+    @Override
+    public synchronized void initialize(String applicationId) {
+        requireNonNull(applicationId, "The application ID must not be null");
+
+        cancelNextTask();
+        this.applicationId = applicationId;
+        this.failedAttempts = 0;
+        this.pending = null;
+        this.lastSent = null;
+
+        connect();
+    }
+
+    @Override
+    public boolean isConnected() {
+        return state.get() == ConnectionState.READY;
+    }
+
+    @Override
+    public ConnectionState connectionState() {
+        return state.get();
+    }
+
+    @Override
+    public Optional<String> discordApplicationId() {
+        if (! isConnected()) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(applicationId);
+    }
+
+    @Override
+    public void show(RichPresence rp) {
+        requireNonNull(rp, "The rich presence must not be null");
+        send(() -> discord.show(rp));
+    }
+
+    @Override
+    public void showNothing() {
+        send(discord::showNothing);
+    }
+
+    /** Sends the presence right away if the connection is ready, keeps it for later otherwise. */
+    private synchronized void send(Runnable presence) {
+        if (state.get() != ConnectionState.READY) {
+            pending = presence;
+            return;
+        }
+        presence.run();
+        lastSent = presence;
+
+        if (discord.connectionState() != ConnectionState.READY) {
+            // the connection has been lost meanwhile, the presence may not have reached Discord
+            cancelNextTask();
+            check();
+        }
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        cancelNextTask();
+        applicationId = null;
+        pending = null;
+        lastSent = null;
+        state.set(ConnectionState.DISCONNECTED);
+
+        discord.shutdown();
+    }
+
+    /** Asks the wrapped instance to connect, then waits for Discord to acknowledge the connection. */
+    private void connect() {
+        state.set(ConnectionState.CONNECTING);
+        connectingSince = nanoClock.getAsLong();
+        pollDelayInNanos = FIRST_POLL_DELAY_IN_NANOS;
+
+        discord.initialize(applicationId);
+        check();
+    }
+
+    /** Updates the state according to the one of the wrapped instance. */
+    private synchronized void check() {
+        nextTask = null;
+
+        if (applicationId == null) {
+            return;
+        }
+        discord.pollEvents();
+        ConnectionState current = discord.connectionState();
+
+        if (state.get() == ConnectionState.READY && current != ConnectionState.READY && pending == null) {
+            // the connection has been lost: show the latest presence again once reconnected
+            pending = lastSent;
+        }
+        switch (current) {
+            case READY:
+                becomeReady();
+                break;
+
+            case CONNECTING:
+                waitForHandshake();
+                break;
+
+            default:
+                backOff();
+        }
+    }
+
+    private void becomeReady() {
+        state.set(ConnectionState.READY);
+        failedAttempts = 0;
+
+        if (pending != null) {
+            Runnable presence = pending;
+            pending = null;
+            presence.run();
+            lastSent = presence;
+        }
+        schedule(this::check, HEALTH_CHECK_PERIOD.toNanos());
+    }
+
+    private void waitForHandshake() {
+        if (state.get() != ConnectionState.CONNECTING) {
+            // the connection has been lost but the wrapped instance is trying to reconnect on its own
+            state.set(ConnectionState.CONNECTING);
+            connectingSince = nanoClock.getAsLong();
+            pollDelayInNanos = FIRST_POLL_DELAY_IN_NANOS;
+        }
+        if (nanoClock.getAsLong() - connectingSince >= HANDSHAKE_TIMEOUT.toNanos()) {
+            backOff();
+            return;
+        }
+        schedule(this::check, pollDelayInNanos);
+        pollDelayInNanos = Math.min(pollDelayInNanos * 2, MAX_POLL_DELAY_IN_NANOS);
+    }
+
+    private void backOff() {
+        state.set(ConnectionState.BACKING_OFF);
+        failedAttempts = Math.min(failedAttempts + 1, Integer.MAX_VALUE - 1);
+
+        schedule(this::reconnect, backoff.delayAfter(failedAttempts).toNanos());
+    }
+
+    private synchronized void reconnect() {
+        nextTask = null;
+
+        if (applicationId == null) {
+            return;
+        }
+        reconnectionAttempts.incrementAndGet();
+
+        discord.shutdown();
+        connect();
+    }
+
+    private void schedule(Runnable task, long delayInNanos) {
+        try {
+            nextTask = scheduler.schedule(task, delayInNanos, TimeUnit.NANOSECONDS);
+        }
+        catch (RejectedExecutionException e) {
+            // the scheduler has been shut down, nothing left to supervise
+            nextTask = null;
+        }
+    }
+
+    private void cancelNextTask() {
+        if (nextTask != null) {
+            nextTask.cancel(false);
+            nextTask = null;
+        }
+    }
+
+    /**
+     * Returns the number of times the connection has been re-established after a failure so far.
+     * @return the number of reconnection attempts
+     */
+    public long reconnectionAttempts() {
+        return reconnectionAttempts.get();
+    }
+
+}
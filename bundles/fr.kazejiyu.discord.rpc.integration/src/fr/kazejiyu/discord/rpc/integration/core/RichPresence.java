@@ -14,6 +14,7 @@ import java.util.Optional;
 import org.eclipse.core.resources.IProject;
 
 import fr.kazejiyu.discord.rpc.integration.languages.Language;
+import fr.kazejiyu.discord.rpc.integration.languages.LanguageDescriptor;
 
 /**
  * The information about current selection to show in Discord.
@@ -39,10 +40,23 @@ public interface RichPresence {
     Optional<Long> getStartTimestamp();
 
     /**
-     * Returns the language of the active file, if known.
-     * @return the language of the active file, if known
+     * Returns the language of the active file, if known and built in the plug-in.
+     * @return the language of the active file, if known and built in the plug-in
+     * 
+     * @see #getLanguageDescriptor()
      */
     Optional<Language> getLanguage();
+    
+    /**
+     * Returns the language of the active file, either built-in or contributed, if known.
+     * <p>
+     * Defaults to the descriptor of {@link #getLanguage()}.
+     * 
+     * @return the language of the active file, if known
+     */
+    default Optional<LanguageDescriptor> getLanguageDescriptor() {
+        return getLanguage().map(LanguageDescriptor::of);
+    }
 
     /**
      * Returns the text to show when hovering the large icon, if any.
@@ -20,7 +20,7 @@ import org.eclipse.core.resources.IProject;
  */
 public class SelectionTimes {
 
-    private final long timeOnStartup;
+    private long timeOnStartup;
     
     private long timeOnNewProject;
     
@@ -56,6 +56,23 @@ public class SelectionTimes {
         return this;
     }
     
+    /**
+     * Moves all the timestamps forward so that a period during which the user was away
+     * is not counted as elapsed time.
+     * 
+     * @param seconds
+     *          The duration of the period, in seconds.
+     *          
+     * @return the current instance to enable method chaining
+     */
+    public SelectionTimes postponeBy(long seconds) {
+        this.timeOnStartup += seconds;
+        this.timeOnNewProject += seconds;
+        this.timeOnNewSelection += seconds;
+        
+        return this;
+    }
+    
     private boolean isANewProject(IProject project) {
         return ! Objects.equals(project, lastSelectedProject);
     }
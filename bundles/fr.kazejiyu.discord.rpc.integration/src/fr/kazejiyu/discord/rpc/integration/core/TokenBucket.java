@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright (C) 2018-2020 Emmanuel CHEBBI
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ ******************************************************************************/
+package fr.kazejiyu.discord.rpc.integration.core;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * <p>Limits the number of operations that can be made during a period of time.</p>
+ *
+ * <p>The bucket holds at most {@code capacity} tokens and starts full. Each operation consumes one token
+ * and the tokens are given back one by one, so that {@code capacity} tokens are refilled every {@code period}.</p>
+ *
+ * <p>This class is not thread-safe.</p>
+ *
+ * @author Emmanuel CHEBBI
+ */
+public final class TokenBucket {
+
+    /** The maximum number of tokens held by the bucket. */
+    private final long capacity;
+
+    /** Time needed to refill one token, in nanoseconds. */
+    private final long nanosPerToken;
+
+    /** Returns the current time, in nanoseconds. */
+    private final LongSupplier nanoClock;
+
+    /** The number of tokens currently available. */
+    private long tokens;
+
+    /** When the last token has been refilled, in nanoseconds. */
+    private long lastRefill;
+
+    /**
+     * Creates a new full bucket.
+     *
+     * @param capacity
+     *          The maximum number of tokens held by the bucket. Must be strictly positive.
+     * @param period
+     *          The time needed to refill the whole bucket. Must be strictly positive.
+     * @param nanoClock
+     *          Returns the current time, in nanoseconds.
+     *          Must not be {@code null}.
+     */
+    public TokenBucket(int capacity, Duration period, LongSupplier nanoClock) {
+        requireNonNull(period, "The refill period must not be null");
+
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity must be strictly positive");
+        }
+        if (period.isZero() || period.isNegative()) {
+            throw new IllegalArgumentException("The refill period must be strictly positive");
+        }
+        this.capacity = capacity;
+        this.nanosPerToken = Math.max(1, period.toNanos() / capacity);
+        this.nanoClock = requireNonNull(nanoClock, "The clock must not be null");
+        this.tokens = capacity;
+        this.lastRefill = nanoClock.getAsLong();
+    }
+
+    /**
+     * Consumes a token if one is available.
+     * @return {@code true} if a token has been consumed, {@code false} if the bucket is empty
+     */
+    public boolean tryConsume() {
+        refill();
+
+        if (tokens == 0) {
+            return false;
+        }
+        if (tokens == capacity) {
+            // a full bucket does not earn tokens: start refilling from now on
+            lastRefill = nanoClock.getAsLong();
+        }
+        --tokens;
+        return true;
+    }
+
+    /**
+     * Returns the number of tokens currently available.
+     * @return the number of tokens currently available
+     */
+    public long availableTokens() {
+        refill();
+        return tokens;
+    }
+
+    /**
+     * Returns how long to wait before a token becomes available.
+     * @return the time to wait before a token becomes available, {@link Duration#ZERO} if one already is
+     */
+    public Duration timeUntilNextToken() {
+        refill();
+
+        if (tokens > 0) {
+            return Duration.ZERO;
+        }
+        return Duration.ofNanos(nanosPerToken - (nanoClock.getAsLong() - lastRefill));
+    }
+
+    /** Gives back the tokens earned since the last refill. */
+    private void refill() {
+        long now = nanoClock.getAsLong();
+        long earned = (now - lastRefill) / nanosPerToken;
+
+        if (earned <= 0) {
+            return;
+        }
+        if (tokens + earned >= capacity) {
+            tokens = capacity;
+            lastRefill = now;
+        }
+        else {
+            tokens += earned;
+            lastRefill += earned * nanosPerToken;
+        }
+    }
+
+}
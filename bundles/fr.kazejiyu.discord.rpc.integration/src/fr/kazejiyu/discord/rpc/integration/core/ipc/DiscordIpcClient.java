@@ -0,0 +1,338 @@
+/*******************************************************************************
+ * Copyright (C) 2018-2020 Emmanuel CHEBBI
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ ******************************************************************************/
+package fr.kazejiyu.discord.rpc.integration.core.ipc;
+
+import static fr.kazejiyu.discord.rpc.integration.core.DiscordRpcProxy.ECLIPSE_LOGO_KEY;
+import static fr.kazejiyu.discord.rpc.integration.core.DiscordRpcProxy.ECLIPSE_LOGO_TEXT;
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import fr.kazejiyu.discord.rpc.integration.Plugin;
+import fr.kazejiyu.discord.rpc.integration.core.ConnectionState;
+import fr.kazejiyu.discord.rpc.integration.core.DiscordRpcLifecycle;
+import fr.kazejiyu.discord.rpc.integration.core.ImmutableRichPresence;
+import fr.kazejiyu.discord.rpc.integration.core.RichPresence;
+import fr.kazejiyu.discord.rpc.integration.languages.LanguageDescriptor;
+
+/**
+ * <p>Sends {@link RichPresence}s to Discord by speaking its IPC protocol directly.</p>
+ *
+ * <p>Unlike {@link fr.kazejiyu.discord.rpc.integration.core.DiscordRpcProxy DiscordRpcProxy},
+ * this class does not rely on any native library. It writes the frames itself on the socket opened
+ * by the local Discord client.</p>
+ *
+ * <p>Reads are non-blocking: the events sent by Discord are processed each time a presence is shown,
+ * or when {@link #pollEvents()} is called.</p>
+ *
+ * @author Emmanuel CHEBBI
+ */
+public class DiscordIpcClient implements DiscordRpcLifecycle {
+
+    /** The version of the IPC protocol spoken by this client. */
+    private static final int PROTOCOL_VERSION = 1;
+
+    /** How long to wait for Discord to accept a frame before giving up. */
+    private static final long WRITE_TIMEOUT_IN_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+    /** How long to wait before trying again to write when Discord does not accept more bytes. */
+    private static final long WRITE_RETRY_DELAY_IN_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /** Identifies Eclipse IDE's process to Discord. */
+    private static final long PID = currentProcessId();
+
+    /** Opens the connection to Discord. */
+    private final IpcConnector connector;
+
+    /** Reports the errors sent by Discord. */
+    private final Consumer<String> errorLog;
+
+    /** Encodes and decodes the frames. */
+    private final IpcCodec codec = new IpcCodec();
+
+    /** Holds the JSON document being written. */
+    private final StringBuilder json = new StringBuilder(512);
+
+    /** Identifies the commands sent to Discord. */
+    private long nonce;
+
+    /** The channel connected to Discord, {@code null} if there is none. */
+    private ByteChannel channel;
+
+    /** Whether the client is connected to Discord. */
+    private volatile boolean isConnected = false;
+
+    /** Whether Discord acknowledged the handshake. */
+    private volatile boolean isReady = false;
+
+    /** The ID of the Discord application we're currently connected to. */
+    private volatile String discordApplicationId;
+
+    /**
+     * Creates a new client connecting to Discord through Unix domain sockets.
+     */
+    public DiscordIpcClient() {
+        this(new UnixDomainSocketConnector());
+    }
+
+    /**
+     * Creates a new client connecting to Discord with the given connector.
+     *
+     * @param connector
+     *          Opens the connection to Discord.
+     *          Must not be {@code null}.
+     */
+    public DiscordIpcClient(IpcConnector connector) {
+        this(connector, Plugin::log);
+    }
+
+    /**
+     * Creates a new client connecting to Discord with the given connector.
+     *
+     * @param connector
+     *          Opens the connection to Discord.
+     *          Must not be {@code null}.
+     * @param errorLog
+     *          Reports the errors sent by Discord.
+     *          Must not be {@code null}.
+     */
+    DiscordIpcClient(IpcConnector connector, Consumer<String> errorLog) {
+        this.connector = requireNonNull(connector, "The connector must not be null");
+        this.errorLog = requireNonNull(errorLog, "The error log must not be null");
+    }
+
+    @Override
+    public synchronized void initialize(String applicationId) {
+        requireNonNull(applicationId, "The application ID must not be null");
+        disconnect();
+
+        try {
+            channel = connector.connect();
+            codec.reset();
+            isConnected = true;
+            discordApplicationId = applicationId;
+
+            json.setLength(0);
+            json.append("{\"v\":").append(PROTOCOL_VERSION).append(",\"client_id\":");
+            Json.appendString(json, applicationId).append('}');
+
+            write(Opcode.HANDSHAKE, json);
+        }
+        catch (IOException e) {
+            // Discord is likely not running
+            disconnect();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * <p>Like the native library, the client is only considered connected once Discord sent the READY event;
+     * see {@link #connectionState()} to know whether the handshake is in progress.</p>
+     */
+    @Override
+    public boolean isConnected() {
+        return isConnected && isReady;
+    }
+
+    @Override
+    public ConnectionState connectionState() {
+        if (! isConnected) {
+            return ConnectionState.DISCONNECTED;
+        }
+        return isReady ? ConnectionState.READY : ConnectionState.CONNECTING;
+    }
+
+    /**
+     * Returns whether Discord acknowledged the connection.
+     * @return {@code true} if Discord sent the READY event, {@code false} otherwise
+     */
+    public boolean isReady() {
+        return isReady;
+    }
+
+    @Override
+    public Optional<String> discordApplicationId() {
+        if (! isConnected()) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(discordApplicationId);
+    }
+
+    @Override
+    public synchronized void show(RichPresence rp) {
+        requireNonNull(rp, "The rich presence must not be null");
+
+        pollEvents();
+
+        if (! isConnected()) {
+            return;
+        }
+        try {
+            write(Opcode.FRAME, activityOf(rp));
+        }
+        catch (IOException e) {
+            errorLog.accept("Cannot send the presence to Discord: " + e.getMessage());
+            disconnect();
+        }
+    }
+
+    @Override
+    public void showNothing() {
+        show(new ImmutableRichPresence());
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        disconnect();
+    }
+
+    @Override
+    public synchronized void pollEvents() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            int read;
+
+            do {
+                read = codec.readFrom(channel);
+            }
+            while (read > 0);
+
+            for (Optional<IpcFrame> frame = codec.nextFrame(); frame.isPresent() && isConnected; frame = codec.nextFrame()) {
+                handle(frame.get());
+            }
+            if (read < 0) {
+                disconnect();
+            }
+        }
+        catch (IOException e) {
+            errorLog.accept("Lost connection with Discord: " + e.getMessage());
+            disconnect();
+        }
+    }
+
+    private void handle(IpcFrame frame) throws IOException {
+        switch (frame.opcode()) {
+            case PING:
+                write(Opcode.PONG, frame.payload());
+                break;
+
+            case CLOSE:
+                errorLog.accept("Discord closed the connection: " + Json.stringField(frame.payload(), "message").orElse(frame.payload()));
+                disconnect();
+                break;
+
+            case FRAME:
+                String event = Json.stringField(frame.payload(), "evt").orElse("");
+
+                if ("READY".equals(event)) {
+                    isReady = true;
+                }
+                else if ("ERROR".equals(event)) {
+                    errorLog.accept(Json.stringField(frame.payload(), "message").orElse(frame.payload()));
+                }
+                break;
+
+            default:
+                // nothing to do
+        }
+    }
+
+    /** Writes a whole frame, waiting a bit if Discord does not accept bytes right away. */
+    private void write(Opcode opcode, CharSequence payload) throws IOException {
+        ByteBuffer frame = codec.encode(opcode, payload);
+        long deadline = System.nanoTime() + WRITE_TIMEOUT_IN_NANOS;
+
+        while (frame.hasRemaining()) {
+            if (channel.write(frame) > 0) {
+                continue;
+            }
+            if (System.nanoTime() - deadline > 0) {
+                throw new IOException("Timed out while writing to Discord");
+            }
+            LockSupport.parkNanos(WRITE_RETRY_DELAY_IN_NANOS);
+        }
+    }
+
+    /** Returns the SET_ACTIVITY command showing the given presence. */
+    private CharSequence activityOf(RichPresence rp) {
+        json.setLength(0);
+        json.append("{\"cmd\":\"SET_ACTIVITY\",\"args\":{\"pid\":").append(PID)
+            .append(",\"activity\":{\"instance\":false");
+
+        Optional<String> state = rp.getState();
+        if (state.isPresent()) {
+            Json.appendString(json.append(",\"state\":"), state.get());
+        }
+        Optional<String> details = rp.getDetails();
+        if (details.isPresent()) {
+            Json.appendString(json.append(",\"details\":"), details.get());
+        }
+        Optional<Long> start = rp.getStartTimestamp();
+        if (start.isPresent()) {
+            json.append(",\"timestamps\":{\"start\":").append(start.get().longValue()).append('}');
+        }
+        json.append(",\"assets\":{");
+
+        Optional<LanguageDescriptor> language = rp.getLanguageDescriptor();
+        if (language.isPresent()) {
+            Json.appendString(json.append("\"large_image\":"), language.get().getKey()).append(',');
+        }
+        Optional<String> largeImageText = rp.getLargeImageText();
+        if (largeImageText.isPresent()) {
+            Json.appendString(json.append("\"large_text\":"), largeImageText.get()).append(',');
+        }
+        Json.appendString(json.append("\"small_image\":"), ECLIPSE_LOGO_KEY);
+        Json.appendString(json.append(",\"small_text\":"), ECLIPSE_LOGO_TEXT);
+
+        json.append("}}},\"nonce\":\"").append(++nonce).append("\"}");
+        return json;
+    }
+
+    private void disconnect() {
+        isConnected = false;
+        isReady = false;
+
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        }
+        catch (IOException e) {
+            // nothing to do, the connection is lost anyway
+        }
+        finally {
+            channel = null;
+        }
+    }
+
+    private static long currentProcessId() {
+        // the name is "pid@hostname" on most JVMs
+        String name = ManagementFactory.getRuntimeMXBean().getName();
+
+        try {
+            return Long.parseLong(name.substring(0, name.indexOf('@')));
+        }
+        catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+            return 0;
+        }
+    }
+
+}
@@ -0,0 +1,187 @@
+/*******************************************************************************
+ * Copyright (C) 2018-2020 Emmanuel CHEBBI
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ ******************************************************************************/
+package fr.kazejiyu.discord.rpc.integration.core.ipc;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Optional;
+
+/**
+ * <p>Turns frames into bytes and bytes into frames, according to Discord's IPC protocol.</p>
+ *
+ * <p>A frame is made of a header followed by a UTF-8 encoded JSON payload. The header holds two
+ * little-endian 32-bit integers: the {@link Opcode} and the length of the payload, in bytes.</p>
+ *
+ * <p>The codec owns one buffer for writing and one for reading, both reused from a frame to another
+ * and only grown when a frame does not fit. As a consequence, this class is not thread-safe.</p>
+ *
+ * @author Emmanuel CHEBBI
+ */
+public final class IpcCodec {
+
+    /** The size of a frame's header, in bytes. */
+    public static final int HEADER_SIZE = 8;
+
+    /** The maximum size of a frame accepted by Discord, in bytes. */
+    public static final int MAX_FRAME_SIZE = 64 * 1024;
+
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+
+    private final CharsetEncoder encoder = UTF_8.newEncoder()
+                                                .onMalformedInput(CodingErrorAction.REPLACE)
+                                                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    /** Holds the frame being written. */
+    private ByteBuffer writeBuffer = newBuffer(INITIAL_BUFFER_SIZE);
+
+    /** Holds the bytes read but not decoded yet; always in write mode. */
+    private ByteBuffer readBuffer = newBuffer(INITIAL_BUFFER_SIZE);
+
+    /**
+     * <p>Encodes a frame.</p>
+     *
+     * <p>The returned buffer is owned by the codec: it is only valid until the next call to this method.</p>
+     *
+     * @param opcode
+     *          The kind of the frame.
+     *          Must not be {@code null}.
+     * @param payload
+     *          The JSON document carried by the frame.
+     *          Must not be {@code null}.
+     *
+     * @return a buffer ready to be written, holding the whole frame
+     *
+     * @throws IllegalArgumentException if the frame is larger than {@link #MAX_FRAME_SIZE}
+     */
+    public ByteBuffer encode(Opcode opcode, CharSequence payload) {
+        requireNonNull(opcode, "The opcode must not be null");
+        requireNonNull(payload, "The payload must not be null");
+
+        while (! tryEncode(payload)) {
+            if (writeBuffer.capacity() >= MAX_FRAME_SIZE) {
+                throw new IllegalArgumentException("The payload does not fit in a single frame");
+            }
+            writeBuffer = newBuffer(Math.min(MAX_FRAME_SIZE, writeBuffer.capacity() * 2));
+        }
+        writeBuffer.putInt(0, opcode.code());
+        writeBuffer.putInt(4, writeBuffer.position() - HEADER_SIZE);
+        writeBuffer.flip();
+        return writeBuffer;
+    }
+
+    /** Writes the payload after the header, returns false if the buffer is too small. */
+    private boolean tryEncode(CharSequence payload) {
+        writeBuffer.clear();
+        writeBuffer.position(HEADER_SIZE);
+        encoder.reset();
+
+        CoderResult result = encoder.encode(CharBuffer.wrap(payload), writeBuffer, true);
+
+        if (result.isUnderflow()) {
+            result = encoder.flush(writeBuffer);
+        }
+        return ! result.isOverflow();
+    }
+
+    /**
+     * Reads the bytes currently available from the given channel.
+     *
+     * @param channel
+     *          The channel to read. Should be non-blocking.
+     *          Must not be {@code null}.
+     *
+     * @return the number of bytes read, or -1 if the channel has reached end-of-stream
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public int readFrom(ReadableByteChannel channel) throws IOException {
+        if (! readBuffer.hasRemaining()) {
+            growReadBuffer(readBuffer.capacity() * 2);
+        }
+        return channel.read(readBuffer);
+    }
+
+    /**
+     * Gives bytes to decode.
+     *
+     * @param bytes
+     *          The bytes to decode. Their content is copied.
+     *          Must not be {@code null}.
+     */
+    public void feed(ByteBuffer bytes) {
+        if (readBuffer.remaining() < bytes.remaining()) {
+            growReadBuffer(readBuffer.position() + bytes.remaining());
+        }
+        readBuffer.put(bytes);
+    }
+
+    /**
+     * Decodes the next frame from the bytes read so far.
+     *
+     * @return the next frame, or nothing if it has not been completely read yet
+     *
+     * @throws IOException if the bytes read do not describe a valid frame
+     */
+    public Optional<IpcFrame> nextFrame() throws IOException {
+        if (readBuffer.position() < HEADER_SIZE) {
+            return Optional.empty();
+        }
+        int code = readBuffer.getInt(0);
+        int length = readBuffer.getInt(4);
+
+        if (length < 0 || length > MAX_FRAME_SIZE - HEADER_SIZE) {
+            throw new IOException("Invalid frame length: " + length);
+        }
+        Opcode opcode = Opcode.fromCode(code)
+                              .orElseThrow(() -> new IOException("Unknown opcode: " + code));
+
+        int frameSize = HEADER_SIZE + length;
+
+        if (readBuffer.position() < frameSize) {
+            if (readBuffer.capacity() < frameSize) {
+                growReadBuffer(frameSize);
+            }
+            return Optional.empty();
+        }
+        String payload = new String(readBuffer.array(), readBuffer.arrayOffset() + HEADER_SIZE, length, UTF_8);
+
+        readBuffer.flip();
+        readBuffer.position(frameSize);
+        readBuffer.compact();
+
+        return Optional.of(new IpcFrame(opcode, payload));
+    }
+
+    /** Discards the bytes read but not decoded yet. */
+    public void reset() {
+        readBuffer.clear();
+    }
+
+    private void growReadBuffer(int minimumCapacity) {
+        ByteBuffer bigger = newBuffer(Math.max(minimumCapacity, readBuffer.capacity() * 2));
+        readBuffer.flip();
+        bigger.put(readBuffer);
+        readBuffer = bigger;
+    }
+
+    private static ByteBuffer newBuffer(int capacity) {
+        return ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+}
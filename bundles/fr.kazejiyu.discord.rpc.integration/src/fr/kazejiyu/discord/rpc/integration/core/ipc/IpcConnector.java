@@ -0,0 +1,32 @@
+/*******************************************************************************
+ * Copyright (C) 2018-2020 Emmanuel CHEBBI
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ ******************************************************************************/
+package fr.kazejiyu.discord.rpc.integration.core.ipc;
+
+import java.io.IOException;
+import java.nio.channels.ByteChannel;
+
+/**
+ * Opens a connection to a running Discord client.
+ *
+ * @author Emmanuel CHEBBI
+ */
+@FunctionalInterface
+public interface IpcConnector {
+
+    /**
+     * Connects to a running Discord client.
+     *
+     * @return a channel connected to Discord, configured in non-blocking mode
+     *
+     * @throws IOException if no Discord client can be reached
+     */
+    ByteChannel connect() throws IOException;
+
+}
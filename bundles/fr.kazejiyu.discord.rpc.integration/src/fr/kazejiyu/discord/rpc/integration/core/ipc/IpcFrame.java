@@ -0,0 +1,61 @@
+/*******************************************************************************
+ * Copyright (C) 2018-2020 Emmanuel CHEBBI
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ ******************************************************************************/
+package fr.kazejiyu.discord.rpc.integration.core.ipc;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A frame received from Discord.
+ *
+ * @author Emmanuel CHEBBI
+ */
+public final class IpcFrame {
+
+    private final Opcode opcode;
+
+    private final String payload;
+
+    /**
+     * Creates a new frame.
+     *
+     * @param opcode
+     *          The kind of the frame.
+     *          Must not be {@code null}.
+     * @param payload
+     *          The JSON document carried by the frame.
+     *          Must not be {@code null}.
+     */
+    public IpcFrame(Opcode opcode, String payload) {
+        this.opcode = requireNonNull(opcode, "The opcode must not be null");
+        this.payload = requireNonNull(payload, "The payload must not be null");
+    }
+
+    /**
+     * Returns the kind of the frame.
+     * @return the kind of the frame
+     */
+    public Opcode opcode() {
+        return opcode;
+    }
+
+    /**
+     * Returns the JSON document carried by the frame.
+     * @return the JSON document carried by the frame
+     */
+    public String payload() {
+        return payload;
+    }
+
+    @Override
+    public String toString() {
+        return opcode + " " + payload;
+    }
+
+}
@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright (C) 2018-2020 Emmanuel CHEBBI
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ ******************************************************************************/
+package fr.kazejiyu.discord.rpc.integration.core.ipc;
+
+import java.util.Optional;
+
+/**
+ * <p>The few JSON utilities needed to talk to Discord.</p>
+ *
+ * <p>The documents exchanged with Discord are small and their shape is known in advance,
+ * so they are written by hand and only the needed string fields are extracted when reading.</p>
+ *
+ * @author Emmanuel CHEBBI
+ */
+final class Json {
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private Json() {
+        // does not make sense to instantiate it
+    }
+
+    /**
+     * Appends the given value as a JSON string, quotes included.
+     *
+     * @param json
+     *          The document being written.
+     * @param value
+     *          The value to append.
+     *
+     * @return {@code json}
+     */
+    static StringBuilder appendString(StringBuilder json, String value) {
+        json.append('"');
+
+        for (int i = 0; i < value.length(); ++i) {
+            char c = value.charAt(i);
+
+            switch (c) {
+                case '"':  json.append("\\\""); break;
+                case '\\': json.append("\\\\"); break;
+                case '\n': json.append("\\n"); break;
+                case '\r': json.append("\\r"); break;
+                case '\t': json.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        json.append("\\u00").append(HEX_DIGITS[c >> 4]).append(HEX_DIGITS[c & 0xF]);
+                    }
+                    else {
+                        json.append(c);
+                    }
+            }
+        }
+        return json.append('"');
+    }
+
+    /**
+     * Returns the value of the first string field with the given name, at any depth.
+     *
+     * @param json
+     *          The document to read.
+     * @param name
+     *          The name of the field to read.
+     *
+     * @return the value of the field, or nothing if there is no such field or if its value is not a string
+     */
+    static Optional<String> stringField(String json, String name) {
+        String key = '"' + name + '"';
+        int from = 0;
+
+        while (true) {
+            int keyIndex = json.indexOf(key, from);
+
+            if (keyIndex < 0) {
+                return Optional.empty();
+            }
+            int index = skipWhitespaces(json, keyIndex + key.length());
+
+            // the match is a key only if followed by a colon; it may be a value otherwise
+            if (index < json.length() && json.charAt(index) == ':') {
+                index = skipWhitespaces(json, index + 1);
+
+                if (index < json.length() && json.charAt(index) == '"') {
+                    return readString(json, index + 1);
+                }
+                return Optional.empty();
+            }
+            from = keyIndex + 1;
+        }
+    }
+
+    private static int skipWhitespaces(String json, int from) {
+        int index = from;
+
+        while (index < json.length() && Character.isWhitespace(json.charAt(index))) {
+            ++index;
+        }
+        return index;
+    }
+
+    /** Reads a string starting right after its opening quote. */
+    private static Optional<String> readString(String json, int from) {
+        StringBuilder value = new StringBuilder();
+
+        for (int i = from; i < json.length(); ++i) {
+            char c = json.charAt(i);
+
+            if (c == '"') {
+                return Optional.of(value.toString());
+            }
+            if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+            if (++i >= json.length()) {
+                break;
+            }
+            char escaped = json.charAt(i);
+
+            switch (escaped) {
+                case 'n': value.append('\n'); break;
+                case 'r': value.append('\r'); break;
+                case 't': value.append('\t'); break;
+                case 'b': value.append('\b'); break;
+                case 'f': value.append('\f'); break;
+                case 'u':
+                    if (i + 4 >= json.length()) {
+                        return Optional.empty();
+                    }
+                    try {
+                        value.append((char) Integer.parseInt(json.substring(i + 1, i + 5), 16));
+                    }
+                    catch (NumberFormatException e) {
+                        return Optional.empty();
+                    }
+                    i += 4;
+                    break;
+                default:
+                    value.append(escaped);
+            }
+        }
+        // the string is not terminated
+        return Optional.empty();
+    }
+
+}
@@ -0,0 +1,68 @@
+/*******************************************************************************
+ * Copyright (C) 2018-2020 Emmanuel CHEBBI
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ ******************************************************************************/
+package fr.kazejiyu.discord.rpc.integration.core.ipc;
+
+import java.util.Optional;
+
+/**
+ * The kinds of frame exchanged with Discord through its IPC protocol.
+ *
+ * @author Emmanuel CHEBBI
+ */
+public enum Opcode {
+
+    /** First frame sent by the client, identifies the Discord application. */
+    HANDSHAKE(0),
+
+    /** Carries a command sent by the client or an event sent by Discord. */
+    FRAME(1),
+
+    /** Sent by either side before closing the connection. */
+    CLOSE(2),
+
+    /** Asks the other side to reply with a {@link #PONG}. */
+    PING(3),
+
+    /** Replies to a {@link #PING}. */
+    PONG(4);
+
+    private static final Opcode[] BY_CODE = values();
+
+    /** The value sent on the wire. */
+    private final int code;
+
+    Opcode(int code) {
+        this.code = code;
+    }
+
+    /**
+     * Returns the value identifying the opcode on the wire.
+     * @return the value identifying the opcode on the wire
+     */
+    public int code() {
+        return code;
+    }
+
+    /**
+     * Returns the opcode identified by the given value.
+     *
+     * @param code
+     *          The value read on the wire.
+     *
+     * @return the corresponding opcode, if any
+     */
+    public static Optional<Opcode> fromCode(int code) {
+        if (code < 0 || code >= BY_CODE.length) {
+            return Optional.empty();
+        }
+        return Optional.of(BY_CODE[code]);
+    }
+
+}
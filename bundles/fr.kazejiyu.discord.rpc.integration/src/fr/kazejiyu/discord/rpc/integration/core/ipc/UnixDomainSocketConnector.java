@@ -0,0 +1,186 @@
+/*******************************************************************************
+ * Copyright (C) 2018-2020 Emmanuel CHEBBI
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ ******************************************************************************/
+package fr.kazejiyu.discord.rpc.integration.core.ipc;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.SocketAddress;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>Connects to Discord through the Unix domain socket it opens on Linux and macOS.</p>
+ *
+ * <p>Discord listens on the first available socket among {@code discord-ipc-0} to {@code discord-ipc-9},
+ * located in {@code $XDG_RUNTIME_DIR}, or in the temporary directory when that variable is not set.</p>
+ *
+ * <p>Unix domain sockets are only available in the JDK since Java 16. The corresponding API is accessed
+ * reflectively so that the plug-in keeps running on older JVMs, where {@link #isSupported()} returns false.</p>
+ *
+ * @author Emmanuel CHEBBI
+ */
+public class UnixDomainSocketConnector implements IpcConnector {
+
+    /** The number of sockets Discord may listen on. */
+    private static final int MAX_SOCKETS = 10;
+
+    /** {@code java.net.UnixDomainSocketAddress#of(String)}, {@code null} if not available. */
+    private static final Method ADDRESS_FACTORY = findAddressFactory();
+
+    /** The directories where to look for Discord's sockets, by order of preference. */
+    private final List<Path> directories;
+
+    /**
+     * Creates a new connector looking for Discord's sockets in the default directories.
+     */
+    public UnixDomainSocketConnector() {
+        this(defaultDirectories());
+    }
+
+    /**
+     * Creates a new connector looking for Discord's sockets in the given directories.
+     *
+     * @param directories
+     *          The directories where to look for Discord's sockets, by order of preference.
+     *          Must not be {@code null}.
+     */
+    public UnixDomainSocketConnector(List<Path> directories) {
+        requireNonNull(directories, "The directories must not be null");
+        this.directories = Collections.unmodifiableList(new ArrayList<>(directories));
+    }
+
+    /**
+     * Returns whether the running JVM supports Unix domain sockets.
+     * @return {@code true} if the JVM supports Unix domain sockets, {@code false} otherwise
+     */
+    public static boolean isSupported() {
+        return ADDRESS_FACTORY != null;
+    }
+
+    /**
+     * Returns the directories where Discord usually creates its sockets, by order of preference.
+     * @return the directories where Discord usually creates its sockets
+     */
+    public static List<Path> defaultDirectories() {
+        List<Path> directories = new ArrayList<>();
+
+        String runtimeDirectory = System.getenv("XDG_RUNTIME_DIR");
+
+        if (runtimeDirectory != null) {
+            Path runtime = Paths.get(runtimeDirectory);
+            directories.add(runtime);
+            // sandboxed installations of Discord
+            directories.add(runtime.resolve("app").resolve("com.discordapp.Discord"));
+            directories.add(runtime.resolve("snap.discord"));
+        }
+        for (String variable : new String[] {"TMPDIR", "TMP", "TEMP"}) {
+            String directory = System.getenv(variable);
+
+            if (directory != null) {
+                directories.add(Paths.get(directory));
+            }
+        }
+        directories.add(Paths.get("/tmp"));
+        return directories;
+    }
+
+    @Override
+    public ByteChannel connect() throws IOException {
+        if (! isSupported()) {
+            throw new IOException("Unix domain sockets are not supported by this JVM");
+        }
+        IOException lastFailure = null;
+
+        for (Path directory : directories) {
+            for (int i = 0; i < MAX_SOCKETS; ++i) {
+                Path socket = directory.resolve("discord-ipc-" + i);
+
+                if (! Files.exists(socket)) {
+                    continue;
+                }
+                try {
+                    return open(socket);
+                }
+                catch (IOException e) {
+                    // stale socket, try the next one
+                    lastFailure = e;
+                }
+            }
+        }
+        throw new IOException("Cannot find any running Discord client", lastFailure);
+    }
+
+    /**
+     * Opens a non-blocking channel connected to the given socket.
+     *
+     * @param socket
+     *          The socket to connect to.
+     *          Must not be {@code null}.
+     *
+     * @return a non-blocking channel connected to the socket
+     *
+     * @throws IOException if the connection cannot be established
+     */
+    public static SocketChannel open(Path socket) throws IOException {
+        SocketChannel channel = SocketChannel.open(addressOf(socket));
+
+        try {
+            channel.configureBlocking(false);
+        }
+        catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return channel;
+    }
+
+    /**
+     * Returns the address of the given Unix domain socket.
+     *
+     * @param socket
+     *          The path to the socket.
+     *          Must not be {@code null}.
+     *
+     * @return the address of the socket
+     *
+     * @throws IOException if Unix domain sockets are not supported
+     */
+    public static SocketAddress addressOf(Path socket) throws IOException {
+        if (! isSupported()) {
+            throw new IOException("Unix domain sockets are not supported by this JVM");
+        }
+        try {
+            return (SocketAddress) ADDRESS_FACTORY.invoke(null, socket.toString());
+        }
+        catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IOException("Cannot create the address of " + socket, e);
+        }
+    }
+
+    private static Method findAddressFactory() {
+        try {
+            return Class.forName("java.net.UnixDomainSocketAddress").getMethod("of", String.class);
+        }
+        catch (ClassNotFoundException | NoSuchMethodException e) {
+            // JVM older than Java 16
+            return null;
+        }
+    }
+
+}
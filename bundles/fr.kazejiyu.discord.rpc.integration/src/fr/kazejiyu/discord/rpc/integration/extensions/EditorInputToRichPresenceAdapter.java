@@ -50,6 +50,10 @@ public interface EditorInputToRichPresenceAdapter extends Comparable<EditorInput
     
     /**
      * Returns the class of the input expected as an argument of {@link #createRichPresence(GlobalPreferences, IEditorInput)}.
+     * <p>
+     * Contributions should also declare this class through the {@code inputClass} attribute of the extension point,
+     * along with the {@code priority} attribute: the adapter is then only instantiated when an input of this class is opened.
+     * 
      * @return the class of the input expected as an argument of {@link #createRichPresence(GlobalPreferences, IEditorInput)}
      */
     Class<? extends IEditorInput> getExpectedEditorInputClass();
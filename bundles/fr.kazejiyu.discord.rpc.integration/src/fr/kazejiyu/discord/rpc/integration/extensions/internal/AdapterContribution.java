@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright (C) 2018-2020 Emmanuel CHEBBI
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ ******************************************************************************/
+package fr.kazejiyu.discord.rpc.integration.extensions.internal;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+import org.eclipse.core.runtime.IConfigurationElement;
+
+import fr.kazejiyu.discord.rpc.integration.extensions.EditorInputToRichPresenceAdapter;
+
+/**
+ * <p>A contribution to the {@value fr.kazejiyu.discord.rpc.integration.Plugin#EDITOR_INPUT_ADAPTER_EXTENSION_ID}
+ * extension point.</p>
+ * 
+ * <p>Describes the inputs handled by the contributed adapter so that the adapter can be chosen without being
+ * instantiated. The adapter is only instantiated when first {@link #adapter() requested}.</p>
+ * 
+ * @author Emmanuel CHEBBI
+ */
+public final class AdapterContribution {
+    
+    /** The element declaring the adapter. */
+    private final IConfigurationElement element;
+    
+    /** The fully qualified name of the class of the inputs handled by the adapter, {@code null} if unknown. */
+    private final String inputClassName;
+    
+    /** The priority of the adapter. */
+    private final int priority;
+    
+    /** Instantiates the adapter declared by an element. */
+    private final Function<IConfigurationElement, Optional<EditorInputToRichPresenceAdapter>> factory;
+    
+    /** The adapter, {@code null} if it has not been instantiated yet. */
+    private Optional<EditorInputToRichPresenceAdapter> adapter;
+    
+    /**
+     * Creates a contribution whose adapter is instantiated on first request.
+     * 
+     * @param element
+     *          The element declaring the adapter.
+     *          Must not be {@code null}.
+     * @param inputClassName
+     *          The fully qualified name of the class of the inputs handled by the adapter.
+     *          Must not be {@code null}.
+     * @param priority
+     *          The priority of the adapter.
+     * @param factory
+     *          Instantiates the adapter declared by an element.
+     *          Must not be {@code null}.
+     */
+    AdapterContribution(IConfigurationElement element, String inputClassName, int priority, 
+                        Function<IConfigurationElement, Optional<EditorInputToRichPresenceAdapter>> factory) {
+        this.element = requireNonNull(element, "The configuration element must not be null");
+        this.inputClassName = requireNonNull(inputClassName, "The name of the input class must not be null");
+        this.priority = priority;
+        this.factory = requireNonNull(factory, "The adapter factory must not be null");
+    }
+    
+    /**
+     * Creates a contribution whose adapter has already been instantiated.
+     * 
+     * @param element
+     *          The element declaring the adapter.
+     *          Must not be {@code null}.
+     * @param adapter
+     *          The adapter declared by the element.
+     *          Must not be {@code null}.
+     */
+    AdapterContribution(IConfigurationElement element, EditorInputToRichPresenceAdapter adapter) {
+        this.element = requireNonNull(element, "The configuration element must not be null");
+        this.adapter = Optional.of(requireNonNull(adapter, "The adapter must not be null"));
+        this.inputClassName = adapter.getExpectedEditorInputClass() == null ? null : adapter.getExpectedEditorInputClass().getName();
+        this.priority = adapter.getPriority();
+        this.factory = e -> this.adapter;
+    }
+    
+    /**
+     * Returns the element declaring the adapter.
+     * @return the element declaring the adapter
+     */
+    IConfigurationElement element() {
+        return element;
+    }
+    
+    /**
+     * Returns the fully qualified name of the class of the inputs handled by the adapter.
+     * @return the name of the input class, nothing if the adapter does not handle any input
+     */
+    public Optional<String> inputClassName() {
+        return Optional.ofNullable(inputClassName);
+    }
+    
+    /**
+     * Returns the priority of the adapter.
+     * @return the priority of the adapter
+     * 
+     * @see EditorInputToRichPresenceAdapter#getPriority()
+     */
+    public int priority() {
+        return priority;
+    }
+    
+    /**
+     * Returns the contributed adapter, instantiating it on first call.
+     * @return the adapter, nothing if it cannot be instantiated
+     */
+    public synchronized Optional<EditorInputToRichPresenceAdapter> adapter() {
+        if (adapter == null) {
+            adapter = factory.apply(element);
+        }
+        return adapter;
+    }
+    
+    /**
+     * Returns whether the adapter has already been instantiated.
+     * @return {@code true} if the adapter has been instantiated, {@code false} otherwise
+     */
+    public synchronized boolean isInstantiated() {
+        return adapter != null;
+    }
+    
+}
@@ -0,0 +1,251 @@
+/*******************************************************************************
+ * Copyright (C) 2018-2020 Emmanuel CHEBBI
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ ******************************************************************************/
+package fr.kazejiyu.discord.rpc.integration.extensions.internal;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.IExtension;
+import org.eclipse.core.runtime.IExtensionPoint;
+import org.eclipse.core.runtime.IExtensionRegistry;
+import org.eclipse.core.runtime.IRegistryEventListener;
+
+import fr.kazejiyu.discord.rpc.integration.Plugin;
+import fr.kazejiyu.discord.rpc.integration.extensions.EditorInputToRichPresenceAdapter;
+
+/**
+ * <p>Keeps the {@link AdapterContribution contributions} to the
+ * {@value Plugin#EDITOR_INPUT_ADAPTER_EXTENSION_ID} extension point.</p>
+ * 
+ * <p>Contributions declaring the class of the inputs they handle through the {@value #INPUT_CLASS_ATTRIBUTE}
+ * attribute are only instantiated when their adapter is first requested. That way, their plug-in is not activated
+ * until an input they handle is opened. Other contributions have to be instantiated as soon as they are found,
+ * in order to call {@link EditorInputToRichPresenceAdapter#getExpectedEditorInputClass()}.</p>
+ * 
+ * <p>Either way, each contribution is instantiated at most once and the instance is kept as long as the contribution
+ * exists. Contributions that cannot be instantiated are only reported once.</p>
+ * 
+ * <p>When listening to the registry (see {@link #listeningTo(IExtensionRegistry)}), the contributions of
+ * plug-ins installed or uninstalled at runtime are taken into account: only the removed contributions are dropped
+ * and only the new contributions are read.</p>
+ * 
+ * @author Emmanuel CHEBBI
+ */
+public class EditorInputAdapterRegistry implements IRegistryEventListener, AutoCloseable {
+    
+    /** The attribute declaring the fully qualified name of the class of the inputs handled by an adapter. */
+    public static final String INPUT_CLASS_ATTRIBUTE = "inputClass";
+    
+    /** The attribute declaring the priority of an adapter. */
+    public static final String PRIORITY_ATTRIBUTE = "priority";
+
+    /** The registry in which extensions are looked for. */
+    private final IExtensionRegistry registry;
+    
+    /** The contribution read from each element, empty if the element does not contribute a valid adapter. */
+    private final Map<IConfigurationElement, Optional<AdapterContribution>> contributions = new HashMap<>();
+    
+    /** The contributions currently registered, {@code null} if they have to be looked for again. */
+    private List<AdapterContribution> current;
+    
+    /** The number of times the contributions have been returned without being looked for. */
+    private final AtomicLong hits = new AtomicLong();
+    
+    /** The number of times the contributions have been looked for in the registry. */
+    private final AtomicLong misses = new AtomicLong();
+    
+    private final AtomicLong instantiations = new AtomicLong();
+    
+    /**
+     * Creates a new instance keeping the adapters contributed to the given registry.
+     * 
+     * @param registry
+     *             The registry storing all the contributions to extension points.
+     *             Must not be {@code null}.
+     *             
+     * @see #listeningTo(IExtensionRegistry)
+     */
+    public EditorInputAdapterRegistry(IExtensionRegistry registry) {
+        this.registry = requireNonNull(registry, "Cannot adapt extensions from a null registry");
+    }
+    
+    /**
+     * Creates a new instance keeping the adapters contributed to the given registry,
+     * and updated when contributions are added to or removed from the registry.
+     * 
+     * @param registry
+     *             The registry storing all the contributions to extension points.
+     *             Must not be {@code null}.
+     *             
+     * @return a new instance listening to the registry, to {@link #close()} once no longer needed
+     */
+    public static EditorInputAdapterRegistry listeningTo(IExtensionRegistry registry) {
+        EditorInputAdapterRegistry adapters = new EditorInputAdapterRegistry(registry);
+        registry.addListener(adapters, Plugin.EDITOR_INPUT_ADAPTER_EXTENSION_ID);
+        return adapters;
+    }
+    
+    /**
+     * <p>Returns the contributions currently registered to the {@value Plugin#EDITOR_INPUT_ADAPTER_EXTENSION_ID}
+     * extension point.</p>
+     * 
+     * <p>The same list is returned as long as the contributions do not change.</p>
+     * 
+     * @return an unmodifiable list of the contributions
+     */
+    public synchronized List<AdapterContribution> contributions() {
+        if (current == null) {
+            current = lookForContributions();
+            misses.incrementAndGet();
+        }
+        else {
+            hits.incrementAndGet();
+        }
+        return current;
+    }
+    
+    /** Returns the contributions found in the registry, reading the new elements only. */
+    private List<AdapterContribution> lookForContributions() {
+        IConfigurationElement[] elements = registry.getConfigurationElementsFor(Plugin.EDITOR_INPUT_ADAPTER_EXTENSION_ID);
+        
+        Map<IConfigurationElement, Optional<AdapterContribution>> contributed = new HashMap<>();
+        List<AdapterContribution> contributionsFound = new ArrayList<>(elements.length);
+        
+        for (IConfigurationElement element : elements) {
+            Optional<AdapterContribution> contribution = contributions.get(element);
+            
+            if (contribution == null) {
+                contribution = read(element);
+            }
+            contributed.put(element, contribution);
+            contribution.ifPresent(contributionsFound::add);
+        }
+        // forget about the contributions that no longer exist
+        contributions.clear();
+        contributions.putAll(contributed);
+        
+        return Collections.unmodifiableList(contributionsFound);
+    }
+    
+    /** Reads the contribution declared by {@code element}, instantiating the adapter only if it declares no input class. */
+    private Optional<AdapterContribution> read(IConfigurationElement element) {
+        String inputClassName = element.getAttribute(INPUT_CLASS_ATTRIBUTE);
+        
+        if (inputClassName != null && ! inputClassName.trim().isEmpty()) {
+            Optional<Integer> priority = priorityOf(element);
+            
+            if (priority.isPresent()) {
+                return Optional.of(new AdapterContribution(element, inputClassName.trim(), priority.get(), this::instantiate));
+            }
+        }
+        return instantiate(element).map(adapter -> new AdapterContribution(element, adapter));
+    }
+    
+    /** Returns the priority declared by {@code element}, 0 if none is declared, nothing if it is not an integer. */
+    private static Optional<Integer> priorityOf(IConfigurationElement element) {
+        String priority = element.getAttribute(PRIORITY_ATTRIBUTE);
+        
+        if (priority == null || priority.trim().isEmpty()) {
+            return Optional.of(0);
+        }
+        try {
+            return Optional.of(Integer.valueOf(priority.trim()));
+        }
+        catch (NumberFormatException e) {
+            // the adapter will be asked for its priority
+            return Optional.empty();
+        }
+    }
+    
+    /** Returns a new instance of {@code element}'s class property if possible, nothing otherwise. */
+    private Optional<EditorInputToRichPresenceAdapter> instantiate(IConfigurationElement element) {
+        instantiations.incrementAndGet();
+        
+        try {
+            Object extension = element.createExecutableExtension("class");
+            
+            if (extension instanceof EditorInputToRichPresenceAdapter) {
+                return Optional.of((EditorInputToRichPresenceAdapter) extension);
+            }
+            return Optional.empty();
+        } 
+        catch (CoreException e) {
+            Plugin.logException("Unable to create a new instance for the " + element.getName() + " extension", e);
+            return Optional.empty();
+        }
+    }
+    
+    @Override
+    public synchronized void added(IExtension[] extensions) {
+        // the new contributions will be read on next request
+        current = null;
+    }
+    
+    @Override
+    public synchronized void removed(IExtension[] extensions) {
+        for (IExtension extension : extensions) {
+            for (IConfigurationElement element : extension.getConfigurationElements()) {
+                contributions.remove(element);
+            }
+        }
+        current = null;
+    }
+    
+    @Override
+    public synchronized void added(IExtensionPoint[] extensionPoints) {
+        current = null;
+    }
+    
+    @Override
+    public synchronized void removed(IExtensionPoint[] extensionPoints) {
+        contributions.clear();
+        current = null;
+    }
+    
+    /** Stops listening to the registry. */
+    @Override
+    public void close() {
+        registry.removeListener(this);
+    }
+    
+    /**
+     * Returns the number of times the contributions have been returned without being looked for in the registry so far.
+     * @return the number of cache hits
+     */
+    public long hits() {
+        return hits.get();
+    }
+    
+    /**
+     * Returns the number of times the contributions have been looked for in the registry so far.
+     * @return the number of cache misses
+     */
+    public long misses() {
+        return misses.get();
+    }
+    
+    /**
+     * Returns the number of adapters that have been instantiated so far.
+     * @return the number of instantiations
+     */
+    public long instantiations() {
+        return instantiations.get();
+    }
+    
+}
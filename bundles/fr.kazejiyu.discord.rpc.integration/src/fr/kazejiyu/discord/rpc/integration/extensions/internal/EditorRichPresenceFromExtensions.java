@@ -10,19 +10,16 @@
 package fr.kazejiyu.discord.rpc.integration.extensions.internal;
 
 import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
 
-import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Predicate;
 
-import org.eclipse.core.runtime.CoreException;
-import org.eclipse.core.runtime.IConfigurationElement;
 import org.eclipse.core.runtime.IExtensionRegistry;
 import org.eclipse.ui.IEditorInput;
 
-import fr.kazejiyu.discord.rpc.integration.Plugin;
 import fr.kazejiyu.discord.rpc.integration.extensions.EditorInputToRichPresenceAdapter;
 import fr.kazejiyu.discord.rpc.integration.extensions.EditorRichPresenceFromInput;
 
@@ -32,104 +29,152 @@ import fr.kazejiyu.discord.rpc.integration.extensions.EditorRichPresenceFromInpu
  * <p>Instances of this class are notably charged of choosing the right
  * {@link EditorInputToRichPresenceAdapter adapter} for a given {@link IEditorInput}.</p>
  * 
- * <p>Please note that this implementation does not cache the adapters. 
- * As a result, contributions provided by new plug-ins that have been installed 
- * during runtime should be dynamically handled. However, this can have important 
- * consequences on the performance if this method is often called.</p>
+ * <p>The adapters are kept by an {@link EditorInputAdapterRegistry}, hence contributions are only
+ * instantiated once while contributions provided by plug-ins installed during runtime are still handled.</p>
+ * 
+ * <p>The best adapter for a given class of {@link IEditorInput} is computed the first time an input of this
+ * class is met, then remembered until the contributions change. Hence, finding an adapter does not depend
+ * on the number of contributions.</p>
+ * 
+ * <p>Adapters are chosen according to the name of the class of the inputs they handle, compared with the
+ * names of the super types of the input. That way, neither the adapters nor the classes they declare have
+ * to be loaded, and the plug-ins contributing them are only activated when an input they handle is opened.</p>
  * 
  * @author Emmanuel CHEBBI
  */
-public class EditorRichPresenceFromExtensions implements EditorRichPresenceFromInput {
+public class EditorRichPresenceFromExtensions implements EditorRichPresenceFromInput, AutoCloseable {
 
-    /** The registry in which extensions are looked for. */
-    private final IExtensionRegistry registry;
+    /** Keeps the adapters contributed to the extension point. */
+    private final EditorInputAdapterRegistry adapters;
+    
+    /** The candidate adapters for each class of input, computed from the latest contributions. */
+    private volatile AdapterIndex index = new AdapterIndex(null);
     
     /**
      * Creates a new instance to manage plug-in-related extensions.
      * 
      * @param registry
      *             The registry storing all the contributions to extension points.
+     *             The instance listens to it until {@link #close() closed}.
      */
     public EditorRichPresenceFromExtensions(IExtensionRegistry registry) {
-        this.registry = requireNonNull(registry, "Cannot adapt extensions from a null registry");
+        requireNonNull(registry, "Cannot adapt extensions from a null registry");
+        this.adapters = EditorInputAdapterRegistry.listeningTo(registry);
     }
 
     @Override
     public Optional<EditorInputToRichPresenceAdapter> findAdapterFor(IEditorInput input) {
-        return allAdaptersIn(registry).stream()
-                                      .filter(canHandle(input))
-                                      .sorted(byDepthInTreeFrom(input.getClass()))
-                                      .findFirst();
-    }
-    
-    /** Returns all the elements registered through {@value #EDITOR_INPUT_ADAPTER_EXTENSION_ID} extension
-     *          that are instances of {@link EditorInputToRichPresenceAdapter}. */
-    private static List<EditorInputToRichPresenceAdapter> allAdaptersIn(IExtensionRegistry registry) {
-        List<EditorInputToRichPresenceAdapter> adaptersFound = new ArrayList<>();
-        
-        IConfigurationElement[] elements = registry.getConfigurationElementsFor(Plugin.EDITOR_INPUT_ADAPTER_EXTENSION_ID);
-        
-        for (IConfigurationElement element : elements) {
-            Object extension = createExecutableExtension(element);
+        for (AdapterContribution candidate : indexOf(adapters.contributions()).get(input.getClass())) {
+            Optional<EditorInputToRichPresenceAdapter> adapter = candidate.adapter();
             
-            if (extension instanceof EditorInputToRichPresenceAdapter) {
-                adaptersFound.add((EditorInputToRichPresenceAdapter) extension);
+            if (adapter.isPresent()) {
+                return adapter;
             }
         }
-        
-        return adaptersFound;
+        return Optional.empty();
     }
-
-    /** Returns a new instance of {@code element}'s class property if possible, {@code null} otherwise. */
-    private static Object createExecutableExtension(IConfigurationElement element) {
-        try {
-            return element.createExecutableExtension("class");
-
-        } 
-        catch (CoreException e) {
-            Plugin.logException("Unable to create a new instance for the " + element.getName() + " extension", e);
-            return null;
+    
+    /** Returns the index of the given contributions, creating a new one if they changed since the last call. */
+    private AdapterIndex indexOf(List<AdapterContribution> contributed) {
+        AdapterIndex current = index;
+        
+        // the registry returns the same list as long as the contributions do not change
+        if (current.contributions != contributed) {
+            current = new AdapterIndex(contributed);
+            index = current;
         }
+        return current;
     }
-
-    /** Returns whether {@code adapter} can handle {@code input}. */
-    private static Predicate<EditorInputToRichPresenceAdapter> canHandle(IEditorInput input) {
-        return adapter -> adapter.getExpectedEditorInputClass() != null
-        			   && adapter.getExpectedEditorInputClass().isInstance(input);
+    
+    /**
+     * Returns the registry keeping the adapters.
+     * @return the registry keeping the adapters
+     */
+    public EditorInputAdapterRegistry adapterRegistry() {
+        return adapters;
+    }
+    
+    /** Stops listening to the registry. */
+    @Override
+    public void close() {
+        adapters.close();
+    }
+    
+    /** Returns whether {@code contribution} can handle the inputs of class {@code inputClass}. */
+    private static Predicate<AdapterContribution> canHandle(Class<?> inputClass) {
+        return contribution -> contribution.inputClassName()
+                                           .filter(name -> isSubtypeOf(name, inputClass))
+                                           .isPresent();
     }
     
     /**
-     * Returns a comparator comparing two elements depending on 
-     *            the distance between their class and {@code parent}. */
-    private static <T> Comparator<EditorInputToRichPresenceAdapter> byDepthInTreeFrom(Class<T> parent) {
+     * Returns a comparator comparing two contributions depending on 
+     *            the distance between their input class and {@code child}. */
+    private static Comparator<AdapterContribution> byDepthInTreeFrom(Class<?> child) {
         return (lhs, rhs) -> {
-            int lhsProximity = nbrOfClassesBetween(lhs.getExpectedEditorInputClass(), parent);
-            int rhsProximity = nbrOfClassesBetween(rhs.getExpectedEditorInputClass(), parent);
+            int lhsProximity = nbrOfClassesBetween(lhs.inputClassName().orElse(""), child);
+            int rhsProximity = nbrOfClassesBetween(rhs.inputClassName().orElse(""), child);
             
             // Same distance to parent class, so let's use the priority (highest first)
             if (lhsProximity == rhsProximity) {
-                return rhs.getPriority() - lhs.getPriority();
+                return rhs.priority() - lhs.priority();
             }
             // Lowest proximity first
             return lhsProximity - rhsProximity;
         };
     }
 
-    /** Returns the number of classes between {@code parent} and {@code child}. */
-    private static <P, C> int nbrOfClassesBetween(Class<P> parent, Class<C> child) {
-        if (parent.equals(child)) {
+    /** Returns the number of classes between the class named {@code parent} and {@code child}. */
+    private static int nbrOfClassesBetween(String parent, Class<?> child) {
+        if (parent.equals(child.getName())) {
             return 0;
         }
         // True if child inherits from a sub-class of parent
-        if (child.getSuperclass() != null && parent.isAssignableFrom(child.getSuperclass())) {
+        if (child.getSuperclass() != null && isSubtypeOf(parent, child.getSuperclass())) {
             return 1 + nbrOfClassesBetween(parent, child.getSuperclass());
         }
         for (Class<?> interf : child.getInterfaces()) {
-            if (parent.isAssignableFrom(interf)) {
+            if (isSubtypeOf(parent, interf)) {
                 return 1 + nbrOfClassesBetween(parent, interf);
             }
         }
         // Should not happen if child inherits from parent
         return Integer.MAX_VALUE;
     }
+    
+    /** Returns whether {@code type} is, or inherits from, the type named {@code name}. */
+    private static boolean isSubtypeOf(String name, Class<?> type) {
+        if (type.getName().equals(name)) {
+            return true;
+        }
+        if (type.getSuperclass() != null && isSubtypeOf(name, type.getSuperclass())) {
+            return true;
+        }
+        for (Class<?> interf : type.getInterfaces()) {
+            if (isSubtypeOf(name, interf)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /** Remembers the candidate adapters for each class of input, from the best to the worst. */
+    private static final class AdapterIndex extends ClassValue<List<AdapterContribution>> {
+        
+        /** The contributions indexed, {@code null} for an index that has to be replaced. */
+        private final List<AdapterContribution> contributions;
+        
+        AdapterIndex(List<AdapterContribution> contributions) {
+            this.contributions = contributions;
+        }
+        
+        @Override
+        protected List<AdapterContribution> computeValue(Class<?> inputClass) {
+            // the sort is stable: equivalent adapters are kept in contribution order
+            return contributions.stream()
+                                .filter(canHandle(inputClass))
+                                .sorted(byDepthInTreeFrom(inputClass))
+                                .collect(toList());
+        }
+    }
 }
@@ -11,6 +11,7 @@ package fr.kazejiyu.discord.rpc.integration.files;
 
 import static java.util.Objects.requireNonNull;
 
+import org.eclipse.ui.IPageListener;
 import org.eclipse.ui.IPartListener2;
 import org.eclipse.ui.ISelectionListener;
 import org.eclipse.ui.IWindowListener;
@@ -19,16 +20,23 @@ import org.eclipse.ui.IWorkbenchWindow;
 
 /**
  * Adds a given {@link ISelectionListener} to each window that opens.
+ * <p>
+ * The listener is also added as an {@link IPartListener2} to each page of the window, including the pages
+ * opened after the window. Depending on the {@link TrackingMode}, registering the listener as an
+ * {@link ISelectionListener} can be avoided so that it is not notified of each selection.
  * 
  * @param <T> The exact type of the listener to register.
  * 
  * @author Emmanuel CHEBBI
  */
-public class AddListenerOnWindowOpened<T extends ISelectionListener & IPartListener2> implements IWindowListener {
+public class AddListenerOnWindowOpened<T extends ISelectionListener & IPartListener2> implements IWindowListener, IPageListener {
     
     /** The listener to add to each window that opens. */
     private final T listener;
     
+    /** Whether the listener should be notified of selections. */
+    private final TrackingMode mode;
+    
     /**
      * Creates a object charged of adding a given listener to each window that opens.
      * 
@@ -37,7 +45,22 @@ public class AddListenerOnWindowOpened<T extends ISelectionListener & IPartListe
      *             Must not be {@code null}.
      */
     public AddListenerOnWindowOpened(T listener) {
+        this(listener, TrackingMode.SELECTIONS_AND_PARTS);
+    }
+    
+    /**
+     * Creates a object charged of adding a given listener to each window that opens.
+     * 
+     * @param listener
+     *             The listener that should be added to each window that opens.
+     *             Must not be {@code null}.
+     * @param mode
+     *             Whether the listener should be notified of selections.
+     *             Must not be {@code null}.
+     */
+    public AddListenerOnWindowOpened(T listener, TrackingMode mode) {
         this.listener = requireNonNull(listener, "The listener must not be null");
+        this.mode = requireNonNull(mode, "The tracking mode must not be null");
     }
 
     @Override
@@ -50,10 +73,13 @@ public class AddListenerOnWindowOpened<T extends ISelectionListener & IPartListe
         removeSelectionListener(window);
     }
 
-    /** Adds {@code listener} as an ISelectionListener of {@code window}. */
+    /** Adds {@code listener} as an ISelectionListener of {@code window} and as an IPartListener2 of its pages. */
     private void addSelectionListener(IWorkbenchWindow window) {
         if (window != null) {
-            window.getSelectionService().addSelectionListener(listener);
+            if (mode == TrackingMode.SELECTIONS_AND_PARTS) {
+                window.getSelectionService().addSelectionListener(listener);
+            }
+            window.addPageListener(this);
             
             for (IWorkbenchPage page : window.getPages()) {
                 page.addPartListener(listener);
@@ -61,10 +87,13 @@ public class AddListenerOnWindowOpened<T extends ISelectionListener & IPartListe
         }
     }
 
-    /** Removes {@code listener} from {@code window}'s ISelectionListeners. */
+    /** Removes {@code listener} from {@code window}'s ISelectionListeners and from its pages' IPartListener2s. */
     private void removeSelectionListener(IWorkbenchWindow window) {
         if (window != null) {
-            window.getSelectionService().removeSelectionListener(listener);
+            if (mode == TrackingMode.SELECTIONS_AND_PARTS) {
+                window.getSelectionService().removeSelectionListener(listener);
+            }
+            window.removePageListener(this);
             
             for (IWorkbenchPage page : window.getPages()) {
                 page.removePartListener(listener);
@@ -72,6 +101,22 @@ public class AddListenerOnWindowOpened<T extends ISelectionListener & IPartListe
         }
     }
     
+    @Override
+    public void pageOpened(IWorkbenchPage page) {
+        // the part listener is added twice when the page opens with the window, which the page ignores
+        page.addPartListener(listener);
+    }
+    
+    @Override
+    public void pageClosed(IWorkbenchPage page) {
+        page.removePartListener(listener);
+    }
+    
+    @Override
+    public void pageActivated(IWorkbenchPage page) {
+        // irrelevant event
+    }
+    
     @Override
     public void windowActivated(IWorkbenchWindow window) {
         // irrelevant event
@@ -0,0 +1,221 @@
+/*******************************************************************************
+ * Copyright (C) 2018-2020 Emmanuel CHEBBI
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ ******************************************************************************/
+package fr.kazejiyu.discord.rpc.integration.files;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Event;
+import org.eclipse.swt.widgets.Listener;
+
+/**
+ * <p>Detects when the user stops using the workbench, and when they come back.</p>
+ * 
+ * <p>Once installed, the detector filters the key and mouse events of the display. Handling an event only
+ * records the current time so that typing or moving the mouse neither allocates anything nor updates Discord.
+ * A task run periodically then compares this time with the timeout and notifies the transitions between
+ * the active and the idle states.</p>
+ * 
+ * <p>Instances must be installed, started and stopped from the thread the timer runs its tasks on,
+ * typically the UI thread.</p>
+ * 
+ * @author Emmanuel CHEBBI
+ */
+public final class IdleDetector implements Listener {
+    
+    /** The time between two checks used when none is specified. */
+    public static final Duration DEFAULT_CHECK_PERIOD = Duration.ofSeconds(1);
+    
+    /** The events showing that the user is using the workbench. */
+    private static final int[] ACTIVITY_EVENTS = {SWT.KeyDown, SWT.MouseDown, SWT.MouseMove, SWT.MouseWheel};
+    
+    /** The time without activity after which the user is considered idle, in nanoseconds. */
+    private final long timeoutInNanos;
+    
+    /** The time between two checks, in milliseconds. */
+    private final long checkPeriodInMillis;
+    
+    /** Called when the user becomes idle. */
+    private final Runnable onIdle;
+    
+    /** Called when the user is active again. */
+    private final Runnable onActive;
+    
+    /** Runs the periodic checks. */
+    private final TrailingEdgeDebouncer.Timer timer;
+    
+    /** Returns the current time, in nanoseconds. */
+    private final LongSupplier clock;
+    
+    /** When the last key or mouse event occurred, in nanoseconds. */
+    private volatile long lastActivity;
+    
+    /** Whether the user is currently idle. */
+    private volatile boolean idle;
+    
+    /** Whether the periodic checks should go on. */
+    private volatile boolean running;
+    
+    /** Built once so that scheduling a check does not allocate anything. */
+    private final Runnable checkTask = this::check;
+    
+    /**
+     * Creates a new detector checking the activity of the user every {@link #DEFAULT_CHECK_PERIOD}.
+     * 
+     * @param timeout
+     *          The time without activity after which the user is considered idle.
+     *          Must not be {@code null} and must be positive.
+     * @param onIdle
+     *          Called when the user becomes idle.
+     *          Must not be {@code null}.
+     * @param onActive
+     *          Called when the user is active again.
+     *          Must not be {@code null}.
+     * @param timer
+     *          Runs the periodic checks.
+     *          Must not be {@code null}.
+     * @param clock
+     *          Returns the current time, in nanoseconds.
+     *          Must not be {@code null}.
+     */
+    public IdleDetector(Duration timeout, Runnable onIdle, Runnable onActive, TrailingEdgeDebouncer.Timer timer, LongSupplier clock) {
+        this(timeout, DEFAULT_CHECK_PERIOD, onIdle, onActive, timer, clock);
+    }
+    
+    /**
+     * Creates a new detector.
+     * 
+     * @param timeout
+     *          The time without activity after which the user is considered idle.
+     *          Must not be {@code null} and must be positive.
+     * @param checkPeriod
+     *          The time between two checks, bounding the delay before a transition is noticed.
+     *          Must not be {@code null} and must be positive.
+     * @param onIdle
+     *          Called when the user becomes idle.
+     *          Must not be {@code null}.
+     * @param onActive
+     *          Called when the user is active again.
+     *          Must not be {@code null}.
+     * @param timer
+     *          Runs the periodic checks.
+     *          Must not be {@code null}.
+     * @param clock
+     *          Returns the current time, in nanoseconds.
+     *          Must not be {@code null}.
+     */
+    public IdleDetector(Duration timeout, Duration checkPeriod, Runnable onIdle, Runnable onActive, 
+            TrailingEdgeDebouncer.Timer timer, LongSupplier clock) {
+        this.onIdle = requireNonNull(onIdle, "The idle callback must not be null");
+        this.onActive = requireNonNull(onActive, "The active callback must not be null");
+        this.timer = requireNonNull(timer, "The timer must not be null");
+        this.clock = requireNonNull(clock, "The clock must not be null");
+        
+        if (requireNonNull(timeout, "The timeout must not be null").isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("The timeout must be positive");
+        }
+        if (requireNonNull(checkPeriod, "The check period must not be null").toMillis() <= 0) {
+            throw new IllegalArgumentException("The check period must be positive");
+        }
+        this.timeoutInNanos = timeout.toNanos();
+        this.checkPeriodInMillis = checkPeriod.toMillis();
+    }
+    
+    /**
+     * Filters the key and mouse events of {@code display} then starts the periodic checks.
+     * 
+     * @param display
+     *          The display whose events show the activity of the user.
+     *          Must not be {@code null}.
+     */
+    public void install(Display display) {
+        requireNonNull(display, "The display must not be null");
+        
+        for (int eventType : ACTIVITY_EVENTS) {
+            display.addFilter(eventType, this);
+        }
+        start();
+    }
+    
+    /**
+     * Stops the periodic checks then removes the filters added to {@code display}, if it is still alive.
+     * 
+     * @param display
+     *          The display given to {@link #install(Display)}.
+     *          Must not be {@code null}.
+     */
+    public void uninstall(Display display) {
+        requireNonNull(display, "The display must not be null");
+        stop();
+        
+        if (display.isDisposed()) {
+            return;
+        }
+        for (int eventType : ACTIVITY_EVENTS) {
+            display.removeFilter(eventType, this);
+        }
+    }
+    
+    /** Considers the user as active from now on and starts the periodic checks. */
+    public void start() {
+        if (running) {
+            return;
+        }
+        lastActivity = clock.getAsLong();
+        running = true;
+        timer.schedule(checkPeriodInMillis, checkTask);
+    }
+    
+    /** Stops the periodic checks; the callbacks are not called anymore. */
+    public void stop() {
+        running = false;
+    }
+    
+    /**
+     * Records that the user is active.
+     * <p>
+     * Called for each key or mouse event: must stay as cheap as possible.
+     */
+    @Override
+    public void handleEvent(Event event) {
+        lastActivity = clock.getAsLong();
+    }
+    
+    /** Notifies the transition between the active and idle states, if any, then schedules the next check. */
+    private void check() {
+        if (! running) {
+            return;
+        }
+        boolean inactiveForTooLong = clock.getAsLong() - lastActivity >= timeoutInNanos;
+        
+        if (inactiveForTooLong && ! idle) {
+            idle = true;
+            onIdle.run();
+        }
+        else if (! inactiveForTooLong && idle) {
+            idle = false;
+            onActive.run();
+        }
+        timer.schedule(checkPeriodInMillis, checkTask);
+    }
+    
+    /**
+     * Returns whether the user has been considered idle by the last check.
+     * @return true if the user is idle, false otherwise
+     */
+    public boolean isIdle() {
+        return idle;
+    }
+    
+}
@@ -0,0 +1,36 @@
+/*******************************************************************************
+ * Copyright (C) 2018-2020 Emmanuel CHEBBI
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ ******************************************************************************/
+package fr.kazejiyu.discord.rpc.integration.files;
+
+import org.eclipse.ui.IPartListener2;
+import org.eclipse.ui.ISelectionListener;
+
+/**
+ * Defines how the plug-in keeps track of the active editor.
+ * 
+ * @author Emmanuel CHEBBI
+ * 
+ * @see AddListenerOnWindowOpened
+ */
+public enum TrackingMode {
+    
+    /** 
+     * The listener is registered as an {@link ISelectionListener} of each window and as an {@link IPartListener2}
+     * of each page. It is then notified of every selection, including each caret move in an editor.
+     */
+    SELECTIONS_AND_PARTS,
+    
+    /** 
+     * The listener is only registered as an {@link IPartListener2} of each page. 
+     * It is only notified when parts are activated, opened or closed.
+     */
+    PARTS_ONLY
+    
+}
@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright (C) 2018-2020 Emmanuel CHEBBI
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ ******************************************************************************/
+package fr.kazejiyu.discord.rpc.integration.files;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * <p>Only handles the last of a burst of values, once no new value has been submitted during a given window.</p>
+ * 
+ * <p>Submitting a value only records the time and replaces the pending value; at most one task is scheduled
+ * per burst. When the task runs, it checks whether the burst is over: if so the last value is handled,
+ * otherwise the task is scheduled again for the remaining time.</p>
+ * 
+ * <p>Instances are not thread safe: values must be submitted from the thread the timer runs its tasks on,
+ * typically the UI thread. The counters can be read from any thread.</p>
+ * 
+ * @param <T> The type of the values
+ * 
+ * @author Emmanuel CHEBBI
+ */
+public final class TrailingEdgeDebouncer<T> {
+    
+    /** The window used when none is specified. */
+    public static final Duration DEFAULT_WINDOW = Duration.ofMillis(150);
+    
+    /**
+     * Runs tasks after a delay, on the thread submitting the values.
+     */
+    @FunctionalInterface
+    public interface Timer {
+        
+        /**
+         * Runs {@code task} once {@code delayInMillis} milliseconds have elapsed.
+         * 
+         * @param delayInMillis
+         *          The delay before running the task, in milliseconds.
+         * @param task
+         *          The task to run.
+         */
+        void schedule(long delayInMillis, Runnable task);
+    }
+    
+    /** Handles the last value of a burst. */
+    private final Consumer<T> action;
+    
+    /** The time without new value after which a burst is over, in nanoseconds. */
+    private final long windowInNanos;
+    
+    /** Runs the task checking whether the burst is over. */
+    private final Timer timer;
+    
+    /** Returns the current time, in nanoseconds. */
+    private final LongSupplier clock;
+    
+    /** The last value submitted, {@code null} if there is none to handle. */
+    private T pending;
+    
+    /** When the last value has been submitted, in nanoseconds. */
+    private long lastSubmission;
+    
+    /** Whether a task checking whether the burst is over is scheduled. */
+    private boolean scheduled;
+    
+    private final AtomicLong submittedValues = new AtomicLong();
+    
+    private final AtomicLong handledValues = new AtomicLong();
+    
+    /**
+     * Creates a new instance handling the last value of each burst.
+     * 
+     * @param action
+     *          Handles the last value of a burst.
+     *          Must not be {@code null}.
+     * @param window
+     *          The time without new value after which a burst is over.
+     *          Values are handled as soon as submitted if zero.
+     *          Must not be {@code null} nor negative.
+     * @param timer
+     *          Runs the task checking whether the burst is over.
+     *          Must not be {@code null}.
+     * @param clock
+     *          Returns the current time, in nanoseconds.
+     *          Must not be {@code null}.
+     */
+    public TrailingEdgeDebouncer(Consumer<T> action, Duration window, Timer timer, LongSupplier clock) {
+        this.action = requireNonNull(action, "The action must not be null");
+        this.timer = requireNonNull(timer, "The timer must not be null");
+        this.clock = requireNonNull(clock, "The clock must not be null");
+        
+        if (requireNonNull(window, "The window must not be null").isNegative()) {
+            throw new IllegalArgumentException("The window must not be negative");
+        }
+        this.windowInNanos = window.toNanos();
+    }
+    
+    /**
+     * Submits a new value, handled if no other value is submitted during the window.
+     * 
+     * @param value
+     *          The value to handle.
+     *          Must not be {@code null}.
+     */
+    public void submit(T value) {
+        requireNonNull(value, "The value must not be null");
+        submittedValues.incrementAndGet();
+        
+        if (windowInNanos == 0) {
+            handle(value);
+            return;
+        }
+        lastSubmission = clock.getAsLong();
+        pending = value;
+        
+        if (! scheduled) {
+            scheduled = true;
+            timer.schedule(TimeUnit.NANOSECONDS.toMillis(windowInNanos), this::handleIfBurstIsOver);
+        }
+    }
+    
+    /**
+     * Forgets about the given value if it is still pending, e.g. because it no longer makes sense to handle it.
+     * 
+     * @param value
+     *          The value to forget.
+     */
+    public void cancel(Object value) {
+        if (pending != null && pending.equals(value)) {
+            pending = null;
+        }
+    }
+    
+    /**
+     * Returns the value waiting for the end of the current burst, if any.
+     * @return the pending value
+     */
+    public Optional<T> pendingValue() {
+        return Optional.ofNullable(pending);
+    }
+    
+    /** Handles the pending value if no value has been submitted during the window, checks again later otherwise. */
+    private void handleIfBurstIsOver() {
+        long remaining = windowInNanos - (clock.getAsLong() - lastSubmission);
+        
+        if (remaining > 0 && pending != null) {
+            // rounded up so that the task does not run again before the end of the window
+            timer.schedule(TimeUnit.NANOSECONDS.toMillis(remaining + TimeUnit.MILLISECONDS.toNanos(1) - 1), this::handleIfBurstIsOver);
+            return;
+        }
+        scheduled = false;
+        T value = pending;
+        pending = null;
+        
+        if (value != null) {
+            handle(value);
+        }
+    }
+    
+    private void handle(T value) {
+        handledValues.incrementAndGet();
+        action.accept(value);
+    }
+    
+    /**
+     * Returns the number of values submitted so far.
+     * @return the number of values submitted
+     */
+    public long submittedValues() {
+        return submittedValues.get();
+    }
+    
+    /**
+     * Returns the number of values actually handled so far.
+     * @return the number of values handled
+     */
+    public long handledValues() {
+        return handledValues.get();
+    }
+    
+}
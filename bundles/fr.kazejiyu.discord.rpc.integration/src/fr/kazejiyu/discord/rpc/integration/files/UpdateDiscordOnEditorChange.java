@@ -12,9 +12,12 @@ package fr.kazejiyu.discord.rpc.integration.files;
 import static fr.kazejiyu.discord.rpc.integration.settings.Settings.DEFAULT_DISCORD_APPLICATION_ID;
 import static java.util.Objects.requireNonNull;
 
+import java.time.Duration;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
+import java.util.function.LongSupplier;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.jface.viewers.ISelection;
@@ -28,6 +31,7 @@ import org.eclipse.ui.part.EditorPart;
 
 import fr.kazejiyu.discord.rpc.integration.Plugin;
 import fr.kazejiyu.discord.rpc.integration.core.DiscordRpcLifecycle;
+import fr.kazejiyu.discord.rpc.integration.core.ImmutableRichPresence;
 import fr.kazejiyu.discord.rpc.integration.core.RichPresence;
 import fr.kazejiyu.discord.rpc.integration.settings.GlobalPreferences;
 import fr.kazejiyu.discord.rpc.integration.settings.ProjectPreferences;
@@ -41,9 +45,16 @@ import fr.kazejiyu.discord.rpc.integration.settings.UserPreferences;
  * Each time a new {@link EditorPart} is selected, a corresponding {@link RichPresence}
  * is created and then forward to a {@link DiscordRpcLifecycle} instance in order to
  * be shown in Discord's UI.
+ * <p>
+ * Cycling through editors or closing several of them activates many parts in a row. The activations can be
+ * debounced so that only the editor the user settles on is turned into a presence: an activation
+ * followed by another one within the debounce window only records the part, which is then dropped.
  */
 public class UpdateDiscordOnEditorChange implements ISelectionListener, IPartListener2 {
     
+    /** The presence shown while the user is idle. */
+    private static final RichPresence IDLE = new ImmutableRichPresence().withDetails("Idle");
+    
     /** Used to update Discord when active project's preferences change. */
     private IEditorPart lastSelectedEditor = null;
     
@@ -58,6 +69,21 @@ public class UpdateDiscordOnEditorChange implements ISelectionListener, IPartLis
     private final EditionContext context;
     
     private final Function<EditionContext, Optional<RichPresence>> toRichPresence;
+    
+    /** User's preferences, shared by the whole plug-in. */
+    private final GlobalPreferences preferences;
+    
+    /** Only shows the last editor activated during a burst of activations. */
+    private final TrailingEdgeDebouncer<IEditorPart> activations;
+    
+    /** Returns the current time, in nanoseconds. */
+    private final LongSupplier clock;
+    
+    /** Whether Discord shows that the user is idle instead of the last selected editor. */
+    private volatile boolean idle;
+    
+    /** When the user has been considered idle, in nanoseconds. */
+    private long idleSince;
 
     /**
      * Creates a new instance that updates Discord when the active editor changes.
@@ -66,11 +92,59 @@ public class UpdateDiscordOnEditorChange implements ISelectionListener, IPartLis
      *          The proxy used to communicate with Discord.
      * @param toRichPresence
      *          The adapter used to create a RichPresence from an EditionContext.
+     * @param preferences
+     *          User's preferences.
+     */
+    public UpdateDiscordOnEditorChange(DiscordRpcLifecycle discord, Function<EditionContext, Optional<RichPresence>> toRichPresence, GlobalPreferences preferences) {
+        this(discord, toRichPresence, preferences, Duration.ZERO);
+    }
+
+    /**
+     * Creates a new instance that updates Discord once the user settles on an editor.
+     * <p>
+     * Must be notified from the UI thread.
+     * 
+     * @param discord
+     *          The proxy used to communicate with Discord.
+     * @param toRichPresence
+     *          The adapter used to create a RichPresence from an EditionContext.
+     * @param preferences
+     *          User's preferences.
+     * @param debounceWindow
+     *          The time without another activation after which an editor is shown in Discord.
+     *          Editors are shown as soon as activated if zero.
+     *          Must not be {@code null} nor negative.
+     */
+    public UpdateDiscordOnEditorChange(DiscordRpcLifecycle discord, Function<EditionContext, Optional<RichPresence>> toRichPresence, 
+            GlobalPreferences preferences, Duration debounceWindow) {
+        this(discord, toRichPresence, preferences, debounceWindow, 
+             (delay, task) -> PlatformUI.getWorkbench().getDisplay().timerExec((int) delay, task), System::nanoTime);
+    }
+
+    /**
+     * Creates a new instance that updates Discord once the user settles on an editor.
+     * 
+     * @param discord
+     *          The proxy used to communicate with Discord.
+     * @param toRichPresence
+     *          The adapter used to create a RichPresence from an EditionContext.
+     * @param preferences
+     *          User's preferences.
+     * @param debounceWindow
+     *          The time without another activation after which an editor is shown in Discord.
+     * @param timer
+     *          Runs tasks after a delay on the thread notifying this instance.
+     * @param clock
+     *          Returns the current time, in nanoseconds.
      */
-    public UpdateDiscordOnEditorChange(DiscordRpcLifecycle discord, Function<EditionContext, Optional<RichPresence>> toRichPresence) {
+    UpdateDiscordOnEditorChange(DiscordRpcLifecycle discord, Function<EditionContext, Optional<RichPresence>> toRichPresence, 
+            GlobalPreferences preferences, Duration debounceWindow, TrailingEdgeDebouncer.Timer timer, LongSupplier clock) {
         this.discord = requireNonNull(discord, "The Discord proxy must not be null");
         this.context = new EditionContext();
         this.toRichPresence = requireNonNull(toRichPresence, "The RichPresence adapter must not be null");
+        this.preferences = requireNonNull(preferences, "The preferences must not be null");
+        this.activations = new TrailingEdgeDebouncer<>(this::show, debounceWindow, timer, clock);
+        this.clock = requireNonNull(clock, "The clock must not be null");
     }
 
     /**
@@ -92,7 +166,74 @@ public class UpdateDiscordOnEditorChange implements ISelectionListener, IPartLis
         IEditorPart activePart = lastSelectedEditor;
         lastSelectedEditor = null;
         
-        selectionChanged(activePart, null);
+        // not debounced: the user is not switching between editors
+        if (activePart != null) {
+            show(activePart);
+        }
+    }
+    
+    /**
+     * Shows in Discord that the user is idle, hiding the active editor and its elapsed time.
+     * 
+     * @see #showLastSelectedEditor()
+     */
+    public void showIdle() {
+        becomeIdle();
+        discord.show(IDLE);
+    }
+    
+    /**
+     * Shows nothing in Discord while the user is idle.
+     * 
+     * @see #showLastSelectedEditor()
+     */
+    public void showNothingWhileIdle() {
+        becomeIdle();
+        discord.showNothing();
+    }
+    
+    private void becomeIdle() {
+        if (! idle) {
+            idle = true;
+            idleSince = clock.getAsLong();
+        }
+    }
+    
+    /**
+     * Returns whether Discord shows that the user is idle instead of the last selected editor.
+     * @return true if the user is idle, false otherwise
+     */
+    public boolean isIdle() {
+        return idle;
+    }
+    
+    /**
+     * Shows the last selected editor in Discord again, or nothing if there is none.
+     * <p>
+     * Unlike an editor activation, Discord is updated even if the editor has not changed;
+     * typically when the user is active again after being idle. In that case the elapsed
+     * times are postponed so that they do not include the time spent idle.
+     */
+    @SuppressWarnings({"checkstyle:illegalcatch"})
+    public void showLastSelectedEditor() {
+        if (idle) {
+            idle = false;
+            context.getElapsedTimes().postponeBy(TimeUnit.NANOSECONDS.toSeconds(clock.getAsLong() - idleSince));
+        }
+        try {
+            Optional<RichPresence> presence = toRichPresence.apply(context);
+            
+            if (presence.isPresent()) {
+                discord.show(presence.get());
+            }
+            else {
+                discord.showNothing();
+            }
+        }
+        catch (Exception e) {
+            // Should never happen, but provides a more appropriate error in case of failure
+            Plugin.logException("An error occurred while trying to update Discord", e);
+        }
     }
     
     /** Sets {@link #lastSelectedEditor} to workbench's active editor, if any.
@@ -107,13 +248,28 @@ public class UpdateDiscordOnEditorChange implements ISelectionListener, IPartLis
     }
 
     @Override
-    @SuppressWarnings({"checkstyle:illegalcatch"})
     public void selectionChanged(IWorkbenchPart part, ISelection selection) {
-        if (!(part instanceof IEditorPart) || part.equals(lastSelectedEditor)) {
+        if (! (part instanceof IEditorPart)) {
+            return;
+        }
+        // the editor about to be shown, either at the end of the burst or right now
+        IEditorPart awaitedEditor = activations.pendingValue().orElse(lastSelectedEditor);
+        
+        if (part.equals(awaitedEditor)) {
+            // e.g. the caret moved: not a new activation, the burst must not be extended
+            return;
+        }
+        activations.submit((IEditorPart) part);
+    }
+    
+    /** Shows the given editor in Discord, unless it is already shown. */
+    @SuppressWarnings({"checkstyle:illegalcatch"})
+    private void show(IEditorPart part) {
+        if (part.equals(lastSelectedEditor)) {
             return;
         }
         try {
-            lastSelectedEditor = (IEditorPart) part;
+            lastSelectedEditor = part;
             context.setLastSelectedEditor(lastSelectedEditor);
             
             Optional<RichPresence> presence = toRichPresence.apply(context);
@@ -151,9 +307,9 @@ public class UpdateDiscordOnEditorChange implements ISelectionListener, IPartLis
             lastSelectedProjectPreferences.removeSettingChangeListener(updateDiscordOnProjectSettingChange);
         }
         presence.getProject().ifPresent(project -> {
-            lastSelectedProjectPreferences = new ProjectPreferences(project);
+            lastSelectedProjectPreferences = preferences.getProjectPreferences(project);
 
-            updateDiscordOnProjectSettingChange = new UpdateDiscordOnSettingChange(context, toRichPresence, discord, new GlobalPreferences());
+            updateDiscordOnProjectSettingChange = new UpdateDiscordOnSettingChange(context, toRichPresence, discord, preferences, this::isIdle);
             lastSelectedProjectPreferences.addSettingChangeListener(updateDiscordOnProjectSettingChange);
         });
     }
@@ -163,23 +319,21 @@ public class UpdateDiscordOnEditorChange implements ISelectionListener, IPartLis
     //                 This piece of code is likely to be duplicated
     //                 and has nothing to do with this class' concerns.
     private void connectAnotherDiscordAppIfRequired(RichPresence presence) {
-        GlobalPreferences globalPreferences = new GlobalPreferences();
-        UserPreferences preferences = presence.getProject()
-                .map(globalPreferences::getApplicablePreferencesFor)
-                .orElse(globalPreferences); // Without a project, we cannot access resource's specific preferences and hence assume that global preferences apply
+        UserPreferences applicablePreferences = presence.getProject()
+                .map(preferences::getApplicablePreferencesFor)
+                .orElseGet(preferences::snapshot); // Without a project, we cannot access resource's specific preferences and hence assume that global preferences apply
         
-        if (! preferences.showsRichPresence()) {
+        if (! applicablePreferences.showsRichPresence()) {
             // we should not be connected to Discord at all
             return;
         }
-        String expectedDiscordAppId = preferences.usesCustomDiscordApplication() ? preferences.getDiscordApplicationId().orElse("")
-                                                                                 : DEFAULT_DISCORD_APPLICATION_ID;
+        String expectedDiscordAppId = applicablePreferences.usesCustomDiscordApplication() ? applicablePreferences.getDiscordApplicationId().orElse("")
+                                                                                           : DEFAULT_DISCORD_APPLICATION_ID;
         if (discord.isConnectedTo(expectedDiscordAppId)) {
             // Nothing to do: we are already connected to the right Discord application
             return;
         }
-        discord.shutdown();
-        discord.initialize(expectedDiscordAppId);
+        discord.switchTo(expectedDiscordAppId);
     }
     
     @Override
@@ -190,12 +344,35 @@ public class UpdateDiscordOnEditorChange implements ISelectionListener, IPartLis
     
     @Override
     public void partClosed(IWorkbenchPartReference partRef) {
+        // a closed editor must not be shown once the burst of activations is over
+        activations.cancel(partRef.getPart(false));
+        
         if (Objects.equals(partRef.getPart(false), lastSelectedEditor)) {
-            discord.showNothing();
             context.setLastSelectedEditor(null);
+            
+            if (! idle) {
+                // otherwise nothing is shown once the user is back
+                discord.showNothing();
+            }
         }
     }
 
+    /**
+     * Returns the number of editors activated so far, including the ones activated during a burst.
+     * @return the number of editors activated
+     */
+    public long rawActivations() {
+        return activations.submittedValues();
+    }
+    
+    /**
+     * Returns the number of editors activated so far, ignoring the ones quickly replaced by another one.
+     * @return the number of editors activated once debounced
+     */
+    public long effectiveActivations() {
+        return activations.handledValues();
+    }
+
     @Override
     public void partBroughtToTop(IWorkbenchPartReference partRef) {
         // already handled by #partActivated
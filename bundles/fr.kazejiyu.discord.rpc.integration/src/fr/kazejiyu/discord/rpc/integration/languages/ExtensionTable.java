@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright (C) 2018-2020 Emmanuel CHEBBI
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ ******************************************************************************/
+package fr.kazejiyu.discord.rpc.integration.languages;
+
+import java.util.Map;
+
+/**
+ * <p>An immutable open-addressing hash table mapping lower-cased file extensions to values.</p>
+ * 
+ * <p>Unlike a {@link Map}, the table is queried with a region of a file name, compared ignoring case,
+ * so that looking for the value of an extension does not require to extract and lower-case the extension.
+ * Hence, lookups neither lock nor allocate.</p>
+ * 
+ * @param <T> The type of the values
+ * 
+ * @author Emmanuel CHEBBI
+ */
+final class ExtensionTable<T> {
+    
+    /** The lower-cased extensions, {@code null} for empty slots. */
+    private final String[] keys;
+    
+    /** The value of the extension stored in the same slot. */
+    private final Object[] values;
+    
+    /** Used to turn a hash into a slot; the length of the table minus one. */
+    private final int mask;
+    
+    /**
+     * Creates a new table.
+     * 
+     * @param valuesByExtension
+     *          The values of the table, by lower-cased extension.
+     *          Must not be {@code null}.
+     */
+    ExtensionTable(Map<String, T> valuesByExtension) {
+        // a power of two at least twice as big as the number of entries keeps probe sequences short
+        int capacity = Integer.highestOneBit(Math.max(1, valuesByExtension.size()) * 2) << 1;
+        this.keys = new String[capacity];
+        this.values = new Object[capacity];
+        this.mask = capacity - 1;
+        
+        for (Map.Entry<String, T> entry : valuesByExtension.entrySet()) {
+            String extension = entry.getKey();
+            int slot = hash(extension, 0) & mask;
+            
+            while (keys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = extension;
+            values[slot] = entry.getValue();
+        }
+    }
+    
+    /**
+     * Returns the value of the extension starting at {@code from} in {@code fileName}.
+     * 
+     * @param fileName
+     *          The name of the file.
+     *          Must not be {@code null}.
+     * @param from
+     *          The index of the first character of the extension in {@code fileName}.
+     * @param defaultValue
+     *          Returned when the extension is not in the table.
+     *          
+     * @return the value of the extension, {@code defaultValue} if none
+     */
+    @SuppressWarnings("unchecked")
+    T get(String fileName, int from, T defaultValue) {
+        int length = fileName.length() - from;
+        
+        for (int slot = hash(fileName, from) & mask; keys[slot] != null; slot = (slot + 1) & mask) {
+            String key = keys[slot];
+            
+            if (key.length() == length && fileName.regionMatches(true, from, key, 0, length)) {
+                return (T) values[slot];
+            }
+        }
+        return defaultValue;
+    }
+    
+    /** Returns the hash of the lower-cased characters of {@code text}, starting at {@code from}. */
+    private static int hash(String text, int from) {
+        int hash = 0;
+        
+        for (int i = from; i < text.length(); ++i) {
+            hash = 31 * hash + Character.toLowerCase(text.charAt(i));
+        }
+        // spreads the high bits, the table being indexed with the low ones
+        return hash ^ (hash >>> 16);
+    }
+    
+}
@@ -0,0 +1,601 @@
+/*******************************************************************************
+ * Copyright (C) 2018-2020 Emmanuel CHEBBI
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ ******************************************************************************/
+package fr.kazejiyu.discord.rpc.integration.languages;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+
+import fr.kazejiyu.discord.rpc.integration.files.TrailingEdgeDebouncer;
+
+/**
+ * <p>Guesses the language of a file from its first bytes.</p>
+ * 
+ * <p>Recognizes shebangs (e.g. {@code #!/usr/bin/env python3}) as well as Vim and Emacs modelines
+ * (e.g. {@code // vim: ft=groovy} or {@code # -*- mode: ruby -*-}), so that scripts without extension
+ * such as {@code deploy} or {@code Jenkinsfile} can be shown with the right language. Interpreters and modes
+ * are resolved through the current {@link LanguageIndex}, hence may also be contributed languages.</p>
+ * 
+ * <p>At most the first {@value #MAX_BYTES} bytes of a file are read, into direct buffers reused from one read
+ * to another. The bytes are matched in place, straight from the buffer, each of them being read as an ISO-8859-1
+ * character.</p>
+ * 
+ * <p>Files are read by a background thread and the calling thread never waits for them: the language of a file is
+ * {@link LanguageDescriptor#UNKNOWN} until the file has been read, so that a slow file system never delays the
+ * update of Discord. {@link #addSniffListener(Runnable) Listeners} are notified when the language of a file
+ * becomes known this way, so that the presence can be shown again. The result is kept once known, for as long as
+ * the file is not modified.</p>
+ * 
+ * <p>A read taking longer than {@value #DEFAULT_READ_TIMEOUT} ms is given up: the language of the file is
+ * {@link LanguageDescriptor#UNKNOWN}, the thread reading it is interrupted and the next files are read by
+ * another thread, so that a file stored on a hung file system does not prevent reading the other ones.</p>
+ * 
+ * @author Emmanuel CHEBBI
+ */
+public final class FirstLinesSniffer implements AutoCloseable {
+    
+    /** The maximum number of bytes read from a file. */
+    public static final int MAX_BYTES = 256;
+    
+    /** How long a file is read before giving up by default, in milliseconds. */
+    public static final long DEFAULT_READ_TIMEOUT = 1_000;
+    
+    /** The maximum number of files whose language is cached. */
+    private static final int MAX_CACHED_FILES = 256;
+    
+    /** The maximum number of buffers kept for later reads. */
+    private static final int MAX_POOLED_BUFFERS = 4;
+    
+    /** Matches shebangs, e.g. {@code #! /usr/bin/env python3}, capturing the interpreter then its arguments. */
+    private static final Pattern SHEBANG = Pattern.compile("\\A#![ \\t]*(\\S*)(.*)");
+    
+    /** Matches the arguments of an interpreter. */
+    private static final Pattern WORD = Pattern.compile("\\S+");
+    
+    /** Matches Emacs modelines, e.g. {@code -*- mode: python; coding: utf-8 -*-} or {@code -*- python -*-}. */
+    private static final Pattern EMACS_MODELINE = Pattern.compile("-\\*-(.*?)-\\*-");
+    
+    /** Matches the mode declared in an Emacs modeline with several variables. */
+    private static final Pattern EMACS_MODE = Pattern.compile("(?:^|;)\\s*mode\\s*:\\s*([\\w+#.-]+)", Pattern.CASE_INSENSITIVE);
+    
+    /** Matches Vim modelines, e.g. {@code vim: set ft=python :} or {@code vi: syntax=sh}. */
+    private static final Pattern VIM_MODELINE = Pattern.compile("\\b(?:vi|vim|ex):.*?\\b(?:ft|filetype|syntax)=([\\w+#.-]+)");
+    
+    /** The languages of interpreters and modes whose name is neither an extension nor the name of a language. */
+    private static final Map<String, Language> ALIASES = new HashMap<>();
+    
+    static {
+        for (String shell : new String[] {"sh", "bash", "zsh", "ksh", "dash", "ash", "fish", "csh", "tcsh"}) {
+            ALIASES.put(shell, Language.TERMINAL);
+        }
+        ALIASES.put("node", Language.JAVASCRIPT);
+        ALIASES.put("nodejs", Language.JAVASCRIPT);
+        ALIASES.put("javascript", Language.JAVASCRIPT);
+        ALIASES.put("deno", Language.TYPESCRIPT);
+        ALIASES.put("ts-node", Language.TYPESCRIPT);
+        ALIASES.put("typescript", Language.TYPESCRIPT);
+        ALIASES.put("pypy", Language.PYTHON);
+        ALIASES.put("rscript", Language.R);
+        ALIASES.put("runghc", Language.HASKELL);
+        ALIASES.put("runhaskell", Language.HASKELL);
+        ALIASES.put("sbcl", Language.LISP);
+        ALIASES.put("clisp", Language.LISP);
+        ALIASES.put("kscript", Language.KOTLIN);
+    }
+    
+    /** Reads the files. */
+    private final Executor executor;
+    
+    /** Schedules the end of the reads. */
+    private final TrailingEdgeDebouncer.Timer timer;
+    
+    /** How long a file is read before giving up, in milliseconds. */
+    private final long readTimeout;
+    
+    /** Returns the index of the built-in and contributed languages. */
+    private final Supplier<LanguageIndex> languages;
+    
+    /** The language of each file read so far, along with the modification stamp of the file when it was read. */
+    private final ConcurrentMap<IFile, Sniff> sniffs = new ConcurrentHashMap<>();
+    
+    /** The direct buffers available for the next reads. */
+    private final Queue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+    
+    /** Notified each time the language of a file is known after having been asked for. */
+    private final List<Runnable> sniffListeners = new CopyOnWriteArrayList<>();
+    
+    /** The thread reading the files, {@code null} until needed or if files are read by another executor. */
+    private ExecutorService backgroundThread;
+    
+    /** The thread giving up reads, {@code null} until needed or if reads are ended by another timer. */
+    private ScheduledExecutorService timeoutThread;
+    
+    /**
+     * Creates a new instance reading files from a dedicated background thread,
+     * giving up a read after {@value #DEFAULT_READ_TIMEOUT} ms.
+     */
+    public FirstLinesSniffer() {
+        this(DEFAULT_READ_TIMEOUT);
+    }
+    
+    /**
+     * Creates a new instance reading files from a dedicated background thread.
+     * 
+     * @param readTimeoutInMillis
+     *          How long a file is read before giving up, in milliseconds.
+     */
+    FirstLinesSniffer(long readTimeoutInMillis) {
+        this.executor = this::readInBackground;
+        this.timer = this::scheduleTimeout;
+        this.readTimeout = readTimeoutInMillis;
+        this.languages = LanguageRegistry::currentIndex;
+    }
+    
+    /**
+     * Creates a new instance reading files with the given executor.
+     * 
+     * @param executor
+     *          Reads the files.
+     *          Must not be {@code null}.
+     */
+    FirstLinesSniffer(Executor executor) {
+        this(executor, LanguageRegistry::currentIndex);
+    }
+    
+    /**
+     * Creates a new instance reading files with the given executor and resolving languages with the given index.
+     * 
+     * @param executor
+     *          Reads the files.
+     *          Must not be {@code null}.
+     * @param languages
+     *          Returns the index of the built-in and contributed languages.
+     *          Must not be {@code null}.
+     */
+    FirstLinesSniffer(Executor executor, Supplier<LanguageIndex> languages) {
+        this.executor = requireNonNull(executor, "The executor must not be null");
+        this.timer = this::scheduleTimeout;
+        this.readTimeout = DEFAULT_READ_TIMEOUT;
+        this.languages = requireNonNull(languages, "The language index supplier must not be null");
+    }
+    
+    /**
+     * Creates a new instance reading files with the given executor and giving them up with the given timer.
+     * 
+     * @param executor
+     *          Reads the files.
+     *          Must not be {@code null}.
+     * @param timer
+     *          Schedules the end of the reads.
+     *          Must not be {@code null}.
+     * @param readTimeoutInMillis
+     *          How long a file is read before giving up, in milliseconds.
+     * @param languages
+     *          Returns the index of the built-in and contributed languages.
+     *          Must not be {@code null}.
+     */
+    FirstLinesSniffer(Executor executor, TrailingEdgeDebouncer.Timer timer, long readTimeoutInMillis, Supplier<LanguageIndex> languages) {
+        this.executor = requireNonNull(executor, "The executor must not be null");
+        this.timer = requireNonNull(timer, "The timer must not be null");
+        this.readTimeout = readTimeoutInMillis;
+        this.languages = requireNonNull(languages, "The language index supplier must not be null");
+    }
+    
+    /**
+     * <p>Returns the language of the given file, guessed from its first bytes.</p>
+     * 
+     * <p>Never blocks: if the file has not been read yet, it is read in the background and the
+     * {@link #addSniffListener(Runnable) listeners} are notified once its language is known.</p>
+     * 
+     * @param file
+     *          The file which language is looked for.
+     *          Must not be {@code null}.
+     *          
+     * @return the language of the file, {@link LanguageDescriptor#UNKNOWN} if it is not known yet
+     */
+    public LanguageDescriptor languageOf(IFile file) {
+        long stamp = file.getModificationStamp();
+        
+        if (stamp == IResource.NULL_STAMP) {
+            return LanguageDescriptor.UNKNOWN;
+        }
+        Sniff sniff = sniffs.get(file);
+        
+        if (sniff == null || sniff.stamp != stamp) {
+            sniff = new Sniff(stamp);
+            
+            if (sniffs.size() >= MAX_CACHED_FILES) {
+                sniffs.clear();
+            }
+            sniffs.put(file, sniff);
+            sniff.start(file);
+        }
+        return sniff.language();
+    }
+    
+    /**
+     * Adds a listener notified each time the language of a file, read in the background, is known.
+     * <p>
+     * Listeners are notified from the background thread and are expected to show the file again.
+     * 
+     * @param listener
+     *          The listener to notify.
+     *          Must not be {@code null}.
+     */
+    public void addSniffListener(Runnable listener) {
+        sniffListeners.add(requireNonNull(listener, "The listener must not be null"));
+    }
+    
+    /**
+     * Removes a listener added through {@link #addSniffListener(Runnable)}.
+     * 
+     * @param listener
+     *          The listener to remove.
+     */
+    public void removeSniffListener(Runnable listener) {
+        sniffListeners.remove(listener);
+    }
+    
+    private void notifySniff() {
+        for (Runnable listener : sniffListeners) {
+            listener.run();
+        }
+    }
+    
+    /**
+     * Returns the number of files whose language is currently cached.
+     * @return the number of cached files
+     */
+    public int cachedFiles() {
+        return sniffs.size();
+    }
+    
+    /** Reads the first bytes of {@code file} and guesses its language from them. */
+    private LanguageDescriptor sniff(IFile file) {
+        ByteBuffer buffer = buffers.poll();
+        
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(MAX_BYTES);
+        }
+        try (ReadableByteChannel channel = open(file)) {
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // keep reading until the buffer is full or the file is over
+            }
+            buffer.flip();
+            return languageOfFirstBytes(buffer, languages.get());
+        }
+        catch (IOException | CoreException e) {
+            // the file may have been deleted or may not be readable, nothing to guess from
+            return LanguageDescriptor.UNKNOWN;
+        }
+        finally {
+            buffer.clear();
+            
+            if (buffers.size() < MAX_POOLED_BUFFERS) {
+                buffers.offer(buffer);
+            }
+        }
+    }
+    
+    /** Opens {@code file}, directly from the file system if it is stored locally. */
+    private static ReadableByteChannel open(IFile file) throws IOException, CoreException {
+        IPath location = file.getLocation();
+        
+        if (location != null) {
+            return FileChannel.open(location.toFile().toPath(), StandardOpenOption.READ);
+        }
+        InputStream contents = file.getContents(true);
+        
+        if (contents == null) {
+            throw new IOException("The contents of " + file.getName() + " are not available");
+        }
+        return Channels.newChannel(contents);
+    }
+    
+    /**
+     * Returns the language of a file starting with the given bytes.
+     * 
+     * @param head
+     *          The first bytes of the file, between the position and the limit of the buffer.
+     *          Must not be {@code null}.
+     * @param index
+     *          The languages that may be declared.
+     *          Must not be {@code null}.
+     *          
+     * @return the language declared by the shebang or a modeline, {@link LanguageDescriptor#UNKNOWN} if none
+     */
+    static LanguageDescriptor languageOfFirstBytes(ByteBuffer head, LanguageIndex index) {
+        CharSequence text = new Latin1Characters(head, head.position(), head.limit());
+        
+        if (startsWithByteOrderMark(text)) {
+            text = text.subSequence(3, text.length());
+        }
+        Matcher shebang = SHEBANG.matcher(text);
+        
+        if (shebang.lookingAt()) {
+            LanguageDescriptor language = languageOfShebang(text, shebang, index);
+            
+            if (! language.isUnknown()) {
+                return language;
+            }
+        }
+        return languageOfModeline(text, index);
+    }
+    
+    /** Returns whether {@code text} starts with the UTF-8 byte order mark, read as ISO-8859-1. */
+    private static boolean startsWithByteOrderMark(CharSequence text) {
+        return text.length() >= 3 && text.charAt(0) == '\u00EF' && text.charAt(1) == '\u00BB' && text.charAt(2) == '\u00BF';
+    }
+    
+    /** Returns the language of the interpreter declared by the shebang of {@code text}, e.g. {@code /usr/bin/env python3}. */
+    private static LanguageDescriptor languageOfShebang(CharSequence text, Matcher shebang, LanguageIndex index) {
+        int start = shebang.end(1);
+        
+        while (start > shebang.start(1) && text.charAt(start - 1) != '/') {
+            --start;
+        }
+        CharSequence interpreter = text.subSequence(start, shebang.end(1));
+        
+        if ("env".contentEquals(interpreter)) {
+            Matcher words = WORD.matcher(text).region(shebang.start(2), shebang.end(2));
+            interpreter = "";
+            
+            while (interpreter.length() == 0 && words.find()) {
+                // skip env's options and variable assignments
+                if (words.group().charAt(0) != '-' && words.group().indexOf('=') < 0) {
+                    interpreter = words.group();
+                }
+            }
+        }
+        return languageNamed(interpreter.toString(), index);
+    }
+    
+    /** Returns the language declared by the first Emacs or Vim modeline of {@code text}. */
+    private static LanguageDescriptor languageOfModeline(CharSequence text, LanguageIndex index) {
+        Matcher emacs = EMACS_MODELINE.matcher(text);
+        
+        if (emacs.find()) {
+            String variables = emacs.group(1).trim();
+            Matcher mode = EMACS_MODE.matcher(variables);
+            
+            if (mode.find()) {
+                return languageNamed(mode.group(1), index);
+            }
+            if (! variables.contains(":")) {
+                return languageNamed(variables, index);
+            }
+        }
+        Matcher vim = VIM_MODELINE.matcher(text);
+        
+        if (vim.find()) {
+            return languageNamed(vim.group(1), index);
+        }
+        return LanguageDescriptor.UNKNOWN;
+    }
+    
+    /** Returns the language of an interpreter or of a mode, ignoring its version (e.g. {@code python3.8}). */
+    private static LanguageDescriptor languageNamed(String name, LanguageIndex index) {
+        String lowerCased = name.toLowerCase(Locale.ROOT);
+        String unversioned = lowerCased.replaceFirst("[\\d.]+$", "");
+        
+        for (String candidate : new String[] {lowerCased, unversioned}) {
+            if (candidate.isEmpty()) {
+                continue;
+            }
+            Language alias = ALIASES.get(candidate);
+            
+            if (alias != null) {
+                return LanguageDescriptor.of(alias);
+            }
+            LanguageDescriptor byExtension = index.lookup("file." + candidate);
+            
+            if (! byExtension.isUnknown()) {
+                return byExtension;
+            }
+            for (LanguageDescriptor language : index.languages()) {
+                if (! language.isUnknown()
+                        && (language.getKey().equals(candidate) || language.getName().equalsIgnoreCase(candidate))) {
+                    return language;
+                }
+            }
+        }
+        return LanguageDescriptor.UNKNOWN;
+    }
+    
+    /** Runs {@code task} on the background thread, starting it if necessary. */
+    private synchronized void readInBackground(Runnable task) {
+        if (backgroundThread == null) {
+            backgroundThread = Executors.newSingleThreadExecutor(daemon("Discord Rich Presence - Language sniffing"));
+        }
+        backgroundThread.execute(task);
+    }
+    
+    /** Runs {@code task} on the timeout thread once {@code delayInMillis} ms have elapsed, starting it if necessary. */
+    private synchronized void scheduleTimeout(long delayInMillis, Runnable task) {
+        if (timeoutThread == null) {
+            timeoutThread = Executors.newSingleThreadScheduledExecutor(daemon("Discord Rich Presence - Language sniffing timeouts"));
+        }
+        timeoutThread.schedule(task, delayInMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    /** Returns a factory of daemon threads with the given name. */
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+    
+    /** 
+     * Leaves the background thread to a hung read: the files waiting to be read are read by a new thread.
+     * Has no effect if files are read by another executor.
+     */
+    private synchronized void abandonBackgroundThread() {
+        if (backgroundThread != null) {
+            List<Runnable> waiting = backgroundThread.shutdownNow();
+            backgroundThread = null;
+            waiting.forEach(this::readInBackground);
+        }
+    }
+    
+    /** Stops the background threads. */
+    @Override
+    public synchronized void close() {
+        if (backgroundThread != null) {
+            backgroundThread.shutdownNow();
+        }
+        if (timeoutThread != null) {
+            timeoutThread.shutdownNow();
+        }
+    }
+    
+    /** The ISO-8859-1 characters of a region of a buffer, read in place. */
+    private static final class Latin1Characters implements CharSequence {
+        
+        private final ByteBuffer buffer;
+        
+        /** The index of the first byte of the region, inclusive. */
+        private final int start;
+        
+        /** The index of the last byte of the region, exclusive. */
+        private final int end;
+        
+        Latin1Characters(ByteBuffer buffer, int start, int end) {
+            this.buffer = buffer;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (buffer.get(start + index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return new Latin1Characters(buffer, start + from, start + to);
+        }
+        
+        @Override
+        public String toString() {
+            return new StringBuilder(this).toString();
+        }
+        
+    }
+    
+    /** The language of a file, guessed when the file had a given modification stamp. */
+    private final class Sniff {
+        
+        /** The modification stamp of the file when it has been read. */
+        private final long stamp;
+        
+        private final CompletableFuture<LanguageDescriptor> language = new CompletableFuture<>();
+        
+        /** The thread reading the file, {@code null} unless the file is being read. Guarded by the sniffer. */
+        private Thread reader;
+        
+        Sniff(long stamp) {
+            this.stamp = stamp;
+        }
+        
+        /** Reads {@code file} in the background. */
+        void start(IFile file) {
+            try {
+                executor.execute(() -> read(file));
+            }
+            catch (RuntimeException e) {
+                // the executor has been shut down, the language will never be known
+                language.complete(LanguageDescriptor.UNKNOWN);
+            }
+            if (! language.isDone()) {
+                // the caller is told the language is unknown, it has to be told again once the file is read
+                language.thenAccept(known -> {
+                    if (! known.isUnknown()) {
+                        notifySniff();
+                    }
+                });
+            }
+        }
+        
+        /** Reads {@code file}, giving up once the read timeout is spent. */
+        private void read(IFile file) {
+            synchronized (FirstLinesSniffer.this) {
+                reader = Thread.currentThread();
+            }
+            try {
+                timer.schedule(readTimeout, this::giveUp);
+                language.complete(sniff(file));
+            }
+            finally {
+                // has no effect unless the file could not be read because of an unexpected error
+                language.complete(LanguageDescriptor.UNKNOWN);
+                
+                synchronized (FirstLinesSniffer.this) {
+                    reader = null;
+                    // the read may have been given up just before it ended, the next one must not be interrupted
+                    Thread.interrupted();
+                }
+            }
+        }
+        
+        /** Gives up the read of the file if it is still running. */
+        private void giveUp() {
+            synchronized (FirstLinesSniffer.this) {
+                if (reader != null && language.complete(LanguageDescriptor.UNKNOWN)) {
+                    // closes the channel if it is interruptible
+                    reader.interrupt();
+                    abandonBackgroundThread();
+                }
+            }
+        }
+        
+        /** Returns the language of the file, {@link LanguageDescriptor#UNKNOWN} if it has not been read yet. */
+        LanguageDescriptor language() {
+            return language.getNow(LanguageDescriptor.UNKNOWN);
+        }
+    }
+    
+}
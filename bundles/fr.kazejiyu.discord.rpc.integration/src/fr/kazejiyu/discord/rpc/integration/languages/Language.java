@@ -11,14 +11,17 @@ package fr.kazejiyu.discord.rpc.integration.languages;
 
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableSet;
 
-import java.util.Collection;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
 /**
- * Programming languages handled by the plug-in.
+ * <p>Programming languages handled by the plug-in.</p>
+ * 
+ * <p>Languages are looked for in the {@link LanguageIndex#builtIn() index of the built-in languages},
+ * so that {@link #fromFileName(String)} neither depends on the number of languages nor allocates.</p>
  * 
  * @author Emmanuel CHEBBI
  */
@@ -78,10 +81,10 @@ public enum Language {
     private final String name;
     
     /** Used for languages using file extension (.cpp, .xml, .json, ...) */
-    private final Collection<String> extensions;
+    private final Set<String> extensions;
     
     /** Used for languages using special files (Dockerfile, pom.xml, ...) */
-    private final Collection<String> fileNames;
+    private final Set<String> fileNames;
     
     /**
      * Defines a new language.
@@ -112,8 +115,8 @@ public enum Language {
     private Language(String key, String name, List<String> extensions, List<String> fileNames) {
         this.key = key;
         this.name = name;
-        this.extensions = extensions;
-        this.fileNames = fileNames;
+        this.extensions = unmodifiableSet(new LinkedHashSet<>(extensions));
+        this.fileNames = unmodifiableSet(new LinkedHashSet<>(fileNames));
     }
     
     /** 
@@ -134,18 +137,18 @@ public enum Language {
     
     /**
      * Returns all the file extensions related to this language. 
-     * @return the file extensions related to this language 
+     * @return an unmodifiable view of the file extensions related to this language 
      */
     public Set<String> getFileExtensions() {
-        return new LinkedHashSet<>(this.extensions);
+        return this.extensions;
     }
     
     /** 
      * Returns the name of all the files related to this language.
-     * @return the name of the files related to this language 
+     * @return an unmodifiable view of the name of the files related to this language 
      */
     public Set<String> getFileNames() {
-        return new LinkedHashSet<>(this.fileNames);
+        return this.fileNames;
     }
     
     /**
@@ -159,32 +162,7 @@ public enum Language {
      * @return the language corresponding to the given file name
      */
     public static Language fromFileName(String fileName) {
-        for (Language language : values()) {
-            if (language.fileNames.contains(fileName)) {
-                return language;
-            }
-        }
-        String extension = extensionOf(fileName);
-        
-        if (extension.isEmpty()) {
-            return UNKNOWN;
-        }
-        for (Language language : values()) {
-            if (language.extensions.contains(extension)) {
-                return language;
-            }
-        }
-        return UNKNOWN;
-    }
-
-    /** Returns the extension, in lower case and without the final dot, of {@code fileName}. */
-    private static String extensionOf(String fileName) {
-        int dotIndex = fileName.lastIndexOf('.');
-        
-        if (dotIndex <= 0 || fileName.length() <= dotIndex + 1) {
-            return "";
-        }
-        String extension = fileName.substring(dotIndex + 1);
-        return extension.toLowerCase();
+        return LanguageIndex.builtIn().lookup(fileName).builtIn().orElse(UNKNOWN);
     }
 }
+
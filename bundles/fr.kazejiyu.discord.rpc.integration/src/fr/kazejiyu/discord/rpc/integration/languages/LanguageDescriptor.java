@@ -0,0 +1,181 @@
+/*******************************************************************************
+ * Copyright (C) 2018-2020 Emmanuel CHEBBI
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ ******************************************************************************/
+package fr.kazejiyu.discord.rpc.integration.languages;
+
+import static java.util.Collections.unmodifiableSet;
+import static java.util.Objects.requireNonNull;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * <p>Describes a language that can be shown in Discord, either built in the plug-in
+ * (see {@link Language}) or contributed to the {@value fr.kazejiyu.discord.rpc.integration.Plugin#LANGUAGE_EXTENSION_ID}
+ * extension point.</p>
+ * 
+ * <p>Instances are immutable. The descriptor of a built-in language is created once, so that
+ * {@link #of(Language)} does not allocate.</p>
+ * 
+ * @author Emmanuel CHEBBI
+ */
+public final class LanguageDescriptor {
+    
+    /** The descriptor of each built-in language. */
+    private static final Map<Language, LanguageDescriptor> BUILT_IN = new EnumMap<>(Language.class);
+    
+    static {
+        for (Language language : Language.values()) {
+            BUILT_IN.put(language, new LanguageDescriptor(language));
+        }
+    }
+    
+    /** Describes an unknown language. */
+    public static final LanguageDescriptor UNKNOWN = of(Language.UNKNOWN);
+    
+    private final String key;
+    
+    private final String name;
+    
+    private final Set<String> extensions;
+    
+    private final Set<String> fileNames;
+    
+    /** The built-in language described, built once so that {@link #builtIn()} does not allocate. */
+    private final Optional<Language> builtIn;
+    
+    /** Creates the descriptor of a built-in language. */
+    private LanguageDescriptor(Language language) {
+        this.key = language.getKey();
+        this.name = language.getName();
+        this.extensions = language.getFileExtensions();
+        this.fileNames = language.getFileNames();
+        this.builtIn = Optional.of(language);
+    }
+    
+    /**
+     * Creates the descriptor of a contributed language.
+     * 
+     * @param key
+     *          The identifier of the language as registered in the Discord Application.
+     *          Must not be {@code null}.
+     * @param name
+     *          The string shown in Discord's interface.
+     *          Must not be {@code null}.
+     * @param extensions
+     *          The file extensions of the language.
+     *          Must not be {@code null}.
+     * @param fileNames
+     *          Names of special files related to the language.
+     *          Must not be {@code null}.
+     */
+    LanguageDescriptor(String key, String name, Collection<String> extensions, Collection<String> fileNames) {
+        this.key = requireNonNull(key, "The key must not be null");
+        this.name = requireNonNull(name, "The name must not be null");
+        this.extensions = unmodifiableSet(new LinkedHashSet<>(requireNonNull(extensions, "The extensions must not be null")));
+        this.fileNames = unmodifiableSet(new LinkedHashSet<>(requireNonNull(fileNames, "The file names must not be null")));
+        this.builtIn = Optional.empty();
+    }
+    
+    /**
+     * Returns the descriptor of a built-in language.
+     * 
+     * @param language
+     *          The built-in language.
+     *          Must not be {@code null}.
+     *          
+     * @return the descriptor of the language, always the same instance
+     */
+    public static LanguageDescriptor of(Language language) {
+        return BUILT_IN.get(requireNonNull(language, "The language must not be null"));
+    }
+    
+    /** 
+     * Returns the Discord key identifying language's icon.
+     * @return the Discord key identifying language's icon
+     */
+    public String getKey() {
+        return key;
+    }
+    
+    /** 
+     * Returns a human-readable name of the language.
+     * @return the name of the language
+     */
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * Returns all the file extensions related to this language. 
+     * @return an unmodifiable view of the file extensions related to this language 
+     */
+    public Set<String> getFileExtensions() {
+        return extensions;
+    }
+    
+    /** 
+     * Returns the name of all the files related to this language.
+     * @return an unmodifiable view of the name of the files related to this language 
+     */
+    public Set<String> getFileNames() {
+        return fileNames;
+    }
+    
+    /**
+     * Returns the built-in language described by this instance.
+     * @return the built-in language, nothing if the language has been contributed
+     */
+    public Optional<Language> builtIn() {
+        return builtIn;
+    }
+    
+    /**
+     * Returns whether this instance describes an unknown language.
+     * @return whether the language is unknown
+     */
+    public boolean isUnknown() {
+        return this == UNKNOWN;
+    }
+
+    @Override
+    public int hashCode() {
+        return builtIn.isPresent() ? builtIn.get().hashCode() : key.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof LanguageDescriptor)) {
+            return false;
+        }
+        LanguageDescriptor other = (LanguageDescriptor) obj;
+        
+        // built-in descriptors are unique
+        if (builtIn.isPresent() || other.builtIn.isPresent()) {
+            return false;
+        }
+        return key.equals(other.key)
+            && name.equals(other.name)
+            && extensions.equals(other.extensions)
+            && fileNames.equals(other.fileNames);
+    }
+    
+    @Override
+    public String toString() {
+        return name.isEmpty() ? "Unknown" : name;
+    }
+
+}
@@ -0,0 +1,363 @@
+/*******************************************************************************
+ * Copyright (C) 2018-2020 Emmanuel CHEBBI
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ ******************************************************************************/
+package fr.kazejiyu.discord.rpc.integration.languages;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.content.IContentType;
+import org.eclipse.core.runtime.content.IContentTypeManager;
+import org.eclipse.core.runtime.content.IContentTypeManager.ContentTypeChangeEvent;
+import org.eclipse.core.runtime.content.IContentTypeManager.IContentTypeChangeListener;
+import org.eclipse.core.runtime.content.IContentTypeMatcher;
+
+/**
+ * <p>Detects the language of a file from its name.</p>
+ * 
+ * <p>Languages, either built-in or contributed by other plug-ins, are all resolved through the current
+ * {@link LanguageIndex}. The language is first looked for in the file names and the extensions known by the index.
+ * Files that are not known this way, for instance {@code .pom} or {@code .launch} files, are associated with 
+ * the Eclipse content type matching their name. The language of a content type is the language of the first
+ * type of its base-type chain that is either well-known or declares a file name or an extension known by
+ * the index.</p>
+ * 
+ * <p>The language of each content type is only computed once, then cached by ID until the content types
+ * or the index change (see {@link #listeningTo(IContentTypeManager)}).</p>
+ * 
+ * <p>The language of a workspace file without extension that is still unknown is guessed from the first
+ * bytes of the file by a {@link FirstLinesSniffer}, in the background.</p>
+ * 
+ * <p>The {@code languageOf} methods only tell the built-in languages: they are projections of the
+ * {@code descriptorOf} ones.</p>
+ * 
+ * @author Emmanuel CHEBBI
+ */
+public final class LanguageDetector implements IContentTypeChangeListener, AutoCloseable {
+    
+    /** The languages of the content types whose file specifications do not tell the language. */
+    private static final Map<String, Language> WELL_KNOWN_CONTENT_TYPES = new HashMap<>();
+    
+    static {
+        WELL_KNOWN_CONTENT_TYPES.put(IContentTypeManager.CT_TEXT, Language.TEXT);
+        WELL_KNOWN_CONTENT_TYPES.put("org.eclipse.jdt.core.javaSource", Language.JAVA);
+        WELL_KNOWN_CONTENT_TYPES.put("org.eclipse.jdt.core.javaClass", Language.JAVA);
+        WELL_KNOWN_CONTENT_TYPES.put("org.eclipse.cdt.core.cSource", Language.C);
+        WELL_KNOWN_CONTENT_TYPES.put("org.eclipse.cdt.core.cHeader", Language.C);
+        WELL_KNOWN_CONTENT_TYPES.put("org.eclipse.cdt.core.cxxSource", Language.CPP);
+        WELL_KNOWN_CONTENT_TYPES.put("org.eclipse.cdt.core.cxxHeader", Language.CPP);
+        WELL_KNOWN_CONTENT_TYPES.put("org.eclipse.wst.html.core.htmlsource", Language.HTML);
+        WELL_KNOWN_CONTENT_TYPES.put("org.eclipse.wst.css.core.csssource", Language.CSS);
+        WELL_KNOWN_CONTENT_TYPES.put("org.eclipse.wst.jsdt.core.jsSource", Language.JAVASCRIPT);
+    }
+    
+    /** The detector used when content types are not available, e.g. when the platform is not running. */
+    private static final LanguageDetector WITHOUT_CONTENT_TYPES = new LanguageDetector(null);
+    
+    /** The detector using the platform's content types, {@code null} until first requested. */
+    private static LanguageDetector defaultDetector;
+    
+    /** Finds the content type of a file, {@code null} if content types are not available. */
+    private final IContentTypeMatcher contentTypes;
+    
+    /** Guesses the language of the files without extension from their first bytes. */
+    private final FirstLinesSniffer sniffer;
+    
+    /** Returns the index of the built-in and contributed languages. */
+    private final Supplier<LanguageIndex> languages;
+    
+    /** The language of each content type met so far, by ID. */
+    private final ConcurrentMap<String, LanguageDescriptor> languagesByContentType = new ConcurrentHashMap<>();
+    
+    /** The index with which the languages of the content types have been resolved. */
+    private volatile LanguageIndex cachedIndex;
+    
+    /**
+     * Creates a new instance detecting languages from the given content types.
+     * 
+     * @param contentTypes
+     *          Finds the content type of a file.
+     *          
+     * @see #listeningTo(IContentTypeManager)
+     */
+    LanguageDetector(IContentTypeMatcher contentTypes) {
+        this(contentTypes, new FirstLinesSniffer());
+    }
+    
+    /**
+     * Creates a new instance detecting languages from the given content types and first bytes of files.
+     * 
+     * @param contentTypes
+     *          Finds the content type of a file.
+     * @param sniffer
+     *          Guesses the language of the files without extension from their first bytes.
+     *          Must not be {@code null}.
+     */
+    LanguageDetector(IContentTypeMatcher contentTypes, FirstLinesSniffer sniffer) {
+        this(contentTypes, sniffer, LanguageRegistry::currentIndex);
+    }
+    
+    /**
+     * Creates a new instance detecting languages from the given index, content types and first bytes of files.
+     * 
+     * @param contentTypes
+     *          Finds the content type of a file.
+     * @param sniffer
+     *          Guesses the language of the files without extension from their first bytes.
+     *          Must not be {@code null}.
+     * @param languages
+     *          Returns the index of the built-in and contributed languages.
+     *          Must not be {@code null}.
+     */
+    LanguageDetector(IContentTypeMatcher contentTypes, FirstLinesSniffer sniffer, Supplier<LanguageIndex> languages) {
+        this.contentTypes = contentTypes;
+        this.sniffer = requireNonNull(sniffer, "The sniffer must not be null");
+        this.languages = requireNonNull(languages, "The language index supplier must not be null");
+    }
+    
+    /**
+     * Creates a new instance detecting languages from the content types of the given manager,
+     * computing them again when the content types change.
+     * 
+     * @param manager
+     *          Manages the content types.
+     *          Must not be {@code null}.
+     *          
+     * @return a new instance listening to the manager, to {@link #close()} once no longer needed
+     */
+    public static LanguageDetector listeningTo(IContentTypeManager manager) {
+        LanguageDetector detector = new LanguageDetector(requireNonNull(manager, "The content type manager must not be null"));
+        manager.addContentTypeChangeListener(detector);
+        return detector;
+    }
+    
+    /**
+     * Returns the instance using the platform's content types, creating it on first call.
+     * 
+     * @return the instance using the platform's content types, or an instance only relying on {@link Language}
+     *         if the platform is not running
+     */
+    public static synchronized LanguageDetector getDefault() {
+        if (defaultDetector == null) {
+            if (! Platform.isRunning()) {
+                return WITHOUT_CONTENT_TYPES;
+            }
+            defaultDetector = listeningTo(Platform.getContentTypeManager());
+        }
+        return defaultDetector;
+    }
+    
+    /**
+     * Returns the instance using the platform's content types, without creating it.
+     * 
+     * @return the instance using the platform's content types, nothing if it has not been created yet
+     * 
+     * @see #getDefault()
+     */
+    public static synchronized Optional<LanguageDetector> getIfCreated() {
+        return Optional.ofNullable(defaultDetector);
+    }
+    
+    /**
+     * <p>Returns the built-in language of the file of the given name.</p>
+     * 
+     * <p>If no built-in language can be found, {@link Language#UNKNOWN} is returned.</p>
+     * 
+     * @param fileName
+     *          The name of the file which language is looked for.
+     *          Must not be {@code null}.
+     *          
+     * @return the language of the file
+     * 
+     * @see #descriptorOf(String)
+     */
+    public Language languageOf(String fileName) {
+        return descriptorOf(fileName).builtIn().orElse(Language.UNKNOWN);
+    }
+    
+    /**
+     * <p>Returns the language of the file of the given name, either built-in or contributed.</p>
+     * 
+     * <p>If no language can be found, {@link LanguageDescriptor#UNKNOWN} is returned.</p>
+     * 
+     * @param fileName
+     *          The name of the file which language is looked for.
+     *          Must not be {@code null}.
+     *          
+     * @return the language of the file
+     */
+    public LanguageDescriptor descriptorOf(String fileName) {
+        LanguageIndex index = languages.get();
+        LanguageDescriptor language = index.lookup(fileName);
+        
+        if (! language.isUnknown()) {
+            return language;
+        }
+        return languageOfContentType(fileName, index);
+    }
+    
+    /** Returns the language of the content type matching {@code fileName}, resolved with {@code index}. */
+    private LanguageDescriptor languageOfContentType(String fileName, LanguageIndex index) {
+        if (contentTypes == null) {
+            return LanguageDescriptor.UNKNOWN;
+        }
+        IContentType contentType = contentTypes.findContentTypeFor(fileName);
+        
+        if (contentType == null) {
+            return LanguageDescriptor.UNKNOWN;
+        }
+        if (index != cachedIndex) {
+            // the languages have been contributed since, the content types may now be resolved to other ones
+            languagesByContentType.clear();
+            cachedIndex = index;
+        }
+        return languagesByContentType.computeIfAbsent(contentType.getId(), id -> languageOf(contentType, index));
+    }
+    
+    /**
+     * <p>Returns the built-in language of the given file.</p>
+     * 
+     * <p>If no built-in language can be found, {@link Language#UNKNOWN} is returned.</p>
+     * 
+     * @param file
+     *          The file which language is looked for.
+     *          Must not be {@code null}.
+     *          
+     * @return the language of the file
+     * 
+     * @see #descriptorOf(IFile)
+     */
+    public Language languageOf(IFile file) {
+        return descriptorOf(file).builtIn().orElse(Language.UNKNOWN);
+    }
+    
+    /**
+     * <p>Returns the language of the given file, either built-in or contributed.</p>
+     * 
+     * <p>Detects the language from the name of the file first. If the file has no extension
+     * and its language is still unknown, reads the first bytes of the file in the background to guess it.
+     * Never blocks: the language is unknown until the file has been read, then the
+     * {@link #addSniffListener(Runnable) listeners} are notified.</p>
+     * 
+     * @param file
+     *          The file which language is looked for.
+     *          Must not be {@code null}.
+     *          
+     * @return the language of the file
+     */
+    public LanguageDescriptor descriptorOf(IFile file) {
+        String fileName = file.getName();
+        LanguageDescriptor language = descriptorOf(fileName);
+        
+        if (! language.isUnknown() || fileName.lastIndexOf('.') > 0) {
+            return language;
+        }
+        return sniffer.languageOf(file);
+    }
+    
+    /** Returns the language of the first type of {@code contentType}'s base-type chain telling its language. */
+    private static LanguageDescriptor languageOf(IContentType contentType, LanguageIndex index) {
+        for (IContentType type = contentType; type != null; type = type.getBaseType()) {
+            LanguageDescriptor language = languageDeclaredBy(type, index);
+            
+            if (! language.isUnknown()) {
+                return language;
+            }
+        }
+        return LanguageDescriptor.UNKNOWN;
+    }
+    
+    /** Returns the language of {@code type}, according to its ID and to the files it is associated with. */
+    private static LanguageDescriptor languageDeclaredBy(IContentType type, LanguageIndex index) {
+        Language wellKnown = WELL_KNOWN_CONTENT_TYPES.get(type.getId());
+        
+        if (wellKnown != null) {
+            return LanguageDescriptor.of(wellKnown);
+        }
+        for (String fileName : type.getFileSpecs(IContentType.FILE_NAME_SPEC)) {
+            LanguageDescriptor language = index.lookup(fileName);
+            
+            if (! language.isUnknown()) {
+                return language;
+            }
+        }
+        for (String extension : type.getFileSpecs(IContentType.FILE_EXTENSION_SPEC)) {
+            LanguageDescriptor language = index.lookup("file." + extension);
+            
+            if (! language.isUnknown()) {
+                return language;
+            }
+        }
+        return LanguageDescriptor.UNKNOWN;
+    }
+    
+    /**
+     * Adds a listener notified each time the language of a file, guessed in the background from its first bytes,
+     * is known.
+     * <p>
+     * Listeners are notified from a background thread and are expected to show the file again.
+     * 
+     * @param listener
+     *          The listener to notify.
+     *          Must not be {@code null}.
+     *          
+     * @see FirstLinesSniffer#addSniffListener(Runnable)
+     */
+    public void addSniffListener(Runnable listener) {
+        sniffer.addSniffListener(listener);
+    }
+    
+    /**
+     * Removes a listener added through {@link #addSniffListener(Runnable)}.
+     * 
+     * @param listener
+     *          The listener to remove.
+     */
+    public void removeSniffListener(Runnable listener) {
+        sniffer.removeSniffListener(listener);
+    }
+    
+    /**
+     * Returns the number of content types whose language is currently cached.
+     * @return the number of cached content types
+     */
+    public int cachedContentTypes() {
+        return languagesByContentType.size();
+    }
+    
+    @Override
+    public void contentTypeChanged(ContentTypeChangeEvent event) {
+        // file associations may have changed, as well as the content types matching a name
+        languagesByContentType.clear();
+    }
+    
+    /** Stops listening to the content type manager and stops reading files. */
+    @Override
+    public void close() {
+        sniffer.close();
+        
+        if (contentTypes instanceof IContentTypeManager) {
+            ((IContentTypeManager) contentTypes).removeContentTypeChangeListener(this);
+        }
+        synchronized (LanguageDetector.class) {
+            if (defaultDetector == this) {
+                defaultDetector = null;
+            }
+        }
+    }
+    
+}
@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright (C) 2018-2020 Emmanuel CHEBBI
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ ******************************************************************************/
+package fr.kazejiyu.discord.rpc.integration.languages;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableMap;
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * <p>An immutable index of languages, looked for by file name.</p>
+ * 
+ * <p>The index is built once from the built-in {@link Language languages} followed by additional ones,
+ * typically the ones contributed to the {@value fr.kazejiyu.discord.rpc.integration.Plugin#LANGUAGE_EXTENSION_ID}
+ * extension point (see {@link LanguageRegistry}). The first language declaring a file name or an extension wins,
+ * hence contributions cannot change the language of the files already known by the plug-in.</p>
+ * 
+ * <p>Instances being immutable, they can be shared between threads without locking and replaced as a whole
+ * when the languages change. {@link #lookup(String)} neither depends on the number of languages nor allocates.</p>
+ * 
+ * @author Emmanuel CHEBBI
+ */
+public final class LanguageIndex {
+    
+    /** The index of the built-in languages. */
+    private static final LanguageIndex BUILT_IN = of(emptyList());
+    
+    /** The languages indexed, built-in ones first. */
+    private final List<LanguageDescriptor> languages;
+    
+    /** The languages related to special files, by file name. */
+    private final Map<String, LanguageDescriptor> byFileName;
+    
+    /** The languages related to file extensions, by lower-cased extension. */
+    private final ExtensionTable<LanguageDescriptor> byExtension;
+    
+    private LanguageIndex(List<LanguageDescriptor> languages) {
+        Map<String, LanguageDescriptor> fileNames = new HashMap<>();
+        Map<String, LanguageDescriptor> extensions = new HashMap<>();
+        
+        for (LanguageDescriptor language : languages) {
+            for (String fileName : language.getFileNames()) {
+                fileNames.putIfAbsent(fileName, language);
+            }
+            for (String extension : language.getFileExtensions()) {
+                extensions.putIfAbsent(extension.toLowerCase(Locale.ROOT), language);
+            }
+        }
+        this.languages = unmodifiableList(languages);
+        this.byFileName = unmodifiableMap(fileNames);
+        this.byExtension = new ExtensionTable<>(extensions);
+    }
+    
+    /**
+     * Returns the index of the languages built in the plug-in.
+     * @return the index of the built-in languages
+     */
+    public static LanguageIndex builtIn() {
+        return BUILT_IN;
+    }
+    
+    /**
+     * Creates the index of the built-in languages and of the given ones.
+     * 
+     * @param contributions
+     *          The languages to index in addition to the built-in ones.
+     *          Must not be {@code null}.
+     *          
+     * @return a new index
+     */
+    public static LanguageIndex of(Collection<LanguageDescriptor> contributions) {
+        requireNonNull(contributions, "The contributed languages must not be null");
+        
+        List<LanguageDescriptor> languages = new ArrayList<>();
+        
+        for (Language language : Language.values()) {
+            languages.add(LanguageDescriptor.of(language));
+        }
+        languages.addAll(contributions);
+        
+        return new LanguageIndex(languages);
+    }
+    
+    /**
+     * <p>Returns the language corresponding to the given file name.</p>
+     * 
+     * <p>If no language can be found, {@link LanguageDescriptor#UNKNOWN} is returned.</p>
+     *  
+     * @param fileName
+     *             The name of the file which language is looked for.
+     *             Must not be {@code null}.
+     * 
+     * @return the language corresponding to the given file name
+     */
+    public LanguageDescriptor lookup(String fileName) {
+        LanguageDescriptor language = byFileName.get(fileName);
+        
+        if (language != null) {
+            return language;
+        }
+        int dotIndex = fileName.lastIndexOf('.');
+        
+        if (dotIndex <= 0 || fileName.length() <= dotIndex + 1) {
+            return LanguageDescriptor.UNKNOWN;
+        }
+        return byExtension.get(fileName, dotIndex + 1, LanguageDescriptor.UNKNOWN);
+    }
+    
+    /**
+     * Returns the languages indexed, built-in ones first.
+     * @return an unmodifiable list of the languages indexed
+     */
+    public List<LanguageDescriptor> languages() {
+        return languages;
+    }
+    
+}
@@ -0,0 +1,216 @@
+/*******************************************************************************
+ * Copyright (C) 2018-2020 Emmanuel CHEBBI
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ ******************************************************************************/
+package fr.kazejiyu.discord.rpc.integration.languages;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.IExtension;
+import org.eclipse.core.runtime.IExtensionPoint;
+import org.eclipse.core.runtime.IExtensionRegistry;
+import org.eclipse.core.runtime.IRegistryEventListener;
+import org.eclipse.core.runtime.RegistryFactory;
+
+import fr.kazejiyu.discord.rpc.integration.Plugin;
+
+/**
+ * <p>Keeps the languages contributed to the {@value Plugin#LANGUAGE_EXTENSION_ID} extension point.</p>
+ * 
+ * <p>The built-in languages and the contributed ones are compiled into a single {@link LanguageIndex}
+ * when the registry is created, then compiled again each time contributions are added or removed.
+ * The new index replaces the previous one at once, so that looking for a language never locks and
+ * always sees a consistent set of languages.</p>
+ * 
+ * <p>When listening to the registry (see {@link #listeningTo(IExtensionRegistry)}), the contributions of
+ * plug-ins installed or uninstalled at runtime are taken into account.</p>
+ * 
+ * @author Emmanuel CHEBBI
+ */
+public final class LanguageRegistry implements IRegistryEventListener, AutoCloseable {
+    
+    /** The attribute declaring the Discord key of a language. */
+    public static final String KEY_ATTRIBUTE = "key";
+    
+    /** The attribute declaring the name of a language. */
+    public static final String NAME_ATTRIBUTE = "name";
+    
+    /** The attribute declaring the comma-separated file extensions of a language. */
+    public static final String EXTENSIONS_ATTRIBUTE = "extensions";
+    
+    /** The attribute declaring the comma-separated names of the special files of a language. */
+    public static final String FILE_NAMES_ATTRIBUTE = "fileNames";
+    
+    /** The registry listening to the platform's extension registry, {@code null} until first requested. */
+    private static volatile LanguageRegistry defaultRegistry;
+
+    /** The registry in which extensions are looked for. */
+    private final IExtensionRegistry registry;
+    
+    /** The index of the built-in and contributed languages, replaced when contributions change. */
+    private volatile LanguageIndex index;
+    
+    /**
+     * Creates a new instance keeping the languages contributed to the given registry.
+     * 
+     * @param registry
+     *             The registry storing all the contributions to extension points.
+     *             Must not be {@code null}.
+     *             
+     * @see #listeningTo(IExtensionRegistry)
+     */
+    public LanguageRegistry(IExtensionRegistry registry) {
+        this.registry = requireNonNull(registry, "Cannot read languages from a null registry");
+        this.index = compile();
+    }
+    
+    /**
+     * Creates a new instance keeping the languages contributed to the given registry,
+     * and updated when contributions are added to or removed from the registry.
+     * 
+     * @param registry
+     *             The registry storing all the contributions to extension points.
+     *             Must not be {@code null}.
+     *             
+     * @return a new instance listening to the registry, to {@link #close()} once no longer needed
+     */
+    public static LanguageRegistry listeningTo(IExtensionRegistry registry) {
+        LanguageRegistry languages = new LanguageRegistry(registry);
+        registry.addListener(languages, Plugin.LANGUAGE_EXTENSION_ID);
+        return languages;
+    }
+    
+    /**
+     * Returns the instance keeping the languages contributed to the platform's extension registry,
+     * creating it on first call.
+     * 
+     * @return the instance listening to the platform's registry, nothing if there is no registry
+     */
+    public static synchronized Optional<LanguageRegistry> getDefault() {
+        if (defaultRegistry == null) {
+            IExtensionRegistry platformRegistry = RegistryFactory.getRegistry();
+            
+            if (platformRegistry != null) {
+                defaultRegistry = listeningTo(platformRegistry);
+            }
+        }
+        return Optional.ofNullable(defaultRegistry);
+    }
+    
+    /**
+     * Returns the index of the built-in languages and of the ones contributed to the platform's extension registry.
+     * 
+     * @return the current index, the one of the built-in languages if there is no registry
+     * 
+     * @see #getDefault()
+     */
+    public static LanguageIndex currentIndex() {
+        LanguageRegistry languages = defaultRegistry;
+        
+        // avoids synchronizing once the default registry exists, the index being looked for on each presence
+        if (languages != null) {
+            return languages.index();
+        }
+        return getDefault().map(LanguageRegistry::index)
+                           .orElse(LanguageIndex.builtIn());
+    }
+    
+    /**
+     * Returns the index of the built-in and contributed languages.
+     * <p>
+     * The same index is returned as long as the contributions do not change.
+     * 
+     * @return the current index of the languages
+     */
+    public LanguageIndex index() {
+        return index;
+    }
+    
+    /** Compiles the index of the built-in languages and of the languages currently contributed. */
+    private LanguageIndex compile() {
+        List<LanguageDescriptor> contributions = new ArrayList<>();
+        
+        for (IConfigurationElement element : registry.getConfigurationElementsFor(Plugin.LANGUAGE_EXTENSION_ID)) {
+            read(element).ifPresent(contributions::add);
+        }
+        return LanguageIndex.of(contributions);
+    }
+    
+    /** Reads the language declared by {@code element}, nothing if it lacks a key or a name. */
+    private static Optional<LanguageDescriptor> read(IConfigurationElement element) {
+        String key = element.getAttribute(KEY_ATTRIBUTE);
+        String name = element.getAttribute(NAME_ATTRIBUTE);
+        
+        if (key == null || key.trim().isEmpty() || name == null || name.trim().isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(new LanguageDescriptor(
+                key.trim(), name.trim(),
+                valuesOf(element.getAttribute(EXTENSIONS_ATTRIBUTE), true), 
+                valuesOf(element.getAttribute(FILE_NAMES_ATTRIBUTE), false)
+        ));
+    }
+    
+    /** Splits a comma-separated attribute, ignoring blank values and the leading dots of extensions. */
+    private static List<String> valuesOf(String attribute, boolean extensions) {
+        List<String> values = new ArrayList<>();
+        
+        if (attribute == null) {
+            return values;
+        }
+        for (String value : attribute.split(",")) {
+            String trimmed = value.trim();
+            
+            if (extensions && trimmed.startsWith(".")) {
+                trimmed = trimmed.substring(1);
+            }
+            if (! trimmed.isEmpty()) {
+                values.add(trimmed);
+            }
+        }
+        return values;
+    }
+    
+    @Override
+    public synchronized void added(IExtension[] extensions) {
+        index = compile();
+    }
+    
+    @Override
+    public synchronized void removed(IExtension[] extensions) {
+        index = compile();
+    }
+    
+    @Override
+    public synchronized void added(IExtensionPoint[] extensionPoints) {
+        index = compile();
+    }
+    
+    @Override
+    public synchronized void removed(IExtensionPoint[] extensionPoints) {
+        index = compile();
+    }
+    
+    /** Stops listening to the registry. */
+    @Override
+    public void close() {
+        registry.removeListener(this);
+        
+        synchronized (LanguageRegistry.class) {
+            if (defaultRegistry == this) {
+                defaultRegistry = null;
+            }
+        }
+    }
+    
+}
@@ -9,8 +9,15 @@
  ******************************************************************************/
 package fr.kazejiyu.discord.rpc.integration.settings;
 
+import static fr.kazejiyu.discord.rpc.integration.settings.Settings.CLEAR_PRESENCE_WHEN_IDLE;
 import static fr.kazejiyu.discord.rpc.integration.settings.Settings.CUSTOM_DISCORD_DETAILS_WORDING;
 import static fr.kazejiyu.discord.rpc.integration.settings.Settings.CUSTOM_DISCORD_STATE_WORDING;
+import static fr.kazejiyu.discord.rpc.integration.settings.Settings.DISCORD_TRANSPORT;
+import static fr.kazejiyu.discord.rpc.integration.settings.Settings.DISCORD_TRANSPORT_NATIVE;
+import static fr.kazejiyu.discord.rpc.integration.settings.Settings.EDITOR_ACTIVATION_DEBOUNCE;
+import static fr.kazejiyu.discord.rpc.integration.settings.Settings.EDITOR_TRACKING;
+import static fr.kazejiyu.discord.rpc.integration.settings.Settings.EDITOR_TRACKING_PARTS_ONLY;
+import static fr.kazejiyu.discord.rpc.integration.settings.Settings.IDLE_TIMEOUT;
 import static fr.kazejiyu.discord.rpc.integration.settings.Settings.RESET_ELAPSED_TIME;
 import static fr.kazejiyu.discord.rpc.integration.settings.Settings.RESET_ELAPSED_TIME_ON_NEW_PROJECT;
 import static fr.kazejiyu.discord.rpc.integration.settings.Settings.SHOW_ELAPSED_TIME;
@@ -18,6 +25,7 @@ import static fr.kazejiyu.discord.rpc.integration.settings.Settings.SHOW_FILE_NA
 import static fr.kazejiyu.discord.rpc.integration.settings.Settings.SHOW_LANGUAGE_ICON;
 import static fr.kazejiyu.discord.rpc.integration.settings.Settings.SHOW_PROJECT_NAME;
 import static fr.kazejiyu.discord.rpc.integration.settings.Settings.SHOW_RICH_PRESENCE;
+import static fr.kazejiyu.discord.rpc.integration.settings.Settings.USE_CONNECTION_POOL;
 import static fr.kazejiyu.discord.rpc.integration.settings.Settings.USE_CUSTOM_APP;
 import static fr.kazejiyu.discord.rpc.integration.settings.Settings.USE_CUSTOM_WORDING;
 
@@ -51,6 +59,13 @@ public class DiscordIntegrationPreferencesInitializer extends AbstractPreference
         store.setDefault(USE_CUSTOM_WORDING.property(), false);
         store.setDefault(CUSTOM_DISCORD_DETAILS_WORDING.property(), "Editing ${file}");
         store.setDefault(CUSTOM_DISCORD_STATE_WORDING.property(), "Working on ${project}");
+        
+        store.setDefault(DISCORD_TRANSPORT.property(), DISCORD_TRANSPORT_NATIVE.property());
+        store.setDefault(USE_CONNECTION_POOL.property(), false);
+        store.setDefault(EDITOR_ACTIVATION_DEBOUNCE.property(), 150);
+        store.setDefault(EDITOR_TRACKING.property(), EDITOR_TRACKING_PARTS_ONLY.property());
+        store.setDefault(IDLE_TIMEOUT.property(), 10);
+        store.setDefault(CLEAR_PRESENCE_WHEN_IDLE.property(), false);
     }
 
 }
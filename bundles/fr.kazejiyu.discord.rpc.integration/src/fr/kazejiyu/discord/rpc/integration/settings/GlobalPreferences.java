@@ -9,9 +9,16 @@
  ******************************************************************************/
 package fr.kazejiyu.discord.rpc.integration.settings;
 
+import static fr.kazejiyu.discord.rpc.integration.settings.Settings.CLEAR_PRESENCE_WHEN_IDLE;
 import static fr.kazejiyu.discord.rpc.integration.settings.Settings.CUSTOM_APP_ID;
 import static fr.kazejiyu.discord.rpc.integration.settings.Settings.CUSTOM_DISCORD_DETAILS_WORDING;
 import static fr.kazejiyu.discord.rpc.integration.settings.Settings.CUSTOM_DISCORD_STATE_WORDING;
+import static fr.kazejiyu.discord.rpc.integration.settings.Settings.DISCORD_TRANSPORT;
+import static fr.kazejiyu.discord.rpc.integration.settings.Settings.DISCORD_TRANSPORT_IPC;
+import static fr.kazejiyu.discord.rpc.integration.settings.Settings.EDITOR_ACTIVATION_DEBOUNCE;
+import static fr.kazejiyu.discord.rpc.integration.settings.Settings.EDITOR_TRACKING;
+import static fr.kazejiyu.discord.rpc.integration.settings.Settings.EDITOR_TRACKING_SELECTIONS;
+import static fr.kazejiyu.discord.rpc.integration.settings.Settings.IDLE_TIMEOUT;
 import static fr.kazejiyu.discord.rpc.integration.settings.Settings.RESET_ELAPSED_TIME;
 import static fr.kazejiyu.discord.rpc.integration.settings.Settings.RESET_ELAPSED_TIME_ON_NEW_FILE;
 import static fr.kazejiyu.discord.rpc.integration.settings.Settings.RESET_ELAPSED_TIME_ON_NEW_PROJECT;
@@ -21,13 +28,16 @@ import static fr.kazejiyu.discord.rpc.integration.settings.Settings.SHOW_FILE_NA
 import static fr.kazejiyu.discord.rpc.integration.settings.Settings.SHOW_LANGUAGE_ICON;
 import static fr.kazejiyu.discord.rpc.integration.settings.Settings.SHOW_PROJECT_NAME;
 import static fr.kazejiyu.discord.rpc.integration.settings.Settings.SHOW_RICH_PRESENCE;
+import static fr.kazejiyu.discord.rpc.integration.settings.Settings.USE_CONNECTION_POOL;
 import static fr.kazejiyu.discord.rpc.integration.settings.Settings.USE_CUSTOM_APP;
 import static fr.kazejiyu.discord.rpc.integration.settings.Settings.USE_CUSTOM_WORDING;
 import static java.util.Objects.requireNonNull;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.preferences.InstanceScope;
@@ -37,8 +47,14 @@ import org.eclipse.ui.preferences.ScopedPreferenceStore;
 import fr.kazejiyu.discord.rpc.integration.Activator;
 
 /**
- * User preferences regarding the way information are shown in Discord
- * by default. 
+ * <p>User preferences regarding the way information are shown in Discord
+ * by default.</p>
+ * 
+ * <p>Each getter reads the underlying preference store. Components called often should rather
+ * read a {@link #snapshot()}, only rebuilt when a preference changes.</p>
+ * 
+ * <p>Each instance listens to the preference store until {@link #dispose() disposed}. The plug-in hence
+ * relies on a single instance, shared by all the components needing the preferences.</p>
  * 
  * @author Emmanuel CHEBBI
  */
@@ -50,12 +66,83 @@ public class GlobalPreferences implements UserPreferences {
     
     private final IPreferenceStore store;
     
+    /** Keeps the preferences of the projects. */
+    private final ProjectPreferencesRegistry projects;
+    
+    /** Incremented each time a preference changes. */
+    private final AtomicLong generation = new AtomicLong();
+    
+    /** The latest snapshot of the preferences, possibly outdated. */
+    private volatile PreferencesSnapshot snapshot;
+    
+    /** Forwards the changes of the preferences to the listeners. */
+    private final GlobalPreferencesListener storeListener = new GlobalPreferencesListener(listeners, generation::incrementAndGet);
+    
     /**
      * Creates a new instance aimed to check Discord preferences.
+     * 
+     * @param projects
+     *             Keeps the preferences of the projects.
+     *             Must not be {@code null}.
+     */
+    public GlobalPreferences(ProjectPreferencesRegistry projects) {
+        this(projects, new ScopedPreferenceStore(InstanceScope.INSTANCE, PREFERENCES_STORE_ID));
+    }
+    
+    /**
+     * Creates a new instance reading the preferences from the given store.
+     * 
+     * @param projects
+     *             Keeps the preferences of the projects.
+     *             Must not be {@code null}.
+     * @param store
+     *             The store holding the global preferences.
+     *             Must not be {@code null}.
+     */
+    public GlobalPreferences(ProjectPreferencesRegistry projects, IPreferenceStore store) {
+        this.projects = requireNonNull(projects, "The registry of project preferences must not be null");
+        this.store = requireNonNull(store, "The preference store must not be null");
+        this.store.addPropertyChangeListener(storeListener);
+    }
+    
+    /**
+     * <p>Stops listening to the preference store.</p>
+     * 
+     * <p>Once disposed, the instance still reads the preferences but no longer notifies its
+     * listeners nor updates its {@link #snapshot()}.</p>
      */
-    public GlobalPreferences() {
-        this.store = new ScopedPreferenceStore(InstanceScope.INSTANCE, PREFERENCES_STORE_ID);
-        this.store.addPropertyChangeListener(new GlobalPreferencesListener(listeners));
+    public void dispose() {
+        store.removePropertyChangeListener(storeListener);
+    }
+    
+    /**
+     * Returns the preferences specific to the given project, shared by all the callers.
+     * 
+     * @param project
+     *             The project whose preferences are requested.
+     *             Must not be {@code null}.
+     *             
+     * @return the preferences of the project
+     * 
+     * @throws IllegalArgumentException if the preferences of the given project cannot be determined
+     */
+    public ProjectPreferences getProjectPreferences(IProject project) {
+        return projects.preferencesOf(project);
+    }
+    
+    /**
+     * Returns an immutable copy of the preferences, rebuilt only when a preference has changed since the last call.
+     * @return the current preferences
+     */
+    public PreferencesSnapshot snapshot() {
+        long currentGeneration = generation.get();
+        PreferencesSnapshot latest = snapshot;
+        
+        if (latest == null || latest.generation() != currentGeneration) {
+            latest = PreferencesSnapshot.of(this, currentGeneration);
+            snapshot = latest;
+        }
+        return latest;
     }
     
     @Override
@@ -139,13 +226,81 @@ public class GlobalPreferences implements UserPreferences {
         return Optional.empty();
     }
     
+    /**
+     * <p>Returns whether Discord should be reached through its IPC socket rather than through the native library.</p>
+     * 
+     * <p>This preference is global and only taken into account on startup.</p>
+     * 
+     * @return true if the pure Java IPC client should be used, false otherwise
+     */
+    public boolean usesIpcTransport() {
+        return store.getString(DISCORD_TRANSPORT.property()).equals(DISCORD_TRANSPORT_IPC.property());
+    }
+    
+    /**
+     * <p>Returns whether connections to recently used Discord applications should be kept open.</p>
+     * 
+     * <p>This preference is global and only taken into account on startup.</p>
+     * 
+     * @return true if a pool of connections should be used, false otherwise
+     */
+    public boolean usesConnectionPool() {
+        return store.getBoolean(USE_CONNECTION_POOL.property());
+    }
+    
+    /**
+     * <p>Returns the time without another editor activation after which the active editor is shown in Discord.</p>
+     * 
+     * <p>This preference is global and only taken into account on startup.</p>
+     * 
+     * @return the debounce window of editor activations, zero if editors should be shown as soon as activated
+     */
+    public Duration getEditorActivationDebounce() {
+        return Duration.ofMillis(Math.max(0, store.getInt(EDITOR_ACTIVATION_DEBOUNCE.property())));
+    }
+    
+    /**
+     * <p>Returns whether the active editor should also be tracked through the selections made in the workbench,
+     * rather than only through the activation of workbench parts.</p>
+     * 
+     * <p>This preference is global and only taken into account on startup.</p>
+     * 
+     * @return true if selections should be listened to, false otherwise
+     */
+    public boolean tracksSelections() {
+        return store.getString(EDITOR_TRACKING.property()).equals(EDITOR_TRACKING_SELECTIONS.property());
+    }
+    
+    /**
+     * <p>Returns the time without key nor mouse event after which the user is considered idle.</p>
+     * 
+     * <p>This preference is global and only taken into account on startup.</p>
+     * 
+     * @return the idle timeout, zero if idleness should not be detected
+     */
+    public Duration getIdleTimeout() {
+        return Duration.ofMinutes(Math.max(0, store.getInt(IDLE_TIMEOUT.property())));
+    }
+    
+    /**
+     * <p>Returns whether the Rich Presence should be cleared while the user is idle.</p>
+     * 
+     * <p>This preference is global and only taken into account on startup.</p>
+     * 
+     * @return true if nothing should be shown while idle, false if an "Idle" presence should be shown
+     */
+    public boolean clearsPresenceWhenIdle() {
+        return store.getBoolean(CLEAR_PRESENCE_WHEN_IDLE.property());
+    }
+    
     /**
      * <p>Returns the user preferences that should be applied for {@code project}.</p>
      * 
-     * <p>If {@code project} uses global preferences, the method returns {@code this}.</p>>
+     * <p>If {@code project} uses global preferences, the method returns a {@link #snapshot()} of
+     * the global preferences, amended with the preferences that are specific to the project anyway.
+     * The amended snapshot is kept by the project and only rebuilt when either preferences change.</p>
      * 
-     * <p>Otherwise, it returns a new {@link ProjectPreferences} describing the specific preferences
-     * of this project.</p>
+     * <p>Otherwise, it returns a snapshot of the specific preferences of this project.</p>
      * 
      * @param project
      *             The project to check.
@@ -153,18 +308,21 @@ public class GlobalPreferences implements UserPreferences {
      * @return the preferences that should apply to {@code project}.
      */
     public UserPreferences getApplicablePreferencesFor(IProject project) {
+        if (project == null) {
+            return snapshot();
+        }
         try {
-            final ProjectPreferences projectPreferences = new ProjectPreferences(project);
+            final ProjectPreferences projectPreferences = projects.preferencesOf(project);
             
             if (projectPreferences.useProjectSettings()) {
-                return projectPreferences;
+                return projectPreferences.snapshot();
             }
-            return new ApplicablePreferences(this, projectPreferences);
+            return projectPreferences.amending(snapshot(), ApplicablePreferences::new);
         } 
         catch (IllegalArgumentException e) {
-            // The project is not valid (e.g. is null), return default preferences
+            // The preferences of the project cannot be found, return default preferences
         }
-        return this;
+        return snapshot();
     }
 
     @Override
@@ -181,13 +339,14 @@ public class GlobalPreferences implements UserPreferences {
      * Aims at managing the preferences that are set
      * specifically for an IProject but that apply independently of whether
      * the 'Use Project Settings' property is true or false.
+     * Only used to build the corresponding {@link PreferencesSnapshot}.
      */
     private static class ApplicablePreferences implements UserPreferences {
         
-        private final GlobalPreferences globalPreferences;
-        private final ProjectPreferences projectPreferences;
+        private final UserPreferences globalPreferences;
+        private final UserPreferences projectPreferences;
         
-        ApplicablePreferences(GlobalPreferences globalPreferences, ProjectPreferences projectPreferences) {
+        ApplicablePreferences(UserPreferences globalPreferences, UserPreferences projectPreferences) {
             this.globalPreferences = globalPreferences;
             this.projectPreferences = projectPreferences;
         }
@@ -277,16 +436,12 @@ public class GlobalPreferences implements UserPreferences {
 
         @Override
         public void addSettingChangeListener(SettingChangeListener listener) {
-            // likely unused: instances of this class represent the preferences
-            // applicable at a given moment in time, they are not supposed to
-            // be updated later on
+            // unused: instances of this class are only used to build snapshots
         }
 
         @Override
         public void removeSettingChangeListener(SettingChangeListener listener) {
-            // likely unused: instances of this class represent the preferences
-            // applicable at a given moment in time, they are not supposed to
-            // be updated later on
+            // unused: instances of this class are only used to build snapshots
         }
         
     }
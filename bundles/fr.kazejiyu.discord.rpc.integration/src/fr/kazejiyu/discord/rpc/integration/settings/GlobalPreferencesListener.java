@@ -49,6 +49,9 @@ public class GlobalPreferencesListener implements IPropertyChangeListener {
     
     private final Collection<SettingChangeListener> listeners;
     
+    /** Called before the listeners each time a preference changes. */
+    private final Runnable onChange;
+    
     private final Map<String, BiConsumer<PropertyChangeEvent, SettingChangeListener>> events = new HashMap<>();
 
     /**
@@ -59,7 +62,23 @@ public class GlobalPreferencesListener implements IPropertyChangeListener {
      *             Must not be {@code null}.
      */
     public GlobalPreferencesListener(Collection<SettingChangeListener> listeners) {
+        this(listeners, () -> { });
+    }
+
+    /**
+     * Creates a new instance aimed to listen for change in global preferences.
+     *  
+     * @param listeners
+     *             Every change event in global preferences will be forwarded to them.
+     *             Must not be {@code null}.
+     * @param onChange
+     *             Called before the listeners each time a preference changes,
+     *             for instance to invalidate a {@link PreferencesSnapshot}.
+     *             Must not be {@code null}.
+     */
+    public GlobalPreferencesListener(Collection<SettingChangeListener> listeners, Runnable onChange) {
         this.listeners = requireNonNull(listeners, "The collection of listeners must not be null");
+        this.onChange = requireNonNull(onChange, "The change callback must not be null");
         
         events.put(SHOW_FILE_NAME.property(), (event, listener) -> listener.fileNameVisibilityChanged(parseBoolean((String) event.getNewValue())));
         events.put(SHOW_PROJECT_NAME.property(), (event, listener) -> listener.projectNameVisibilityChanged(parseBoolean((String) event.getNewValue())));
@@ -76,6 +95,7 @@ public class GlobalPreferencesListener implements IPropertyChangeListener {
     @Override
     public void propertyChange(PropertyChangeEvent event) {
         BiConsumer<PropertyChangeEvent, SettingChangeListener> callback = events.getOrDefault(event.getProperty(), DO_NOTHING);
+        onChange.run();
         
         for (SettingChangeListener listener : listeners) {
             callback.accept(event, listener);
@@ -0,0 +1,208 @@
+/*******************************************************************************
+ * Copyright (C) 2018-2020 Emmanuel CHEBBI
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ ******************************************************************************/
+package fr.kazejiyu.discord.rpc.integration.settings;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Optional;
+
+/**
+ * <p>An immutable copy of {@link UserPreferences}, taken at a given moment.</p>
+ * 
+ * <p>Reading a snapshot does not hit the underlying preference store. Snapshots are rebuilt by
+ * {@link GlobalPreferences} and {@link ProjectPreferences} each time their preferences change, and
+ * are tagged with a generation number increasing on each change.</p>
+ * 
+ * <p>Since snapshots are not updated, {@link #addSettingChangeListener(SettingChangeListener) listeners}
+ * registered to them are never called.</p>
+ * 
+ * @author Emmanuel CHEBBI
+ */
+public final class PreferencesSnapshot implements UserPreferences {
+    
+    /** Identifies the version of the preferences copied by this snapshot. */
+    private final long generation;
+    
+    private final boolean showsFileName;
+    
+    private final boolean showsProjectName;
+    
+    private final boolean showsElapsedTime;
+    
+    private final boolean showsLanguageIcon;
+    
+    private final boolean showsRichPresence;
+    
+    /** When the elapsed time is reset, empty if the preference is invalid. */
+    private final Optional<Moment> elapsedTimeResetMoment;
+    
+    private final Optional<String> projectName;
+    
+    private final boolean usesCustomDiscordApplication;
+    
+    private final Optional<String> discordApplicationId;
+    
+    private final boolean usesCustomWording;
+    
+    private final Optional<String> customDetailsWording;
+    
+    private final Optional<String> customStateWording;
+    
+    private PreferencesSnapshot(UserPreferences preferences, long generation) {
+        this.generation = generation;
+        this.showsFileName = preferences.showsFileName();
+        this.showsProjectName = preferences.showsProjectName();
+        this.showsElapsedTime = preferences.showsElapsedTime();
+        this.showsLanguageIcon = preferences.showsLanguageIcon();
+        this.showsRichPresence = preferences.showsRichPresence();
+        this.elapsedTimeResetMoment = resetMomentOf(preferences);
+        this.projectName = requireNonNull(preferences.getProjectName(), "The project name must not be null");
+        this.usesCustomDiscordApplication = preferences.usesCustomDiscordApplication();
+        this.discordApplicationId = requireNonNull(preferences.getDiscordApplicationId(), "The application ID must not be null");
+        this.usesCustomWording = preferences.usesCustomWording();
+        this.customDetailsWording = requireNonNull(preferences.getCustomDetailsWording(), "The details wording must not be null");
+        this.customStateWording = requireNonNull(preferences.getCustomStateWording(), "The state wording must not be null");
+    }
+    
+    /**
+     * Copies the given preferences.
+     * 
+     * @param preferences
+     *          The preferences to copy. Each of their getters is called once.
+     *          Must not be {@code null}.
+     * @param generation
+     *          Identifies the version of the preferences.
+     *          
+     * @return a new snapshot of the preferences
+     */
+    public static PreferencesSnapshot of(UserPreferences preferences, long generation) {
+        requireNonNull(preferences, "Cannot take a snapshot of null preferences");
+        return new PreferencesSnapshot(preferences, generation);
+    }
+    
+    private static Optional<Moment> resetMomentOf(UserPreferences preferences) {
+        if (preferences instanceof PreferencesSnapshot) {
+            return ((PreferencesSnapshot) preferences).elapsedTimeResetMoment();
+        }
+        if (preferences.resetsElapsedTimeOnStartup()) {
+            return Optional.of(Moment.ON_STARTUP);
+        }
+        if (preferences.resetsElapsedTimeOnNewProject()) {
+            return Optional.of(Moment.ON_NEW_PROJECT);
+        }
+        if (preferences.resetsElapsedTimeOnNewFile()) {
+            return Optional.of(Moment.ON_NEW_FILE);
+        }
+        return Optional.empty();
+    }
+    
+    /**
+     * Returns the version of the preferences copied by this snapshot.
+     * The greater, the more recent.
+     * 
+     * @return the generation of this snapshot
+     */
+    public long generation() {
+        return generation;
+    }
+    
+    /**
+     * Returns the moment at which the elapsed time should be reset.
+     * @return the moment at which the elapsed time should be reset, nothing if the preference is invalid
+     */
+    public Optional<Moment> elapsedTimeResetMoment() {
+        return elapsedTimeResetMoment;
+    }
+
+    @Override
+    public boolean showsFileName() {
+        return showsFileName;
+    }
+
+    @Override
+    public boolean showsProjectName() {
+        return showsProjectName;
+    }
+
+    @Override
+    public boolean showsElapsedTime() {
+        return showsElapsedTime;
+    }
+
+    @Override
+    public boolean showsLanguageIcon() {
+        return showsLanguageIcon;
+    }
+
+    @Override
+    public boolean showsRichPresence() {
+        return showsRichPresence;
+    }
+
+    @Override
+    public boolean resetsElapsedTimeOnStartup() {
+        return resetsElapsedTime(Moment.ON_STARTUP);
+    }
+
+    @Override
+    public boolean resetsElapsedTimeOnNewProject() {
+        return resetsElapsedTime(Moment.ON_NEW_PROJECT);
+    }
+
+    @Override
+    public boolean resetsElapsedTimeOnNewFile() {
+        return resetsElapsedTime(Moment.ON_NEW_FILE);
+    }
+    
+    private boolean resetsElapsedTime(Moment moment) {
+        return elapsedTimeResetMoment.isPresent() && elapsedTimeResetMoment.get() == moment;
+    }
+
+    @Override
+    public Optional<String> getProjectName() {
+        return projectName;
+    }
+
+    @Override
+    public boolean usesCustomDiscordApplication() {
+        return usesCustomDiscordApplication;
+    }
+
+    @Override
+    public Optional<String> getDiscordApplicationId() {
+        return discordApplicationId;
+    }
+
+    @Override
+    public boolean usesCustomWording() {
+        return usesCustomWording;
+    }
+
+    @Override
+    public Optional<String> getCustomDetailsWording() {
+        return customDetailsWording;
+    }
+
+    @Override
+    public Optional<String> getCustomStateWording() {
+        return customStateWording;
+    }
+
+    @Override
+    public void addSettingChangeListener(SettingChangeListener listener) {
+        // snapshots are never updated
+    }
+
+    @Override
+    public void removeSettingChangeListener(SettingChangeListener listener) {
+        // snapshots are never updated
+    }
+
+}
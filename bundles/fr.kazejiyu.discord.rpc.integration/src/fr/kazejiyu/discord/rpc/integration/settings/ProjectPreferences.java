@@ -30,6 +30,8 @@ import static java.util.Objects.requireNonNull;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.ProjectScope;
@@ -39,8 +41,15 @@ import org.eclipse.core.runtime.preferences.IScopeContext;
 import fr.kazejiyu.discord.rpc.integration.Activator;
 
 /**
- * User preferences regarding the way information are shown in Discord
- * for a specific {@link IProject}. 
+ * <p>User preferences regarding the way information are shown in Discord
+ * for a specific {@link IProject}.</p>
+ * 
+ * <p>Each getter reads the underlying preferences. Components called often should rather
+ * read a {@link #snapshot()}, only rebuilt when a preference changes.</p>
+ * 
+ * <p>Each instance listens to the preferences of its project until {@link #dispose() disposed}.
+ * Instances should hence be retrieved from a {@link ProjectPreferencesRegistry} rather than created
+ * each time they are needed.</p>
  * 
  * @author Emmanuel CHEBBI
  */
@@ -50,6 +59,21 @@ public class ProjectPreferences implements UserPreferences {
     private final IEclipsePreferences preferences;
     
     private final Collection<SettingChangeListener> listeners = new ArrayList<>();
+    
+    /** Incremented each time a preference changes. */
+    private final AtomicLong generation = new AtomicLong();
+    
+    /** The latest snapshot of the preferences, possibly outdated. */
+    private volatile PreferencesSnapshot snapshot;
+    
+    /** The latest snapshot of the global preferences amended with these ones, possibly outdated. */
+    private volatile AmendedSnapshot amended;
+    
+    /** Incremented each time the global preferences are amended again. */
+    private final AtomicLong amendments = new AtomicLong();
+    
+    /** Forwards the changes of the preferences to the listeners. */
+    private final ProjectPreferencesListener nodeListener = new ProjectPreferencesListener(listeners, generation::incrementAndGet);
 
     /**
      * Creates a new instance aimed to check Discord preferences for {@code project}.
@@ -61,13 +85,86 @@ public class ProjectPreferences implements UserPreferences {
      *                                     be determined
      */
     public ProjectPreferences(IProject project) {
+        this(nodeOf(project));
+    }
+    
+    /**
+     * Creates a new instance aimed to check Discord preferences stored in the given node.
+     * 
+     * @param preferences
+     *             The node storing the preferences. Must not be {@code null}.
+     */
+    ProjectPreferences(IEclipsePreferences preferences) {
+        this.preferences = requireNonNull(preferences, "The preferences must not be null");
+        this.preferences.addPreferenceChangeListener(nodeListener);
+    }
+    
+    private static IEclipsePreferences nodeOf(IProject project) {
         IScopeContext context = new ProjectScope(project);
-        this.preferences = context.getNode(Activator.PLUGIN_ID);
+        IEclipsePreferences preferences = context.getNode(Activator.PLUGIN_ID);
         
         if (preferences == null) {
             throw new IllegalArgumentException("Cannot find preferences for plug-in " + Activator.PLUGIN_ID + " in project " + project);
         }
-        this.preferences.addPreferenceChangeListener(new ProjectPreferencesListener(listeners));
+        return preferences;
+    }
+    
+    /**
+     * <p>Stops listening to the project's preferences.</p>
+     * 
+     * <p>Once disposed, the instance still reads the preferences but no longer notifies its
+     * listeners nor updates its {@link #snapshot()}.</p>
+     * 
+     * @see ProjectPreferencesRegistry
+     */
+    public void dispose() {
+        try {
+            preferences.removePreferenceChangeListener(nodeListener);
+        }
+        catch (IllegalStateException e) {
+            // the node has been removed along with the project, and its listeners with it
+        }
+    }
+    
+    /**
+     * Returns an immutable copy of the preferences, rebuilt only when a preference has changed since the last call.
+     * @return the current preferences
+     */
+    public PreferencesSnapshot snapshot() {
+        long currentGeneration = generation.get();
+        PreferencesSnapshot latest = snapshot;
+        
+        if (latest == null || latest.generation() != currentGeneration) {
+            latest = PreferencesSnapshot.of(this, currentGeneration);
+            snapshot = latest;
+        }
+        return latest;
+    }
+    
+    /**
+     * Returns the global preferences amended with the preferences of this project, rebuilt only when either
+     * the global or the project preferences have changed since the last call.
+     * 
+     * @param global
+     *          The current snapshot of the global preferences.
+     *          Must not be {@code null}.
+     * @param amend
+     *          Builds the preferences amending the global ones with the project ones.
+     *          Must not be {@code null}.
+     *          
+     * @return the amended preferences
+     */
+    PreferencesSnapshot amending(PreferencesSnapshot global, BiFunction<UserPreferences, UserPreferences, UserPreferences> amend) {
+        PreferencesSnapshot project = snapshot();
+        AmendedSnapshot latest = amended;
+        
+        if (latest == null || ! latest.amends(global, project)) {
+            UserPreferences preferences = amend.apply(global, project);
+            latest = new AmendedSnapshot(global.generation(), project.generation(), 
+                                         PreferencesSnapshot.of(preferences, amendments.incrementAndGet()));
+            amended = latest;
+        }
+        return latest.snapshot;
     }
     
     /** 
@@ -177,4 +274,25 @@ public class ProjectPreferences implements UserPreferences {
         listeners.remove(listener);
     }
 
+    /** A snapshot of amended global preferences, along with the generations of the snapshots it has been built from. */
+    private static final class AmendedSnapshot {
+        
+        private final long globalGeneration;
+        
+        private final long projectGeneration;
+        
+        private final PreferencesSnapshot snapshot;
+        
+        AmendedSnapshot(long globalGeneration, long projectGeneration, PreferencesSnapshot snapshot) {
+            this.globalGeneration = globalGeneration;
+            this.projectGeneration = projectGeneration;
+            this.snapshot = snapshot;
+        }
+        
+        /** Returns whether this snapshot has been built from snapshots of the same generations as the given ones. */
+        boolean amends(PreferencesSnapshot global, PreferencesSnapshot project) {
+            return globalGeneration == global.generation() && projectGeneration == project.generation();
+        }
+    }
+    
 }
@@ -47,8 +47,13 @@ import org.eclipse.core.runtime.preferences.IEclipsePreferences.PreferenceChange
  */
 public class ProjectPreferencesListener implements IPreferenceChangeListener {
     
+    private static final BiConsumer<PreferenceChangeEvent, SettingChangeListener> DO_NOTHING = (evt, listener) -> {};
+    
     private final Collection<SettingChangeListener> listeners;
     
+    /** Called before the listeners each time a preference changes. */
+    private final Runnable onChange;
+    
     private final Map<String, BiConsumer<PreferenceChangeEvent, SettingChangeListener>> events = new HashMap<>();
 
     /**
@@ -59,7 +64,23 @@ public class ProjectPreferencesListener implements IPreferenceChangeListener {
      *             Must not be {@code null}.
      */
     public ProjectPreferencesListener(Collection<SettingChangeListener> listeners) {
+        this(listeners, () -> { });
+    }
+
+    /**
+     * Creates a new instance aimed to listen for change in project's preferences.
+     *  
+     * @param listeners
+     *             Every change event in project's preferences will be forwarded to them.
+     *             Must not be {@code null}.
+     * @param onChange
+     *             Called before the listeners each time a preference changes,
+     *             for instance to invalidate a {@link PreferencesSnapshot}.
+     *             Must not be {@code null}.
+     */
+    public ProjectPreferencesListener(Collection<SettingChangeListener> listeners, Runnable onChange) {
         this.listeners = requireNonNull(listeners, "The collection of listeners must not be null");
+        this.onChange = requireNonNull(onChange, "The change callback must not be null");
         
         events.put(PROJECT_NAME.property(), (event, listener) -> listener.projectNameChanged(String.valueOf(event.getOldValue()), String.valueOf(event.getNewValue())));
         events.put(SHOW_FILE_NAME.property(), (event, listener) -> listener.fileNameVisibilityChanged(parseBoolean((String) event.getNewValue())));
@@ -77,7 +98,8 @@ public class ProjectPreferencesListener implements IPreferenceChangeListener {
     
     @Override
     public void preferenceChange(PreferenceChangeEvent event) {
-        BiConsumer<PreferenceChangeEvent, SettingChangeListener> callback = events.get(event.getKey());
+        BiConsumer<PreferenceChangeEvent, SettingChangeListener> callback = events.getOrDefault(event.getKey(), DO_NOTHING);
+        onChange.run();
         
         for (SettingChangeListener listener : listeners) {
             callback.accept(event, listener);
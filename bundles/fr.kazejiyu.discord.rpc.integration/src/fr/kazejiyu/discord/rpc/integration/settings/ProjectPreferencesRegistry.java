@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright (C) 2018-2020 Emmanuel CHEBBI
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ ******************************************************************************/
+package fr.kazejiyu.discord.rpc.integration.settings;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IWorkspace;
+
+/**
+ * <p>Keeps a single {@link ProjectPreferences} per {@link IProject}.</p>
+ * 
+ * <p>Each {@link ProjectPreferences} listens to the preferences of its project: creating a new one each time
+ * the preferences of a project are read would register a new listener each time, and none of them would ever
+ * be removed.</p>
+ * 
+ * <p>When listening to a workspace (see {@link #listeningTo(IWorkspace)}), the preferences of a project are
+ * {@link ProjectPreferences#dispose() disposed} and forgotten as soon as the project is closed or deleted.</p>
+ * 
+ * @author Emmanuel CHEBBI
+ */
+public class ProjectPreferencesRegistry implements IResourceChangeListener, AutoCloseable {
+    
+    /** Creates the preferences of a project the first time they are requested. */
+    private final Function<IProject, ProjectPreferences> factory;
+    
+    /** The preferences of each project requested so far. */
+    private final Map<IProject, ProjectPreferences> preferences = new ConcurrentHashMap<>();
+    
+    /** The workspace listened to, {@code null} if the registry does not listen to any. */
+    private final IWorkspace workspace;
+    
+    /**
+     * Creates a new instance keeping the preferences created by {@code factory}.
+     * 
+     * @param factory
+     *             Creates the preferences of a project the first time they are requested.
+     *             Must not be {@code null}.
+     */
+    ProjectPreferencesRegistry(Function<IProject, ProjectPreferences> factory) {
+        this(factory, null);
+    }
+    
+    private ProjectPreferencesRegistry(Function<IProject, ProjectPreferences> factory, IWorkspace workspace) {
+        this.factory = requireNonNull(factory, "The factory must not be null");
+        this.workspace = workspace;
+    }
+    
+    /**
+     * Creates a new instance keeping the preferences of the projects of the given workspace,
+     * forgetting the projects as soon as they are closed or deleted.
+     * 
+     * @param workspace
+     *             The workspace containing the projects.
+     *             Must not be {@code null}.
+     *             
+     * @return a new instance listening to the workspace, to {@link #close()} once no longer needed
+     */
+    public static ProjectPreferencesRegistry listeningTo(IWorkspace workspace) {
+        requireNonNull(workspace, "Cannot listen to a null workspace");
+        
+        ProjectPreferencesRegistry registry = new ProjectPreferencesRegistry(ProjectPreferences::new, workspace);
+        workspace.addResourceChangeListener(registry, IResourceChangeEvent.PRE_CLOSE | IResourceChangeEvent.PRE_DELETE);
+        return registry;
+    }
+    
+    /**
+     * Returns the preferences of the given project, creating them the first time they are requested.
+     * 
+     * @param project
+     *             The project whose preferences are requested.
+     *             Must not be {@code null}.
+     *             
+     * @return the preferences of the project
+     * 
+     * @throws IllegalArgumentException if the preferences of the given project cannot be determined
+     */
+    public ProjectPreferences preferencesOf(IProject project) {
+        requireNonNull(project, "Cannot find the preferences of a null project");
+        return preferences.computeIfAbsent(project, factory);
+    }
+    
+    /**
+     * Disposes the preferences of the given project, if any. They will be created again if requested later on.
+     * 
+     * @param project
+     *             The project whose preferences are no longer needed.
+     */
+    public void forget(IProject project) {
+        ProjectPreferences forgotten = preferences.remove(project);
+        
+        if (forgotten != null) {
+            forgotten.dispose();
+        }
+    }
+    
+    /**
+     * Returns the number of projects whose preferences are currently kept.
+     * @return the number of projects whose preferences are kept
+     */
+    public int size() {
+        return preferences.size();
+    }
+    
+    @Override
+    public void resourceChanged(IResourceChangeEvent event) {
+        IResource resource = event.getResource();
+        
+        // PRE_CLOSE and PRE_DELETE events are only sent for projects
+        if (resource instanceof IProject) {
+            forget((IProject) resource);
+        }
+    }
+    
+    /** Stops listening to the workspace and disposes the preferences of all the projects. */
+    @Override
+    public void close() {
+        if (workspace != null) {
+            workspace.removeResourceChangeListener(this);
+        }
+        preferences.keySet().forEach(this::forget);
+    }
+
+}
@@ -86,7 +86,62 @@ public enum Settings {
     /** 
      * The custom wording provided by the user for Discord's details field. 
      * (https://discordapp.com/developers/docs/rich-presence/how-to#updating-presence-update-presence-payload-fields). */
-    CUSTOM_DISCORD_DETAILS_WORDING("CUSTOM_DISCORD_DETAILS_WORDING");
+    CUSTOM_DISCORD_DETAILS_WORDING("CUSTOM_DISCORD_DETAILS_WORDING"),
+    
+    /** 
+     * The way the plug-in communicates with Discord. Only read on startup.
+     * <p>
+     * Should be one of:
+     * <ul>
+     *  <li>{@link #DISCORD_TRANSPORT_NATIVE}
+     *  <li>{@link #DISCORD_TRANSPORT_IPC}
+     * </ul>
+     */
+    DISCORD_TRANSPORT("DISCORD_TRANSPORT"),
+    
+    /** Indicates that Discord should be reached through the native discord-rpc library. */
+    DISCORD_TRANSPORT_NATIVE("DISCORD_TRANSPORT_NATIVE"),
+    
+    /** Indicates that Discord should be reached through its IPC socket, without any native library. */
+    DISCORD_TRANSPORT_IPC("DISCORD_TRANSPORT_IPC"),
+    
+    /** 
+     * Whether connections to recently used Discord applications should be kept open
+     * so that switching between projects using different applications is faster.
+     * Only read on startup, requires {@link #DISCORD_TRANSPORT_IPC}. */
+    USE_CONNECTION_POOL("USE_CONNECTION_POOL"),
+    
+    /** 
+     * The time without another editor activation after which the active editor is shown in Discord, in milliseconds.
+     * Only read on startup. */
+    EDITOR_ACTIVATION_DEBOUNCE("EDITOR_ACTIVATION_DEBOUNCE"),
+    
+    /** 
+     * The way the plug-in keeps track of the active editor. Only read on startup.
+     * <p>
+     * Should be one of:
+     * <ul>
+     *  <li>{@link #EDITOR_TRACKING_PARTS_ONLY}
+     *  <li>{@link #EDITOR_TRACKING_SELECTIONS}
+     * </ul>
+     */
+    EDITOR_TRACKING("EDITOR_TRACKING"),
+    
+    /** Indicates that the active editor should only be tracked through the activation of workbench parts. */
+    EDITOR_TRACKING_PARTS_ONLY("EDITOR_TRACKING_PARTS_ONLY"),
+    
+    /** Indicates that the active editor should also be tracked through the selections made in the workbench. */
+    EDITOR_TRACKING_SELECTIONS("EDITOR_TRACKING_SELECTIONS"),
+    
+    /** 
+     * The time without key nor mouse event after which the user is considered idle, in minutes.
+     * Idleness is not detected if zero. Only read on startup. */
+    IDLE_TIMEOUT("IDLE_TIMEOUT"),
+    
+    /** 
+     * Whether the Rich Presence should be cleared while the user is idle, instead of showing an "Idle" presence.
+     * Only read on startup. */
+    CLEAR_PRESENCE_WHEN_IDLE("CLEAR_PRESENCE_WHEN_IDLE");
     
     /** Identifies the Discord application to which information has to be sent
      *  in order to appear in Discord's UI. */
@@ -13,6 +13,7 @@ import static fr.kazejiyu.discord.rpc.integration.settings.Settings.DEFAULT_DISC
 import static java.util.Objects.requireNonNull;
 
 import java.util.Optional;
+import java.util.function.BooleanSupplier;
 import java.util.function.Function;
 
 import fr.kazejiyu.discord.rpc.integration.core.DiscordRpcLifecycle;
@@ -24,6 +25,9 @@ import fr.kazejiyu.discord.rpc.integration.files.EditionContext;
  * <p>
  * In order to work, an instance of this class has to be registered as a listener
  * thanks to {@link UserPreferences#addSettingChangeListener(SettingChangeListener)}.
+ * <p>
+ * The connection to Discord is always updated, but the presence is not shown again
+ * while paused; typically while Discord shows that the user is idle.
  * 
  * @author Emmanuel CHEBBI
  */
@@ -49,6 +53,9 @@ public class UpdateDiscordOnSettingChange implements SettingChangeListener {
     /** Used to consult user's settings. */
     private final GlobalPreferences globalPreferences;
     
+    /** Whether the presence must not be shown again. */
+    private final BooleanSupplier paused;
+    
     /**
      * Creates a new listener charged of updating Discord when a preference changes.
      * 
@@ -62,10 +69,30 @@ public class UpdateDiscordOnSettingChange implements SettingChangeListener {
      *          The preferences used to check user's settings.
      */
     public UpdateDiscordOnSettingChange(EditionContext context, Function<EditionContext, Optional<RichPresence>> toRichPresence, DiscordRpcLifecycle discord, GlobalPreferences preferences) {
+        this(context, toRichPresence, discord, preferences, () -> false);
+    }
+    
+    /**
+     * Creates a new listener charged of updating Discord when a preference changes, unless paused.
+     * 
+     * @param context
+     *          The context 
+     * @param toRichPresence
+     *          The adapter used to create a RPC based on the active editor.
+     * @param discord
+     *          The proxy used to send informations to Discord.
+     * @param preferences
+     *          The preferences used to check user's settings.
+     * @param paused
+     *          Returns whether the presence must not be shown again, e.g. because the user is idle.
+     */
+    public UpdateDiscordOnSettingChange(EditionContext context, Function<EditionContext, Optional<RichPresence>> toRichPresence, 
+            DiscordRpcLifecycle discord, GlobalPreferences preferences, BooleanSupplier paused) {
         this.context = requireNonNull(context, "The context must not be null");
         this.toRichPresence = requireNonNull(toRichPresence, "The RichPresence adapter must not be null");
         this.discord = requireNonNull(discord, "The Discord proxy must not be null");
         this.globalPreferences = requireNonNull(preferences, "The preferences must not be null");
+        this.paused = requireNonNull(paused, "The pause condition must not be null");
     }
 
     /*
@@ -73,6 +100,10 @@ public class UpdateDiscordOnSettingChange implements SettingChangeListener {
      * to update Discord using the appropriate preferences.
      */
     private void updateDiscord() {
+        if (paused.getAsBoolean()) {
+            // the presence will be shown again once resumed
+            return;
+        }
         // Create the presence according to relevant preferences
         Optional<RichPresence> presence = toRichPresence.apply(context);
         
@@ -121,8 +152,7 @@ public class UpdateDiscordOnSettingChange implements SettingChangeListener {
             // Nothing to do: we are already connected to the right Discord application
             return;
         }
-        discord.shutdown();
-        discord.initialize(expectedDiscordAppId);
+        discord.switchTo(expectedDiscordAppId);
         updateDiscord();
     }
 
@@ -158,8 +188,7 @@ public class UpdateDiscordOnSettingChange implements SettingChangeListener {
         //      - we are not connected to the custom Discord application
         //      - we should initialize a new connection to the given application
         
-        discord.shutdown();
-        discord.initialize(newApplicationId);
+        discord.switchTo(newApplicationId);
         updateDiscord();
     }
     
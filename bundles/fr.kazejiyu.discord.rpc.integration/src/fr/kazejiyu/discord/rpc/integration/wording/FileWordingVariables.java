@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (C) 2018-2020 Emmanuel CHEBBI
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ ******************************************************************************/
+package fr.kazejiyu.discord.rpc.integration.wording;
+
+import static java.util.Objects.requireNonNull;
+
+import fr.kazejiyu.discord.rpc.integration.languages.Language;
+import fr.kazejiyu.discord.rpc.integration.languages.LanguageDescriptor;
+import fr.kazejiyu.discord.rpc.integration.settings.UserPreferences;
+
+/**
+ * <p>Provides the values of the variables describing the file being edited:</p>
+ * <ul>
+ *     <li><code>${file}</code>: the name of the file,</li>
+ *     <li><code>${file.baseName}</code>: the name of the file, without its extension,</li>
+ *     <li><code>${file.extension}</code>: the extension of the file,</li>
+ *     <li><code>${language}</code>: the name of the language of the file,</li>
+ *     <li><code>${project}</code>: the name of the project owning the file.</li>
+ * </ul>
+ * 
+ * <p>The names of the file and of the project are replaced by {@value #HIDDEN} when the user does not want
+ * to show them. Variables whose value is unknown are left as is.</p>
+ * 
+ * @author Emmanuel CHEBBI
+ */
+public final class FileWordingVariables implements WordingVariables {
+    
+    /** The name of the variable standing for the name of the file. */
+    public static final String FILE = "file";
+    
+    /** The name of the variable standing for the name of the file, without its extension. */
+    public static final String FILE_BASE_NAME = "file.baseName";
+    
+    /** The name of the variable standing for the extension of the file. */
+    public static final String FILE_EXTENSION = "file.extension";
+    
+    /** The name of the variable standing for the name of the language of the file. */
+    public static final String LANGUAGE = "language";
+    
+    /** The name of the variable standing for the name of the project owning the file. */
+    public static final String PROJECT = "project";
+    
+    /** Shown instead of the names the user does not want to show. */
+    public static final String HIDDEN = "?";
+    
+    private final String fileName;
+    
+    private final LanguageDescriptor language;
+    
+    private final String projectName;
+    
+    private final boolean showsFileName;
+    
+    private final boolean showsProjectName;
+    
+    /**
+     * Creates the variables describing a file.
+     * 
+     * @param preferences
+     *          The preferences telling which names can be shown.
+     *          Must not be {@code null}.
+     * @param fileName
+     *          The name of the file.
+     * @param language
+     *          The language of the file.
+     *          Must not be {@code null}.
+     * @param projectName
+     *          The name of the project owning the file.
+     */
+    public FileWordingVariables(UserPreferences preferences, String fileName, Language language, String projectName) {
+        this(preferences, fileName, LanguageDescriptor.of(requireNonNull(language, "The language must not be null")), projectName);
+    }
+    
+    /**
+     * Creates the variables describing a file.
+     * 
+     * @param preferences
+     *          The preferences telling which names can be shown.
+     *          Must not be {@code null}.
+     * @param fileName
+     *          The name of the file.
+     * @param language
+     *          The language of the file, either built-in or contributed.
+     *          Must not be {@code null}.
+     * @param projectName
+     *          The name of the project owning the file.
+     */
+    public FileWordingVariables(UserPreferences preferences, String fileName, LanguageDescriptor language, String projectName) {
+        requireNonNull(preferences, "The preferences must not be null");
+        this.fileName = fileName;
+        this.language = requireNonNull(language, "The language must not be null");
+        this.projectName = projectName;
+        this.showsFileName = preferences.showsFileName();
+        this.showsProjectName = preferences.showsProjectName();
+    }
+
+    @Override
+    public String valueOf(String name) {
+        switch (name) {
+            case FILE:
+                return showsFileName ? fileName : HIDDEN;
+            case FILE_BASE_NAME:
+                return showsFileName ? baseNameOf(fileName) : HIDDEN;
+            case FILE_EXTENSION:
+                return showsFileName ? extensionOf(fileName) : HIDDEN;
+            case LANGUAGE:
+                return language.getName();
+            case PROJECT:
+                return showsProjectName ? projectName : HIDDEN;
+            default:
+                return null;
+        }
+    }
+    
+    private static String extensionOf(String fileName) {
+        if (fileName == null) {
+            return null;
+        }
+        if (!fileName.contains(".") || fileName.endsWith(".")) {
+            return "";
+        }
+        return fileName.substring(fileName.lastIndexOf('.') + 1);
+    }
+    
+    private static String baseNameOf(String fileName) {
+        if (fileName == null) {
+            return null;
+        }
+        if (!fileName.contains(".") || fileName.endsWith(".")) {
+            return fileName;
+        }
+        return fileName.substring(0, fileName.lastIndexOf('.'));
+    }
+
+}
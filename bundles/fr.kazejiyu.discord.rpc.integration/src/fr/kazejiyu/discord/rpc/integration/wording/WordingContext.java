@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (C) 2018-2020 Emmanuel CHEBBI
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ ******************************************************************************/
+package fr.kazejiyu.discord.rpc.integration.wording;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Objects;
+import java.util.Optional;
+
+import org.eclipse.core.resources.IProject;
+
+import fr.kazejiyu.discord.rpc.integration.languages.Language;
+import fr.kazejiyu.discord.rpc.integration.languages.LanguageDescriptor;
+
+/**
+ * <p>Describes what is being edited when a wording is rendered.</p>
+ * 
+ * <p>Given to the {@link WordingVariableProvider providers} contributed to the
+ * {@value fr.kazejiyu.discord.rpc.integration.Plugin#WORDING_VARIABLE_EXTENSION_ID} extension point
+ * so that they can compute the value of their variable.</p>
+ * 
+ * <p>Two contexts describing the same edition are equal, so that the values of expensive variables
+ * can be cached per context.</p>
+ * 
+ * @author Emmanuel CHEBBI
+ */
+public final class WordingContext {
+    
+    private final IProject project;
+    
+    private final String fileName;
+    
+    private final LanguageDescriptor language;
+    
+    /**
+     * Creates the context of an edition.
+     * 
+     * @param project
+     *          The project owning the file being edited, {@code null} if unknown.
+     * @param fileName
+     *          The name of the file being edited, {@code null} if unknown.
+     * @param language
+     *          The language of the file being edited.
+     *          Must not be {@code null}.
+     */
+    public WordingContext(IProject project, String fileName, Language language) {
+        this(project, fileName, LanguageDescriptor.of(requireNonNull(language, "The language must not be null")));
+    }
+    
+    /**
+     * Creates the context of an edition.
+     * 
+     * @param project
+     *          The project owning the file being edited, {@code null} if unknown.
+     * @param fileName
+     *          The name of the file being edited, {@code null} if unknown.
+     * @param language
+     *          The language of the file being edited, either built-in or contributed.
+     *          Must not be {@code null}.
+     */
+    public WordingContext(IProject project, String fileName, LanguageDescriptor language) {
+        this.project = project;
+        this.fileName = fileName;
+        this.language = requireNonNull(language, "The language must not be null");
+    }
+    
+    /**
+     * Returns the project owning the file being edited.
+     * @return the project owning the file, nothing if unknown
+     */
+    public Optional<IProject> project() {
+        return Optional.ofNullable(project);
+    }
+    
+    /**
+     * Returns the name of the file being edited.
+     * @return the name of the file, nothing if unknown
+     */
+    public Optional<String> fileName() {
+        return Optional.ofNullable(fileName);
+    }
+    
+    /**
+     * Returns the language of the file being edited.
+     * @return the language of the file, either built-in or contributed
+     */
+    public LanguageDescriptor language() {
+        return language;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(project, fileName, language);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof WordingContext)) {
+            return false;
+        }
+        WordingContext other = (WordingContext) obj;
+        return Objects.equals(project, other.project)
+            && Objects.equals(fileName, other.fileName)
+            && language.equals(other.language);
+    }
+
+}
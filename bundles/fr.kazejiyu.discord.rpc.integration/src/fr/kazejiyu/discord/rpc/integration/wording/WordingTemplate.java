@@ -0,0 +1,218 @@
+/*******************************************************************************
+ * Copyright (C) 2018-2020 Emmanuel CHEBBI
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ ******************************************************************************/
+package fr.kazejiyu.discord.rpc.integration.wording;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>A compiled wording template, such as <code>Editing ${file}</code>.</p>
+ * 
+ * <p>The template is split once into a list of segments, either literal text or a reference to a variable,
+ * so that rendering it only takes one pass and only asks for the values of the variables it references.
+ * References to unknown variables are rendered as is.</p>
+ * 
+ * <p>Templates are cached by text: compiling the same wording several times returns the same instance.</p>
+ * 
+ * @author Emmanuel CHEBBI
+ */
+public final class WordingTemplate {
+    
+    private static final String VARIABLE_START = "${";
+    
+    private static final char VARIABLE_END = '}';
+    
+    /** The maximum number of templates cached, the cache is emptied once reached. */
+    private static final int MAX_CACHED_TEMPLATES = 64;
+    
+    private static final Map<String, WordingTemplate> CACHE = new ConcurrentHashMap<>();
+    
+    /** Reused to render the templates, unless already in use by the thread. */
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(StringBuilder::new);
+    
+    /** The text of the template. */
+    private final String text;
+    
+    private final Segment[] segments;
+    
+    /** The names of the variables referenced by the template, without duplicate. */
+    private final List<String> variables;
+    
+    private WordingTemplate(String text) {
+        this.text = text;
+        
+        List<Segment> parsed = new ArrayList<>();
+        List<String> referenced = new ArrayList<>();
+        int from = 0;
+        
+        while (from < text.length()) {
+            int start = text.indexOf(VARIABLE_START, from);
+            int end = start < 0 ? -1 : text.indexOf(VARIABLE_END, start + VARIABLE_START.length());
+            
+            if (end < 0) {
+                parsed.add(Segment.literal(text.substring(from)));
+                break;
+            }
+            if (start > from) {
+                parsed.add(Segment.literal(text.substring(from, start)));
+            }
+            String variable = text.substring(start + VARIABLE_START.length(), end);
+            parsed.add(Segment.variable(variable, text.substring(start, end + 1)));
+            
+            if (! referenced.contains(variable)) {
+                referenced.add(variable);
+            }
+            from = end + 1;
+        }
+        this.segments = parsed.toArray(new Segment[0]);
+        this.variables = Collections.unmodifiableList(referenced);
+    }
+    
+    /**
+     * Compiles the given template, or returns the template already compiled from the same text.
+     * 
+     * @param text
+     *          The text of the template, e.g. <code>Editing ${file}</code>.
+     *          Must not be {@code null}.
+     *          
+     * @return the compiled template
+     */
+    public static WordingTemplate compile(String text) {
+        requireNonNull(text, "Cannot compile a null template");
+        WordingTemplate template = CACHE.get(text);
+        
+        if (template == null) {
+            if (CACHE.size() >= MAX_CACHED_TEMPLATES) {
+                CACHE.clear();
+            }
+            template = new WordingTemplate(text);
+            CACHE.put(text, template);
+        }
+        return template;
+    }
+    
+    /**
+     * Returns the text of the template.
+     * @return the text of the template
+     */
+    public String text() {
+        return text;
+    }
+    
+    /**
+     * Returns the names of the variables referenced by the template, in order of appearance.
+     * @return an unmodifiable list of the names of the variables
+     */
+    public List<String> variables() {
+        return variables;
+    }
+    
+    /**
+     * Returns whether the template references the given variable.
+     * 
+     * @param variable
+     *          The name of the variable, e.g. {@code file} for <code>${file}</code>.
+     *          
+     * @return true if the template references the variable, false otherwise
+     */
+    public boolean references(String variable) {
+        return variables.contains(variable);
+    }
+    
+    /**
+     * Renders the template.
+     * 
+     * @param values
+     *          Provides the values of the variables referenced by the template.
+     *          Must not be {@code null}.
+     *          
+     * @return the rendered template
+     */
+    public String render(WordingVariables values) {
+        requireNonNull(values, "The values of the variables must not be null");
+        
+        if (variables.isEmpty()) {
+            return text;
+        }
+        StringBuilder buffer = BUFFER.get();
+        
+        // the buffer is not empty when a variable renders another template while being evaluated
+        if (buffer.length() > 0) {
+            return appendTo(new StringBuilder(), values).toString();
+        }
+        try {
+            return appendTo(buffer, values).toString();
+        }
+        finally {
+            buffer.setLength(0);
+        }
+    }
+    
+    /**
+     * Renders the template at the end of the given builder.
+     * 
+     * @param builder
+     *          The builder to which the rendered template is appended.
+     *          Must not be {@code null}.
+     * @param values
+     *          Provides the values of the variables referenced by the template.
+     *          Must not be {@code null}.
+     *          
+     * @return {@code builder}
+     */
+    public StringBuilder appendTo(StringBuilder builder, WordingVariables values) {
+        requireNonNull(builder, "Cannot render a template to a null builder");
+        requireNonNull(values, "The values of the variables must not be null");
+        
+        for (Segment segment : segments) {
+            if (segment.variable == null) {
+                builder.append(segment.text);
+                continue;
+            }
+            String value = values.valueOf(segment.variable);
+            builder.append(value == null ? segment.text : value);
+        }
+        return builder;
+    }
+    
+    @Override
+    public String toString() {
+        return text;
+    }
+    
+    /** Either literal text, or a reference to a variable. */
+    private static final class Segment {
+        
+        /** The text of the segment, as written in the template. */
+        final String text;
+        
+        /** The name of the variable referenced by the segment, {@code null} for literal text. */
+        final String variable;
+        
+        private Segment(String text, String variable) {
+            this.text = text;
+            this.variable = variable;
+        }
+        
+        static Segment literal(String text) {
+            return new Segment(text, null);
+        }
+        
+        static Segment variable(String name, String text) {
+            return new Segment(text, name);
+        }
+    }
+
+}
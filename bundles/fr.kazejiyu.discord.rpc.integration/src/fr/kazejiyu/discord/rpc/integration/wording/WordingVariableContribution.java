@@ -0,0 +1,301 @@
+/*******************************************************************************
+ * Copyright (C) 2018-2020 Emmanuel CHEBBI
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ ******************************************************************************/
+package fr.kazejiyu.discord.rpc.integration.wording;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+import org.eclipse.core.runtime.IConfigurationElement;
+
+import fr.kazejiyu.discord.rpc.integration.Plugin;
+
+/**
+ * <p>A contribution to the {@value fr.kazejiyu.discord.rpc.integration.Plugin#WORDING_VARIABLE_EXTENSION_ID}
+ * extension point.</p>
+ * 
+ * <p>Describes the contributed variable so that it can be listed without instantiating its provider.
+ * The provider is only instantiated when the variable is first rendered.</p>
+ * 
+ * <p>Expensive variables are never computed by the thread rendering the wording. Their values are computed
+ * in the background and cached for each {@link WordingContext}: a value is refreshed once older than half its
+ * {@link #maxAge() maximum age}, and is no longer shown once older than its maximum age.</p>
+ * 
+ * <p>An empty value is shown until the value is known: the first rendering of a wording referencing an expensive
+ * variable is hence stale. Each time a value computed in the background differs from the one previously shown,
+ * a callback is run so that the wording can be rendered again.</p>
+ * 
+ * @author Emmanuel CHEBBI
+ */
+public final class WordingVariableContribution {
+    
+    /** The maximum number of contexts for which the values of an expensive variable are cached. */
+    private static final int MAX_CACHED_CONTEXTS = 32;
+    
+    /** The element declaring the variable. */
+    private final IConfigurationElement element;
+    
+    private final String name;
+    
+    private final String description;
+    
+    private final boolean expensive;
+    
+    /** The maximum age of the cached values, in nanoseconds. */
+    private final long maxAge;
+    
+    /** Instantiates the provider declared by an element. */
+    private final Function<IConfigurationElement, Optional<WordingVariableProvider>> factory;
+    
+    /** Computes the values of expensive variables. */
+    private final Executor executor;
+    
+    /** Returns the current time, in nanoseconds. */
+    private final LongSupplier clock;
+    
+    /** Run each time a value computed in the background differs from the one previously shown. */
+    private final Runnable onValueChanged;
+    
+    /** The values of an expensive variable, from the least to the most recently used context. */
+    private final Map<WordingContext, CachedValue> values = new LinkedHashMap<WordingContext, CachedValue>(16, 0.75f, true) {
+        
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<WordingContext, CachedValue> eldest) {
+            return size() > MAX_CACHED_CONTEXTS;
+        }
+    };
+    
+    /** The provider, {@code null} if it has not been instantiated yet. */
+    private Optional<WordingVariableProvider> provider;
+    
+    /** Whether a failure of the provider has already been reported. */
+    private volatile boolean failureReported;
+    
+    /**
+     * Creates a contribution whose provider is instantiated on first rendering.
+     * 
+     * @param element
+     *          The element declaring the variable.
+     *          Must not be {@code null}.
+     * @param name
+     *          The name of the variable.
+     *          Must not be {@code null}.
+     * @param description
+     *          A description of the value of the variable.
+     *          Must not be {@code null}.
+     * @param expensive
+     *          Whether the value of the variable has to be computed in the background.
+     * @param maxAgeInMillis
+     *          The maximum age of the values of an expensive variable, in milliseconds.
+     * @param factory
+     *          Instantiates the provider declared by an element.
+     *          Must not be {@code null}.
+     * @param executor
+     *          Computes the values of expensive variables.
+     *          Must not be {@code null}.
+     * @param clock
+     *          Returns the current time, in nanoseconds.
+     *          Must not be {@code null}.
+     * @param onValueChanged
+     *          Run by the executor each time a value computed in the background differs from the one previously shown.
+     *          Must not be {@code null}.
+     */
+    WordingVariableContribution(IConfigurationElement element, String name, String description, 
+                                boolean expensive, long maxAgeInMillis,
+                                Function<IConfigurationElement, Optional<WordingVariableProvider>> factory,
+                                Executor executor, LongSupplier clock, Runnable onValueChanged) {
+        this.element = requireNonNull(element, "The configuration element must not be null");
+        this.name = requireNonNull(name, "The name of the variable must not be null");
+        this.description = requireNonNull(description, "The description of the variable must not be null");
+        this.expensive = expensive;
+        this.maxAge = TimeUnit.MILLISECONDS.toNanos(maxAgeInMillis);
+        this.factory = requireNonNull(factory, "The provider factory must not be null");
+        this.executor = requireNonNull(executor, "The executor must not be null");
+        this.clock = requireNonNull(clock, "The clock must not be null");
+        this.onValueChanged = requireNonNull(onValueChanged, "The callback must not be null");
+    }
+    
+    /**
+     * Returns the element declaring the variable.
+     * @return the element declaring the variable
+     */
+    IConfigurationElement element() {
+        return element;
+    }
+    
+    /**
+     * Returns the name of the variable, e.g. {@code git.branch} for <code>${git.branch}</code>.
+     * @return the name of the variable
+     */
+    public String name() {
+        return name;
+    }
+    
+    /**
+     * Returns a description of the value by which the variable is replaced.
+     * @return a description of the value of the variable
+     */
+    public String description() {
+        return description;
+    }
+    
+    /**
+     * Returns whether the value of the variable is computed in the background.
+     * @return {@code true} if the variable is expensive, {@code false} otherwise
+     */
+    public boolean isExpensive() {
+        return expensive;
+    }
+    
+    /**
+     * Returns the maximum age of the values of the variable, if it is expensive.
+     * @return the maximum age of the values, in milliseconds
+     */
+    public long maxAge() {
+        return TimeUnit.NANOSECONDS.toMillis(maxAge);
+    }
+    
+    /**
+     * Returns whether the provider has already been instantiated.
+     * @return {@code true} if the provider has been instantiated, {@code false} otherwise
+     */
+    public synchronized boolean isInstantiated() {
+        return provider != null;
+    }
+    
+    /**
+     * Returns the value of the variable in the given context, without blocking if the variable is expensive.
+     * 
+     * @param context
+     *          Describes what is being edited.
+     *          Must not be {@code null}.
+     *          
+     * @return the value of the variable, {@code null} if the provider cannot be instantiated
+     */
+    String valueFor(WordingContext context) {
+        return expensive ? cachedValueFor(context) : compute(context);
+    }
+    
+    /** Returns the cached value of the variable, refreshing it in the background when it gets old. */
+    private String cachedValueFor(WordingContext context) {
+        CachedValue cached;
+        
+        synchronized (values) {
+            cached = values.computeIfAbsent(context, c -> new CachedValue());
+        }
+        if (cached.startRefreshIfOlderThan(maxAge / 2)) {
+            try {
+                executor.execute(() -> refresh(cached, context));
+            }
+            catch (RejectedExecutionException e) {
+                // the plug-in is being stopped
+                cached.cancelRefresh();
+            }
+        }
+        return cached.valueIfYoungerThan(maxAge);
+    }
+    
+    /** Computes the value again, notifying the change if it is not the one previously shown. */
+    private void refresh(CachedValue cached, WordingContext context) {
+        if (cached.set(compute(context))) {
+            onValueChanged.run();
+        }
+    }
+    
+    /** Asks the provider for the value of the variable. */
+    private String compute(WordingContext context) {
+        Optional<WordingVariableProvider> instance = provider();
+        
+        if (! instance.isPresent()) {
+            return null;
+        }
+        try {
+            return instance.get().valueFor(context).orElse("");
+        }
+        catch (RuntimeException e) {
+            reportOnce(e);
+            return "";
+        }
+    }
+    
+    /** Returns the provider, instantiating it on first call. */
+    private synchronized Optional<WordingVariableProvider> provider() {
+        if (provider == null) {
+            provider = factory.apply(element);
+        }
+        return provider;
+    }
+    
+    private void reportOnce(RuntimeException e) {
+        if (! failureReported) {
+            failureReported = true;
+            Plugin.logException("Unable to compute the value of the ${" + name + "} wording variable", e);
+        }
+    }
+    
+    /** The value of an expensive variable in a given context. */
+    private final class CachedValue {
+        
+        private String value;
+        
+        /** When the value has been computed, in nanoseconds. */
+        private long computedAt;
+        
+        /** Whether the value has been computed at least once. */
+        private boolean known;
+        
+        /** Whether the value is being computed. */
+        private boolean refreshing;
+        
+        /** Marks the value as being refreshed if it is older than {@code age} and not already being refreshed. */
+        synchronized boolean startRefreshIfOlderThan(long age) {
+            if (refreshing || known && clock.getAsLong() - computedAt <= age) {
+                return false;
+            }
+            refreshing = true;
+            return true;
+        }
+        
+        synchronized void cancelRefresh() {
+            refreshing = false;
+        }
+        
+        /** Sets the value, returning whether it differs from the one shown until now. */
+        synchronized boolean set(String newValue) {
+            String shown = valueIfYoungerThan(maxAge);
+            
+            value = newValue;
+            computedAt = clock.getAsLong();
+            known = true;
+            refreshing = false;
+            
+            return ! Objects.equals(shown, valueIfYoungerThan(maxAge));
+        }
+        
+        /** Returns the value if it is younger than {@code age}, an empty string otherwise. */
+        synchronized String valueIfYoungerThan(long age) {
+            if (! known || clock.getAsLong() - computedAt > age) {
+                return "";
+            }
+            return value;
+        }
+    }
+    
+}
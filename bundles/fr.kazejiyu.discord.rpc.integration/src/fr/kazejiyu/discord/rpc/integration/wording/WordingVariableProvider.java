@@ -0,0 +1,38 @@
+/*******************************************************************************
+ * Copyright (C) 2018-2020 Emmanuel CHEBBI
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ ******************************************************************************/
+package fr.kazejiyu.discord.rpc.integration.wording;
+
+import java.util.Optional;
+
+/**
+ * <p>Computes the value of a variable contributed to the 
+ * {@value fr.kazejiyu.discord.rpc.integration.Plugin#WORDING_VARIABLE_EXTENSION_ID} extension point.</p>
+ * 
+ * <p>A provider is only instantiated, and only called, when a rendered wording references its variable.
+ * Providers declared as {@code expensive} are called from a background thread and their values are cached;
+ * other providers are called while Discord is being updated and must therefore return quickly.</p>
+ * 
+ * @author Emmanuel CHEBBI
+ */
+@FunctionalInterface
+public interface WordingVariableProvider {
+    
+    /**
+     * Returns the value of the variable in the given context.
+     * 
+     * @param context
+     *          Describes what is being edited.
+     *          Never {@code null}.
+     *          
+     * @return the value of the variable, nothing if it has no value in this context
+     */
+    Optional<String> valueFor(WordingContext context);
+
+}
@@ -0,0 +1,387 @@
+/*******************************************************************************
+ * Copyright (C) 2018-2020 Emmanuel CHEBBI
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ ******************************************************************************/
+package fr.kazejiyu.discord.rpc.integration.wording;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.LongSupplier;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.IExtension;
+import org.eclipse.core.runtime.IExtensionPoint;
+import org.eclipse.core.runtime.IExtensionRegistry;
+import org.eclipse.core.runtime.IRegistryEventListener;
+import org.eclipse.core.runtime.RegistryFactory;
+
+import fr.kazejiyu.discord.rpc.integration.Plugin;
+
+/**
+ * <p>Keeps the {@link WordingVariableContribution contributions} to the
+ * {@value Plugin#WORDING_VARIABLE_EXTENSION_ID} extension point.</p>
+ * 
+ * <p>Contributions are read without being instantiated: a provider is only instantiated, and its plug-in
+ * activated, when a rendered wording references its variable. Since {@link WordingTemplate templates} only ask
+ * for the values of the variables they reference, the providers of the variables the user does not use
+ * are never called.</p>
+ * 
+ * <p>The values of expensive variables are computed by a single background thread, started when the first
+ * expensive variable is rendered and stopped when the registry is {@link #close() closed}. Since they are
+ * rendered empty until computed, {@link #addValueChangeListener(Runnable) listeners} are notified each time
+ * such a value changes so that the wording can be rendered again.</p>
+ * 
+ * <p>When listening to the registry (see {@link #listeningTo(IExtensionRegistry)}), the contributions of
+ * plug-ins installed or uninstalled at runtime are taken into account.</p>
+ * 
+ * @author Emmanuel CHEBBI
+ */
+public final class WordingVariableRegistry implements IRegistryEventListener, AutoCloseable {
+    
+    /** The attribute declaring the name of a variable. */
+    public static final String NAME_ATTRIBUTE = "name";
+    
+    /** The attribute declaring a description of the value of a variable. */
+    public static final String DESCRIPTION_ATTRIBUTE = "description";
+    
+    /** The attribute declaring whether the value of a variable has to be computed in the background. */
+    public static final String EXPENSIVE_ATTRIBUTE = "expensive";
+    
+    /** The attribute declaring the maximum age of the values of an expensive variable, in milliseconds. */
+    public static final String MAX_AGE_ATTRIBUTE = "maxAge";
+    
+    /** The maximum age of the values of expensive variables that do not declare one, in milliseconds. */
+    public static final long DEFAULT_MAX_AGE = 30_000;
+    
+    /** Variables that are all unknown. */
+    private static final WordingVariables NO_VARIABLES = name -> null;
+    
+    /** The registry listening to the platform's extension registry, {@code null} until first requested. */
+    private static WordingVariableRegistry defaultRegistry;
+
+    /** The registry in which extensions are looked for. */
+    private final IExtensionRegistry registry;
+    
+    /** Computes the values of expensive variables. */
+    private final Executor executor;
+    
+    /** Returns the current time, in nanoseconds. */
+    private final LongSupplier clock;
+    
+    /** The contribution read from each element, empty if the element does not contribute a valid variable. */
+    private final Map<IConfigurationElement, Optional<WordingVariableContribution>> contributions = new HashMap<>();
+    
+    /** The contributions currently registered, by name; {@code null} if they have to be looked for again. */
+    private Map<String, WordingVariableContribution> current;
+    
+    /** Notified, from the background thread, each time the value of an expensive variable changes. */
+    private final List<Runnable> valueChangeListeners = new CopyOnWriteArrayList<>();
+    
+    /** The thread computing the values of expensive variables, {@code null} until needed. */
+    private ExecutorService backgroundThread;
+    
+    /**
+     * Creates a new instance keeping the variables contributed to the given registry.
+     * 
+     * @param registry
+     *             The registry storing all the contributions to extension points.
+     *             Must not be {@code null}.
+     *             
+     * @see #listeningTo(IExtensionRegistry)
+     */
+    public WordingVariableRegistry(IExtensionRegistry registry) {
+        this.registry = requireNonNull(registry, "Cannot read variables from a null registry");
+        this.executor = this::computeInBackground;
+        this.clock = System::nanoTime;
+    }
+    
+    /**
+     * Creates a new instance keeping the variables contributed to the given registry.
+     * 
+     * @param registry
+     *             The registry storing all the contributions to extension points.
+     *             Must not be {@code null}.
+     * @param executor
+     *             Computes the values of expensive variables.
+     *             Must not be {@code null}.
+     * @param clock
+     *             Returns the current time, in nanoseconds.
+     *             Must not be {@code null}.
+     */
+    WordingVariableRegistry(IExtensionRegistry registry, Executor executor, LongSupplier clock) {
+        this.registry = requireNonNull(registry, "Cannot read variables from a null registry");
+        this.executor = requireNonNull(executor, "The executor must not be null");
+        this.clock = requireNonNull(clock, "The clock must not be null");
+    }
+    
+    /**
+     * Creates a new instance keeping the variables contributed to the given registry,
+     * and updated when contributions are added to or removed from the registry.
+     * 
+     * @param registry
+     *             The registry storing all the contributions to extension points.
+     *             Must not be {@code null}.
+     *             
+     * @return a new instance listening to the registry, to {@link #close()} once no longer needed
+     */
+    public static WordingVariableRegistry listeningTo(IExtensionRegistry registry) {
+        WordingVariableRegistry variables = new WordingVariableRegistry(registry);
+        registry.addListener(variables, Plugin.WORDING_VARIABLE_EXTENSION_ID);
+        return variables;
+    }
+    
+    /**
+     * Returns the instance keeping the variables contributed to the platform's extension registry,
+     * creating it on first call.
+     * 
+     * @return the instance listening to the platform's registry, nothing if there is no registry
+     */
+    public static synchronized Optional<WordingVariableRegistry> getDefault() {
+        if (defaultRegistry == null) {
+            IExtensionRegistry platformRegistry = RegistryFactory.getRegistry();
+            
+            if (platformRegistry != null) {
+                defaultRegistry = listeningTo(platformRegistry);
+            }
+        }
+        return Optional.ofNullable(defaultRegistry);
+    }
+    
+    /**
+     * Returns the instance keeping the variables contributed to the platform's extension registry,
+     * without creating it.
+     * 
+     * @return the instance listening to the platform's registry, nothing if it has not been created yet
+     * 
+     * @see #getDefault()
+     */
+    public static synchronized Optional<WordingVariableRegistry> getIfCreated() {
+        return Optional.ofNullable(defaultRegistry);
+    }
+    
+    /**
+     * Returns the variables contributed to the platform's extension registry.
+     * 
+     * @param context
+     *          Describes what is being edited.
+     *          Must not be {@code null}.
+     *          
+     * @return the contributed variables, all unknown if there is no registry
+     * 
+     * @see #getDefault()
+     */
+    public static WordingVariables contributedVariables(WordingContext context) {
+        requireNonNull(context, "The context must not be null");
+        
+        return getDefault().map(variables -> variables.variables(context))
+                           .orElse(NO_VARIABLES);
+    }
+    
+    /**
+     * Returns the variables contributed to the registry, valued in the given context.
+     * 
+     * @param context
+     *          Describes what is being edited.
+     *          Must not be {@code null}.
+     *          
+     * @return the contributed variables
+     */
+    public WordingVariables variables(WordingContext context) {
+        requireNonNull(context, "The context must not be null");
+        
+        return name -> {
+            WordingVariableContribution variable = contributions().get(name);
+            return variable == null ? null : variable.valueFor(context);
+        };
+    }
+    
+    /**
+     * <p>Returns the contributions currently registered to the {@value Plugin#WORDING_VARIABLE_EXTENSION_ID}
+     * extension point, by name.</p>
+     * 
+     * <p>The same map is returned as long as the contributions do not change.</p>
+     * 
+     * @return an unmodifiable map of the contributions, in contribution order
+     */
+    public synchronized Map<String, WordingVariableContribution> contributions() {
+        if (current == null) {
+            current = lookForContributions();
+        }
+        return current;
+    }
+    
+    /** Returns the contributions found in the registry, reading the new elements only. */
+    private Map<String, WordingVariableContribution> lookForContributions() {
+        IConfigurationElement[] elements = registry.getConfigurationElementsFor(Plugin.WORDING_VARIABLE_EXTENSION_ID);
+        
+        Map<IConfigurationElement, Optional<WordingVariableContribution>> contributed = new HashMap<>();
+        Map<String, WordingVariableContribution> contributionsFound = new LinkedHashMap<>();
+        
+        for (IConfigurationElement element : elements) {
+            Optional<WordingVariableContribution> contribution = contributions.get(element);
+            
+            if (contribution == null) {
+                contribution = read(element);
+            }
+            contributed.put(element, contribution);
+            // when several plug-ins contribute the same variable, the first one wins
+            contribution.ifPresent(variable -> contributionsFound.putIfAbsent(variable.name(), variable));
+        }
+        // forget about the contributions that no longer exist
+        contributions.clear();
+        contributions.putAll(contributed);
+        
+        return Collections.unmodifiableMap(contributionsFound);
+    }
+    
+    /** Reads the variable declared by {@code element}, without instantiating its provider. */
+    private Optional<WordingVariableContribution> read(IConfigurationElement element) {
+        String name = element.getAttribute(NAME_ATTRIBUTE);
+        
+        if (name == null || name.trim().isEmpty()) {
+            return Optional.empty();
+        }
+        String description = element.getAttribute(DESCRIPTION_ATTRIBUTE);
+        boolean expensive = Boolean.parseBoolean(element.getAttribute(EXPENSIVE_ATTRIBUTE));
+        
+        return Optional.of(new WordingVariableContribution(
+                element, name.trim(), description == null ? "" : description, 
+                expensive, maxAgeOf(element), 
+                WordingVariableRegistry::instantiate, executor, clock, this::notifyValueChange)
+        );
+    }
+    
+    /**
+     * Adds a listener notified each time the value of an expensive variable, computed in the background, changes.
+     * <p>
+     * Listeners are notified from the background thread and are expected to render the wording again.
+     * 
+     * @param listener
+     *          The listener to notify.
+     *          Must not be {@code null}.
+     */
+    public void addValueChangeListener(Runnable listener) {
+        valueChangeListeners.add(requireNonNull(listener, "The listener must not be null"));
+    }
+    
+    /**
+     * Removes a listener added through {@link #addValueChangeListener(Runnable)}.
+     * 
+     * @param listener
+     *          The listener to remove.
+     */
+    public void removeValueChangeListener(Runnable listener) {
+        valueChangeListeners.remove(listener);
+    }
+    
+    private void notifyValueChange() {
+        for (Runnable listener : valueChangeListeners) {
+            listener.run();
+        }
+    }
+    
+    /** Returns the maximum age declared by {@code element}, the default one if it is missing or invalid. */
+    private static long maxAgeOf(IConfigurationElement element) {
+        String maxAge = element.getAttribute(MAX_AGE_ATTRIBUTE);
+        
+        if (maxAge == null || maxAge.trim().isEmpty()) {
+            return DEFAULT_MAX_AGE;
+        }
+        try {
+            long millis = Long.parseLong(maxAge.trim());
+            return millis > 0 ? millis : DEFAULT_MAX_AGE;
+        }
+        catch (NumberFormatException e) {
+            return DEFAULT_MAX_AGE;
+        }
+    }
+    
+    /** Returns a new instance of {@code element}'s class property if possible, nothing otherwise. */
+    private static Optional<WordingVariableProvider> instantiate(IConfigurationElement element) {
+        try {
+            Object extension = element.createExecutableExtension("class");
+            
+            if (extension instanceof WordingVariableProvider) {
+                return Optional.of((WordingVariableProvider) extension);
+            }
+            return Optional.empty();
+        } 
+        catch (CoreException e) {
+            Plugin.logException("Unable to create a new instance for the " + element.getName() + " extension", e);
+            return Optional.empty();
+        }
+    }
+    
+    /** Runs {@code task} on the background thread, starting it if necessary. */
+    private synchronized void computeInBackground(Runnable task) {
+        if (backgroundThread == null) {
+            backgroundThread = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "Discord Rich Presence - Wording variables");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        backgroundThread.execute(task);
+    }
+    
+    @Override
+    public synchronized void added(IExtension[] extensions) {
+        // the new contributions will be read on next request
+        current = null;
+    }
+    
+    @Override
+    public synchronized void removed(IExtension[] extensions) {
+        for (IExtension extension : extensions) {
+            for (IConfigurationElement element : extension.getConfigurationElements()) {
+                contributions.remove(element);
+            }
+        }
+        current = null;
+    }
+    
+    @Override
+    public synchronized void added(IExtensionPoint[] extensionPoints) {
+        current = null;
+    }
+    
+    @Override
+    public synchronized void removed(IExtensionPoint[] extensionPoints) {
+        contributions.clear();
+        current = null;
+    }
+    
+    /** Stops listening to the registry and stops the background thread. */
+    @Override
+    public void close() {
+        registry.removeListener(this);
+        
+        synchronized (this) {
+            if (backgroundThread != null) {
+                backgroundThread.shutdownNow();
+            }
+        }
+        synchronized (WordingVariableRegistry.class) {
+            if (defaultRegistry == this) {
+                defaultRegistry = null;
+            }
+        }
+    }
+    
+}
@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Copyright (C) 2018-2020 Emmanuel CHEBBI
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ ******************************************************************************/
+package fr.kazejiyu.discord.rpc.integration.wording;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Provides the values of the variables referenced by a {@link WordingTemplate}.
+ * 
+ * @author Emmanuel CHEBBI
+ */
+@FunctionalInterface
+public interface WordingVariables {
+    
+    /**
+     * <p>Returns the value of the given variable.</p>
+     * 
+     * <p>Only called for the variables actually referenced by the rendered template.</p>
+     * 
+     * @param name
+     *          The name of the variable, e.g. {@code file.baseName} for <code>${file.baseName}</code>.
+     *          
+     * @return the value of the variable, or {@code null} if the variable is unknown
+     */
+    String valueOf(String name);
+    
+    /**
+     * Returns variables providing the values of these variables, 
+     * or the values of {@code fallback} for the variables unknown to these ones.
+     * 
+     * @param fallback
+     *          Provides the values of the variables unknown to these ones.
+     *          Must not be {@code null}.
+     *          
+     * @return variables falling back to {@code fallback}
+     */
+    default WordingVariables orElse(WordingVariables fallback) {
+        requireNonNull(fallback, "The fallback variables must not be null");
+        
+        return name -> {
+            String value = valueOf(name);
+            return value != null ? value : fallback.valueOf(name);
+        };
+    }
+
+}
@@ -0,0 +1,15 @@
+/*******************************************************************************
+ * Copyright (C) 2018-2020 Emmanuel CHEBBI
+ * 
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ * 
+ * SPDX-License-Identifier: EPL-2.0
+ ******************************************************************************/
+/**
+ * Renders the wording shown in Discord from templates referencing variables such as <code>${file}</code>.
+ * 
+ * @author Emmanuel CHEBBI
+ */
+package fr.kazejiyu.discord.rpc.integration.wording;
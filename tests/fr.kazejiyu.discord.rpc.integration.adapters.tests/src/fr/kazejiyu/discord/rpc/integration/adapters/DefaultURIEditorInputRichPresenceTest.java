@@ -24,6 +24,7 @@ import org.mockito.Mock;
 import fr.kazejiyu.discord.rpc.integration.core.RichPresence;
 import fr.kazejiyu.discord.rpc.integration.languages.Language;
 import fr.kazejiyu.discord.rpc.integration.settings.GlobalPreferences;
+import fr.kazejiyu.discord.rpc.integration.settings.PreferencesSnapshot;
 import fr.kazejiyu.discord.rpc.integration.tests.mock.MockitoExtension;
 
 /**
@@ -48,6 +49,8 @@ public class DefaultURIEditorInputRichPresenceTest implements WithAssertions {
         adapter = new DefaultURIEditorInputRichPresence();
         
         when(preferences.getApplicablePreferencesFor(any())).thenReturn(preferences);
+        // snapshots are taken when requested, so that tests can stub preferences beforehand
+        when(preferences.snapshot()).thenAnswer(invocation -> PreferencesSnapshot.of(preferences, 0));
     }
     
     @Test @DisplayName("has a priority of 0")
@@ -0,0 +1,606 @@
+package fr.kazejiyu.discord.rpc.integration.tests.support;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * <p>An in-process stand-in for the Discord client, listening on a Unix domain socket.</p>
+ *
+ * <p>The server speaks the subset of Discord's IPC protocol used by the plug-in:</p>
+ * <ul>
+ *   <li>it answers a handshake with the READY event,</li>
+ *   <li>it acknowledges every command, including SET_ACTIVITY,</li>
+ *   <li>it answers pings with pongs and closes the connection on CLOSE frames.</li>
+ * </ul>
+ *
+ * <p>Tests can inject delays, errors and disconnections, and inspect every frame received
+ * through {@link #frames()}. The framing is implemented independently from the plug-in's,
+ * so that the tests actually check the bytes written on the wire.</p>
+ *
+ * <p>Unix domain sockets are only available since Java 16; see {@link #isSupported()}.</p>
+ */
+public final class FakeDiscordServer implements AutoCloseable {
+
+    /** Opcode of the first frame sent by clients. */
+    public static final int HANDSHAKE = 0;
+
+    /** Opcode of the frames carrying commands and events. */
+    public static final int FRAME = 1;
+
+    /** Opcode of the frame sent before closing a connection. */
+    public static final int CLOSE = 2;
+
+    /** Opcode of the frames asking for a {@link #PONG}. */
+    public static final int PING = 3;
+
+    /** Opcode of the frames answering a {@link #PING}. */
+    public static final int PONG = 4;
+
+    /** The size of a frame's header, in bytes. */
+    private static final int HEADER_SIZE = 8;
+
+    /** The biggest payload accepted, in bytes. */
+    private static final int MAX_PAYLOAD_SIZE = 64 * 1024;
+
+    private static final String READY = "{\"cmd\":\"DISPATCH\",\"data\":{\"v\":1,"
+            + "\"config\":{\"cdn_host\":\"cdn.discordapp.com\",\"api_endpoint\":\"//discord.com/api\",\"environment\":\"production\"},"
+            + "\"user\":{\"id\":\"0\",\"username\":\"Fake\",\"discriminator\":\"0000\",\"avatar\":null}},"
+            + "\"evt\":\"READY\",\"nonce\":null}";
+
+    private final Path socket;
+
+    private final ServerSocketChannel server;
+
+    private final Thread acceptor;
+
+    private final List<Connection> connections = new CopyOnWriteArrayList<>();
+
+    private final List<RecordedFrame> frames = new CopyOnWriteArrayList<>();
+
+    private final AtomicInteger acceptedConnections = new AtomicInteger();
+
+    private final AtomicInteger failuresToInject = new AtomicInteger();
+
+    private volatile long handshakeDelayInNanos;
+
+    private volatile long responseDelayInNanos;
+
+    private volatile boolean rejectHandshakes;
+
+    private volatile boolean isClosed;
+
+    private FakeDiscordServer(Path socket, ServerSocketChannel server) {
+        this.socket = socket;
+        this.server = server;
+        this.acceptor = new Thread(this::acceptConnections, "Fake Discord server on " + socket);
+        this.acceptor.setDaemon(true);
+    }
+
+    /**
+     * Returns whether the running JVM can open Unix domain sockets.
+     * @return {@code true} if the server can be started, {@code false} otherwise
+     */
+    public static boolean isSupported() {
+        try {
+            StandardProtocolFamily.valueOf("UNIX");
+            Class.forName("java.net.UnixDomainSocketAddress");
+            return true;
+        }
+        catch (IllegalArgumentException | ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Starts a server listening on {@code discord-ipc-0} in the given directory.
+     *
+     * @param directory
+     *          The directory where to create the socket.
+     *          Must not be {@code null}.
+     *
+     * @return a running server
+     *
+     * @throws IOException if the socket cannot be created
+     */
+    public static FakeDiscordServer start(Path directory) throws IOException {
+        return start(directory, 0);
+    }
+
+    /**
+     * Starts a server listening on {@code discord-ipc-<index>} in the given directory.
+     *
+     * @param directory
+     *          The directory where to create the socket.
+     *          Must not be {@code null}.
+     * @param index
+     *          The index of the socket, between 0 and 9.
+     *
+     * @return a running server
+     *
+     * @throws IOException if the socket cannot be created
+     */
+    public static FakeDiscordServer start(Path directory, int index) throws IOException {
+        requireNonNull(directory, "The directory must not be null");
+
+        if (index < 0 || index > 9) {
+            throw new IllegalArgumentException("The index must be between 0 and 9");
+        }
+        if (! isSupported()) {
+            throw new IOException("Unix domain sockets are not supported by this JVM");
+        }
+        Path socket = directory.resolve("discord-ipc-" + index);
+        ServerSocketChannel server = openServer();
+
+        try {
+            server.bind(addressOf(socket));
+        }
+        catch (IOException e) {
+            server.close();
+            throw e;
+        }
+        FakeDiscordServer fake = new FakeDiscordServer(socket, server);
+        fake.acceptor.start();
+        return fake;
+    }
+
+    /**
+     * Returns the path of the socket the server listens on.
+     * @return the path of the socket the server listens on
+     */
+    public Path socket() {
+        return socket;
+    }
+
+    /**
+     * Delays the READY event sent after each handshake.
+     *
+     * @param delay
+     *          How long to wait before answering a handshake.
+     *
+     * @return this server, for chaining
+     */
+    public FakeDiscordServer delayHandshakes(Duration delay) {
+        this.handshakeDelayInNanos = delay.toNanos();
+        return this;
+    }
+
+    /**
+     * Delays the answer to each command.
+     *
+     * @param delay
+     *          How long to wait before answering a command.
+     *
+     * @return this server, for chaining
+     */
+    public FakeDiscordServer delayResponses(Duration delay) {
+        this.responseDelayInNanos = delay.toNanos();
+        return this;
+    }
+
+    /**
+     * Makes the server answer handshakes with a CLOSE frame, as Discord does for unknown applications.
+     *
+     * @param reject
+     *          Whether handshakes should be rejected.
+     *
+     * @return this server, for chaining
+     */
+    public FakeDiscordServer rejectHandshakes(boolean reject) {
+        this.rejectHandshakes = reject;
+        return this;
+    }
+
+    /**
+     * Makes the server answer the next commands with an ERROR event.
+     *
+     * @param count
+     *          The number of commands to fail.
+     *
+     * @return this server, for chaining
+     */
+    public FakeDiscordServer failNextCommands(int count) {
+        failuresToInject.set(count);
+        return this;
+    }
+
+    /**
+     * Abruptly closes all the connections, as if Discord crashed.
+     * The server keeps accepting new connections.
+     */
+    public void disconnectAll() {
+        for (Connection connection : connections) {
+            connection.close();
+        }
+    }
+
+    /**
+     * Sends a PING frame to every connected client.
+     *
+     * @param payload
+     *          The payload of the ping, expected to be sent back.
+     */
+    public void ping(String payload) {
+        for (Connection connection : connections) {
+            connection.trySend(PING, payload);
+        }
+    }
+
+    /**
+     * Returns all the frames received since the server started or has been {@link #reset()}.
+     * @return all the frames received, in order of arrival
+     */
+    public List<RecordedFrame> frames() {
+        return new ArrayList<>(frames);
+    }
+
+    /**
+     * Returns the SET_ACTIVITY commands received since the server started or has been {@link #reset()}.
+     * @return the SET_ACTIVITY commands received, in order of arrival
+     */
+    public List<RecordedFrame> activities() {
+        return frames.stream().filter(RecordedFrame::isActivity).collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the number of clients currently connected.
+     * @return the number of clients currently connected
+     */
+    public int connectionCount() {
+        return connections.size();
+    }
+
+    /**
+     * Returns the number of connections accepted since the server started.
+     * @return the number of connections accepted
+     */
+    public int acceptedConnections() {
+        return acceptedConnections.get();
+    }
+
+    /**
+     * Forgets the frames received so far.
+     */
+    public void reset() {
+        frames.clear();
+    }
+
+    /**
+     * Waits until the server received the given number of frames satisfying a condition.
+     *
+     * @param count
+     *          The number of frames to wait for.
+     * @param condition
+     *          The condition the frames must satisfy.
+     * @param timeout
+     *          How long to wait at most.
+     *
+     * @return {@code true} if the frames have been received, {@code false} if the timeout elapsed
+     *
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    public boolean awaitFrames(int count, Predicate<RecordedFrame> condition, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+
+        int checked = 0;
+        int matching = 0;
+
+        synchronized (frames) {
+            while (true) {
+                if (checked > frames.size()) {
+                    // the server has been reset meanwhile
+                    checked = 0;
+                    matching = 0;
+                }
+                for (; checked < frames.size(); ++checked) {
+                    if (condition.test(frames.get(checked))) {
+                        ++matching;
+                    }
+                }
+                if (matching >= count) {
+                    return true;
+                }
+                long remaining = deadline - System.nanoTime();
+
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(frames, remaining);
+            }
+        }
+    }
+
+    /**
+     * Waits until the server received the given number of SET_ACTIVITY commands.
+     *
+     * @param count
+     *          The number of commands to wait for.
+     * @param timeout
+     *          How long to wait at most.
+     *
+     * @return {@code true} if the commands have been received, {@code false} if the timeout elapsed
+     *
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    public boolean awaitActivities(int count, Duration timeout) throws InterruptedException {
+        return awaitFrames(count, RecordedFrame::isActivity, timeout);
+    }
+
+    /**
+     * Waits until the server accepted the given number of connections since it started.
+     *
+     * @param count
+     *          The number of connections to wait for.
+     * @param timeout
+     *          How long to wait at most.
+     *
+     * @return {@code true} if the connections have been accepted, {@code false} if the timeout elapsed
+     *
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    public boolean awaitConnections(int count, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+
+        synchronized (frames) {
+            while (acceptedConnections.get() < count) {
+                long remaining = deadline - System.nanoTime();
+
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(frames, remaining);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Stops the server, closes all the connections and deletes the socket.
+     */
+    @Override
+    public void close() throws IOException {
+        isClosed = true;
+        server.close();
+        disconnectAll();
+
+        try {
+            acceptor.join(TimeUnit.SECONDS.toMillis(1));
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        finally {
+            Files.deleteIfExists(socket);
+        }
+    }
+
+    private void acceptConnections() {
+        while (! isClosed) {
+            try {
+                SocketChannel client = server.accept();
+                Connection connection = new Connection(acceptedConnections.getAndIncrement(), client);
+                connections.add(connection);
+                signal();
+
+                Thread handler = new Thread(connection::serve, "Fake Discord connection #" + connection.index);
+                handler.setDaemon(true);
+                handler.start();
+            }
+            catch (IOException e) {
+                // the server has been closed
+                return;
+            }
+        }
+    }
+
+    private void record(RecordedFrame frame) {
+        frames.add(frame);
+        signal();
+    }
+
+    private void signal() {
+        synchronized (frames) {
+            frames.notifyAll();
+        }
+    }
+
+    private static void pause(long nanos) {
+        if (nanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ServerSocketChannel openServer() throws IOException {
+        try {
+            ProtocolFamily unix = StandardProtocolFamily.valueOf("UNIX");
+            Method open = ServerSocketChannel.class.getMethod("open", ProtocolFamily.class);
+            return (ServerSocketChannel) open.invoke(null, unix);
+        }
+        catch (NoSuchMethodException | IllegalAccessException | IllegalArgumentException e) {
+            throw new IOException("Unix domain sockets are not supported by this JVM", e);
+        }
+        catch (InvocationTargetException e) {
+            throw new IOException("Cannot open the server", e.getCause());
+        }
+    }
+
+    private static SocketAddress addressOf(Path socket) throws IOException {
+        try {
+            Method of = Class.forName("java.net.UnixDomainSocketAddress").getMethod("of", Path.class);
+            return (SocketAddress) of.invoke(null, socket);
+        }
+        catch (ReflectiveOperationException e) {
+            throw new IOException("Cannot create the address of " + socket, e);
+        }
+    }
+
+    /** A client connected to the server. */
+    private final class Connection {
+
+        private final int index;
+
+        private final SocketChannel channel;
+
+        private final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+        Connection(int index, SocketChannel channel) {
+            this.index = index;
+            this.channel = channel;
+        }
+
+        void serve() {
+            try {
+                while (channel.isOpen()) {
+                    if (! readFrame()) {
+                        return;
+                    }
+                }
+            }
+            catch (IOException e) {
+                // the connection has been closed by either side
+            }
+            finally {
+                close();
+            }
+        }
+
+        /** Reads and answers a frame, returns false when the connection must be closed. */
+        private boolean readFrame() throws IOException {
+            header.clear();
+
+            if (! readFully(header)) {
+                return false;
+            }
+            header.flip();
+            int opcode = header.getInt();
+            int length = header.getInt();
+
+            if (length < 0 || length > MAX_PAYLOAD_SIZE) {
+                return false;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+
+            if (! readFully(payload)) {
+                return false;
+            }
+            RecordedFrame frame = new RecordedFrame(index, opcode, new String(payload.array(), UTF_8), System.nanoTime());
+            record(frame);
+
+            return answer(frame);
+        }
+
+        private boolean answer(RecordedFrame frame) throws IOException {
+            switch (frame.opcode()) {
+                case HANDSHAKE:
+                    pause(handshakeDelayInNanos);
+
+                    if (rejectHandshakes) {
+                        send(CLOSE, "{\"code\":4000,\"message\":\"Invalid Client ID\"}");
+                        frame.answered();
+                        return false;
+                    }
+                    send(FRAME, READY);
+                    frame.answered();
+                    return true;
+
+                case FRAME:
+                    pause(responseDelayInNanos);
+                    send(FRAME, responseTo(frame));
+                    frame.answered();
+                    return true;
+
+                case PING:
+                    send(PONG, frame.payload());
+                    frame.answered();
+                    return true;
+
+                case PONG:
+                    return true;
+
+                default:
+                    // CLOSE or protocol violation
+                    return false;
+            }
+        }
+
+        private String responseTo(RecordedFrame frame) {
+            String command = frame.field("cmd").orElse("UNKNOWN");
+            String nonce = frame.field("nonce").map(n -> "\"" + n + "\"").orElse("null");
+
+            boolean mustFail = failuresToInject.getAndUpdate(n -> Math.max(0, n - 1)) > 0;
+
+            if (mustFail) {
+                return "{\"cmd\":\"" + command + "\",\"data\":{\"code\":4000,\"message\":\"Injected failure\"},"
+                        + "\"evt\":\"ERROR\",\"nonce\":" + nonce + "}";
+            }
+            return "{\"cmd\":\"" + command + "\",\"data\":{},\"evt\":null,\"nonce\":" + nonce + "}";
+        }
+
+        private boolean readFully(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void trySend(int opcode, String payload) {
+            try {
+                send(opcode, payload);
+            }
+            catch (IOException e) {
+                close();
+            }
+        }
+
+        private synchronized void send(int opcode, String payload) throws IOException {
+            byte[] bytes = payload.getBytes(UTF_8);
+            ByteBuffer frame = ByteBuffer.allocate(HEADER_SIZE + bytes.length).order(ByteOrder.LITTLE_ENDIAN);
+            frame.putInt(opcode).putInt(bytes.length).put(bytes).flip();
+
+            while (frame.hasRemaining()) {
+                channel.write(frame);
+            }
+        }
+
+        void close() {
+            if (connections.remove(this)) {
+                signal();
+            }
+            try {
+                channel.close();
+            }
+            catch (IOException e) {
+                // nothing to do, the connection is closed anyway
+            }
+        }
+    }
+
+}
@@ -0,0 +1,103 @@
+package fr.kazejiyu.discord.rpc.integration.tests.support;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Records latencies and summarizes them with percentiles.
+ * <p>
+ * Not thread-safe: meant to be filled by a single thread once the measures are over.
+ */
+public final class LatencyRecorder {
+
+    private long[] latenciesInNanos;
+
+    private int size;
+
+    /**
+     * Creates a new recorder.
+     *
+     * @param expectedSize
+     *          The number of latencies expected to be recorded.
+     */
+    public LatencyRecorder(int expectedSize) {
+        this.latenciesInNanos = new long[Math.max(1, expectedSize)];
+    }
+
+    /**
+     * Records a latency.
+     *
+     * @param startNanos
+     *          The value of {@link System#nanoTime()} when the operation started.
+     * @param endNanos
+     *          The value of {@link System#nanoTime()} when the operation ended.
+     */
+    public void record(long startNanos, long endNanos) {
+        if (size == latenciesInNanos.length) {
+            latenciesInNanos = Arrays.copyOf(latenciesInNanos, size * 2);
+        }
+        latenciesInNanos[size++] = endNanos - startNanos;
+    }
+
+    /**
+     * Returns the number of latencies recorded.
+     * @return the number of latencies recorded
+     */
+    public int count() {
+        return size;
+    }
+
+    /**
+     * Returns the latency below which the given percentage of the recorded latencies fall.
+     *
+     * @param percentile
+     *          The percentile, between 0 and 100.
+     *
+     * @return the corresponding latency, or {@link Duration#ZERO} if nothing has been recorded
+     */
+    public Duration percentile(double percentile) {
+        if (size == 0) {
+            return Duration.ZERO;
+        }
+        long[] sorted = Arrays.copyOf(latenciesInNanos, size);
+        Arrays.sort(sorted);
+
+        int rank = (int) Math.ceil(percentile / 100 * size) - 1;
+        return Duration.ofNanos(sorted[Math.min(size - 1, Math.max(0, rank))]);
+    }
+
+    /**
+     * Returns the mean of the recorded latencies.
+     * @return the mean of the recorded latencies, or {@link Duration#ZERO} if nothing has been recorded
+     */
+    public Duration mean() {
+        if (size == 0) {
+            return Duration.ZERO;
+        }
+        long total = 0;
+
+        for (int i = 0; i < size; ++i) {
+            total += latenciesInNanos[i];
+        }
+        return Duration.ofNanos(total / size);
+    }
+
+    /**
+     * Returns a one-line summary of the recorded latencies, in microseconds.
+     *
+     * @param name
+     *          The name of the measure.
+     *
+     * @return a summary of the recorded latencies
+     */
+    public String summary(String name) {
+        return String.format("%s: %d samples, mean=%dus, p50=%dus, p90=%dus, p99=%dus, max=%dus",
+                name, size, micros(mean()), micros(percentile(50)), micros(percentile(90)),
+                micros(percentile(99)), micros(percentile(100)));
+    }
+
+    private static long micros(Duration duration) {
+        return duration.toNanos() / 1_000;
+    }
+
+}
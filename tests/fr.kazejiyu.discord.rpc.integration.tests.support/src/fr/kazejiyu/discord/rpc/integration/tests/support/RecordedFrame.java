@@ -0,0 +1,162 @@
+package fr.kazejiyu.discord.rpc.integration.tests.support;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A frame received by a {@link FakeDiscordServer}, along with the moments it has been received and answered.
+ * <p>
+ * Timestamps come from {@link System#nanoTime()}, hence can be compared with timestamps taken by the tests.
+ */
+public final class RecordedFrame {
+
+    /** Patterns matching string fields, by name. */
+    private static final Map<String, Pattern> FIELDS = new ConcurrentHashMap<>();
+
+    private final int connection;
+
+    private final int opcode;
+
+    private final String payload;
+
+    private final long receivedAt;
+
+    private volatile long answeredAt;
+
+    RecordedFrame(int connection, int opcode, String payload, long receivedAt) {
+        this.connection = connection;
+        this.opcode = opcode;
+        this.payload = payload;
+        this.receivedAt = receivedAt;
+    }
+
+    /**
+     * Returns the index of the connection the frame has been received from, starting at 0.
+     * @return the index of the connection the frame has been received from
+     */
+    public int connection() {
+        return connection;
+    }
+
+    /**
+     * Returns the opcode of the frame, as read on the wire.
+     * @return the opcode of the frame
+     */
+    public int opcode() {
+        return opcode;
+    }
+
+    /**
+     * Returns the JSON payload of the frame.
+     * @return the payload of the frame
+     */
+    public String payload() {
+        return payload;
+    }
+
+    /**
+     * Returns the value of {@link System#nanoTime()} when the last byte of the frame has been read.
+     * @return when the frame has been received
+     */
+    public long receivedAt() {
+        return receivedAt;
+    }
+
+    /**
+     * Returns the value of {@link System#nanoTime()} when the server answered the frame.
+     * @return when the frame has been answered, or 0 if it has not been answered
+     */
+    public long answeredAt() {
+        return answeredAt;
+    }
+
+    /**
+     * Returns how long the server took to answer the frame, including the injected delays.
+     * @return how long the server took to answer the frame, if it has been answered
+     */
+    public Optional<Duration> responseTime() {
+        long answer = answeredAt;
+
+        if (answer == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(Duration.ofNanos(answer - receivedAt));
+    }
+
+    /**
+     * Returns whether the frame is a SET_ACTIVITY command.
+     * @return {@code true} if the frame updates the user's activity, {@code false} otherwise
+     */
+    public boolean isActivity() {
+        return opcode == FakeDiscordServer.FRAME && field("cmd").filter("SET_ACTIVITY"::equals).isPresent();
+    }
+
+    /**
+     * Returns the value of the first string field of the payload with the given name, at any depth.
+     *
+     * @param name
+     *          The name of the field.
+     *
+     * @return the value of the field, if it exists and is a string
+     */
+    public Optional<String> field(String name) {
+        return stringField(payload, name);
+    }
+
+    void answered() {
+        answeredAt = System.nanoTime();
+    }
+
+    static Optional<String> stringField(String json, String name) {
+        Pattern field = FIELDS.computeIfAbsent(name, RecordedFrame::fieldPattern);
+        Matcher matcher = field.matcher(json);
+
+        if (! matcher.find()) {
+            return Optional.empty();
+        }
+        return Optional.of(unescape(matcher.group(1)));
+    }
+
+    private static Pattern fieldPattern(String name) {
+        return Pattern.compile("\"" + Pattern.quote(name) + "\"\\s*:\\s*\"((?:[^\"\\\\]|\\\\.)*)\"");
+    }
+
+    private static String unescape(String escaped) {
+        StringBuilder value = new StringBuilder(escaped.length());
+
+        for (int i = 0; i < escaped.length(); ++i) {
+            char c = escaped.charAt(i);
+
+            if (c != '\\' || i + 1 == escaped.length()) {
+                value.append(c);
+                continue;
+            }
+            char escapedChar = escaped.charAt(++i);
+
+            switch (escapedChar) {
+                case 'n': value.append('\n'); break;
+                case 'r': value.append('\r'); break;
+                case 't': value.append('\t'); break;
+                case 'b': value.append('\b'); break;
+                case 'f': value.append('\f'); break;
+                case 'u':
+                    value.append((char) Integer.parseInt(escaped.substring(i + 1, i + 5), 16));
+                    i += 4;
+                    break;
+                default:
+                    value.append(escapedChar);
+            }
+        }
+        return value.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "RecordedFrame [connection=" + connection + ", opcode=" + opcode + ", payload=" + payload + "]";
+    }
+
+}
@@ -0,0 +1,4 @@
+/**
+ * Utilities helping to test the plug-in against a local stand-in for the Discord client.
+ */
+package fr.kazejiyu.discord.rpc.integration.tests.support;
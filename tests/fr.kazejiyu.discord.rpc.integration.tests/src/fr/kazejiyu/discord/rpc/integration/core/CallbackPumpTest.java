@@ -0,0 +1,228 @@
+package fr.kazejiyu.discord.rpc.integration.core;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.assertj.core.api.WithAssertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+
+import fr.kazejiyu.discord.rpc.integration.tests.mock.MockitoExtension;
+
+/**
+ * Unit test the {@link CallbackPump} class.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("A CallbackPump")
+public class CallbackPumpTest implements WithAssertions {
+
+    private static final Duration FAST = Duration.ofMillis(100);
+
+    private static final Duration SLOW = Duration.ofMillis(400);
+
+    private CallbackPump pump;
+
+    @Mock
+    private DiscordRpcLifecycle discord;
+
+    @Mock
+    private ScheduledExecutorService scheduler;
+
+    @Mock
+    private ScheduledFuture<?> nextPoll;
+
+    @BeforeEach
+    void instantiateObjectUnderTest() {
+        pump = new CallbackPump(discord, scheduler, FAST, SLOW);
+
+        doReturn(nextPoll).when(scheduler).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+        when(discord.connectionState()).thenReturn(ConnectionState.CONNECTING);
+    }
+
+    @Nested
+    @DisplayName("during instanciation")
+    class DuringInstanciation {
+
+        @Test @DisplayName("throws if the given Discord proxy is null")
+        void throws_if_the_given_Discord_proxy_is_null() {
+            assertThatNullPointerException().isThrownBy(() ->
+                new CallbackPump(null, scheduler)
+            );
+        }
+
+        @Test @DisplayName("throws if the given scheduler is null")
+        void throws_if_the_given_scheduler_is_null() {
+            assertThatNullPointerException().isThrownBy(() ->
+                new CallbackPump(discord, null)
+            );
+        }
+
+        @Test @DisplayName("throws if the given fast delay is not positive")
+        void throws_if_the_given_fast_delay_is_not_positive() {
+            assertThatIllegalArgumentException().isThrownBy(() ->
+                new CallbackPump(discord, scheduler, Duration.ZERO, SLOW)
+            );
+        }
+
+        @Test @DisplayName("throws if the given slow delay is shorter than the fast one")
+        void throws_if_the_given_slow_delay_is_shorter_than_the_fast_one() {
+            assertThatIllegalArgumentException().isThrownBy(() ->
+                new CallbackPump(discord, scheduler, SLOW, FAST)
+            );
+        }
+
+        @Test @DisplayName("does not poll events")
+        void does_not_poll_events() {
+            verify(scheduler, never()).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+        }
+    }
+
+    @Nested
+    @DisplayName("when initialized")
+    class WhenInitialized {
+
+        @BeforeEach
+        void initialize() {
+            pump.initialize("42");
+        }
+
+        @Test @DisplayName("connects the wrapped instance")
+        void connects_the_wrapped_instance() {
+            verify(discord).initialize("42");
+        }
+
+        @Test @DisplayName("polls events quickly while connecting")
+        void polls_events_quickly_while_connecting() {
+            runLastScheduledTask();
+            runLastScheduledTask();
+
+            verify(discord, times(2)).pollEvents();
+            assertThat(lastScheduledDelay()).isEqualTo(FAST.toNanos());
+            assertThat(pump.polls()).isEqualTo(2);
+        }
+
+        @Test @DisplayName("polls events less and less often once connected")
+        void polls_events_less_and_less_often_once_connected() {
+            when(discord.connectionState()).thenReturn(ConnectionState.READY);
+            runLastScheduledTask();
+            assertThat(lastScheduledDelay()).isEqualTo(FAST.toNanos());
+
+            runLastScheduledTask();
+            assertThat(lastScheduledDelay()).isEqualTo(FAST.toNanos() * 2);
+
+            runLastScheduledTask();
+            runLastScheduledTask();
+            assertThat(lastScheduledDelay()).isEqualTo(SLOW.toNanos());
+        }
+
+        @Test @DisplayName("polls events quickly again when the connection is lost")
+        void polls_events_quickly_again_when_the_connection_is_lost() {
+            when(discord.connectionState()).thenReturn(ConnectionState.READY);
+            runLastScheduledTask();
+            runLastScheduledTask();
+            runLastScheduledTask();
+
+            when(discord.connectionState()).thenReturn(ConnectionState.CONNECTING);
+            runLastScheduledTask();
+
+            assertThat(lastScheduledDelay()).isEqualTo(FAST.toNanos());
+        }
+
+        @Test @DisplayName("stops polling events when the wrapped instance is disconnected")
+        void stops_polling_events_when_the_wrapped_instance_is_disconnected() {
+            when(discord.connectionState()).thenReturn(ConnectionState.DISCONNECTED);
+            runLastScheduledTask();
+
+            verify(scheduler, times(1)).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+        }
+
+        @Test @DisplayName("polls events again once re-initialized")
+        void polls_events_again_once_re_initialized() {
+            when(discord.connectionState()).thenReturn(ConnectionState.DISCONNECTED);
+            runLastScheduledTask();
+            pump.initialize("42");
+
+            verify(scheduler, times(2)).schedule(any(Runnable.class), eq(FAST.toNanos()), eq(TimeUnit.NANOSECONDS));
+        }
+
+        @Test @DisplayName("forwards the state of the connection")
+        void forwards_the_state_of_the_connection() {
+            when(discord.connectionState()).thenReturn(ConnectionState.READY);
+            when(discord.isConnected()).thenReturn(true);
+
+            assertThat(pump.connectionState()).isEqualTo(ConnectionState.READY);
+            assertThat(pump.isConnected()).isTrue();
+        }
+
+        @Test @DisplayName("forwards presences")
+        void forwards_presences() {
+            RichPresence presence = new ImmutableRichPresence();
+            pump.show(presence);
+            pump.showNothing();
+
+            verify(discord).show(presence);
+            verify(discord).showNothing();
+        }
+    }
+
+    @Nested
+    @DisplayName("when shut down")
+    class WhenShutDown {
+
+        @BeforeEach
+        void shutdown() {
+            pump.initialize("42");
+            pump.shutdown();
+        }
+
+        @Test @DisplayName("shuts the wrapped instance down")
+        void shuts_the_wrapped_instance_down() {
+            verify(discord).shutdown();
+        }
+
+        @Test @DisplayName("stops polling events")
+        void stops_polling_events() {
+            verify(nextPoll).cancel(false);
+        }
+    }
+
+    @Test @DisplayName("stops polling events once the scheduler is shut down")
+    void stops_polling_events_once_the_scheduler_is_shut_down() {
+        when(scheduler.schedule(any(Runnable.class), anyLong(), any(TimeUnit.class)))
+            .thenThrow(new RejectedExecutionException());
+
+        assertThatCode(() -> pump.initialize("42")).doesNotThrowAnyException();
+        verify(discord).initialize("42");
+    }
+
+    private void runLastScheduledTask() {
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler, atLeastOnce()).schedule(task.capture(), anyLong(), any(TimeUnit.class));
+        task.getValue().run();
+    }
+
+    private long lastScheduledDelay() {
+        ArgumentCaptor<Long> delay = ArgumentCaptor.forClass(Long.class);
+        verify(scheduler, atLeastOnce()).schedule(any(Runnable.class), delay.capture(), eq(TimeUnit.NANOSECONDS));
+        return delay.getValue();
+    }
+
+}
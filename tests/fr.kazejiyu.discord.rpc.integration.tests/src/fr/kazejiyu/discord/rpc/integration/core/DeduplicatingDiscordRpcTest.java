@@ -0,0 +1,195 @@
+package fr.kazejiyu.discord.rpc.integration.core;
+
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.assertj.core.api.WithAssertions;
+import org.eclipse.core.resources.IProject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+
+import fr.kazejiyu.discord.rpc.integration.languages.Language;
+import fr.kazejiyu.discord.rpc.integration.tests.mock.MockitoExtension;
+
+/**
+ * Unit test the {@link DeduplicatingDiscordRpc} class.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("A DeduplicatingDiscordRpc")
+public class DeduplicatingDiscordRpcTest implements WithAssertions {
+
+    private DeduplicatingDiscordRpc dedupe;
+
+    @Mock
+    private DiscordRpcLifecycle discord;
+
+    private final ImmutableRichPresence presence = new ImmutableRichPresence().withState("Working on project")
+                                                                              .withDetails("Editing file.java")
+                                                                              .withStartTimestamp(42)
+                                                                              .withLanguage(Language.JAVA)
+                                                                              .withLargeImageText("Java");
+
+    @BeforeEach
+    void instantiateObjectUnderTest() {
+        dedupe = new DeduplicatingDiscordRpc(discord);
+
+        // Discord is considered connected by default
+        when(discord.isConnected()).thenReturn(true);
+    }
+
+    @Test @DisplayName("throws if the given Discord proxy is null")
+    void throws_if_the_given_Discord_proxy_is_null() {
+        assertThatNullPointerException().isThrownBy(() ->
+            new DeduplicatingDiscordRpc(null)
+        );
+    }
+
+    @Test @DisplayName("throws when asked to show a null presence")
+    void throws_when_asked_to_show_a_null_presence() {
+        assertThatNullPointerException().isThrownBy(() ->
+            dedupe.show(null)
+        );
+    }
+
+    @Test @DisplayName("forwards the first presence")
+    void forwards_the_first_presence() {
+        dedupe.show(presence);
+
+        verify(discord).show(presence);
+        assertThat(dedupe.sentUpdates()).isEqualTo(1);
+        assertThat(dedupe.suppressedUpdates()).isZero();
+    }
+
+    @Test @DisplayName("drops a presence equal to the last one sent")
+    void drops_a_presence_equal_to_the_last_one_sent() {
+        dedupe.show(presence);
+        dedupe.show(presence);
+
+        verify(discord, times(1)).show(presence);
+        assertThat(dedupe.sentUpdates()).isEqualTo(1);
+        assertThat(dedupe.suppressedUpdates()).isEqualTo(1);
+    }
+
+    @Test @DisplayName("ignores the fields that are not sent to Discord")
+    void ignores_the_fields_that_are_not_sent_to_Discord(@Mock IProject project) {
+        ImmutableRichPresence sameWithProject = presence.withProject(project);
+
+        dedupe.show(presence);
+        dedupe.show(sameWithProject);
+
+        verify(discord, times(0)).show(sameWithProject);
+        assertThat(dedupe.suppressedUpdates()).isEqualTo(1);
+    }
+
+    @Nested
+    @DisplayName("forwards a presence with a different")
+    class ForwardsAPresenceWithADifferent {
+
+        @BeforeEach
+        void showFirstPresence() {
+            dedupe.show(presence);
+        }
+
+        @Test @DisplayName("state")
+        void state() {
+            assertIsForwarded(presence.withState("Working on another project"));
+        }
+
+        @Test @DisplayName("details")
+        void details() {
+            assertIsForwarded(presence.withDetails("Editing another.java"));
+        }
+
+        @Test @DisplayName("start timestamp")
+        void start_timestamp() {
+            assertIsForwarded(presence.withStartTimestamp(43));
+        }
+
+        @Test @DisplayName("language")
+        void language() {
+            assertIsForwarded(presence.withLanguage(Language.PYTHON));
+        }
+
+        @Test @DisplayName("large image text")
+        void large_image_text() {
+            assertIsForwarded(presence.withLargeImageText("Python"));
+        }
+
+        private void assertIsForwarded(RichPresence other) {
+            dedupe.show(other);
+
+            verify(discord).show(other);
+            assertThat(dedupe.sentUpdates()).isEqualTo(2);
+            assertThat(dedupe.suppressedUpdates()).isZero();
+        }
+    }
+
+    @Test @DisplayName("drops consecutive requests to show nothing")
+    void drops_consecutive_requests_to_show_nothing() {
+        dedupe.showNothing();
+        dedupe.showNothing();
+
+        verify(discord, times(1)).showNothing();
+        assertThat(dedupe.suppressedUpdates()).isEqualTo(1);
+    }
+
+    @Test @DisplayName("considers an empty presence as nothing")
+    void considers_an_empty_presence_as_nothing() {
+        dedupe.showNothing();
+        dedupe.show(new ImmutableRichPresence());
+
+        assertThat(dedupe.suppressedUpdates()).isEqualTo(1);
+    }
+
+    @Test @DisplayName("forwards the presence again after a reconnection")
+    void forwards_the_presence_again_after_a_reconnection() {
+        dedupe.show(presence);
+        dedupe.shutdown();
+        dedupe.initialize("id");
+        dedupe.show(presence);
+
+        verify(discord, times(2)).show(presence);
+        assertThat(dedupe.suppressedUpdates()).isZero();
+    }
+
+    @Test @DisplayName("forwards the presence again after switching to another application")
+    void forwards_the_presence_again_after_switching_to_another_application() {
+        dedupe.show(presence);
+        dedupe.switchTo("another id");
+        dedupe.show(presence);
+
+        verify(discord).switchTo("another id");
+        verify(discord, times(2)).show(presence);
+    }
+
+    @Test @DisplayName("forwards the presence again if it was sent while disconnected")
+    void forwards_the_presence_again_if_it_was_sent_while_disconnected() {
+        when(discord.isConnected()).thenReturn(false);
+        dedupe.show(presence);
+
+        when(discord.isConnected()).thenReturn(true);
+        dedupe.show(presence);
+
+        verify(discord, times(2)).show(presence);
+    }
+
+    @Test @DisplayName("forwards the state of the connection")
+    void forwards_the_state_of_the_connection() {
+        when(discord.connectionState()).thenReturn(ConnectionState.BACKING_OFF);
+
+        assertThat(dedupe.connectionState()).isEqualTo(ConnectionState.BACKING_OFF);
+    }
+
+    @Test @DisplayName("forwards the polling of events")
+    void forwards_the_polling_of_events() {
+        dedupe.pollEvents();
+
+        verify(discord).pollEvents();
+    }
+
+}
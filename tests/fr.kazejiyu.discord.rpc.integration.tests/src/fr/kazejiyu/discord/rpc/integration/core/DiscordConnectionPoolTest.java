@@ -0,0 +1,277 @@
+package fr.kazejiyu.discord.rpc.integration.core;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.assertj.core.api.WithAssertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+
+import fr.kazejiyu.discord.rpc.integration.tests.mock.MockitoExtension;
+
+/**
+ * Unit test the {@link DiscordConnectionPool} class.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("A DiscordConnectionPool")
+public class DiscordConnectionPoolTest implements WithAssertions {
+
+    private static final Duration IDLE_TIMEOUT = Duration.ofMinutes(1);
+
+    private DiscordConnectionPool pool;
+
+    private List<DiscordRpcLifecycle> connections;
+
+    private AtomicLong now;
+
+    @Mock
+    private ScheduledExecutorService scheduler;
+
+    @Mock
+    private ScheduledFuture<?> eviction;
+
+    @BeforeEach
+    void instantiateObjectUnderTest() {
+        connections = new ArrayList<>();
+        now = new AtomicLong();
+        pool = new DiscordConnectionPool(this::newConnection, scheduler, 2, IDLE_TIMEOUT, now::get);
+
+        doReturn(eviction).when(scheduler).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+    }
+
+    private DiscordRpcLifecycle newConnection() {
+        DiscordRpcLifecycle connection = mock(DiscordRpcLifecycle.class);
+        connections.add(connection);
+        return connection;
+    }
+
+    @Nested
+    @DisplayName("during instanciation")
+    class DuringInstanciation {
+
+        @Test @DisplayName("throws if the given connection factory is null")
+        void throws_if_the_given_connection_factory_is_null() {
+            assertThatNullPointerException().isThrownBy(() ->
+                new DiscordConnectionPool(null, scheduler)
+            );
+        }
+
+        @Test @DisplayName("throws if the given scheduler is null")
+        void throws_if_the_given_scheduler_is_null() {
+            assertThatNullPointerException().isThrownBy(() ->
+                new DiscordConnectionPool(DiscordConnectionPoolTest.this::newConnection, null)
+            );
+        }
+
+        @Test @DisplayName("throws if the given maximum number of connections is not positive")
+        void throws_if_the_given_maximum_number_of_connections_is_not_positive() {
+            assertThatIllegalArgumentException().isThrownBy(() ->
+                new DiscordConnectionPool(DiscordConnectionPoolTest.this::newConnection, scheduler, 0, IDLE_TIMEOUT)
+            );
+        }
+
+        @Test @DisplayName("throws if the given idle timeout is negative")
+        void throws_if_the_given_idle_timeout_is_negative() {
+            assertThatIllegalArgumentException().isThrownBy(() ->
+                new DiscordConnectionPool(DiscordConnectionPoolTest.this::newConnection, scheduler, 2, Duration.ofSeconds(-1))
+            );
+        }
+
+        @Test @DisplayName("is disconnected")
+        void is_disconnected() {
+            assertThat(pool.connectionState()).isEqualTo(ConnectionState.DISCONNECTED);
+            assertThat(pool.isConnected()).isFalse();
+            assertThat(pool.discordApplicationId()).isEmpty();
+            assertThat(pool.size()).isZero();
+        }
+
+        @Test @DisplayName("ignores presences")
+        void ignores_presences() {
+            assertThatCode(() -> {
+                pool.show(new ImmutableRichPresence());
+                pool.showNothing();
+            })
+            .doesNotThrowAnyException();
+        }
+    }
+
+    @Test @DisplayName("throws when asked to switch to a null application")
+    void throws_when_asked_to_switch_to_a_null_application() {
+        assertThatNullPointerException().isThrownBy(() ->
+            pool.switchTo(null)
+        );
+    }
+
+    @Test @DisplayName("opens a connection on first use")
+    void opens_a_connection_on_first_use() {
+        pool.initialize("1");
+
+        assertThat(connections).hasSize(1);
+        verify(connections.get(0)).initialize("1");
+        assertThat(pool.misses()).isEqualTo(1);
+    }
+
+    @Test @DisplayName("forwards calls to the connection in use")
+    void forwards_calls_to_the_connection_in_use() {
+        RichPresence presence = new ImmutableRichPresence();
+        pool.initialize("1");
+        DiscordRpcLifecycle connection = connections.get(0);
+        when(connection.isConnected()).thenReturn(true);
+        when(connection.connectionState()).thenReturn(ConnectionState.READY);
+
+        pool.show(presence);
+
+        verify(connection).show(presence);
+        assertThat(pool.isConnected()).isTrue();
+        assertThat(pool.connectionState()).isEqualTo(ConnectionState.READY);
+    }
+
+    @Test @DisplayName("keeps the previous connection open when switching to another application")
+    void keeps_the_previous_connection_open_when_switching_to_another_application() {
+        pool.initialize("1");
+        pool.switchTo("2");
+
+        DiscordRpcLifecycle first = connections.get(0);
+        verify(first, never()).shutdown();
+        verify(first).showNothing();
+        verify(connections.get(1)).initialize("2");
+        assertThat(pool.size()).isEqualTo(2);
+    }
+
+    @Test @DisplayName("reuses an open connection when switching back")
+    void reuses_an_open_connection_when_switching_back() {
+        RichPresence presence = new ImmutableRichPresence();
+        pool.initialize("1");
+        pool.switchTo("2");
+        pool.switchTo("1");
+        pool.show(presence);
+
+        assertThat(connections).hasSize(2);
+        verify(connections.get(0)).initialize("1");
+        verify(connections.get(0)).show(presence);
+        assertThat(pool.hits()).isEqualTo(1);
+        assertThat(pool.misses()).isEqualTo(2);
+    }
+
+    @Test @DisplayName("does nothing when switching to the application in use")
+    void does_nothing_when_switching_to_the_application_in_use() {
+        pool.initialize("1");
+        pool.switchTo("1");
+
+        assertThat(connections).hasSize(1);
+        verify(connections.get(0), never()).showNothing();
+        verify(connections.get(0), never()).shutdown();
+    }
+
+    @Test @DisplayName("closes the least recently used connection when full")
+    void closes_the_least_recently_used_connection_when_full() {
+        pool.initialize("1");
+        pool.switchTo("2");
+        pool.switchTo("1");
+        pool.switchTo("3");
+
+        verify(connections.get(0), never()).shutdown();
+        verify(connections.get(1)).shutdown();
+        assertThat(pool.size()).isEqualTo(2);
+        assertThat(pool.evictions()).isEqualTo(1);
+    }
+
+    @Test @DisplayName("closes the connections that have been idle for too long")
+    void closes_the_connections_that_have_been_idle_for_too_long() {
+        pool.initialize("1");
+        pool.switchTo("2");
+        verify(scheduler).schedule(any(Runnable.class), eq(IDLE_TIMEOUT.toNanos()), eq(TimeUnit.NANOSECONDS));
+
+        now.addAndGet(IDLE_TIMEOUT.toNanos());
+        runLastScheduledTask();
+
+        verify(connections.get(0)).shutdown();
+        verify(connections.get(1), never()).shutdown();
+        assertThat(pool.size()).isEqualTo(1);
+        assertThat(pool.evictions()).isEqualTo(1);
+    }
+
+    @Test @DisplayName("keeps the connections that have been used recently")
+    void keeps_the_connections_that_have_been_used_recently() {
+        pool.initialize("1");
+        pool.switchTo("2");
+        now.addAndGet(IDLE_TIMEOUT.toNanos() / 2);
+        pool.switchTo("1");
+        now.addAndGet(IDLE_TIMEOUT.toNanos() / 2);
+        runLastScheduledTask();
+
+        verify(connections.get(0), never()).shutdown();
+        verify(connections.get(1), never()).shutdown();
+        assertThat(pool.size()).isEqualTo(2);
+    }
+
+    @Test @DisplayName("polls the events of every open connection")
+    void polls_the_events_of_every_open_connection() {
+        pool.initialize("1");
+        pool.switchTo("2");
+        pool.pollEvents();
+
+        verify(connections.get(0)).pollEvents();
+        verify(connections.get(1)).pollEvents();
+    }
+
+    @Nested
+    @DisplayName("when shut down")
+    class WhenShutDown {
+
+        @BeforeEach
+        void shutdown() {
+            pool.initialize("1");
+            pool.switchTo("2");
+            pool.shutdown();
+        }
+
+        @Test @DisplayName("closes every connection")
+        void closes_every_connection() {
+            verify(connections.get(0)).shutdown();
+            verify(connections.get(1)).shutdown();
+            assertThat(pool.size()).isZero();
+            assertThat(pool.connectionState()).isEqualTo(ConnectionState.DISCONNECTED);
+        }
+
+        @Test @DisplayName("stops closing idle connections")
+        void stops_closing_idle_connections() {
+            verify(eviction).cancel(false);
+        }
+
+        @Test @DisplayName("opens a new connection once re-initialized")
+        void opens_a_new_connection_once_re_initialized() {
+            pool.initialize("1");
+
+            assertThat(connections).hasSize(3);
+            verify(connections.get(2)).initialize("1");
+        }
+    }
+
+    private void runLastScheduledTask() {
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler, atLeastOnce()).schedule(task.capture(), anyLong(), any(TimeUnit.class));
+        task.getValue().run();
+    }
+
+}
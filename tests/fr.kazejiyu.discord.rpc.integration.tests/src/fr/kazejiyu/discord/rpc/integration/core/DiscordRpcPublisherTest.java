@@ -0,0 +1,364 @@
+package fr.kazejiyu.discord.rpc.integration.core;
+
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.assertj.core.api.WithAssertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+
+import fr.kazejiyu.discord.rpc.integration.tests.mock.MockitoExtension;
+
+/**
+ * Unit test the {@link DiscordRpcPublisher} class.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("A DiscordRpcPublisher")
+public class DiscordRpcPublisherTest implements WithAssertions {
+
+    private DiscordRpcPublisher publisher;
+
+    private ManualExecutor executor;
+
+    private AtomicLong now;
+
+    @Mock
+    private DiscordRpcLifecycle discord;
+
+    @BeforeEach
+    void instantiateObjectUnderTest() {
+        executor = new ManualExecutor();
+        now = new AtomicLong();
+        publisher = new DiscordRpcPublisher(discord, executor, now::get);
+    }
+
+    @Nested
+    @DisplayName("during instanciation")
+    class DuringInstanciation {
+
+        @Test @DisplayName("throws if the given Discord proxy is null")
+        void throws_if_the_given_Discord_proxy_is_null() {
+            assertThatNullPointerException().isThrownBy(() ->
+                new DiscordRpcPublisher(null)
+            );
+        }
+
+        @Test @DisplayName("throws if the given executor is null")
+        void throws_if_the_given_executor_is_null() {
+            assertThatNullPointerException().isThrownBy(() ->
+                new DiscordRpcPublisher(discord, null, now::get)
+            );
+        }
+
+        @Test @DisplayName("throws if the given clock is null")
+        void throws_if_the_given_clock_is_null() {
+            assertThatNullPointerException().isThrownBy(() ->
+                new DiscordRpcPublisher(discord, executor, null)
+            );
+        }
+    }
+
+    @Test @DisplayName("throws when asked to show a null presence")
+    void throws_when_asked_to_show_a_null_presence() {
+        assertThatNullPointerException().isThrownBy(() ->
+            publisher.show(null)
+        );
+    }
+
+    @Test @DisplayName("does not call Discord from the caller's thread")
+    void does_not_call_Discord_from_the_caller_thread(@Mock RichPresence presence) {
+        publisher.initialize("id");
+        publisher.show(presence);
+        publisher.showNothing();
+        publisher.shutdown();
+
+        verifyZeroInteractions(discord);
+    }
+
+    @Test @DisplayName("only publishes the latest presence")
+    void only_publishes_the_latest_presence() {
+        RichPresence first = mock(RichPresence.class);
+        RichPresence second = mock(RichPresence.class);
+        RichPresence third = mock(RichPresence.class);
+        publisher.show(first);
+        publisher.show(second);
+        publisher.show(third);
+        executor.runAll();
+
+        verify(discord).show(third);
+        verify(discord, never()).show(first);
+        verify(discord, never()).show(second);
+    }
+
+    @Test @DisplayName("publishes the presences sent after a previous one has been published")
+    void publishes_the_presences_sent_after_a_previous_one_has_been_published() {
+        RichPresence first = mock(RichPresence.class);
+        RichPresence second = mock(RichPresence.class);
+        publisher.show(first);
+        executor.runAll();
+        publisher.show(second);
+        executor.runAll();
+
+        InOrder inOrder = inOrder(discord);
+        inOrder.verify(discord).show(first);
+        inOrder.verify(discord).show(second);
+    }
+
+    @Test @DisplayName("lets an empty presence override a pending one")
+    void lets_an_empty_presence_override_a_pending_one(@Mock RichPresence presence) {
+        publisher.show(presence);
+        publisher.showNothing();
+        executor.runAll();
+
+        verify(discord).showNothing();
+        verify(discord, never()).show(presence);
+    }
+
+    @Test @DisplayName("keeps presences and lifecycle calls in order")
+    void keeps_presences_and_lifecycle_calls_in_order() {
+        RichPresence before = mock(RichPresence.class);
+        RichPresence after = mock(RichPresence.class);
+        publisher.show(before);
+        publisher.initialize("id");
+        publisher.show(after);
+        publisher.shutdown();
+        executor.runAll();
+
+        InOrder inOrder = inOrder(discord);
+        inOrder.verify(discord).show(before);
+        inOrder.verify(discord).initialize("id");
+        inOrder.verify(discord).show(after);
+        inOrder.verify(discord).shutdown();
+    }
+
+    @Test @DisplayName("reports the requested connection right away")
+    void reports_the_requested_connection_right_away() {
+        publisher.initialize("id");
+
+        assertThat(publisher.isConnected()).isTrue();
+        assertThat(publisher.discordApplicationId()).contains("id");
+        assertThat(publisher.isConnectedTo("id")).isTrue();
+    }
+
+    @Test @DisplayName("reports the requested disconnection right away")
+    void reports_the_requested_disconnection_right_away() {
+        publisher.initialize("id");
+        publisher.shutdown();
+
+        assertThat(publisher.isConnected()).isFalse();
+        assertThat(publisher.discordApplicationId()).isEmpty();
+    }
+
+    @Test @DisplayName("switches to another application from the publishing thread")
+    void switches_to_another_application_from_the_publishing_thread() {
+        publisher.initialize("id");
+        publisher.switchTo("another id");
+
+        assertThat(publisher.isConnectedTo("another id")).isTrue();
+        verify(discord, never()).switchTo("another id");
+
+        executor.runAll();
+        verify(discord).switchTo("another id");
+        verify(discord, never()).shutdown();
+    }
+
+    @Test @DisplayName("reports the state of the connection once requested")
+    void reports_the_state_of_the_connection_once_requested() {
+        when(discord.connectionState()).thenReturn(ConnectionState.BACKING_OFF);
+        assertThat(publisher.connectionState()).isEqualTo(ConnectionState.DISCONNECTED);
+
+        publisher.initialize("id");
+        assertThat(publisher.connectionState()).isEqualTo(ConnectionState.BACKING_OFF);
+    }
+
+    @Test @DisplayName("polls events from the publishing thread")
+    void polls_events_from_the_publishing_thread() {
+        publisher.pollEvents();
+        verify(discord, never()).pollEvents();
+
+        executor.runAll();
+        verify(discord).pollEvents();
+    }
+
+    @Test @DisplayName("keeps publishing after Discord failed")
+    void keeps_publishing_after_Discord_failed() {
+        RichPresence failing = mock(RichPresence.class);
+        RichPresence next = mock(RichPresence.class);
+        doAnswer(invocation -> { throw new IllegalStateException("Discord failed"); }).when(discord).show(failing);
+
+        publisher.show(failing);
+        try {
+            executor.runAll();
+        }
+        catch (RuntimeException e) {
+            // the error is logged through the workbench, which is not available in plain unit tests
+        }
+        publisher.show(next);
+        executor.runAll();
+
+        verify(discord).show(next);
+    }
+
+    @Nested
+    @DisplayName("when measuring latency")
+    class WhenMeasuringLatency {
+
+        @Test @DisplayName("reports no latency when nothing has been published")
+        void reports_no_latency_when_nothing_has_been_published() {
+            assertThat(publisher.publishedPresences()).isZero();
+            assertThat(publisher.lastLatency()).isEqualTo(Duration.ZERO);
+            assertThat(publisher.maxLatency()).isEqualTo(Duration.ZERO);
+            assertThat(publisher.averageLatency()).isEqualTo(Duration.ZERO);
+        }
+
+        @Test @DisplayName("measures the time between the post and the publication")
+        void measures_the_time_between_the_post_and_the_publication() {
+            RichPresence first = mock(RichPresence.class);
+            RichPresence second = mock(RichPresence.class);
+            now.set(100);
+            publisher.show(first);
+            now.set(400);
+            executor.runAll();
+
+            now.set(1_000);
+            publisher.show(second);
+            now.set(1_100);
+            executor.runAll();
+
+            assertThat(publisher.publishedPresences()).isEqualTo(2);
+            assertThat(publisher.lastLatency()).isEqualTo(Duration.ofNanos(100));
+            assertThat(publisher.maxLatency()).isEqualTo(Duration.ofNanos(300));
+            assertThat(publisher.averageLatency()).isEqualTo(Duration.ofNanos(200));
+        }
+
+        @Test @DisplayName("measures from the post of the latest presence")
+        void measures_from_the_post_of_the_latest_presence() {
+            RichPresence first = mock(RichPresence.class);
+            RichPresence second = mock(RichPresence.class);
+            now.set(100);
+            publisher.show(first);
+            now.set(300);
+            publisher.show(second);
+            now.set(350);
+            executor.runAll();
+
+            assertThat(publisher.publishedPresences()).isEqualTo(1);
+            assertThat(publisher.lastLatency()).isEqualTo(Duration.ofNanos(50));
+        }
+    }
+
+    @Nested
+    @DisplayName("when running on its own thread")
+    class WhenRunningOnItsOwnThread {
+
+        @Test @DisplayName("does not block the caller while Discord is stalled")
+        void does_not_block_the_caller_while_Discord_is_stalled() throws InterruptedException {
+            RichPresence stalled = mock(RichPresence.class);
+            RichPresence latest = mock(RichPresence.class);
+            CountDownLatch discordIsStalled = new CountDownLatch(1);
+            CountDownLatch discordResumes = new CountDownLatch(1);
+
+            doAnswer(invocation -> {
+                discordIsStalled.countDown();
+                discordResumes.await(5, TimeUnit.SECONDS);
+                return null;
+            }).when(discord).show(stalled);
+
+            DiscordRpcPublisher threaded = new DiscordRpcPublisher(discord);
+            try {
+                threaded.show(stalled);
+                assertThat(discordIsStalled.await(5, TimeUnit.SECONDS)).isTrue();
+
+                // would hang if the caller had to wait for Discord
+                for (int i = 0; i < 100; ++i) {
+                    threaded.show(latest);
+                }
+                discordResumes.countDown();
+
+                verify(discord, timeout(5_000)).show(latest);
+            }
+            finally {
+                discordResumes.countDown();
+                threaded.close();
+            }
+        }
+
+        @Test @DisplayName("shuts the connection down when closed")
+        void shuts_the_connection_down_when_closed() {
+            DiscordRpcPublisher threaded = new DiscordRpcPublisher(discord);
+            threaded.initialize("id");
+            threaded.close();
+
+            InOrder inOrder = inOrder(discord);
+            inOrder.verify(discord).initialize("id");
+            inOrder.verify(discord).shutdown();
+        }
+    }
+
+    /** Executes submitted tasks only when asked to. */
+    private static final class ManualExecutor extends AbstractExecutorService {
+
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        private boolean isShutdown = false;
+
+        void runAll() {
+            while (! tasks.isEmpty()) {
+                tasks.poll().run();
+            }
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        @Override
+        public void shutdown() {
+            isShutdown = true;
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            isShutdown = true;
+            return new ArrayList<>(tasks);
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return isShutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return isShutdown && tasks.isEmpty();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return isTerminated();
+        }
+    }
+
+}
@@ -0,0 +1,99 @@
+package fr.kazejiyu.discord.rpc.integration.core;
+
+import java.time.Duration;
+
+import org.assertj.core.api.WithAssertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Unit test the {@link ExponentialBackoff} class.
+ */
+@DisplayName("An ExponentialBackoff")
+public class ExponentialBackoffTest implements WithAssertions {
+
+    private static final Duration SECOND = Duration.ofSeconds(1);
+
+    private static final Duration MINUTE = Duration.ofMinutes(1);
+
+    @Nested
+    @DisplayName("during instanciation")
+    class DuringInstanciation {
+
+        @Test @DisplayName("throws if the given initial delay is null")
+        void throws_if_the_given_initial_delay_is_null() {
+            assertThatNullPointerException().isThrownBy(() ->
+                new ExponentialBackoff(null, MINUTE, () -> 0)
+            );
+        }
+
+        @Test @DisplayName("throws if the given maximum delay is null")
+        void throws_if_the_given_maximum_delay_is_null() {
+            assertThatNullPointerException().isThrownBy(() ->
+                new ExponentialBackoff(SECOND, null, () -> 0)
+            );
+        }
+
+        @Test @DisplayName("throws if the given source of randomness is null")
+        void throws_if_the_given_source_of_randomness_is_null() {
+            assertThatNullPointerException().isThrownBy(() ->
+                new ExponentialBackoff(SECOND, MINUTE, null)
+            );
+        }
+
+        @Test @DisplayName("throws if the given initial delay is not positive")
+        void throws_if_the_given_initial_delay_is_not_positive() {
+            assertThatIllegalArgumentException().isThrownBy(() ->
+                new ExponentialBackoff(Duration.ZERO, MINUTE, () -> 0)
+            );
+        }
+
+        @Test @DisplayName("throws if the given maximum delay is shorter than the initial one")
+        void throws_if_the_given_maximum_delay_is_shorter_than_the_initial_one() {
+            assertThatIllegalArgumentException().isThrownBy(() ->
+                new ExponentialBackoff(MINUTE, SECOND, () -> 0)
+            );
+        }
+    }
+
+    @Test @DisplayName("doubles the delay after each failed attempt")
+    void doubles_the_delay_after_each_failed_attempt() {
+        ExponentialBackoff backoff = new ExponentialBackoff(SECOND, MINUTE, () -> 0.999_999_999);
+
+        assertThat(backoff.delayAfter(1)).isBetween(Duration.ofMillis(999), SECOND);
+        assertThat(backoff.delayAfter(2)).isBetween(Duration.ofMillis(1999), Duration.ofSeconds(2));
+        assertThat(backoff.delayAfter(3)).isBetween(Duration.ofMillis(3999), Duration.ofSeconds(4));
+    }
+
+    @Test @DisplayName("never waits longer than the maximum delay")
+    void never_waits_longer_than_the_maximum_delay() {
+        ExponentialBackoff backoff = new ExponentialBackoff(SECOND, MINUTE, () -> 0.999_999_999);
+
+        assertThat(backoff.delayAfter(7)).isLessThanOrEqualTo(MINUTE);
+        assertThat(backoff.delayAfter(Integer.MAX_VALUE)).isLessThanOrEqualTo(MINUTE);
+    }
+
+    @Test @DisplayName("waits at least half the delay")
+    void waits_at_least_half_the_delay() {
+        ExponentialBackoff backoff = new ExponentialBackoff(SECOND, MINUTE, () -> 0);
+
+        assertThat(backoff.delayAfter(1)).isEqualTo(Duration.ofMillis(500));
+        assertThat(backoff.delayAfter(3)).isEqualTo(Duration.ofSeconds(2));
+        assertThat(backoff.delayAfter(10)).isEqualTo(Duration.ofSeconds(30));
+    }
+
+    @ParameterizedTest(name = "after {0} failed attempts")
+    @ValueSource(ints = {0, -1, Integer.MIN_VALUE})
+    @DisplayName("throws if the number of failed attempts is not positive")
+    void throws_if_the_number_of_failed_attempts_is_not_positive(int failedAttempts) {
+        ExponentialBackoff backoff = new ExponentialBackoff(SECOND, MINUTE, () -> 0);
+
+        assertThatIllegalArgumentException().isThrownBy(() ->
+            backoff.delayAfter(failedAttempts)
+        );
+    }
+
+}
@@ -12,6 +12,7 @@ import org.mockito.Mock;
 
 import fr.kazejiyu.discord.rpc.integration.core.ImmutableRichPresence;
 import fr.kazejiyu.discord.rpc.integration.languages.Language;
+import fr.kazejiyu.discord.rpc.integration.languages.LanguageDescriptor;
 import fr.kazejiyu.discord.rpc.integration.tests.mock.MockitoExtension;
 
 /**
@@ -189,6 +190,12 @@ public class ImmutableRichPresenceTest {
             assertThat(presence.withLanguage(Language.FORTRAN03).getLanguage()).contains(Language.FORTRAN03);
         }
         
+        @Test @DisplayName("describes its new language")
+        void describes_its_new_language() {
+            assertThat(presence.withLanguage(Language.FORTRAN03).getLanguageDescriptor())
+                .contains(LanguageDescriptor.of(Language.FORTRAN03));
+        }
+        
         @Test @DisplayName("can be configured with new large image text")
         void can_be_configured_with_new_large_image_text() {
             assertThat(presence.withLargeImageText("new large image text").getLargeImageText()).contains("new large image text");
@@ -211,7 +218,12 @@ public class ImmutableRichPresenceTest {
         
         @Test @DisplayName("can be configured without language")
         void can_be_configured_without_language() {
-            assertThat(presence.withLanguage(null).getLanguage()).isEmpty();
+            assertThat(presence.withLanguage((Language) null).getLanguage()).isEmpty();
+        }
+        
+        @Test @DisplayName("can be configured without language descriptor")
+        void can_be_configured_without_language_descriptor() {
+            assertThat(presence.withLanguage((LanguageDescriptor) null).getLanguageDescriptor()).isEmpty();
         }
         
         @Test @DisplayName("can be configured without large image text")
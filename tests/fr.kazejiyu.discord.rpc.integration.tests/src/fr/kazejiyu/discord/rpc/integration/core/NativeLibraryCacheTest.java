@@ -0,0 +1,192 @@
+package fr.kazejiyu.discord.rpc.integration.core;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.assertj.core.api.WithAssertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import fr.kazejiyu.discord.rpc.integration.core.NativeLibraryCache.LibrarySource;
+
+/**
+ * Unit test the {@link NativeLibraryCache} class.
+ */
+@DisplayName("A NativeLibraryCache")
+public class NativeLibraryCacheTest implements WithAssertions {
+
+    private static final byte[] LIBRARY = "not really a native library".getBytes(UTF_8);
+
+    /** A SHA-256 that does not match {@link #LIBRARY}. */
+    private static final String UNEXPECTED_SHA256 = "0d6b4d5d6b4c4aad1f5bd5d9bb0b8d1e0c5c8d1d8a3a3c3d6c1b0c4cb3a3d0a7";
+
+    private Path directory;
+
+    private String sha256;
+
+    private AtomicInteger openings;
+
+    private NativeLibraryCache cache;
+
+    @BeforeEach
+    void createCacheDirectory() throws IOException {
+        directory = Files.createTempDirectory("discord-rpc");
+        sha256 = sha256Of(LIBRARY);
+        openings = new AtomicInteger();
+        cache = new NativeLibraryCache(directory, "libdiscord-rpc.so", sha256, shipped(LIBRARY));
+    }
+
+    @AfterEach
+    void deleteCacheDirectory() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder())
+                 .forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Nested
+    @DisplayName("during instanciation")
+    class DuringInstanciation {
+
+        @Test @DisplayName("throws if the given cache directory is null")
+        void throws_if_the_given_cache_directory_is_null() {
+            assertThatNullPointerException().isThrownBy(() ->
+                new NativeLibraryCache(null, "libdiscord-rpc.so", sha256, shipped(LIBRARY))
+            );
+        }
+
+        @Test @DisplayName("throws if the given file name is null")
+        void throws_if_the_given_file_name_is_null() {
+            assertThatNullPointerException().isThrownBy(() ->
+                new NativeLibraryCache(directory, null, sha256, shipped(LIBRARY))
+            );
+        }
+
+        @Test @DisplayName("throws if the given hash is null")
+        void throws_if_the_given_hash_is_null() {
+            assertThatNullPointerException().isThrownBy(() ->
+                new NativeLibraryCache(directory, "libdiscord-rpc.so", null, shipped(LIBRARY))
+            );
+        }
+
+        @Test @DisplayName("throws if the given source is null")
+        void throws_if_the_given_source_is_null() {
+            assertThatNullPointerException().isThrownBy(() ->
+                new NativeLibraryCache(directory, "libdiscord-rpc.so", sha256, null)
+            );
+        }
+
+        @Test @DisplayName("throws if the given cache directory is null, for the current platform")
+        void throws_if_the_given_cache_directory_is_null_for_the_current_platform() {
+            assertThatNullPointerException().isThrownBy(() ->
+                NativeLibraryCache.forCurrentPlatform(null)
+            );
+        }
+    }
+
+    @Test @DisplayName("stores the library in a directory named after its hash")
+    void stores_the_library_in_a_directory_named_after_its_hash() throws IOException {
+        Path installed = cache.install();
+
+        assertThat(installed).isEqualTo(directory.resolve(sha256));
+        assertThat(cache.library()).isEqualTo(installed.resolve("libdiscord-rpc.so"));
+    }
+
+    @Test @DisplayName("extracts the library on first install")
+    void extracts_the_library_on_first_install() throws IOException {
+        cache.install();
+
+        assertThat(cache.library()).hasBinaryContent(LIBRARY);
+        assertThat(cache.extractions()).isEqualTo(1);
+        assertThat(openings).hasValue(1);
+    }
+
+    @Test @DisplayName("does not open the shipped library once extracted")
+    void does_not_open_the_shipped_library_once_extracted() throws IOException {
+        cache.install();
+        NativeLibraryCache nextStart = new NativeLibraryCache(directory, "libdiscord-rpc.so", sha256, shipped(LIBRARY));
+
+        nextStart.install();
+
+        assertThat(nextStart.extractions()).isZero();
+        assertThat(openings).hasValue(1);
+    }
+
+    @Test @DisplayName("extracts the library again if the cached copy has been altered")
+    void extracts_the_library_again_if_the_cached_copy_has_been_altered() throws IOException {
+        cache.install();
+        Files.write(cache.library(), "corrupted".getBytes(UTF_8));
+
+        cache.install();
+
+        assertThat(cache.library()).hasBinaryContent(LIBRARY);
+        assertThat(cache.extractions()).isEqualTo(2);
+    }
+
+    @Test @DisplayName("throws if the shipped library does not have the expected hash")
+    void throws_if_the_shipped_library_does_not_have_the_expected_hash() throws IOException {
+        NativeLibraryCache tampered = new NativeLibraryCache(directory, "libdiscord-rpc.so", UNEXPECTED_SHA256, shipped(LIBRARY));
+
+        assertThatIOException().isThrownBy(tampered::install);
+        assertThat(tampered.library()).doesNotExist();
+        try (Stream<Path> files = Files.list(tampered.library().getParent())) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test @DisplayName("throws if the shipped library cannot be found")
+    void throws_if_the_shipped_library_cannot_be_found() {
+        NativeLibraryCache missing = new NativeLibraryCache(directory, "libdiscord-rpc.so", sha256, () -> null);
+
+        assertThatIOException().isThrownBy(missing::install);
+        assertThat(missing.library()).doesNotExist();
+    }
+
+    @Test @DisplayName("knows the hash of the library shipped for the current platform")
+    void knows_the_hash_of_the_library_shipped_for_the_current_platform() throws IOException {
+        Optional<NativeLibraryCache> current = NativeLibraryCache.forCurrentPlatform(directory);
+        assumeTrue(current.isPresent(), "No library is shipped for the current platform");
+
+        current.get().install();
+
+        assertThat(current.get().library()).exists();
+        assertThat(current.get().library().getFileName()).isEqualTo(Paths.get(System.mapLibraryName("discord-rpc")));
+    }
+
+    private LibrarySource shipped(byte[] library) {
+        return () -> {
+            openings.incrementAndGet();
+            return new ByteArrayInputStream(library);
+        };
+    }
+
+    private static String sha256Of(byte[] content) {
+        try {
+            StringBuilder hex = new StringBuilder();
+
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(content)) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
@@ -0,0 +1,218 @@
+package fr.kazejiyu.discord.rpc.integration.core;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+
+import org.assertj.core.api.WithAssertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.sun.jna.Memory;
+import com.sun.jna.Pointer;
+import com.sun.jna.Structure;
+
+import club.minnced.discord.rpc.DiscordRichPresence;
+import fr.kazejiyu.discord.rpc.integration.languages.Language;
+
+/**
+ * Unit test the {@link NativeRichPresence} class.
+ */
+@DisplayName("A NativeRichPresence")
+public class NativeRichPresenceTest implements WithAssertions {
+
+    private NativeRichPresence nativePresence;
+
+    private final ImmutableRichPresence presence = new ImmutableRichPresence().withState("Working on project")
+                                                                              .withDetails("Editing file.java")
+                                                                              .withStartTimestamp(42)
+                                                                              .withLanguage(Language.JAVA)
+                                                                              .withLargeImageText("Java");
+
+    @BeforeEach
+    void instantiateObjectUnderTest() {
+        nativePresence = new NativeRichPresence();
+    }
+
+    @Test @DisplayName("throws when asked to encode a null presence")
+    void throws_when_asked_to_encode_a_null_presence() {
+        assertThatNullPointerException().isThrownBy(() ->
+            nativePresence.encode(null)
+        );
+    }
+
+    @Test @DisplayName("writes the fields of the presence")
+    void writes_the_fields_of_the_presence() {
+        DiscordRichPresence written = read(nativePresence.encode(presence));
+
+        assertThat(written.state).isEqualTo("Working on project");
+        assertThat(written.details).isEqualTo("Editing file.java");
+        assertThat(written.startTimestamp).isEqualTo(42);
+        assertThat(written.largeImageKey).isEqualTo(Language.JAVA.getKey());
+        assertThat(written.largeImageText).isEqualTo("Java");
+    }
+
+    @Test @DisplayName("always shows the Eclipse IDE logo")
+    void always_shows_the_Eclipse_IDE_logo() {
+        DiscordRichPresence written = read(nativePresence.encode(new ImmutableRichPresence()));
+
+        assertThat(written.smallImageKey).isEqualTo(DiscordRpcProxy.ECLIPSE_LOGO_KEY);
+        assertThat(written.smallImageText).isEqualTo(DiscordRpcProxy.ECLIPSE_LOGO_TEXT);
+    }
+
+    @Test @DisplayName("keeps showing the Eclipse IDE logo after a garbage collection")
+    void keeps_showing_the_Eclipse_IDE_logo_after_a_garbage_collection() {
+        // JNA releases the memory behind a byte buffer once the buffer is collected then purged on the next lookup
+        for (int i = 0; i < 2; i++) {
+            collectGarbage();
+            new Memory(1).getByteBuffer(0, 1);
+        }
+        // reuses the native memory that would have been freed
+        for (int i = 0; i < 100; i++) {
+            new Memory(NativeRichPresence.MAX_KEY_LENGTH + 1L).setMemory(0, NativeRichPresence.MAX_KEY_LENGTH + 1L, (byte) 'x');
+            new Memory(NativeRichPresence.MAX_TEXT_LENGTH + 1L).setMemory(0, NativeRichPresence.MAX_TEXT_LENGTH + 1L, (byte) 'x');
+        }
+        DiscordRichPresence written = read(nativePresence.encode(presence));
+
+        assertThat(written.smallImageKey).isEqualTo(DiscordRpcProxy.ECLIPSE_LOGO_KEY);
+        assertThat(written.smallImageText).isEqualTo(DiscordRpcProxy.ECLIPSE_LOGO_TEXT);
+    }
+
+    @Test @DisplayName("leaves the missing fields unset")
+    void leaves_the_missing_fields_unset() {
+        nativePresence.encode(presence);
+        DiscordRichPresence written = read(nativePresence.encode(new ImmutableRichPresence()));
+
+        assertThat(written.state).isNull();
+        assertThat(written.details).isNull();
+        assertThat(written.startTimestamp).isZero();
+        assertThat(written.largeImageKey).isNull();
+        assertThat(written.largeImageText).isNull();
+        assertThat(written.partyId).isNull();
+        assertThat(written.joinSecret).isNull();
+    }
+
+    @Test @DisplayName("writes the new value of a field that changed")
+    void writes_the_new_value_of_a_field_that_changed() {
+        nativePresence.encode(presence);
+        DiscordRichPresence written = read(nativePresence.encode(presence.withDetails("Editing other.java")));
+
+        assertThat(written.details).isEqualTo("Editing other.java");
+        assertThat(written.state).isEqualTo("Working on project");
+    }
+
+    @Test @DisplayName("truncates the texts longer than what Discord accepts")
+    void truncates_the_texts_longer_than_what_Discord_accepts() {
+        String longText = new String(new char[200]).replace('\0', 'a');
+        DiscordRichPresence written = read(nativePresence.encode(presence.withState(longText)));
+
+        assertThat(written.state).hasSize(NativeRichPresence.MAX_TEXT_LENGTH);
+    }
+
+    @Nested
+    @DisplayName("encodes in UTF-8")
+    class EncodesInUtf8 {
+
+        @ParameterizedTest(name = "{0}")
+        @ValueSource(strings = {"ascii", "\u00e9t\u00e9", "\u65e5\u672c\u8a9e", "\uD83D\uDE00 emoji", "mixed \u00e9 \u65e5 \uD83D\uDE00"})
+        @DisplayName("any text")
+        void any_text(String text) {
+            ByteBuffer buffer = ByteBuffer.allocate(64);
+            int length = NativeRichPresence.encodeUtf8(text, buffer, 64);
+
+            assertThat(new String(buffer.array(), 0, length, UTF_8)).isEqualTo(text);
+        }
+
+        @Test @DisplayName("without splitting characters when truncating")
+        void without_splitting_characters_when_truncating() {
+            ByteBuffer buffer = ByteBuffer.allocate(8);
+            int length = NativeRichPresence.encodeUtf8("aaa\uD83D\uDE00\uD83D\uDE00", buffer, 8);
+
+            assertThat(length).isEqualTo(7);
+            assertThat(new String(buffer.array(), 0, length, UTF_8)).isEqualTo("aaa\uD83D\uDE00");
+        }
+
+        @Test @DisplayName("by replacing unpaired surrogates")
+        void by_replacing_unpaired_surrogates() {
+            ByteBuffer buffer = ByteBuffer.allocate(8);
+            int length = NativeRichPresence.encodeUtf8("a\uD800b", buffer, 8);
+
+            assertThat(new String(buffer.array(), 0, length, UTF_8)).isEqualTo("a?b");
+        }
+    }
+
+    @Test @DisplayName("does not allocate anything once warmed up")
+    void does_not_allocate_anything_once_warmed_up() throws ReflectiveOperationException {
+        AllocationCounter allocations = new AllocationCounter();
+        RichPresence other = presence.withDetails("Editing other.java").withLanguage(Language.PYTHON);
+
+        for (int i = 0; i < 20_000; i++) {
+            nativePresence.encode(presence);
+            nativePresence.encode(other);
+        }
+        int updates = 100_000;
+        long before = allocations.allocatedBytes();
+
+        for (int i = 0; i < updates / 2; i++) {
+            nativePresence.encode(presence);
+            nativePresence.encode(other);
+        }
+        long allocatedPerUpdate = (allocations.allocatedBytes() - before) / updates;
+
+        assertThat(allocatedPerUpdate).isZero();
+    }
+
+    /** Runs the garbage collector until an unreachable object is collected, then runs the finalizers. */
+    private static void collectGarbage() {
+        WeakReference<Object> collected = new WeakReference<>(new Object());
+
+        while (collected.get() != null) {
+            System.gc();
+        }
+        System.runFinalization();
+    }
+
+    private static DiscordRichPresence read(Pointer struct) {
+        DiscordRichPresence written = (DiscordRichPresence) Structure.newInstance(DiscordRichPresence.class, struct);
+        written.read();
+        return written;
+    }
+
+    /** Counts the bytes allocated by the current thread, through HotSpot's extension of {@link ThreadMXBean}. */
+    private static final class AllocationCounter {
+
+        private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        private final Method getThreadAllocatedBytes;
+
+        AllocationCounter() {
+            Method method = null;
+            try {
+                Class<?> hotspotThreads = Class.forName("com.sun.management.ThreadMXBean");
+
+                if (hotspotThreads.isInstance(threads)) {
+                    method = hotspotThreads.getMethod("getThreadAllocatedBytes", long.class);
+                }
+            }
+            catch (ReflectiveOperationException e) {
+                // not running on HotSpot
+            }
+            assumeTrue(method != null, "Allocations can only be measured on HotSpot");
+            this.getThreadAllocatedBytes = method;
+        }
+
+        long allocatedBytes() throws ReflectiveOperationException {
+            return (Long) getThreadAllocatedBytes.invoke(threads, Thread.currentThread().getId());
+        }
+    }
+
+}
@@ -20,6 +20,7 @@ import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.Mock;
 
 import fr.kazejiyu.discord.rpc.integration.languages.Language;
+import fr.kazejiyu.discord.rpc.integration.languages.LanguageDescriptor;
 import fr.kazejiyu.discord.rpc.integration.settings.UserPreferences;
 import fr.kazejiyu.discord.rpc.integration.tests.mock.MockitoExtension;
 
@@ -96,6 +97,21 @@ public class PreferredRichPresenceTest implements WithAssertions {
             
             assertThat(preferred.getLanguage()).isEmpty();
         }
+        
+        @Test @DisplayName("describes the language of the original presence by default")
+        void describes_the_language_of_the_original_presence() {
+            when(preferences.showsLanguageIcon()).thenReturn(true);
+            when(presence.getLanguageDescriptor()).thenReturn(Optional.of(LanguageDescriptor.of(Language.JAVA)));
+            
+            assertThat(preferred.getLanguageDescriptor()).contains(LanguageDescriptor.of(Language.JAVA));
+        }
+        
+        @Test @DisplayName("does not describe the language if the user wants to hide it")
+        void does_not_describe_the_language_if_the_user_wants_to_hide_it() {
+            when(preferences.showsLanguageIcon()).thenReturn(false);
+            
+            assertThat(preferred.getLanguageDescriptor()).isEmpty();
+        }
     }
     
     @Nested
@@ -0,0 +1,180 @@
+package fr.kazejiyu.discord.rpc.integration.core;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+import org.assertj.core.api.WithAssertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import fr.kazejiyu.discord.rpc.integration.core.ipc.DiscordIpcClient;
+import fr.kazejiyu.discord.rpc.integration.core.ipc.UnixDomainSocketConnector;
+import fr.kazejiyu.discord.rpc.integration.tests.support.FakeDiscordServer;
+import fr.kazejiyu.discord.rpc.integration.tests.support.LatencyRecorder;
+import fr.kazejiyu.discord.rpc.integration.tests.support.RecordedFrame;
+
+/**
+ * Measures how fast presences reach a {@link FakeDiscordServer} through the different transports.
+ * <p>
+ * Disabled by default, run with {@code mvn verify -Dbenchmarks=true}. Results are printed on the standard output.
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+@DisplayName("Benchmark: publishing presences")
+public class PresencePublishingBenchmark implements WithAssertions {
+
+    private static final int WARMUP = 500;
+
+    private static final int ITERATIONS = 5_000;
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private Path directory;
+
+    private FakeDiscordServer discord;
+
+    @AfterEach
+    void stopServer() throws IOException {
+        if (discord != null) {
+            discord.close();
+        }
+        if (directory != null) {
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    @Test @DisplayName("Java IPC client")
+    void java_ipc_client() throws Exception {
+        startServerInTemporaryDirectory();
+        DiscordIpcClient client = new DiscordIpcClient(new UnixDomainSocketConnector(Collections.singletonList(directory)));
+        client.initialize("4242");
+
+        try {
+            awaitReady(client);
+            measure("Java IPC client", client, true);
+        }
+        finally {
+            client.shutdown();
+        }
+    }
+
+    @Test @DisplayName("Java IPC client behind the publisher")
+    void java_ipc_client_behind_the_publisher() throws Exception {
+        startServerInTemporaryDirectory();
+        DiscordIpcClient client = new DiscordIpcClient(new UnixDomainSocketConnector(Collections.singletonList(directory)));
+
+        try (DiscordRpcPublisher publisher = new DiscordRpcPublisher(new DeduplicatingDiscordRpc(client))) {
+            publisher.initialize("4242");
+            awaitReady(publisher);
+            // the publisher coalesces bursts: only the latest presence is guaranteed to be sent
+            measure("Java IPC client behind the publisher", publisher, false);
+        }
+    }
+
+    @Test @DisplayName("native discord-rpc library")
+    void native_discord_rpc_library() throws Exception {
+        // the native library looks for the sockets by itself: we must listen where the real Discord would
+        Path runtime = UnixDomainSocketConnector.defaultDirectories().get(0);
+        assumeTrue(FakeDiscordServer.isSupported(), "Unix domain sockets require Java 16 or later");
+        assumeTrue(Files.isDirectory(runtime), "The runtime directory does not exist");
+        assumeTrue(! Files.exists(runtime.resolve("discord-ipc-0")), "A Discord client is already running");
+
+        discord = FakeDiscordServer.start(runtime);
+        DiscordRpcProxy proxy = new DiscordRpcProxy();
+        proxy.initialize("4242");
+
+        try {
+            assertThat(discord.awaitConnections(1, TIMEOUT)).isTrue();
+            awaitReady(proxy);
+            measure("native discord-rpc library", proxy, false);
+        }
+        finally {
+            proxy.shutdown();
+        }
+    }
+
+    /** Processes the events of the transport until Discord acknowledged the connection. */
+    private void awaitReady(DiscordRpcLifecycle transport) throws InterruptedException {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+
+        while (transport.connectionState() != ConnectionState.READY && System.nanoTime() < deadline) {
+            transport.pollEvents();
+            Thread.sleep(1);
+        }
+        assertThat(transport.connectionState()).isEqualTo(ConnectionState.READY);
+    }
+
+    private void startServerInTemporaryDirectory() throws IOException {
+        assumeTrue(FakeDiscordServer.isSupported(), "Unix domain sockets require Java 16 or later");
+
+        directory = Files.createTempDirectory("discord");
+        discord = FakeDiscordServer.start(directory);
+    }
+
+    /**
+     * Shows {@link #ITERATIONS} distinct presences then waits for them to reach the server.
+     *
+     * @param expectEveryPresence
+     *          Whether the transport is expected to send every single presence.
+     */
+    private void measure(String name, DiscordRpcLifecycle transport, boolean expectEveryPresence) throws InterruptedException {
+        send(transport, "warmup", WARMUP);
+        assertThat(discord.awaitFrames(1, isPresence("warmup", WARMUP - 1), TIMEOUT)).isTrue();
+        discord.reset();
+
+        long[] sentAt = new long[ITERATIONS];
+        long start = System.nanoTime();
+
+        for (int i = 0; i < ITERATIONS; ++i) {
+            sentAt[i] = System.nanoTime();
+            transport.show(presence("measure", i));
+        }
+        long sent = System.nanoTime();
+
+        assertThat(discord.awaitFrames(1, isPresence("measure", ITERATIONS - 1), TIMEOUT))
+            .as("The last presence must reach the server")
+            .isTrue();
+        long received = System.nanoTime();
+
+        LatencyRecorder latencies = new LatencyRecorder(ITERATIONS);
+        List<RecordedFrame> activities = discord.activities();
+
+        for (RecordedFrame activity : activities) {
+            Optional<Integer> index = activity.field("details").filter(details -> details.startsWith("measure #"))
+                                              .map(details -> Integer.valueOf(details.substring("measure #".length())));
+            index.ifPresent(i -> latencies.record(sentAt[i], activity.receivedAt()));
+        }
+        if (expectEveryPresence) {
+            assertThat(latencies.count()).isEqualTo(ITERATIONS);
+        }
+        System.out.println(latencies.summary(name));
+        System.out.println(String.format("%s: %d presences shown in %dms (%.0f/s), %d sent on the wire, last received after %dms",
+                name, ITERATIONS, (sent - start) / 1_000_000, ITERATIONS * 1e9 / (sent - start),
+                latencies.count(), (received - start) / 1_000_000));
+    }
+
+    private static void send(DiscordRpcLifecycle transport, String prefix, int count) {
+        for (int i = 0; i < count; ++i) {
+            transport.show(presence(prefix, i));
+        }
+    }
+
+    private static RichPresence presence(String prefix, int index) {
+        return new ImmutableRichPresence().withDetails(prefix + " #" + index).withState("Working on benchmarks");
+    }
+
+    private static Predicate<RecordedFrame> isPresence(String prefix, int index) {
+        String details = prefix + " #" + index;
+        return frame -> frame.isActivity() && frame.field("details").filter(details::equals).isPresent();
+    }
+
+}
@@ -0,0 +1,216 @@
+package fr.kazejiyu.discord.rpc.integration.core;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.assertj.core.api.WithAssertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+
+import fr.kazejiyu.discord.rpc.integration.tests.mock.MockitoExtension;
+
+/**
+ * Unit test the {@link RateLimitedDiscordRpc} class.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("A RateLimitedDiscordRpc")
+public class RateLimitedDiscordRpcTest implements WithAssertions {
+
+    private RateLimitedDiscordRpc limited;
+
+    private AtomicLong now;
+
+    @Mock
+    private DiscordRpcLifecycle discord;
+
+    @Mock
+    private ScheduledExecutorService scheduler;
+
+    @Mock
+    private ScheduledFuture<?> flush;
+
+    @BeforeEach
+    void instantiateObjectUnderTest() {
+        now = new AtomicLong();
+        limited = new RateLimitedDiscordRpc(discord, scheduler, new TokenBucket(2, Duration.ofSeconds(10), now::get));
+
+        doReturn(flush).when(scheduler).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+    }
+
+    @Nested
+    @DisplayName("during instanciation")
+    class DuringInstanciation {
+
+        @Test @DisplayName("throws if the given Discord proxy is null")
+        void throws_if_the_given_Discord_proxy_is_null() {
+            assertThatNullPointerException().isThrownBy(() ->
+                new RateLimitedDiscordRpc(null, scheduler)
+            );
+        }
+
+        @Test @DisplayName("throws if the given scheduler is null")
+        void throws_if_the_given_scheduler_is_null() {
+            assertThatNullPointerException().isThrownBy(() ->
+                new RateLimitedDiscordRpc(discord, null)
+            );
+        }
+
+        @Test @DisplayName("throws if the given bucket is null")
+        void throws_if_the_given_bucket_is_null() {
+            assertThatNullPointerException().isThrownBy(() ->
+                new RateLimitedDiscordRpc(discord, scheduler, null)
+            );
+        }
+    }
+
+    @Test @DisplayName("sends presences right away while under the limit")
+    void sends_presences_right_away_while_under_the_limit() {
+        RichPresence presence = mock(RichPresence.class);
+
+        limited.show(presence);
+        limited.showNothing();
+
+        verify(discord).show(presence);
+        verify(discord).showNothing();
+        verifyZeroInteractions(scheduler);
+        assertThat(limited.deferredUpdates()).isZero();
+    }
+
+    @Test @DisplayName("forwards the state of the connection")
+    void forwards_the_state_of_the_connection() {
+        when(discord.connectionState()).thenReturn(ConnectionState.BACKING_OFF);
+
+        assertThat(limited.connectionState()).isEqualTo(ConnectionState.BACKING_OFF);
+    }
+
+    @Test @DisplayName("forwards the polling of events")
+    void forwards_the_polling_of_events() {
+        limited.pollEvents();
+
+        verify(discord).pollEvents();
+    }
+
+    @Nested
+    @DisplayName("when the limit is reached")
+    class WhenTheLimitIsReached {
+
+        @BeforeEach
+        void reachLimit() {
+            limited.showNothing();
+            limited.showNothing();
+        }
+
+        @Test @DisplayName("holds the presence back")
+        void holds_the_presence_back() {
+            RichPresence presence = mock(RichPresence.class);
+            limited.show(presence);
+
+            verify(discord, never()).show(presence);
+            assertThat(limited.deferredUpdates()).isEqualTo(1);
+        }
+
+        @Test @DisplayName("schedules a flush for when the next token is available")
+        void schedules_a_flush_for_when_the_next_token_is_available() {
+            now.addAndGet(Duration.ofSeconds(1).toNanos());
+            limited.show(mock(RichPresence.class));
+
+            verify(scheduler).schedule(any(Runnable.class), eq(Duration.ofSeconds(4).toNanos()), eq(TimeUnit.NANOSECONDS));
+        }
+
+        @Test @DisplayName("sends only the most recent presence once tokens are refilled")
+        void sends_only_the_most_recent_presence_once_tokens_are_refilled() {
+            RichPresence first = mock(RichPresence.class);
+            RichPresence second = mock(RichPresence.class);
+            RichPresence last = mock(RichPresence.class);
+
+            limited.show(first);
+            limited.show(second);
+            limited.show(last);
+
+            now.addAndGet(Duration.ofSeconds(5).toNanos());
+            scheduledFlush().run();
+
+            verify(discord, never()).show(first);
+            verify(discord, never()).show(second);
+            verify(discord).show(last);
+            verify(scheduler, times(1)).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+            assertThat(limited.deferredUpdates()).isEqualTo(3);
+        }
+
+        @Test @DisplayName("waits again if the flush happens too early")
+        void waits_again_if_the_flush_happens_too_early() {
+            RichPresence presence = mock(RichPresence.class);
+            limited.show(presence);
+
+            now.addAndGet(Duration.ofSeconds(2).toNanos());
+            scheduledFlush().run();
+
+            verify(discord, never()).show(presence);
+            verify(scheduler, times(2)).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+        }
+
+        @Test @DisplayName("discards the held back presence on shutdown")
+        void discards_the_held_back_presence_on_shutdown() {
+            RichPresence presence = mock(RichPresence.class);
+            limited.show(presence);
+            limited.shutdown();
+
+            now.addAndGet(Duration.ofSeconds(5).toNanos());
+            scheduledFlush().run();
+
+            verify(flush).cancel(false);
+            verify(discord).shutdown();
+            verify(discord, never()).show(presence);
+        }
+
+        @Test @DisplayName("discards the held back presence on initialization")
+        void discards_the_held_back_presence_on_initialization() {
+            RichPresence presence = mock(RichPresence.class);
+            limited.show(presence);
+            limited.initialize("id");
+
+            now.addAndGet(Duration.ofSeconds(5).toNanos());
+            scheduledFlush().run();
+
+            verify(discord).initialize("id");
+            verify(discord, never()).show(presence);
+        }
+
+        @Test @DisplayName("sends presences right away once tokens are refilled")
+        void sends_presences_right_away_once_tokens_are_refilled() {
+            now.addAndGet(Duration.ofSeconds(5).toNanos());
+
+            RichPresence presence = mock(RichPresence.class);
+            limited.show(presence);
+
+            verify(discord).show(presence);
+            verifyZeroInteractions(scheduler);
+        }
+
+        private Runnable scheduledFlush() {
+            ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+            verify(scheduler).schedule(task.capture(), anyLong(), any(TimeUnit.class));
+            return task.getValue();
+        }
+    }
+
+}
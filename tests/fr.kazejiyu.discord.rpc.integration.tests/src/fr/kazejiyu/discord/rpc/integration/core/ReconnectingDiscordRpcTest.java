@@ -0,0 +1,349 @@
+package fr.kazejiyu.discord.rpc.integration.core;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.assertj.core.api.WithAssertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+
+import fr.kazejiyu.discord.rpc.integration.tests.mock.MockitoExtension;
+
+/**
+ * Unit test the {@link ReconnectingDiscordRpc} class.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("A ReconnectingDiscordRpc")
+public class ReconnectingDiscordRpcTest implements WithAssertions {
+
+    private ReconnectingDiscordRpc reconnecting;
+
+    private AtomicLong now;
+
+    @Mock
+    private DiscordRpcLifecycle discord;
+
+    @Mock
+    private ScheduledExecutorService scheduler;
+
+    @Mock
+    private ScheduledFuture<?> nextTask;
+
+    @BeforeEach
+    void instantiateObjectUnderTest() {
+        now = new AtomicLong();
+        ExponentialBackoff backoff = new ExponentialBackoff(Duration.ofSeconds(1), Duration.ofSeconds(8), () -> 0);
+        reconnecting = new ReconnectingDiscordRpc(discord, scheduler, backoff, now::get);
+
+        doReturn(nextTask).when(scheduler).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+        when(discord.connectionState()).thenReturn(ConnectionState.CONNECTING);
+    }
+
+    @Nested
+    @DisplayName("during instanciation")
+    class DuringInstanciation {
+
+        @Test @DisplayName("throws if the given Discord proxy is null")
+        void throws_if_the_given_Discord_proxy_is_null() {
+            assertThatNullPointerException().isThrownBy(() ->
+                new ReconnectingDiscordRpc(null, scheduler)
+            );
+        }
+
+        @Test @DisplayName("throws if the given scheduler is null")
+        void throws_if_the_given_scheduler_is_null() {
+            assertThatNullPointerException().isThrownBy(() ->
+                new ReconnectingDiscordRpc(discord, null)
+            );
+        }
+
+        @Test @DisplayName("throws if the given backoff policy is null")
+        void throws_if_the_given_backoff_policy_is_null() {
+            assertThatNullPointerException().isThrownBy(() ->
+                new ReconnectingDiscordRpc(discord, scheduler, null)
+            );
+        }
+
+        @Test @DisplayName("is disconnected")
+        void is_disconnected() {
+            assertThat(reconnecting.connectionState()).isEqualTo(ConnectionState.DISCONNECTED);
+            assertThat(reconnecting.isConnected()).isFalse();
+        }
+    }
+
+    @Nested
+    @DisplayName("when initialized")
+    class WhenInitialized {
+
+        @Test @DisplayName("throws if the given application ID is null")
+        void throws_if_the_given_application_id_is_null() {
+            assertThatNullPointerException().isThrownBy(() ->
+                reconnecting.initialize(null)
+            );
+        }
+
+        @Test @DisplayName("connects the wrapped instance")
+        void connects_the_wrapped_instance() {
+            reconnecting.initialize("42");
+
+            verify(discord).initialize("42");
+        }
+
+        @Test @DisplayName("waits for Discord to acknowledge the connection")
+        void waits_for_Discord_to_acknowledge_the_connection() {
+            reconnecting.initialize("42");
+
+            assertThat(reconnecting.connectionState()).isEqualTo(ConnectionState.CONNECTING);
+            assertThat(reconnecting.discordApplicationId()).isEmpty();
+            verify(scheduler).schedule(any(Runnable.class), eq(TimeUnit.MILLISECONDS.toNanos(50)), eq(TimeUnit.NANOSECONDS));
+        }
+
+        @Test @DisplayName("checks the pending connection less and less often")
+        void checks_the_pending_connection_less_and_less_often() {
+            reconnecting.initialize("42");
+            runLastScheduledTask();
+            runLastScheduledTask();
+
+            assertThat(lastScheduledDelay()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(200));
+        }
+
+        @Test @DisplayName("is ready once Discord acknowledged the connection")
+        void is_ready_once_Discord_acknowledged_the_connection() {
+            reconnecting.initialize("42");
+            when(discord.connectionState()).thenReturn(ConnectionState.READY);
+            runLastScheduledTask();
+
+            assertThat(reconnecting.connectionState()).isEqualTo(ConnectionState.READY);
+            assertThat(reconnecting.isConnected()).isTrue();
+            assertThat(reconnecting.discordApplicationId()).contains("42");
+            verify(discord, atLeastOnce()).pollEvents();
+        }
+
+        @Test @DisplayName("checks a ready connection from time to time")
+        void checks_a_ready_connection_from_time_to_time() {
+            when(discord.connectionState()).thenReturn(ConnectionState.READY);
+            reconnecting.initialize("42");
+
+            assertThat(lastScheduledDelay()).isEqualTo(ReconnectingDiscordRpc.HEALTH_CHECK_PERIOD.toNanos());
+        }
+
+        @Test @DisplayName("backs off when the connection fails")
+        void backs_off_when_the_connection_fails() {
+            when(discord.connectionState()).thenReturn(ConnectionState.DISCONNECTED);
+            reconnecting.initialize("42");
+
+            assertThat(reconnecting.connectionState()).isEqualTo(ConnectionState.BACKING_OFF);
+            assertThat(lastScheduledDelay()).isEqualTo(Duration.ofMillis(500).toNanos());
+        }
+
+        @Test @DisplayName("backs off when Discord does not acknowledge the connection in time")
+        void backs_off_when_Discord_does_not_acknowledge_the_connection_in_time() {
+            reconnecting.initialize("42");
+            now.addAndGet(ReconnectingDiscordRpc.HANDSHAKE_TIMEOUT.toNanos());
+            runLastScheduledTask();
+
+            assertThat(reconnecting.connectionState()).isEqualTo(ConnectionState.BACKING_OFF);
+        }
+    }
+
+    @Nested
+    @DisplayName("when backing off")
+    class WhenBackingOff {
+
+        @BeforeEach
+        void failToConnect() {
+            when(discord.connectionState()).thenReturn(ConnectionState.DISCONNECTED);
+            reconnecting.initialize("42");
+        }
+
+        @Test @DisplayName("tries to connect again")
+        void tries_to_connect_again() {
+            runLastScheduledTask();
+
+            InOrder inOrder = inOrder(discord);
+            inOrder.verify(discord).initialize("42");
+            inOrder.verify(discord).shutdown();
+            inOrder.verify(discord).initialize("42");
+            assertThat(reconnecting.reconnectionAttempts()).isEqualTo(1);
+        }
+
+        @Test @DisplayName("waits longer after each failure")
+        void waits_longer_after_each_failure() {
+            runLastScheduledTask();
+            assertThat(lastScheduledDelay()).isEqualTo(Duration.ofSeconds(1).toNanos());
+
+            runLastScheduledTask();
+            assertThat(lastScheduledDelay()).isEqualTo(Duration.ofSeconds(2).toNanos());
+        }
+
+        @Test @DisplayName("keeps only the latest presence")
+        void keeps_only_the_latest_presence() {
+            RichPresence first = mock(RichPresence.class);
+            RichPresence second = mock(RichPresence.class);
+            reconnecting.show(first);
+            reconnecting.show(second);
+
+            verify(discord, never()).show(any());
+
+            when(discord.connectionState()).thenReturn(ConnectionState.READY);
+            runLastScheduledTask();
+
+            verify(discord, never()).show(first);
+            verify(discord).show(second);
+        }
+
+        @Test @DisplayName("sends the latest presence once ready, even if it shows nothing")
+        void sends_the_latest_presence_once_ready_even_if_it_shows_nothing() {
+            reconnecting.show(mock(RichPresence.class));
+            reconnecting.showNothing();
+
+            when(discord.connectionState()).thenReturn(ConnectionState.READY);
+            runLastScheduledTask();
+
+            verify(discord, never()).show(any());
+            verify(discord).showNothing();
+        }
+
+        @Test @DisplayName("forgets everything once re-initialized")
+        void forgets_everything_once_re_initialized() {
+            reconnecting.show(mock(RichPresence.class));
+            when(discord.connectionState()).thenReturn(ConnectionState.READY);
+
+            reconnecting.initialize("24");
+
+            verify(nextTask).cancel(false);
+            verify(discord, never()).show(any());
+            assertThat(reconnecting.discordApplicationId()).contains("24");
+        }
+    }
+
+    @Nested
+    @DisplayName("when ready")
+    class WhenReady {
+
+        @BeforeEach
+        void connect() {
+            when(discord.connectionState()).thenReturn(ConnectionState.READY);
+            reconnecting.initialize("42");
+        }
+
+        @Test @DisplayName("sends presences right away")
+        void sends_presences_right_away() {
+            RichPresence presence = mock(RichPresence.class);
+
+            reconnecting.show(presence);
+            reconnecting.showNothing();
+
+            verify(discord).show(presence);
+            verify(discord).showNothing();
+        }
+
+        @Test @DisplayName("notices when the connection is lost")
+        void notices_when_the_connection_is_lost() {
+            when(discord.connectionState()).thenReturn(ConnectionState.DISCONNECTED);
+            runLastScheduledTask();
+
+            assertThat(reconnecting.connectionState()).isEqualTo(ConnectionState.BACKING_OFF);
+        }
+
+        @Test @DisplayName("waits when the wrapped instance reconnects on its own")
+        void waits_when_the_wrapped_instance_reconnects_on_its_own() {
+            when(discord.connectionState()).thenReturn(ConnectionState.CONNECTING);
+            runLastScheduledTask();
+
+            assertThat(reconnecting.connectionState()).isEqualTo(ConnectionState.CONNECTING);
+            assertThat(lastScheduledDelay()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+        }
+
+        @Test @DisplayName("shows the latest presence again once reconnected")
+        void shows_the_latest_presence_again_once_reconnected() {
+            RichPresence presence = mock(RichPresence.class);
+            reconnecting.show(presence);
+
+            when(discord.connectionState()).thenReturn(ConnectionState.DISCONNECTED);
+            runLastScheduledTask();
+            when(discord.connectionState()).thenReturn(ConnectionState.READY);
+            runLastScheduledTask();
+
+            verify(discord, times(2)).show(presence);
+        }
+
+        @Test @DisplayName("shows a presence again when the connection is lost while sending it")
+        void shows_a_presence_again_when_the_connection_is_lost_while_sending_it() {
+            RichPresence presence = mock(RichPresence.class);
+            when(discord.connectionState()).thenReturn(ConnectionState.DISCONNECTED);
+
+            reconnecting.show(presence);
+            assertThat(reconnecting.connectionState()).isEqualTo(ConnectionState.BACKING_OFF);
+
+            when(discord.connectionState()).thenReturn(ConnectionState.READY);
+            runLastScheduledTask();
+
+            verify(discord, times(2)).show(presence);
+        }
+    }
+
+    @Nested
+    @DisplayName("when shut down")
+    class WhenShutDown {
+
+        @BeforeEach
+        void shutdown() {
+            reconnecting.initialize("42");
+            reconnecting.shutdown();
+        }
+
+        @Test @DisplayName("shuts the wrapped instance down")
+        void shuts_the_wrapped_instance_down() {
+            verify(discord).shutdown();
+            assertThat(reconnecting.connectionState()).isEqualTo(ConnectionState.DISCONNECTED);
+        }
+
+        @Test @DisplayName("stops supervising the connection")
+        void stops_supervising_the_connection() {
+            verify(nextTask).cancel(false);
+        }
+
+        @Test @DisplayName("ignores the checks that were already running")
+        void ignores_the_checks_that_were_already_running() {
+            when(discord.connectionState()).thenReturn(ConnectionState.READY);
+            runLastScheduledTask();
+
+            assertThat(reconnecting.connectionState()).isEqualTo(ConnectionState.DISCONNECTED);
+        }
+    }
+
+    private void runLastScheduledTask() {
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler, atLeastOnce()).schedule(task.capture(), anyLong(), any(TimeUnit.class));
+        task.getValue().run();
+    }
+
+    private long lastScheduledDelay() {
+        ArgumentCaptor<Long> delay = ArgumentCaptor.forClass(Long.class);
+        verify(scheduler, atLeastOnce()).schedule(any(Runnable.class), delay.capture(), eq(TimeUnit.NANOSECONDS));
+        return delay.getValue();
+    }
+
+}
@@ -80,4 +80,19 @@ public class SelectionTimesTest {
         assertThat(timesAtNewSelection.onSelection()).isBetween(beforeNewSelection, afterNewSelection);
     }
     
+    
+    @Test @DisplayName("postpones all the timestamps by the given duration")
+    void postpones_all_the_timestamps_by_the_given_duration() {
+        long onStartup = times.onStartup();
+        long onNewProject = times.onNewProject();
+        long onSelection = times.onSelection();
+        
+        times.postponeBy(600);
+        
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(times.onStartup()).isEqualTo(onStartup + 600);
+        softly.assertThat(times.onNewProject()).isEqualTo(onNewProject + 600);
+        softly.assertThat(times.onSelection()).isEqualTo(onSelection + 600);
+        softly.assertAll();
+    }
 }
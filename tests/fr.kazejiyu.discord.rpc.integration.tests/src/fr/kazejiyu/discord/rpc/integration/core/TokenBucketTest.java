@@ -0,0 +1,115 @@
+package fr.kazejiyu.discord.rpc.integration.core;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.assertj.core.api.WithAssertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test the {@link TokenBucket} class.
+ */
+@DisplayName("A TokenBucket")
+public class TokenBucketTest implements WithAssertions {
+
+    private AtomicLong now;
+
+    private TokenBucket bucket;
+
+    @BeforeEach
+    void instantiateObjectUnderTest() {
+        now = new AtomicLong(1_000);
+        bucket = new TokenBucket(5, Duration.ofSeconds(20), now::get);
+    }
+
+    @Nested
+    @DisplayName("during instanciation")
+    class DuringInstanciation {
+
+        @Test @DisplayName("throws if the capacity is not strictly positive")
+        void throws_if_the_capacity_is_not_strictly_positive() {
+            assertThatIllegalArgumentException().isThrownBy(() ->
+                new TokenBucket(0, Duration.ofSeconds(20), now::get)
+            );
+        }
+
+        @Test @DisplayName("throws if the period is not strictly positive")
+        void throws_if_the_period_is_not_strictly_positive() {
+            assertThatIllegalArgumentException().isThrownBy(() ->
+                new TokenBucket(5, Duration.ZERO, now::get)
+            );
+        }
+
+        @Test @DisplayName("throws if the period is null")
+        void throws_if_the_period_is_null() {
+            assertThatNullPointerException().isThrownBy(() ->
+                new TokenBucket(5, null, now::get)
+            );
+        }
+
+        @Test @DisplayName("throws if the clock is null")
+        void throws_if_the_clock_is_null() {
+            assertThatNullPointerException().isThrownBy(() ->
+                new TokenBucket(5, Duration.ofSeconds(20), null)
+            );
+        }
+    }
+
+    @Test @DisplayName("starts full")
+    void starts_full() {
+        assertThat(bucket.availableTokens()).isEqualTo(5);
+        assertThat(bucket.timeUntilNextToken()).isEqualTo(Duration.ZERO);
+    }
+
+    @Test @DisplayName("refuses to consume once empty")
+    void refuses_to_consume_once_empty() {
+        for (int i = 0; i < 5; ++i) {
+            assertThat(bucket.tryConsume()).isTrue();
+        }
+        assertThat(bucket.tryConsume()).isFalse();
+        assertThat(bucket.availableTokens()).isZero();
+    }
+
+    @Test @DisplayName("tells how long to wait for the next token")
+    void tells_how_long_to_wait_for_the_next_token() {
+        emptyBucket();
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+
+        assertThat(bucket.timeUntilNextToken()).isEqualTo(Duration.ofSeconds(3));
+    }
+
+    @Test @DisplayName("refills one token per period divided by capacity")
+    void refills_one_token_per_period_divided_by_capacity() {
+        emptyBucket();
+        now.addAndGet(Duration.ofSeconds(4).toNanos());
+
+        assertThat(bucket.tryConsume()).isTrue();
+        assertThat(bucket.tryConsume()).isFalse();
+    }
+
+    @Test @DisplayName("never holds more tokens than its capacity")
+    void never_holds_more_tokens_than_its_capacity() {
+        emptyBucket();
+        now.addAndGet(Duration.ofMinutes(10).toNanos());
+
+        assertThat(bucket.availableTokens()).isEqualTo(5);
+    }
+
+    @Test @DisplayName("starts refilling from the first consumption of a full bucket")
+    void starts_refilling_from_the_first_consumption_of_a_full_bucket() {
+        now.addAndGet(Duration.ofSeconds(3).toNanos());
+        emptyBucket();
+
+        assertThat(bucket.timeUntilNextToken()).isEqualTo(Duration.ofSeconds(4));
+    }
+
+    private void emptyBucket() {
+        while (bucket.tryConsume()) {
+            // consume all the tokens
+        }
+    }
+
+}
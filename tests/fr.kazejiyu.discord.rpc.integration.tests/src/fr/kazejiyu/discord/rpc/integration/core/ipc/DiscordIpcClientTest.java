@@ -0,0 +1,388 @@
+package fr.kazejiyu.discord.rpc.integration.core.ipc;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.assertj.core.api.WithAssertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import fr.kazejiyu.discord.rpc.integration.core.ConnectionState;
+import fr.kazejiyu.discord.rpc.integration.core.DiscordRpcProxy;
+import fr.kazejiyu.discord.rpc.integration.core.ImmutableRichPresence;
+import fr.kazejiyu.discord.rpc.integration.core.RichPresence;
+import fr.kazejiyu.discord.rpc.integration.languages.Language;
+import fr.kazejiyu.discord.rpc.integration.languages.LanguageDescriptor;
+
+/**
+ * Unit test the {@link DiscordIpcClient} class.
+ */
+@DisplayName("A DiscordIpcClient")
+public class DiscordIpcClientTest implements WithAssertions {
+
+    private FakeDiscord discord;
+
+    private List<String> errors;
+
+    private DiscordIpcClient client;
+
+    @BeforeEach
+    void instantiateObjectUnderTest() {
+        discord = new FakeDiscord();
+        errors = new ArrayList<>();
+        client = new DiscordIpcClient(discord, errors::add);
+    }
+
+    @Nested
+    @DisplayName("during instanciation")
+    class DuringInstanciation {
+
+        @Test @DisplayName("throws if the given connector is null")
+        void throws_if_the_given_connector_is_null() {
+            assertThatNullPointerException().isThrownBy(() ->
+                new DiscordIpcClient(null)
+            );
+        }
+
+        @Test @DisplayName("is not connected")
+        void is_not_connected() {
+            assertThat(client.isConnected()).isFalse();
+            assertThat(client.isReady()).isFalse();
+            assertThat(client.discordApplicationId()).isEmpty();
+            assertThat(client.connectionState()).isEqualTo(ConnectionState.DISCONNECTED);
+        }
+    }
+
+    @Nested
+    @DisplayName("when initialized")
+    class WhenInitialized {
+
+        @Test @DisplayName("sends a handshake")
+        void sends_a_handshake() throws IOException {
+            client.initialize("4242");
+
+            IpcFrame handshake = discord.received().get(0);
+
+            assertThat(handshake.opcode()).isEqualTo(Opcode.HANDSHAKE);
+            assertThat(handshake.payload()).isEqualTo("{\"v\":1,\"client_id\":\"4242\"}");
+        }
+
+        @Test @DisplayName("is not connected until Discord sent the READY event")
+        void is_not_connected_until_Discord_sent_the_READY_event() {
+            client.initialize("4242");
+
+            assertThat(client.isConnected()).isFalse();
+            assertThat(client.discordApplicationId()).isEmpty();
+            assertThat(client.connectionState()).isEqualTo(ConnectionState.CONNECTING);
+        }
+
+        @Test @DisplayName("is connected to the application once Discord is ready")
+        void is_connected_to_the_application_once_Discord_is_ready() {
+            client.initialize("4242");
+            ready();
+
+            assertThat(client.isConnected()).isTrue();
+            assertThat(client.discordApplicationId()).contains("4242");
+        }
+
+        @Test @DisplayName("is ready once Discord sent the READY event")
+        void is_ready_once_Discord_sent_the_READY_event() {
+            client.initialize("4242");
+            assertThat(client.isReady()).isFalse();
+
+            discord.send(Opcode.FRAME, "{\"cmd\":\"DISPATCH\",\"evt\":\"READY\",\"data\":{\"v\":1}}");
+            client.pollEvents();
+
+            assertThat(client.isReady()).isTrue();
+            assertThat(client.connectionState()).isEqualTo(ConnectionState.READY);
+        }
+
+        @Test @DisplayName("is not connected when Discord is not running")
+        void is_not_connected_when_Discord_is_not_running() {
+            client = new DiscordIpcClient(() -> { throw new IOException("no socket"); }, errors::add);
+
+            client.initialize("4242");
+
+            assertThat(client.isConnected()).isFalse();
+            assertThat(client.discordApplicationId()).isEmpty();
+            assertThat(client.connectionState()).isEqualTo(ConnectionState.DISCONNECTED);
+        }
+
+        @Test @DisplayName("closes the previous connection")
+        void closes_the_previous_connection() {
+            client.initialize("4242");
+            FakeChannel first = discord.channel;
+
+            client.initialize("2424");
+            ready();
+
+            assertThat(first.isOpen()).isFalse();
+            assertThat(client.discordApplicationId()).contains("2424");
+        }
+
+        @Test @DisplayName("throws if the given application ID is null")
+        void throws_if_the_given_application_id_is_null() {
+            assertThatNullPointerException().isThrownBy(() ->
+                client.initialize(null)
+            );
+        }
+    }
+
+    @Nested
+    @DisplayName("when showing a presence")
+    class WhenShowingAPresence {
+
+        @BeforeEach
+        void connect() {
+            client.initialize("4242");
+            ready();
+        }
+
+        @Test @DisplayName("sends a SET_ACTIVITY command")
+        void sends_a_SET_ACTIVITY_command() throws IOException {
+            RichPresence presence = mock(RichPresence.class);
+            when(presence.getState()).thenReturn(Optional.of("Working on \"project\""));
+            when(presence.getDetails()).thenReturn(Optional.of("Editing Foo.java"));
+            when(presence.getStartTimestamp()).thenReturn(Optional.of(1234L));
+            when(presence.getLanguageDescriptor()).thenReturn(Optional.of(LanguageDescriptor.of(Language.JAVA)));
+            when(presence.getLargeImageText()).thenReturn(Optional.of("Java"));
+
+            client.show(presence);
+
+            IpcFrame frame = discord.received().get(1);
+            String payload = frame.payload();
+
+            assertThat(frame.opcode()).isEqualTo(Opcode.FRAME);
+            assertThat(Json.stringField(payload, "cmd")).contains("SET_ACTIVITY");
+            assertThat(Json.stringField(payload, "state")).contains("Working on \"project\"");
+            assertThat(Json.stringField(payload, "details")).contains("Editing Foo.java");
+            assertThat(Json.stringField(payload, "large_image")).contains(Language.JAVA.getKey());
+            assertThat(Json.stringField(payload, "large_text")).contains("Java");
+            assertThat(Json.stringField(payload, "small_image")).contains(DiscordRpcProxy.ECLIPSE_LOGO_KEY);
+            assertThat(Json.stringField(payload, "small_text")).contains(DiscordRpcProxy.ECLIPSE_LOGO_TEXT);
+            assertThat(payload).contains("\"timestamps\":{\"start\":1234}");
+        }
+
+        @Test @DisplayName("uses a new nonce for each command")
+        void uses_a_new_nonce_for_each_command() throws IOException {
+            client.show(new ImmutableRichPresence());
+            client.show(new ImmutableRichPresence());
+
+            List<IpcFrame> frames = discord.received();
+
+            assertThat(Json.stringField(frames.get(1).payload(), "nonce"))
+                .isNotEqualTo(Json.stringField(frames.get(2).payload(), "nonce"));
+        }
+
+        @Test @DisplayName("only sends the assets of an empty presence")
+        void only_sends_the_assets_of_an_empty_presence() throws IOException {
+            client.showNothing();
+
+            String payload = discord.received().get(1).payload();
+
+            assertThat(payload).doesNotContain("\"state\"", "\"details\"", "\"timestamps\"", "\"large_image\"");
+        }
+
+        @Test @DisplayName("sends nothing when disconnected")
+        void sends_nothing_when_disconnected() throws IOException {
+            client.shutdown();
+            client.show(new ImmutableRichPresence());
+
+            assertThat(discord.received()).hasSize(1);
+        }
+
+        @Test @DisplayName("sends nothing until Discord is ready")
+        void sends_nothing_until_Discord_is_ready() throws IOException {
+            client.initialize("2424");
+            client.show(new ImmutableRichPresence());
+
+            assertThat(discord.received()).hasSize(1);
+        }
+
+        @Test @DisplayName("disconnects when the write fails")
+        void disconnects_when_the_write_fails() {
+            discord.channel.failWrites = true;
+
+            client.show(new ImmutableRichPresence());
+
+            assertThat(client.isConnected()).isFalse();
+            assertThat(errors).hasSize(1);
+        }
+
+        @Test @DisplayName("throws if the given presence is null")
+        void throws_if_the_given_presence_is_null() {
+            assertThatNullPointerException().isThrownBy(() ->
+                client.show(null)
+            );
+        }
+    }
+
+    @Nested
+    @DisplayName("when polling events")
+    class WhenPollingEvents {
+
+        @BeforeEach
+        void connect() {
+            client.initialize("4242");
+            ready();
+        }
+
+        @Test @DisplayName("answers pings")
+        void answers_pings() throws IOException {
+            discord.send(Opcode.PING, "{\"n\":1}");
+
+            client.pollEvents();
+
+            IpcFrame pong = discord.received().get(1);
+            assertThat(pong.opcode()).isEqualTo(Opcode.PONG);
+            assertThat(pong.payload()).isEqualTo("{\"n\":1}");
+        }
+
+        @Test @DisplayName("disconnects when Discord closes the connection")
+        void disconnects_when_Discord_closes_the_connection() {
+            discord.send(Opcode.CLOSE, "{\"code\":4000,\"message\":\"Invalid Client ID\"}");
+
+            client.pollEvents();
+
+            assertThat(client.isConnected()).isFalse();
+            assertThat(discord.channel.isOpen()).isFalse();
+            assertThat(errors).containsExactly("Discord closed the connection: Invalid Client ID");
+        }
+
+        @Test @DisplayName("disconnects when the stream ends")
+        void disconnects_when_the_stream_ends() {
+            discord.channel.endOfStream = true;
+
+            client.pollEvents();
+
+            assertThat(client.isConnected()).isFalse();
+        }
+
+        @Test @DisplayName("reports the errors sent by Discord")
+        void reports_the_errors_sent_by_Discord() {
+            discord.send(Opcode.FRAME, "{\"cmd\":\"SET_ACTIVITY\",\"evt\":\"ERROR\",\"data\":{\"code\":4000,\"message\":\"Bad activity\"}}");
+
+            client.pollEvents();
+
+            assertThat(client.isConnected()).isTrue();
+            assertThat(errors).containsExactly("Bad activity");
+        }
+
+        @Test @DisplayName("disconnects on malformed frames")
+        void disconnects_on_malformed_frames() {
+            discord.channel.inbound.putInt(42).putInt(0);
+
+            client.pollEvents();
+
+            assertThat(client.isConnected()).isFalse();
+        }
+
+        @Test @DisplayName("does nothing when disconnected")
+        void does_nothing_when_disconnected() {
+            client.shutdown();
+
+            client.pollEvents();
+
+            assertThat(errors).isEmpty();
+        }
+    }
+
+    /** Lets Discord acknowledge the handshake. */
+    private void ready() {
+        discord.send(Opcode.FRAME, "{\"cmd\":\"DISPATCH\",\"evt\":\"READY\",\"data\":{\"v\":1}}");
+        client.pollEvents();
+    }
+
+    /** Plays the role of the Discord client. */
+    private static final class FakeDiscord implements IpcConnector {
+
+        private final IpcCodec codec = new IpcCodec();
+
+        private FakeChannel channel;
+
+        @Override
+        public ByteChannel connect() {
+            channel = new FakeChannel();
+            return channel;
+        }
+
+        void send(Opcode opcode, String payload) {
+            channel.inbound.put(codec.encode(opcode, payload));
+        }
+
+        List<IpcFrame> received() throws IOException {
+            IpcCodec decoder = new IpcCodec();
+            ByteBuffer outbound = channel.outbound.duplicate();
+            outbound.flip();
+            decoder.feed(outbound);
+
+            List<IpcFrame> frames = new ArrayList<>();
+
+            for (Optional<IpcFrame> frame = decoder.nextFrame(); frame.isPresent(); frame = decoder.nextFrame()) {
+                frames.add(frame.get());
+            }
+            return frames;
+        }
+    }
+
+    /** An in-memory, non-blocking channel. */
+    private static final class FakeChannel implements ByteChannel {
+
+        final ByteBuffer inbound = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+
+        final ByteBuffer outbound = ByteBuffer.allocate(64 * 1024);
+
+        boolean endOfStream;
+
+        boolean failWrites;
+
+        private boolean isOpen = true;
+
+        @Override
+        public int read(ByteBuffer dst) {
+            inbound.flip();
+            int read = Math.min(inbound.remaining(), dst.remaining());
+
+            for (int i = 0; i < read; ++i) {
+                dst.put(inbound.get());
+            }
+            inbound.compact();
+
+            if (read == 0 && endOfStream) {
+                return -1;
+            }
+            return read;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            if (failWrites) {
+                throw new IOException("Broken pipe");
+            }
+            int written = src.remaining();
+            outbound.put(src);
+            return written;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return isOpen;
+        }
+
+        @Override
+        public void close() {
+            isOpen = false;
+        }
+    }
+
+}
@@ -0,0 +1,162 @@
+package fr.kazejiyu.discord.rpc.integration.core.ipc;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import org.assertj.core.api.WithAssertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import fr.kazejiyu.discord.rpc.integration.core.ConnectionState;
+import fr.kazejiyu.discord.rpc.integration.core.ImmutableRichPresence;
+import fr.kazejiyu.discord.rpc.integration.tests.support.FakeDiscordServer;
+import fr.kazejiyu.discord.rpc.integration.tests.support.RecordedFrame;
+
+/**
+ * Integration test the {@link DiscordIpcClient} class against a {@link FakeDiscordServer}.
+ */
+@DisplayName("A DiscordIpcClient talking to a Discord client")
+public class DiscordIpcClientWireTest implements WithAssertions {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private Path directory;
+
+    private FakeDiscordServer discord;
+
+    private List<String> errors;
+
+    private DiscordIpcClient client;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        assumeTrue(FakeDiscordServer.isSupported() && UnixDomainSocketConnector.isSupported(),
+                   "Unix domain sockets require Java 16 or later");
+
+        directory = Files.createTempDirectory("discord");
+        discord = FakeDiscordServer.start(directory);
+        errors = new CopyOnWriteArrayList<>();
+        client = new DiscordIpcClient(new UnixDomainSocketConnector(Collections.singletonList(directory)), errors::add);
+    }
+
+    @AfterEach
+    void stopServer() throws IOException {
+        if (client != null) {
+            client.shutdown();
+        }
+        if (discord != null) {
+            discord.close();
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    @Test @DisplayName("completes the handshake")
+    void completes_the_handshake() throws InterruptedException {
+        client.initialize("4242");
+
+        assertThat(eventually(() -> { client.pollEvents(); return client.isReady(); })).isTrue();
+
+        RecordedFrame handshake = discord.frames().get(0);
+        assertThat(handshake.opcode()).isEqualTo(FakeDiscordServer.HANDSHAKE);
+        assertThat(handshake.field("client_id")).contains("4242");
+    }
+
+    @Test @DisplayName("sends the presences on the wire")
+    void sends_the_presences_on_the_wire() throws InterruptedException {
+        connect();
+        client.show(new ImmutableRichPresence().withDetails("Editing Foo.java").withState("Working on bar"));
+
+        assertThat(discord.awaitActivities(1, TIMEOUT)).isTrue();
+
+        RecordedFrame activity = discord.activities().get(0);
+        assertThat(activity.field("details")).contains("Editing Foo.java");
+        assertThat(activity.field("state")).contains("Working on bar");
+        assertThat(activity.field("nonce")).isPresent();
+    }
+
+    @Test @DisplayName("answers pings")
+    void answers_pings() throws InterruptedException {
+        client.initialize("4242");
+        assertThat(discord.awaitConnections(1, TIMEOUT)).isTrue();
+
+        discord.ping("{\"n\":42}");
+
+        assertThat(eventually(() -> {
+            client.pollEvents();
+            return discord.frames().stream().anyMatch(frame -> frame.opcode() == FakeDiscordServer.PONG);
+        })).isTrue();
+    }
+
+    @Test @DisplayName("reports the errors sent by Discord")
+    void reports_the_errors_sent_by_Discord() throws InterruptedException {
+        discord.failNextCommands(1);
+        connect();
+        client.show(new ImmutableRichPresence().withDetails("Editing Foo.java"));
+
+        assertThat(discord.awaitActivities(1, TIMEOUT)).isTrue();
+        assertThat(eventually(() -> { client.pollEvents(); return ! errors.isEmpty(); })).isTrue();
+        assertThat(errors).containsExactly("Injected failure");
+        assertThat(client.isConnected()).isTrue();
+    }
+
+    @Test @DisplayName("disconnects when Discord rejects the handshake")
+    void disconnects_when_Discord_rejects_the_handshake() throws InterruptedException {
+        discord.rejectHandshakes(true);
+        client.initialize("4242");
+
+        assertThat(eventually(() -> { client.pollEvents(); return client.connectionState() == ConnectionState.DISCONNECTED; })).isTrue();
+        assertThat(errors).containsExactly("Discord closed the connection: Invalid Client ID");
+    }
+
+    @Test @DisplayName("notices when Discord goes away")
+    void notices_when_Discord_goes_away() throws InterruptedException {
+        client.initialize("4242");
+        assertThat(discord.awaitConnections(1, TIMEOUT)).isTrue();
+
+        discord.disconnectAll();
+
+        assertThat(eventually(() -> { client.pollEvents(); return client.connectionState() == ConnectionState.DISCONNECTED; })).isTrue();
+    }
+
+    @Test @DisplayName("can reconnect")
+    void can_reconnect() throws InterruptedException {
+        client.initialize("4242");
+        assertThat(discord.awaitConnections(1, TIMEOUT)).isTrue();
+        discord.disconnectAll();
+
+        connect();
+        client.show(new ImmutableRichPresence().withDetails("Editing Foo.java"));
+
+        assertThat(discord.awaitActivities(1, TIMEOUT)).isTrue();
+        assertThat(discord.activities().get(0).connection()).isEqualTo(1);
+    }
+
+    /** Initializes the client then waits for Discord to acknowledge the handshake. */
+    private void connect() throws InterruptedException {
+        client.initialize("4242");
+        assertThat(eventually(() -> { client.pollEvents(); return client.isConnected(); })).isTrue();
+    }
+
+    private static boolean eventually(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+
+        while (System.nanoTime() < deadline) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            Thread.sleep(5);
+        }
+        return condition.getAsBoolean();
+    }
+
+}
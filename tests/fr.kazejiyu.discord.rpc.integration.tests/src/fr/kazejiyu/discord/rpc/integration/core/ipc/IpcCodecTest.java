@@ -0,0 +1,165 @@
+package fr.kazejiyu.discord.rpc.integration.core.ipc;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.assertj.core.api.WithAssertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test the {@link IpcCodec} class.
+ */
+@DisplayName("An IpcCodec")
+public class IpcCodecTest implements WithAssertions {
+
+    private IpcCodec codec;
+
+    @BeforeEach
+    void instantiateObjectUnderTest() {
+        codec = new IpcCodec();
+    }
+
+    @Nested
+    @DisplayName("when encoding")
+    class WhenEncoding {
+
+        @Test @DisplayName("writes a little-endian header followed by the UTF-8 payload")
+        void writes_a_little_endian_header_followed_by_the_UTF8_payload() {
+            ByteBuffer frame = codec.encode(Opcode.FRAME, "{\"é\":1}");
+
+            assertThat(frame.order()).isEqualTo(ByteOrder.LITTLE_ENDIAN);
+            assertThat(frame.getInt()).isEqualTo(1);
+            assertThat(frame.getInt()).isEqualTo(8);
+
+            byte[] payload = new byte[frame.remaining()];
+            frame.get(payload);
+            assertThat(new String(payload, UTF_8)).isEqualTo("{\"é\":1}");
+        }
+
+        @Test @DisplayName("reuses the same buffer")
+        void reuses_the_same_buffer() {
+            ByteBuffer first = codec.encode(Opcode.PING, "{}");
+            ByteBuffer second = codec.encode(Opcode.PONG, "{}");
+
+            assertThat(second).isSameAs(first);
+        }
+
+        @Test @DisplayName("grows its buffer when the payload does not fit")
+        void grows_its_buffer_when_the_payload_does_not_fit() {
+            String payload = repeat('a', 10_000);
+
+            ByteBuffer frame = codec.encode(Opcode.FRAME, payload);
+
+            assertThat(frame.remaining()).isEqualTo(IpcCodec.HEADER_SIZE + 10_000);
+        }
+
+        @Test @DisplayName("throws when the payload does not fit in a frame")
+        void throws_when_the_payload_does_not_fit_in_a_frame() {
+            String payload = repeat('a', IpcCodec.MAX_FRAME_SIZE);
+
+            assertThatIllegalArgumentException().isThrownBy(() ->
+                codec.encode(Opcode.FRAME, payload)
+            );
+        }
+    }
+
+    @Nested
+    @DisplayName("when decoding")
+    class WhenDecoding {
+
+        @Test @DisplayName("decodes what it encoded")
+        void decodes_what_it_encoded() throws IOException {
+            codec.feed(new IpcCodec().encode(Opcode.HANDSHAKE, "{\"v\":1}"));
+
+            IpcFrame frame = codec.nextFrame().get();
+
+            assertThat(frame.opcode()).isEqualTo(Opcode.HANDSHAKE);
+            assertThat(frame.payload()).isEqualTo("{\"v\":1}");
+        }
+
+        @Test @DisplayName("returns nothing while the header is incomplete")
+        void returns_nothing_while_the_header_is_incomplete() throws IOException {
+            ByteBuffer frame = new IpcCodec().encode(Opcode.FRAME, "{}");
+            frame.limit(5);
+            codec.feed(frame);
+
+            assertThat(codec.nextFrame()).isEmpty();
+        }
+
+        @Test @DisplayName("waits for the whole payload")
+        void waits_for_the_whole_payload() throws IOException {
+            ByteBuffer frame = new IpcCodec().encode(Opcode.FRAME, "{\"evt\":\"READY\"}");
+            int end = frame.limit();
+
+            frame.limit(12);
+            codec.feed(frame);
+            assertThat(codec.nextFrame()).isEmpty();
+
+            frame.limit(end);
+            codec.feed(frame);
+            assertThat(codec.nextFrame()).map(IpcFrame::payload).contains("{\"evt\":\"READY\"}");
+        }
+
+        @Test @DisplayName("decodes several frames read at once")
+        void decodes_several_frames_read_at_once() throws IOException {
+            IpcCodec encoder = new IpcCodec();
+            codec.feed(encoder.encode(Opcode.PING, "1"));
+            codec.feed(encoder.encode(Opcode.FRAME, "2"));
+
+            assertThat(codec.nextFrame()).map(IpcFrame::opcode).contains(Opcode.PING);
+            assertThat(codec.nextFrame()).map(IpcFrame::opcode).contains(Opcode.FRAME);
+            assertThat(codec.nextFrame()).isEmpty();
+        }
+
+        @Test @DisplayName("decodes frames larger than its initial buffer")
+        void decodes_frames_larger_than_its_initial_buffer() throws IOException {
+            String payload = repeat('b', 20_000);
+            codec.feed(new IpcCodec().encode(Opcode.FRAME, payload));
+
+            assertThat(codec.nextFrame()).map(IpcFrame::payload).contains(payload);
+        }
+
+        @Test @DisplayName("throws on unknown opcodes")
+        void throws_on_unknown_opcodes() {
+            codec.feed(header(42, 0));
+
+            assertThatIOException().isThrownBy(codec::nextFrame);
+        }
+
+        @Test @DisplayName("throws on invalid lengths")
+        void throws_on_invalid_lengths() {
+            codec.feed(header(1, -1));
+
+            assertThatIOException().isThrownBy(codec::nextFrame);
+        }
+
+        @Test @DisplayName("forgets pending bytes when reset")
+        void forgets_pending_bytes_when_reset() throws IOException {
+            codec.feed(header(1, 10));
+            codec.reset();
+
+            assertThat(codec.nextFrame()).isEmpty();
+        }
+    }
+
+    private static ByteBuffer header(int opcode, int length) {
+        ByteBuffer header = ByteBuffer.allocate(IpcCodec.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(opcode).putInt(length).flip();
+        return header;
+    }
+
+    private static String repeat(char c, int times) {
+        StringBuilder builder = new StringBuilder(times);
+        for (int i = 0; i < times; ++i) {
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+
+}
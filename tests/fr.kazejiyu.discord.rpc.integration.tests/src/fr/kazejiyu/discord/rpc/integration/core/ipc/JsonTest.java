@@ -0,0 +1,88 @@
+package fr.kazejiyu.discord.rpc.integration.core.ipc;
+
+import org.assertj.core.api.WithAssertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test the {@link Json} class.
+ */
+@DisplayName("Json")
+public class JsonTest implements WithAssertions {
+
+    @Nested
+    @DisplayName("when writing a string")
+    class WhenWritingAString {
+
+        @Test @DisplayName("surrounds it with quotes")
+        void surrounds_it_with_quotes() {
+            assertThat(write("Editing file.java")).isEqualTo("\"Editing file.java\"");
+        }
+
+        @Test @DisplayName("escapes quotes and backslashes")
+        void escapes_quotes_and_backslashes() {
+            assertThat(write("a \"b\" \\c")).isEqualTo("\"a \\\"b\\\" \\\\c\"");
+        }
+
+        @Test @DisplayName("escapes control characters")
+        void escapes_control_characters() {
+            assertThat(write("a\nb\tc\u0001")).isEqualTo("\"a\\nb\\tc\\u0001\"");
+        }
+
+        @Test @DisplayName("keeps non-ASCII characters")
+        void keeps_non_ASCII_characters() {
+            assertThat(write("Édition ✓")).isEqualTo("\"Édition ✓\"");
+        }
+
+        private String write(String value) {
+            return Json.appendString(new StringBuilder(), value).toString();
+        }
+    }
+
+    @Nested
+    @DisplayName("when reading a field")
+    class WhenReadingAField {
+
+        @Test @DisplayName("returns its value")
+        void returns_its_value() {
+            assertThat(Json.stringField("{\"cmd\":\"DISPATCH\",\"evt\":\"READY\"}", "evt")).contains("READY");
+        }
+
+        @Test @DisplayName("tolerates whitespaces")
+        void tolerates_whitespaces() {
+            assertThat(Json.stringField("{ \"evt\" :  \"READY\" }", "evt")).contains("READY");
+        }
+
+        @Test @DisplayName("finds nested fields")
+        void finds_nested_fields() {
+            assertThat(Json.stringField("{\"data\":{\"code\":4000,\"message\":\"Invalid Client ID\"}}", "message")).contains("Invalid Client ID");
+        }
+
+        @Test @DisplayName("ignores values looking like the field's name")
+        void ignores_values_looking_like_the_field_name() {
+            assertThat(Json.stringField("{\"a\":\"evt\",\"evt\":\"ERROR\"}", "evt")).contains("ERROR");
+        }
+
+        @Test @DisplayName("unescapes its value")
+        void unescapes_its_value() {
+            assertThat(Json.stringField("{\"message\":\"a \\\"b\\\"\\n\\u00e9\"}", "message")).contains("a \"b\"\né");
+        }
+
+        @Test @DisplayName("returns nothing when the field does not exist")
+        void returns_nothing_when_the_field_does_not_exist() {
+            assertThat(Json.stringField("{\"cmd\":\"DISPATCH\"}", "evt")).isEmpty();
+        }
+
+        @Test @DisplayName("returns nothing when the value is not a string")
+        void returns_nothing_when_the_value_is_not_a_string() {
+            assertThat(Json.stringField("{\"evt\":null}", "evt")).isEmpty();
+        }
+
+        @Test @DisplayName("returns nothing when the value is not terminated")
+        void returns_nothing_when_the_value_is_not_terminated() {
+            assertThat(Json.stringField("{\"evt\":\"REA", "evt")).isEmpty();
+        }
+    }
+
+}
@@ -0,0 +1,106 @@
+package fr.kazejiyu.discord.rpc.integration.extensions.internal;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.assertj.core.api.WithAssertions;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.IExtension;
+import org.eclipse.core.runtime.IExtensionRegistry;
+import org.eclipse.ui.IEditorInput;
+import org.eclipse.ui.part.FileEditorInput;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import fr.kazejiyu.discord.rpc.integration.Plugin;
+
+/**
+ * Measures how long {@link EditorRichPresenceFromExtensions} takes to find the adapter of an input
+ * depending on the number of contributed adapters.
+ * <p>
+ * Disabled by default, run with {@code mvn verify -Dbenchmarks=true}. Results are printed on the standard output.
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+@DisplayName("Benchmark: resolving editor input adapters")
+public class AdapterResolutionBenchmark implements WithAssertions {
+
+    private static final int WARMUP = 50_000;
+
+    private static final int ITERATIONS = 1_000_000;
+
+    /** The classes of the inputs adapted by the synthetic adapters. */
+    private static final List<Class<? extends IEditorInput>> INPUT_CLASSES = new ArrayList<>();
+
+    static {
+        INPUT_CLASSES.add(IEditorInput.class);
+        INPUT_CLASSES.add(ChildOfIEditorInput.class);
+        INPUT_CLASSES.add(GrandchildOfIEditorInput.class);
+        INPUT_CLASSES.add(FileEditorInput.class);
+    }
+
+    @Test @DisplayName("1 adapter")
+    void one_adapter() throws CoreException {
+        measure(1);
+    }
+
+    @Test @DisplayName("100 adapters")
+    void one_hundred_adapters() throws CoreException {
+        measure(100);
+    }
+
+    private void measure(int numberOfAdapters) throws CoreException {
+        IExtensionRegistry registry = mock(IExtensionRegistry.class);
+        IConfigurationElement[] elements = syntheticAdapters(numberOfAdapters);
+        when(registry.getConfigurationElementsFor(Plugin.EDITOR_INPUT_ADAPTER_EXTENSION_ID)).thenReturn(elements);
+
+        IEditorInput[] inputs = {new ChildOfIEditorInput(), new GrandchildOfIEditorInput()};
+
+        try (EditorRichPresenceFromExtensions adapters = new EditorRichPresenceFromExtensions(registry)) {
+            lookFor(adapters, inputs, WARMUP);
+
+            long start = System.nanoTime();
+            int found = lookFor(adapters, inputs, ITERATIONS);
+            long elapsed = System.nanoTime() - start;
+
+            long firstStart = System.nanoTime();
+            adapters.adapterRegistry().added(new IExtension[0]);
+            lookFor(adapters, inputs, inputs.length);
+            long firstElapsed = System.nanoTime() - firstStart;
+
+            assertThat(found).isEqualTo(ITERATIONS);
+            System.out.println(String.format("%d adapters: %.1f ns per lookup, %d us to index %d classes of input after a change",
+                    numberOfAdapters, (double) elapsed / ITERATIONS, firstElapsed / 1_000, inputs.length));
+        }
+    }
+
+    /** Looks for the adapter of the given inputs, in turn, and returns the number of adapters found. */
+    private static int lookFor(EditorRichPresenceFromExtensions adapters, IEditorInput[] inputs, int times) {
+        int found = 0;
+
+        for (int i = 0; i < times; ++i) {
+            if (adapters.findAdapterFor(inputs[i % inputs.length]).isPresent()) {
+                ++found;
+            }
+        }
+        return found;
+    }
+
+    private static IConfigurationElement[] syntheticAdapters(int numberOfAdapters) throws CoreException {
+        IConfigurationElement[] elements = new IConfigurationElement[numberOfAdapters];
+
+        for (int i = 0; i < numberOfAdapters; ++i) {
+            Class<? extends IEditorInput> inputClass = INPUT_CLASSES.get(i % INPUT_CLASSES.size());
+            FakeEditorInputRichPresence adapter = new FakeEditorInputRichPresence(i % 7, inputClass);
+
+            elements[i] = mock(IConfigurationElement.class);
+            when(elements[i].createExecutableExtension("class")).thenReturn(adapter);
+        }
+        return elements;
+    }
+
+}
@@ -0,0 +1,250 @@
+package fr.kazejiyu.discord.rpc.integration.extensions.internal;
+
+import static java.util.stream.Collectors.toList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.assertj.core.api.WithAssertions;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.IExtension;
+import org.eclipse.core.runtime.IExtensionPoint;
+import org.eclipse.core.runtime.IExtensionRegistry;
+import org.eclipse.ui.part.FileEditorInput;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+
+import fr.kazejiyu.discord.rpc.integration.Plugin;
+import fr.kazejiyu.discord.rpc.integration.extensions.EditorInputToRichPresenceAdapter;
+import fr.kazejiyu.discord.rpc.integration.tests.mock.MockitoExtension;
+
+/**
+ * Unit test the {@link EditorInputAdapterRegistry} class.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("An EditorInputAdapterRegistry")
+public class EditorInputAdapterRegistryTest implements WithAssertions {
+    
+    private EditorInputAdapterRegistry adapters;
+    
+    @Mock
+    private IExtensionRegistry registry;
+    
+    private EditorInputToRichPresenceAdapter fileAdapter;
+    
+    private EditorInputToRichPresenceAdapter childAdapter;
+    
+    private IConfigurationElement fileElement;
+    
+    private IConfigurationElement childElement;
+    
+    @BeforeEach
+    void setup() throws CoreException {
+        adapters = new EditorInputAdapterRegistry(registry);
+        
+        fileAdapter = new FakeEditorInputRichPresence(50, FileEditorInput.class);
+        childAdapter = new FakeEditorInputRichPresence(50, ChildOfIEditorInput.class);
+        
+        fileElement = elementThatCreates(fileAdapter);
+        childElement = elementThatCreates(childAdapter);
+        
+        contribute(fileElement);
+    }
+    
+    @Nested @DisplayName("during instanciation")
+    class DuringInstanciation {
+        
+        @Test @DisplayName("throws if registry is null")
+        void throws_if_registry_is_null() {
+            assertThatNullPointerException().isThrownBy(() ->
+                new EditorInputAdapterRegistry(null)
+            );
+        }
+        
+        @Test @DisplayName("can listen to the registry")
+        void can_listen_to_the_registry() {
+            EditorInputAdapterRegistry listening = EditorInputAdapterRegistry.listeningTo(registry);
+            
+            verify(registry).addListener(listening, Plugin.EDITOR_INPUT_ADAPTER_EXTENSION_ID);
+        }
+        
+    }
+    
+    @Test @DisplayName("stops listening to the registry once closed")
+    void stops_listening_to_the_registry_once_closed() {
+        adapters.close();
+        
+        verify(registry).removeListener(adapters);
+    }
+    
+    @Test @DisplayName("returns the contributed adapters")
+    void returns_the_contributed_adapters() {
+        assertThat(adaptersIn(adapters)).containsExactly(fileAdapter);
+    }
+    
+    @Test @DisplayName("ignores the contributions that are not adapters")
+    void ignores_the_contributions_that_are_not_adapters() throws CoreException {
+        contribute(fileElement, elementThatCreates(this), elementThatCreates(null));
+        
+        assertThat(adaptersIn(adapters)).containsExactly(fileAdapter);
+    }
+    
+    @Test @DisplayName("instantiates each contribution once")
+    void instantiates_each_contribution_once() throws CoreException {
+        adapters.contributions();
+        adapters.contributions();
+        adapters.contributions();
+        
+        verify(fileElement, times(1)).createExecutableExtension("class");
+        verify(registry, times(1)).getConfigurationElementsFor(Plugin.EDITOR_INPUT_ADAPTER_EXTENSION_ID);
+    }
+    
+    @Test @DisplayName("counts the contributions returned from the cache as hits")
+    void counts_the_contributions_returned_from_the_cache_as_hits() {
+        adapters.contributions();
+        adapters.contributions();
+        adapters.contributions();
+        
+        assertThat(adapters.hits()).isEqualTo(2);
+        assertThat(adapters.misses()).isEqualTo(1);
+    }
+    
+    @Test @DisplayName("instantiates the new contributions only")
+    void instantiates_the_new_contributions_only() throws CoreException {
+        adapters.contributions();
+        contribute(fileElement, childElement);
+        
+        adapters.added(new IExtension[0]);
+        
+        assertThat(adaptersIn(adapters)).containsExactly(fileAdapter, childAdapter);
+        verify(fileElement, times(1)).createExecutableExtension("class");
+        assertThat(adapters.hits()).isZero();
+        assertThat(adapters.misses()).isEqualTo(2);
+    }
+    
+    @Test @DisplayName("forgets about the removed contributions")
+    void forgets_about_the_removed_contributions() {
+        contribute(fileElement, childElement);
+        adapters.contributions();
+        contribute(childElement);
+        
+        adapters.removed(new IExtension[] {extensionOf(fileElement)});
+        
+        assertThat(adaptersIn(adapters)).containsExactly(childAdapter);
+    }
+    
+    @Test @DisplayName("instantiates again the contributions removed then added back")
+    void instantiates_again_the_contributions_removed_then_added_back() throws CoreException {
+        adapters.contributions();
+        
+        adapters.removed(new IExtension[] {extensionOf(fileElement)});
+        adapters.added(new IExtension[] {extensionOf(fileElement)});
+        adapters.contributions();
+        
+        verify(fileElement, times(2)).createExecutableExtension("class");
+    }
+    
+    @Test @DisplayName("forgets about all the contributions when the extension point is removed")
+    void forgets_about_all_the_contributions_when_the_extension_point_is_removed() throws CoreException {
+        adapters.contributions();
+        
+        adapters.removed(new IExtensionPoint[] {mock(IExtensionPoint.class)});
+        adapters.contributions();
+        
+        verify(fileElement, times(2)).createExecutableExtension("class");
+        assertThat(adapters.hits()).isZero();
+        assertThat(adapters.misses()).isEqualTo(2);
+    }
+    
+    @Nested @DisplayName("when contributions declare their input class")
+    class WhenContributionsDeclareTheirInputClass {
+        
+        private IConfigurationElement declaredElement;
+        
+        @BeforeEach
+        void declareInputClass() throws CoreException {
+            declaredElement = elementThatCreates(childAdapter);
+            when(declaredElement.getAttribute(EditorInputAdapterRegistry.INPUT_CLASS_ATTRIBUTE)).thenReturn(ChildOfIEditorInput.class.getName());
+            contribute(declaredElement);
+        }
+        
+        @Test @DisplayName("does not instantiate them")
+        void does_not_instantiate_them() throws CoreException {
+            AdapterContribution contribution = adapters.contributions().get(0);
+            
+            assertThat(contribution.inputClassName()).contains(ChildOfIEditorInput.class.getName());
+            assertThat(contribution.isInstantiated()).isFalse();
+            verify(declaredElement, never()).createExecutableExtension(anyString());
+        }
+        
+        @Test @DisplayName("instantiates them once, when their adapter is requested")
+        void instantiates_them_once_when_their_adapter_is_requested() throws CoreException {
+            AdapterContribution contribution = adapters.contributions().get(0);
+            
+            assertThat(contribution.adapter()).contains(childAdapter);
+            assertThat(contribution.adapter()).contains(childAdapter);
+            verify(declaredElement, times(1)).createExecutableExtension("class");
+            assertThat(adapters.instantiations()).isEqualTo(1);
+        }
+        
+        @Test @DisplayName("reads their priority")
+        void reads_their_priority() {
+            when(declaredElement.getAttribute(EditorInputAdapterRegistry.PRIORITY_ATTRIBUTE)).thenReturn(" 20 ");
+            
+            assertThat(adapters.contributions().get(0).priority()).isEqualTo(20);
+        }
+        
+        @Test @DisplayName("gives them a priority of 0 by default")
+        void gives_them_a_priority_of_0_by_default() {
+            assertThat(adapters.contributions().get(0).priority()).isZero();
+        }
+        
+        @Test @DisplayName("instantiates them right away if their priority is not an integer")
+        void instantiates_them_right_away_if_their_priority_is_not_an_integer() throws CoreException {
+            when(declaredElement.getAttribute(EditorInputAdapterRegistry.PRIORITY_ATTRIBUTE)).thenReturn("high");
+            
+            AdapterContribution contribution = adapters.contributions().get(0);
+            
+            assertThat(contribution.isInstantiated()).isTrue();
+            assertThat(contribution.priority()).isEqualTo(childAdapter.getPriority());
+        }
+        
+    }
+    
+    private static List<EditorInputToRichPresenceAdapter> adaptersIn(EditorInputAdapterRegistry adapters) {
+        return adapters.contributions().stream()
+                       .map(AdapterContribution::adapter)
+                       .filter(Optional::isPresent)
+                       .map(Optional::get)
+                       .collect(toList());
+    }
+    
+    private void contribute(IConfigurationElement... elements) {
+        when(registry.getConfigurationElementsFor(Plugin.EDITOR_INPUT_ADAPTER_EXTENSION_ID))
+            .thenReturn(elements);
+    }
+    
+    private static IExtension extensionOf(IConfigurationElement element) {
+        IExtension extension = mock(IExtension.class);
+        when(extension.getConfigurationElements()).thenReturn(new IConfigurationElement[] {element});
+        return extension;
+    }
+    
+    private static IConfigurationElement elementThatCreates(Object editorInputRichPresence) throws CoreException {
+        IConfigurationElement element = mock(IConfigurationElement.class);
+        when(element.createExecutableExtension("class")).thenReturn(editorInputRichPresence);
+        return element;
+    }
+    
+}
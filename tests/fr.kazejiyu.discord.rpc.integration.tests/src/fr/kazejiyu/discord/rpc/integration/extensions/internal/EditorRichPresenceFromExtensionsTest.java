@@ -1,11 +1,16 @@
 package fr.kazejiyu.discord.rpc.integration.extensions.internal;
 
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import org.assertj.core.api.WithAssertions;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.IExtension;
 import org.eclipse.core.runtime.IExtensionRegistry;
 import org.eclipse.ui.IEditorInput;
 import org.eclipse.ui.part.FileEditorInput;
@@ -92,6 +97,83 @@ public class EditorRichPresenceFromExtensionsTest implements WithAssertions {
             .contains(expectedAdapter);
     }
     
+    @Test @DisplayName("finds the right adapter for each class of input")
+    void finds_the_right_adapter_for_each_class_of_input() {
+        adapters.findAdapterFor(new GrandchildOfIEditorInput());
+        
+        assertThat(adapters.findAdapterFor(new ChildOfIEditorInput()))
+            .hasValueSatisfying(adapter -> assertThat(adapter.getPriority()).isEqualTo(80));
+        assertThat(adapters.findAdapterFor(new GrandchildOfIEditorInput()))
+            .contains(expectedAdapter);
+    }
+    
+    @Test @DisplayName("remembers the adapter found for a class of input")
+    void remembers_the_adapter_found_for_a_class_of_input() throws CoreException {
+        EditorInputToRichPresenceAdapter adapter = mock(EditorInputToRichPresenceAdapter.class);
+        when(adapter.getExpectedEditorInputClass()).thenAnswer(invocation -> GrandchildOfIEditorInput.class);
+        contribute(elementThatCreates(adapter));
+        
+        adapters.findAdapterFor(new GrandchildOfIEditorInput());
+        clearInvocations(adapter);
+        
+        assertThat(adapters.findAdapterFor(new GrandchildOfIEditorInput())).contains(adapter);
+        verify(adapter, never()).getExpectedEditorInputClass();
+    }
+    
+    @Test @DisplayName("finds the adapter again when contributions change")
+    void finds_the_adapter_again_when_contributions_change() throws CoreException {
+        adapters.findAdapterFor(new GrandchildOfIEditorInput());
+        EditorInputToRichPresenceAdapter betterAdapter = new FakeEditorInputRichPresence(90, GrandchildOfIEditorInput.class);
+        contribute(elementThatCreates(expectedAdapter), elementThatCreates(betterAdapter));
+        
+        adapters.adapterRegistry().added(new IExtension[0]);
+        
+        assertThat(adapters.findAdapterFor(new GrandchildOfIEditorInput()))
+            .contains(betterAdapter);
+    }
+    
+    @Test @DisplayName("only instantiates the adapters declaring a matching input class")
+    void only_instantiates_the_adapters_declaring_a_matching_input_class() throws CoreException {
+        IConfigurationElement fileElement = elementDeclaring(FileEditorInput.class, 100, new FakeEditorInputRichPresence(100, FileEditorInput.class));
+        IConfigurationElement childElement = elementDeclaring(ChildOfIEditorInput.class, 0, expectedAdapter);
+        contribute(fileElement, childElement);
+        
+        assertThat(adapters.findAdapterFor(new GrandchildOfIEditorInput())).contains(expectedAdapter);
+        verify(fileElement, never()).createExecutableExtension(anyString());
+    }
+    
+    @Test @DisplayName("chooses adapters according to their declared priority")
+    void chooses_adapters_according_to_their_declared_priority() throws CoreException {
+        EditorInputToRichPresenceAdapter betterAdapter = new FakeEditorInputRichPresence(0, GrandchildOfIEditorInput.class);
+        IConfigurationElement lowElement = elementDeclaring(GrandchildOfIEditorInput.class, 10, expectedAdapter);
+        IConfigurationElement highElement = elementDeclaring(GrandchildOfIEditorInput.class, 20, betterAdapter);
+        contribute(lowElement, highElement);
+        
+        assertThat(adapters.findAdapterFor(new GrandchildOfIEditorInput())).contains(betterAdapter);
+        verify(lowElement, never()).createExecutableExtension(anyString());
+    }
+    
+    @Test @DisplayName("falls back to the next adapter when the best one cannot be instantiated")
+    void falls_back_to_the_next_adapter_when_the_best_one_cannot_be_instantiated() throws CoreException {
+        IConfigurationElement brokenElement = elementDeclaring(GrandchildOfIEditorInput.class, 20, this);
+        IConfigurationElement workingElement = elementDeclaring(GrandchildOfIEditorInput.class, 10, expectedAdapter);
+        contribute(brokenElement, workingElement);
+        
+        assertThat(adapters.findAdapterFor(new GrandchildOfIEditorInput())).contains(expectedAdapter);
+    }
+    
+    private static IConfigurationElement elementDeclaring(Class<?> inputClass, int priority, Object adapter) throws CoreException {
+        IConfigurationElement element = elementThatCreates(adapter);
+        when(element.getAttribute(EditorInputAdapterRegistry.INPUT_CLASS_ATTRIBUTE)).thenReturn(inputClass.getName());
+        when(element.getAttribute(EditorInputAdapterRegistry.PRIORITY_ATTRIBUTE)).thenReturn(Integer.toString(priority));
+        return element;
+    }
+    
+    private void contribute(IConfigurationElement... elements) {
+        when(registry.getConfigurationElementsFor(Plugin.EDITOR_INPUT_ADAPTER_EXTENSION_ID))
+            .thenReturn(elements);
+    }
+    
     private static IConfigurationElement elementThatCreates(Object editorInputRichPresence) throws CoreException {
         IConfigurationElement element = mock(IConfigurationElement.class);
         when(element.createExecutableExtension("class")).thenReturn(editorInputRichPresence);
@@ -1,19 +1,30 @@
 package fr.kazejiyu.discord.rpc.integration.files;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.assertj.core.api.WithAssertions;
+import org.eclipse.jface.viewers.ISelection;
 import org.eclipse.ui.IPartListener2;
 import org.eclipse.ui.ISelectionListener;
 import org.eclipse.ui.ISelectionService;
 import org.eclipse.ui.IWorkbenchPage;
+import org.eclipse.ui.IWorkbenchPartReference;
 import org.eclipse.ui.IWorkbenchWindow;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
@@ -121,6 +132,47 @@ public class AddListenerOnWindowOpenedTest implements WithAssertions {
         }
     }
     
+    @Test @DisplayName("listens for the pages opened after the window")
+    void listens_for_the_pages_opened_after_the_window() {
+        when(window.getSelectionService()).thenReturn(mock(ISelectionService.class));
+        when(window.getPages()).thenReturn(new IWorkbenchPage[] {});
+        
+        sut.windowOpened(window);
+        
+        verify(window).addPageListener(sut);
+    }
+    
+    @Test @DisplayName("stops listening for the pages of each window that closes")
+    void stops_listening_for_the_pages_of_each_window_that_closes() {
+        when(window.getSelectionService()).thenReturn(mock(ISelectionService.class));
+        when(window.getPages()).thenReturn(new IWorkbenchPage[] {});
+        
+        sut.windowClosed(window);
+        
+        verify(window).removePageListener(sut);
+    }
+    
+    @Test @DisplayName("adds listener as a new part listener of each page that opens")
+    void adds_listener_as_a_new_part_listener_of_each_page_that_opens() {
+        IWorkbenchPage page = mock(IWorkbenchPage.class);
+        sut.pageOpened(page);
+        verify(page).addPartListener(listener);
+    }
+    
+    @Test @DisplayName("removes listener from the part listeners of each page that closes")
+    void removes_listener_from_the_part_listeners_of_each_page_that_closes() {
+        IWorkbenchPage page = mock(IWorkbenchPage.class);
+        sut.pageClosed(page);
+        verify(page).removePartListener(listener);
+    }
+    
+    @Test @DisplayName("does nothing on page activated")
+    void does_nothing_on_page_activated() {
+        IWorkbenchPage page = mock(IWorkbenchPage.class);
+        sut.pageActivated(page);
+        verifyZeroInteractions(page);
+    }
+    
     @Test @DisplayName("does nothing on window activated")
     void does_nothing_on_window_activated() {
         sut.windowActivated(window);
@@ -133,6 +185,125 @@ public class AddListenerOnWindowOpenedTest implements WithAssertions {
         verifyZeroInteractions(window);
     }
     
+    @Nested @DisplayName("when only tracking parts")
+    class WhenOnlyTrackingParts {
+        
+        @BeforeEach
+        void onlyTrackParts() {
+            sut = new AddListenerOnWindowOpened<>(listener, TrackingMode.PARTS_ONLY);
+        }
+        
+        @Test @DisplayName("throws if the mode is null")
+        void throws_if_the_mode_is_null() {
+            assertThatNullPointerException().isThrownBy(() ->
+                new AddListenerOnWindowOpened<>(listener, null)
+            );
+        }
+        
+        @Test @DisplayName("does not add listener as a selection listener")
+        void does_not_add_listener_as_a_selection_listener() {
+            ISelectionService service = mock(ISelectionService.class);
+            when(window.getSelectionService()).thenReturn(service);
+            when(window.getPages()).thenReturn(new IWorkbenchPage[] {});
+            
+            sut.windowOpened(window);
+            sut.windowClosed(window);
+            
+            verifyZeroInteractions(service);
+        }
+        
+        @Test @DisplayName("adds listener as a new part listener of all pages of each window that opens")
+        void adds_listener_as_a_new_part_listener_of_all_pages_of_each_window_that_opens() {
+            IWorkbenchPage page = mock(IWorkbenchPage.class);
+            when(window.getPages()).thenReturn(new IWorkbenchPage[] {page});
+            
+            sut.windowOpened(window);
+            
+            verify(page).addPartListener(listener);
+            verify(window).addPageListener(sut);
+        }
+        
+    }
+    
+    @Nested @DisplayName("during an editing session")
+    class DuringAnEditingSession {
+        
+        private static final int EDITORS = 10;
+        
+        private static final int CARET_MOVES_PER_EDITOR = 50;
+        
+        private static final int VIEW_CLICKS_PER_EDITOR = 5;
+        
+        /** The selection listeners registered to the window. */
+        private final List<ISelectionListener> selectionListeners = new ArrayList<>();
+        
+        /** The part listeners registered to the page opened after the window, where the session takes place. */
+        private final List<IPartListener2> partListeners = new ArrayList<>();
+        
+        @Test @DisplayName("notifies listener of each selection when tracking selections")
+        void notifies_listener_of_each_selection_when_tracking_selections() {
+            int invocations = invocationsDuringSession(TrackingMode.SELECTIONS_AND_PARTS);
+            
+            verify(listener, times(EDITORS * (1 + VIEW_CLICKS_PER_EDITOR))).partActivated(any());
+            verify(listener, times(EDITORS * (CARET_MOVES_PER_EDITOR + VIEW_CLICKS_PER_EDITOR))).selectionChanged(any(), any());
+            assertThat(invocations).isEqualTo(EDITORS * (1 + CARET_MOVES_PER_EDITOR + 2 * VIEW_CLICKS_PER_EDITOR));
+        }
+        
+        @Test @DisplayName("only notifies listener of part activations when only tracking parts")
+        void only_notifies_listener_of_part_activations_when_only_tracking_parts() {
+            int invocations = invocationsDuringSession(TrackingMode.PARTS_ONLY);
+            
+            verify(listener, times(EDITORS * (1 + VIEW_CLICKS_PER_EDITOR))).partActivated(any());
+            verify(listener, never()).selectionChanged(any(), any());
+            assertThat(invocations).isEqualTo(EDITORS * (1 + VIEW_CLICKS_PER_EDITOR));
+        }
+        
+        /**
+         * Opens a window with one page, then opens another page and replays on it a session during which the user
+         * switches between editors, moves the caret and clicks in views.
+         * 
+         * @return the number of times listener has been invoked
+         */
+        private int invocationsDuringSession(TrackingMode mode) {
+            sut = new AddListenerOnWindowOpened<>(listener, mode);
+            
+            IWorkbenchPage firstPage = recordingPage(new ArrayList<>());
+            IWorkbenchPage secondPage = recordingPage(partListeners);
+            ISelectionService service = mock(ISelectionService.class);
+            doAnswer(invocation -> selectionListeners.add(invocation.getArgument(0))).when(service).addSelectionListener(any(ISelectionListener.class));
+            when(window.getSelectionService()).thenReturn(service);
+            when(window.getPages()).thenReturn(new IWorkbenchPage[] {firstPage});
+            
+            sut.windowOpened(window);
+            sut.pageOpened(secondPage);
+            
+            IWorkbenchPartReference editor = mock(IWorkbenchPartReference.class);
+            IWorkbenchPartReference view = mock(IWorkbenchPartReference.class);
+            ISelection selection = mock(ISelection.class);
+            
+            for (int i = 0; i < EDITORS; ++i) {
+                partListeners.forEach(partListener -> partListener.partActivated(editor));
+                
+                for (int j = 0; j < CARET_MOVES_PER_EDITOR; ++j) {
+                    selectionListeners.forEach(selectionListener -> selectionListener.selectionChanged(null, selection));
+                }
+                for (int j = 0; j < VIEW_CLICKS_PER_EDITOR; ++j) {
+                    partListeners.forEach(partListener -> partListener.partActivated(view));
+                    selectionListeners.forEach(selectionListener -> selectionListener.selectionChanged(null, selection));
+                }
+            }
+            return mockingDetails(listener).getInvocations().size();
+        }
+        
+        /** Returns a page adding the part listeners registered to it to {@code listeners}. */
+        private IWorkbenchPage recordingPage(List<IPartListener2> listeners) {
+            IWorkbenchPage page = mock(IWorkbenchPage.class);
+            doAnswer(invocation -> listeners.add(invocation.getArgument(0))).when(page).addPartListener(any(IPartListener2.class));
+            return page;
+        }
+        
+    }
+    
     /**
      * Makes easier to mock the argument of AddListenerOnWindowOpened's constructor.
      */
@@ -0,0 +1,223 @@
+package fr.kazejiyu.discord.rpc.integration.files;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.assertj.core.api.WithAssertions;
+import org.eclipse.swt.widgets.Event;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test the {@link IdleDetector} class.
+ */
+@DisplayName("An IdleDetector")
+public class IdleDetectorTest implements WithAssertions {
+
+    private static final Duration TIMEOUT = Duration.ofMinutes(10);
+
+    private static final Duration CHECK_PERIOD = Duration.ofSeconds(1);
+
+    /** The transitions notified so far. */
+    List<String> transitions;
+
+    /** The delays of the checks scheduled so far, in milliseconds. */
+    List<Long> delays;
+
+    /** The checks scheduled and not run yet. */
+    List<Runnable> tasks;
+
+    /** The current time, in nanoseconds. */
+    long now;
+
+    IdleDetector detector;
+
+    @BeforeEach
+    void setup() {
+        transitions = new ArrayList<>();
+        delays = new ArrayList<>();
+        tasks = new ArrayList<>();
+        detector = detector(TIMEOUT);
+    }
+
+    @Nested @DisplayName("during instanciation")
+    class DuringInstanciation {
+
+        @Test @DisplayName("throws if the timeout is null")
+        void throws_if_the_timeout_is_null() {
+            assertThatNullPointerException().isThrownBy(() ->
+                detector(null)
+            );
+        }
+
+        @Test @DisplayName("throws if the timeout is zero")
+        void throws_if_the_timeout_is_zero() {
+            assertThatIllegalArgumentException().isThrownBy(() ->
+                detector(Duration.ZERO)
+            );
+        }
+
+        @Test @DisplayName("throws if the check period is not positive")
+        void throws_if_the_check_period_is_not_positive() {
+            assertThatIllegalArgumentException().isThrownBy(() ->
+                new IdleDetector(TIMEOUT, Duration.ZERO, () -> { }, () -> { }, (delay, task) -> { }, () -> now)
+            );
+        }
+
+        @Test @DisplayName("throws if a callback is null")
+        void throws_if_a_callback_is_null() {
+            assertThatNullPointerException().isThrownBy(() ->
+                new IdleDetector(TIMEOUT, null, () -> { }, (delay, task) -> { }, () -> now)
+            );
+            assertThatNullPointerException().isThrownBy(() ->
+                new IdleDetector(TIMEOUT, () -> { }, null, (delay, task) -> { }, () -> now)
+            );
+        }
+
+    }
+
+    @Test @DisplayName("checks the activity periodically once started")
+    void checks_the_activity_periodically_once_started() {
+        detector.start();
+        elapse(1);
+        runScheduledChecks();
+        elapse(1);
+        runScheduledChecks();
+
+        assertThat(delays).containsExactly(1000L, 1000L, 1000L);
+        assertThat(transitions).isEmpty();
+    }
+
+    @Test @DisplayName("notifies once when the user becomes idle")
+    void notifies_once_when_the_user_becomes_idle() {
+        detector.start();
+        elapse(TimeUnit.MINUTES.toSeconds(10));
+        runScheduledChecks();
+        elapse(1);
+        runScheduledChecks();
+
+        assertThat(detector.isIdle()).isTrue();
+        assertThat(transitions).containsExactly("idle");
+    }
+
+    @Test @DisplayName("does not consider an active user idle")
+    void does_not_consider_an_active_user_idle() {
+        detector.start();
+        
+        for (int minute = 0; minute < 60; ++minute) {
+            elapse(TimeUnit.MINUTES.toSeconds(1));
+            detector.handleEvent(new Event());
+            runScheduledChecks();
+        }
+        assertThat(detector.isIdle()).isFalse();
+        assertThat(transitions).isEmpty();
+    }
+
+    @Test @DisplayName("only notifies the activity on the next check")
+    void only_notifies_the_activity_on_the_next_check() {
+        detector.start();
+        elapse(TimeUnit.MINUTES.toSeconds(10));
+        runScheduledChecks();
+
+        detector.handleEvent(new Event());
+        detector.handleEvent(new Event());
+        assertThat(transitions).containsExactly("idle");
+
+        runScheduledChecks();
+        assertThat(detector.isIdle()).isFalse();
+        assertThat(transitions).containsExactly("idle", "active");
+    }
+
+    @Test @DisplayName("stops checking once stopped")
+    void stops_checking_once_stopped() {
+        detector.start();
+        detector.stop();
+        elapse(TimeUnit.MINUTES.toSeconds(10));
+        runScheduledChecks();
+
+        assertThat(tasks).isEmpty();
+        assertThat(transitions).isEmpty();
+    }
+
+    @Test @DisplayName("schedules a single check when started twice")
+    void schedules_a_single_check_when_started_twice() {
+        detector.start();
+        detector.start();
+
+        assertThat(tasks).hasSize(1);
+    }
+
+    @Test @DisplayName("does not allocate anything when handling an event")
+    void does_not_allocate_anything_when_handling_an_event() throws ReflectiveOperationException {
+        AllocationCounter allocations = new AllocationCounter();
+        IdleDetector realTimeDetector = new IdleDetector(TIMEOUT, () -> { }, () -> { }, (delay, task) -> { }, System::nanoTime);
+        Event event = new Event();
+
+        // let the JIT compile the event handling first
+        for (int i = 0; i < 100_000; ++i) {
+            realTimeDetector.handleEvent(event);
+        }
+        int events = 100_000;
+        long before = allocations.allocatedBytes();
+
+        for (int i = 0; i < events; ++i) {
+            realTimeDetector.handleEvent(event);
+        }
+        assertThat((allocations.allocatedBytes() - before) / events).isZero();
+    }
+
+    private IdleDetector detector(Duration timeout) {
+        return new IdleDetector(timeout, CHECK_PERIOD, () -> transitions.add("idle"), () -> transitions.add("active"), (delay, task) -> {
+            delays.add(delay);
+            tasks.add(task);
+        }, () -> now);
+    }
+
+    private void elapse(long seconds) {
+        now += TimeUnit.SECONDS.toNanos(seconds);
+    }
+
+    private void runScheduledChecks() {
+        List<Runnable> toRun = new ArrayList<>(tasks);
+        tasks.clear();
+        toRun.forEach(Runnable::run);
+    }
+
+    /** Counts the bytes allocated by the current thread, through HotSpot's extension of {@link ThreadMXBean}. */
+    private static final class AllocationCounter {
+
+        private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        private final Method getThreadAllocatedBytes;
+
+        AllocationCounter() {
+            Method method = null;
+            try {
+                Class<?> hotspotThreads = Class.forName("com.sun.management.ThreadMXBean");
+
+                if (hotspotThreads.isInstance(threads)) {
+                    method = hotspotThreads.getMethod("getThreadAllocatedBytes", long.class);
+                }
+            }
+            catch (ReflectiveOperationException e) {
+                // not running on HotSpot
+            }
+            assumeTrue(method != null, "Allocations can only be measured on HotSpot");
+            this.getThreadAllocatedBytes = method;
+        }
+
+        long allocatedBytes() throws ReflectiveOperationException {
+            return (Long) getThreadAllocatedBytes.invoke(threads, Thread.currentThread().getId());
+        }
+    }
+
+}
@@ -0,0 +1,184 @@
+package fr.kazejiyu.discord.rpc.integration.files;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.assertj.core.api.WithAssertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test the {@link TrailingEdgeDebouncer} class.
+ */
+@DisplayName("A TrailingEdgeDebouncer")
+public class TrailingEdgeDebouncerTest implements WithAssertions {
+
+    private static final Duration WINDOW = Duration.ofMillis(150);
+
+    /** The values handled so far. */
+    List<String> handled;
+
+    /** The delays of the tasks scheduled so far, in milliseconds. */
+    List<Long> delays;
+
+    /** The tasks scheduled and not run yet. */
+    List<Runnable> tasks;
+
+    /** The current time, in nanoseconds. */
+    long now;
+
+    TrailingEdgeDebouncer<String> debouncer;
+
+    @BeforeEach
+    void setup() {
+        handled = new ArrayList<>();
+        delays = new ArrayList<>();
+        tasks = new ArrayList<>();
+        debouncer = debouncer(WINDOW);
+    }
+
+    @Nested @DisplayName("during instanciation")
+    class DuringInstanciation {
+
+        @Test @DisplayName("throws if the action is null")
+        void throws_if_the_action_is_null() {
+            assertThatNullPointerException().isThrownBy(() ->
+                new TrailingEdgeDebouncer<String>(null, WINDOW, (delay, task) -> { }, () -> 0L)
+            );
+        }
+
+        @Test @DisplayName("throws if the window is negative")
+        void throws_if_the_window_is_negative() {
+            assertThatIllegalArgumentException().isThrownBy(() ->
+                debouncer(Duration.ofMillis(-1))
+            );
+        }
+
+    }
+
+    @Test @DisplayName("handles the values right away when the window is zero")
+    void handles_the_values_right_away_when_the_window_is_zero() {
+        TrailingEdgeDebouncer<String> immediate = debouncer(Duration.ZERO);
+        immediate.submit("A");
+        immediate.submit("B");
+
+        assertThat(handled).containsExactly("A", "B");
+        assertThat(tasks).isEmpty();
+    }
+
+    @Test @DisplayName("waits for the end of the window before handling a value")
+    void waits_for_the_end_of_the_window_before_handling_a_value() {
+        debouncer.submit("A");
+        assertThat(handled).isEmpty();
+
+        elapse(150);
+        runScheduledTasks();
+
+        assertThat(handled).containsExactly("A");
+        assertThat(delays).containsExactly(150L);
+    }
+
+    @Test @DisplayName("only handles the last value of a burst")
+    void only_handles_the_last_value_of_a_burst() {
+        debouncer.submit("A");
+        elapse(50);
+        debouncer.submit("B");
+        elapse(50);
+        debouncer.submit("C");
+
+        elapse(50);
+        runScheduledTasks();
+        assertThat(handled).isEmpty();
+
+        elapse(100);
+        runScheduledTasks();
+        assertThat(handled).containsExactly("C");
+        assertThat(debouncer.submittedValues()).isEqualTo(3);
+        assertThat(debouncer.handledValues()).isEqualTo(1);
+    }
+
+    @Test @DisplayName("schedules a single task per burst")
+    void schedules_a_single_task_per_burst() {
+        for (int i = 0; i < 100; ++i) {
+            debouncer.submit("editor " + i);
+        }
+        assertThat(tasks).hasSize(1);
+    }
+
+    @Test @DisplayName("checks again for the remaining time of the window")
+    void checks_again_for_the_remaining_time_of_the_window() {
+        debouncer.submit("A");
+        elapse(100);
+        debouncer.submit("B");
+        elapse(50);
+        runScheduledTasks();
+
+        assertThat(delays).containsExactly(150L, 100L);
+    }
+
+    @Test @DisplayName("exposes the value waiting for the end of the burst")
+    void exposes_the_value_waiting_for_the_end_of_the_burst() {
+        assertThat(debouncer.pendingValue()).isEmpty();
+        
+        debouncer.submit("A");
+        assertThat(debouncer.pendingValue()).contains("A");
+        
+        elapse(150);
+        runScheduledTasks();
+        assertThat(debouncer.pendingValue()).isEmpty();
+    }
+
+    @Test @DisplayName("does not handle a cancelled value")
+    void does_not_handle_a_cancelled_value() {
+        debouncer.submit("A");
+        debouncer.cancel("A");
+        elapse(150);
+        runScheduledTasks();
+
+        assertThat(handled).isEmpty();
+    }
+
+    @Test @DisplayName("ignores the cancellation of another value")
+    void ignores_the_cancellation_of_another_value() {
+        debouncer.submit("A");
+        debouncer.cancel("B");
+        elapse(150);
+        runScheduledTasks();
+
+        assertThat(handled).containsExactly("A");
+    }
+
+    @Test @DisplayName("handles the next burst separately")
+    void handles_the_next_burst_separately() {
+        debouncer.submit("A");
+        elapse(150);
+        runScheduledTasks();
+        debouncer.submit("B");
+        elapse(150);
+        runScheduledTasks();
+
+        assertThat(handled).containsExactly("A", "B");
+    }
+
+    private TrailingEdgeDebouncer<String> debouncer(Duration window) {
+        return new TrailingEdgeDebouncer<>(handled::add, window, (delay, task) -> {
+            delays.add(delay);
+            tasks.add(task);
+        }, () -> now);
+    }
+
+    private void elapse(long millis) {
+        now += TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    private void runScheduledTasks() {
+        List<Runnable> toRun = new ArrayList<>(tasks);
+        tasks.clear();
+        toRun.forEach(Runnable::run);
+    }
+
+}
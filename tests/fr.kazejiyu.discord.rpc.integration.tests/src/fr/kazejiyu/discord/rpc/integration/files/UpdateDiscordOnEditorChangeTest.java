@@ -2,16 +2,29 @@ package fr.kazejiyu.discord.rpc.integration.files;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
 
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 import org.assertj.core.api.WithAssertions;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences.IPreferenceChangeListener;
 import org.eclipse.ui.IEditorInput;
 import org.eclipse.ui.IEditorPart;
 import org.eclipse.ui.IWorkbenchPart;
@@ -27,6 +40,13 @@ import org.mockito.Mock;
 import fr.kazejiyu.discord.rpc.integration.core.DiscordRpcLifecycle;
 import fr.kazejiyu.discord.rpc.integration.core.RichPresence;
 import fr.kazejiyu.discord.rpc.integration.extensions.EditorRichPresenceFromInput;
+import fr.kazejiyu.discord.rpc.integration.settings.GlobalPreferences;
+import fr.kazejiyu.discord.rpc.integration.settings.PreferencesSnapshot;
+import fr.kazejiyu.discord.rpc.integration.settings.ProjectPreferences;
+import fr.kazejiyu.discord.rpc.integration.settings.ProjectPreferencesRegistry;
+import fr.kazejiyu.discord.rpc.integration.settings.SettingChangeListener;
+import fr.kazejiyu.discord.rpc.integration.settings.UserPreferences;
+import fr.kazejiyu.discord.rpc.integration.tests.mock.DetachedPreferenceStore;
 import fr.kazejiyu.discord.rpc.integration.tests.mock.MockitoExtension;
 
 /**
@@ -52,9 +72,14 @@ public class UpdateDiscordOnEditorChangeTest implements WithAssertions {
     @Mock
     private Function<EditionContext, Optional<RichPresence>> toRichPresence;
     
+    @Mock
+    private GlobalPreferences preferences;
+    
     @BeforeEach
     void instantiateObjectUnderTest() {
-        listener = new UpdateDiscordOnEditorChange(discord, toRichPresence);
+        listener = new UpdateDiscordOnEditorChange(discord, toRichPresence, preferences);
+        PreferencesSnapshot snapshot = PreferencesSnapshot.of(mock(UserPreferences.class), 0);
+        when(preferences.snapshot()).thenReturn(snapshot);
         when(activePart.getEditorInput()).thenReturn(mock(IEditorInput.class));
         
         // Discord is considered connected by default
@@ -70,14 +95,21 @@ public class UpdateDiscordOnEditorChangeTest implements WithAssertions {
         @Test @DisplayName("throws if the given Discord proxy is null")
         void throws_if_the_given_Discord_proxy_is_null() {    
             assertThatNullPointerException().isThrownBy(() ->
-                new UpdateDiscordOnEditorChange(null, toRichPresence) 
+                new UpdateDiscordOnEditorChange(null, toRichPresence, preferences) 
             );
         }
         
         @Test @DisplayName("throws if the given EditionContext to RichPresence adapter is null")
         void throws_if_the_given_IEditorInput_adapters_is_null() {    
             assertThatNullPointerException().isThrownBy(() ->
-                new UpdateDiscordOnEditorChange(discord, null) 
+                new UpdateDiscordOnEditorChange(discord, null, preferences) 
+            );
+        }
+        
+        @Test @DisplayName("throws if the given preferences are null")
+        void throws_if_the_given_preferences_are_null() {    
+            assertThatNullPointerException().isThrownBy(() ->
+                new UpdateDiscordOnEditorChange(discord, toRichPresence, null) 
             );
         }
         
@@ -191,4 +223,297 @@ public class UpdateDiscordOnEditorChangeTest implements WithAssertions {
         verifyZeroInteractions(discord);
     }
 
+    @Test @DisplayName("shows an idle presence without elapsed time when the user is idle")
+    void shows_an_idle_presence_without_elapsed_time_when_the_user_is_idle() {
+        listener.showIdle();
+        
+        verify(discord).show(argThat(presence -> presence.getDetails().equals(Optional.of("Idle")) 
+                                              && ! presence.getStartTimestamp().isPresent()));
+        verifyZeroInteractions(toRichPresence);
+    }
+    
+    @Test @DisplayName("shows the last selected editor again when the user is back")
+    void shows_the_last_selected_editor_again_when_the_user_is_back() {
+        // Given: an active part
+        listener.selectionChanged(activePart, null);
+        reset(discord);
+        
+        // When: the user comes back
+        listener.showLastSelectedEditor();
+        
+        // Then: the editor is shown again although it did not change
+        verify(discord).show(any(RichPresence.class));
+    }
+    
+    @Test @DisplayName("shows nothing when the user is back and no editor is selected")
+    void shows_nothing_when_the_user_is_back_and_no_editor_is_selected() {
+        when(toRichPresence.apply(any(EditionContext.class))).thenReturn(Optional.empty());
+        
+        listener.showLastSelectedEditor();
+        
+        verify(discord).showNothing();
+    }
+
+    @Nested
+    @DisplayName("when the user comes back from idle")
+    class WhenTheUserComesBackFromIdle {
+        
+        private long now;
+        
+        private UpdateDiscordOnEditorChange timed;
+        
+        @BeforeEach
+        void createTimedListener() {
+            timed = new UpdateDiscordOnEditorChange(discord, toRichPresence, preferences, Duration.ZERO, 
+                    (delay, task) -> task.run(), () -> now);
+            timed.selectionChanged(activePart, null);
+        }
+        
+        @Test @DisplayName("does not count the time spent idle as elapsed")
+        void does_not_count_the_time_spent_idle_as_elapsed() {
+            long onSelection = timed.editingContext().getElapsedTimes().onSelection();
+            
+            timed.showIdle();
+            now += TimeUnit.MINUTES.toNanos(10);
+            timed.showLastSelectedEditor();
+            
+            assertThat(timed.isIdle()).isFalse();
+            assertThat(timed.editingContext().getElapsedTimes().onSelection()).isEqualTo(onSelection + 600);
+        }
+        
+        @Test @DisplayName("does not count the time spent without presence as elapsed")
+        void does_not_count_the_time_spent_without_presence_as_elapsed() {
+            long onStartup = timed.editingContext().getElapsedTimes().onStartup();
+            
+            timed.showNothingWhileIdle();
+            now += TimeUnit.MINUTES.toNanos(10);
+            timed.showLastSelectedEditor();
+            
+            verify(discord).showNothing();
+            assertThat(timed.editingContext().getElapsedTimes().onStartup()).isEqualTo(onStartup + 600);
+        }
+        
+        @Test @DisplayName("does not overwrite the idle presence when the shown editor is closed")
+        void does_not_overwrite_the_idle_presence_when_the_shown_editor_is_closed(@Mock IWorkbenchPartReference closedPartRef) {
+            when(closedPartRef.getPart(anyBoolean())).thenReturn(activePart);
+            when(toRichPresence.apply(any(EditionContext.class))).thenReturn(Optional.empty());
+            timed.showIdle();
+            
+            timed.partClosed(closedPartRef);
+            verify(discord, never()).showNothing();
+            
+            timed.showLastSelectedEditor();
+            verify(discord).showNothing();
+            assertThat(timed.editingContext().lastSelectedEditor()).isEmpty();
+        }
+        
+        @Test @DisplayName("keeps the elapsed times when the user was not idle")
+        void keeps_the_elapsed_times_when_the_user_was_not_idle() {
+            long onSelection = timed.editingContext().getElapsedTimes().onSelection();
+            
+            now += TimeUnit.MINUTES.toNanos(10);
+            timed.showLastSelectedEditor();
+            
+            assertThat(timed.editingContext().getElapsedTimes().onSelection()).isEqualTo(onSelection);
+        }
+        
+    }
+
+    @Nested
+    @DisplayName("when debouncing activations")
+    class WhenDebouncingActivations {
+        
+        private final List<Runnable> scheduledTasks = new ArrayList<>();
+        
+        private long now;
+        
+        private UpdateDiscordOnEditorChange debounced;
+        
+        @BeforeEach
+        void createDebouncedListener() {
+            debounced = new UpdateDiscordOnEditorChange(discord, toRichPresence, preferences, Duration.ofMillis(150), 
+                    (delay, task) -> scheduledTasks.add(task), () -> now);
+        }
+        
+        @Test @DisplayName("only shows the editor the user settles on")
+        void only_shows_the_editor_the_user_settles_on(@Mock(name = "first") IEditorPart first, @Mock(name = "second") IEditorPart second) {
+            debounced.selectionChanged(first, null);
+            debounced.selectionChanged(second, null);
+            debounced.selectionChanged(activePart, null);
+            verifyZeroInteractions(toRichPresence);
+            
+            endBurst();
+            
+            verify(toRichPresence).apply(any(EditionContext.class));
+            verify(discord).show(any(RichPresence.class));
+            assertThat(debounced.editingContext().lastSelectedEditor()).contains(activePart);
+            assertThat(debounced.rawActivations()).isEqualTo(3);
+            assertThat(debounced.effectiveActivations()).isEqualTo(1);
+        }
+        
+        @Test @DisplayName("does not count selections in the editor waiting to be shown as activations")
+        void does_not_count_selections_in_the_editor_waiting_to_be_shown_as_activations() {
+            debounced.selectionChanged(activePart, null);
+            now += TimeUnit.MILLISECONDS.toNanos(100);
+            debounced.selectionChanged(activePart, null);
+            now += TimeUnit.MILLISECONDS.toNanos(50);
+            runScheduledTasks();
+            
+            verify(discord).show(any(RichPresence.class));
+            assertThat(debounced.rawActivations()).isEqualTo(1);
+        }
+        
+        @Test @DisplayName("does not count selections in the shown editor as activations")
+        void does_not_count_selections_in_the_shown_editor_as_activations() {
+            debounced.selectionChanged(activePart, null);
+            endBurst();
+            
+            for (int i = 0; i < 10; ++i) {
+                debounced.selectionChanged(activePart, null);
+            }
+            
+            assertThat(scheduledTasks).isEmpty();
+            assertThat(debounced.rawActivations()).isEqualTo(1);
+        }
+        
+        @Test @DisplayName("keeps the shown editor when the user comes back to it during the burst")
+        void keeps_the_shown_editor_when_the_user_comes_back_to_it_during_the_burst(@Mock IEditorPart other) {
+            debounced.selectionChanged(activePart, null);
+            endBurst();
+            
+            debounced.selectionChanged(other, null);
+            debounced.selectionChanged(activePart, null);
+            endBurst();
+            
+            assertThat(debounced.editingContext().lastSelectedEditor()).contains(activePart);
+            verify(discord).show(any(RichPresence.class));
+        }
+        
+        @Test @DisplayName("does not show an editor closed during the burst")
+        void does_not_show_an_editor_closed_during_the_burst(@Mock IWorkbenchPartReference closedPartRef) {
+            when(closedPartRef.getPart(anyBoolean())).thenReturn(activePart);
+            
+            debounced.selectionChanged(activePart, null);
+            debounced.partClosed(closedPartRef);
+            endBurst();
+            
+            verify(discord, never()).show(any(RichPresence.class));
+        }
+        
+        private void endBurst() {
+            now += TimeUnit.MILLISECONDS.toNanos(150);
+            runScheduledTasks();
+        }
+        
+        private void runScheduledTasks() {
+            List<Runnable> toRun = new ArrayList<>(scheduledTasks);
+            scheduledTasks.clear();
+            toRun.forEach(Runnable::run);
+        }
+        
+    }
+
+    @Nested
+    @DisplayName("over a long session")
+    class OverALongSession {
+        
+        private static final int EDITOR_SWITCHES = 5_000;
+        
+        /** The setting listeners currently registered on the preferences of the projects. */
+        private final List<SettingChangeListener> registeredListeners = new ArrayList<>();
+        
+        /** The listeners currently registered on the node backing the global preferences. */
+        private final List<IPreferenceChangeListener> nodeListeners = new ArrayList<>();
+        
+        // Mocks created with stubOnly() do not record their invocations, hence do not retain their arguments
+        
+        private final DiscordRpcLifecycle stubDiscord = mock(DiscordRpcLifecycle.class, withSettings().stubOnly());
+        
+        private final ProjectPreferencesRegistry stubProjects = mock(ProjectPreferencesRegistry.class, withSettings().stubOnly());
+        
+        private final IProject[] projects = {
+            mock(IProject.class, withSettings().stubOnly()), mock(IProject.class, withSettings().stubOnly())
+        };
+        
+        /** The store whose listeners used to pile up, one per editor switch. */
+        private DetachedPreferenceStore store;
+        
+        private GlobalPreferences globalPreferences;
+        
+        @BeforeEach
+        void createPreferences() {
+            IEclipsePreferences node = mock(IEclipsePreferences.class, withSettings().stubOnly());
+            when(node.parent()).thenReturn(mock(IEclipsePreferences.class, withSettings().stubOnly()));
+            when(node.get(anyString(), anyString())).thenAnswer(invocation -> invocation.getArgument(1));
+            doAnswer(invocation -> nodeListeners.add(invocation.getArgument(0)))
+                .when(node).addPreferenceChangeListener(any());
+            doAnswer(invocation -> nodeListeners.remove(invocation.getArgument(0)))
+                .when(node).removePreferenceChangeListener(any());
+            
+            PreferencesSnapshot snapshot = PreferencesSnapshot.of(mock(UserPreferences.class, withSettings().stubOnly()), 0);
+            
+            for (IProject project : projects) {
+                ProjectPreferences projectPreferences = mock(ProjectPreferences.class, withSettings().stubOnly());
+                when(projectPreferences.snapshot()).thenReturn(snapshot);
+                doAnswer(invocation -> registeredListeners.add(invocation.getArgument(0)))
+                    .when(projectPreferences).addSettingChangeListener(any());
+                doAnswer(invocation -> registeredListeners.remove(invocation.getArgument(0)))
+                    .when(projectPreferences).removeSettingChangeListener(any());
+                when(stubProjects.preferencesOf(project)).thenReturn(projectPreferences);
+            }
+            store = new DetachedPreferenceStore(node);
+            globalPreferences = new GlobalPreferences(stubProjects, store);
+        }
+        
+        @Test @DisplayName("does not retain the editors it switched from")
+        void does_not_retain_the_editors_it_switched_from() throws InterruptedException {
+            Function<EditionContext, Optional<RichPresence>> presenceOfEditor = context -> 
+                context.lastSelectedEditor().map(editor -> presenceIn(projects[editor.hashCode() % 2 == 0 ? 0 : 1]));
+            UpdateDiscordOnEditorChange updater = new UpdateDiscordOnEditorChange(stubDiscord, presenceOfEditor, globalPreferences);
+            
+            List<WeakReference<IEditorPart>> switchedFrom = new ArrayList<>();
+            
+            for (int i = 0; i < EDITOR_SWITCHES; ++i) {
+                IEditorPart editor = mock(IEditorPart.class, withSettings().stubOnly());
+                updater.selectionChanged(editor, null);
+                
+                if (i % 100 == 0) {
+                    switchedFrom.add(new WeakReference<>(editor));
+                }
+            }
+            awaitGarbageCollectionOf(switchedFrom);
+            
+            assertThat(switchedFrom).allMatch(reference -> reference.get() == null);
+            assertThat(registeredListeners).hasSize(1);
+        }
+        
+        @Test @DisplayName("keeps a bounded number of listeners on the preference store")
+        void keeps_a_bounded_number_of_listeners_on_the_preference_store() {
+            Function<EditionContext, Optional<RichPresence>> presenceOfEditor = context -> 
+                context.lastSelectedEditor().map(editor -> presenceIn(projects[editor.hashCode() % 2 == 0 ? 0 : 1]));
+            UpdateDiscordOnEditorChange updater = new UpdateDiscordOnEditorChange(stubDiscord, presenceOfEditor, globalPreferences);
+            
+            for (int i = 0; i < EDITOR_SWITCHES; ++i) {
+                updater.selectionChanged(mock(IEditorPart.class, withSettings().stubOnly()), null);
+                
+                assertThat(store.listenerCount()).isEqualTo(1);
+                assertThat(nodeListeners).hasSize(1);
+            }
+        }
+        
+        private RichPresence presenceIn(IProject project) {
+            RichPresence presence = mock(RichPresence.class, withSettings().stubOnly());
+            when(presence.getProject()).thenReturn(Optional.of(project));
+            return presence;
+        }
+        
+        private void awaitGarbageCollectionOf(List<? extends WeakReference<?>> references) throws InterruptedException {
+            for (int attempt = 0; attempt < 50 && references.stream().anyMatch(reference -> reference.get() != null); ++attempt) {
+                System.gc();
+                Thread.sleep(20);
+            }
+        }
+        
+    }
+
 }
@@ -0,0 +1,427 @@
+package fr.kazejiyu.discord.rpc.integration.languages;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.assertj.core.api.WithAssertions;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Unit test the {@link FirstLinesSniffer} class.
+ */
+@DisplayName("A FirstLinesSniffer")
+public class FirstLinesSnifferTest implements WithAssertions {
+    
+    @TempDir
+    Path directory;
+    
+    /** The files to read, read on demand. */
+    Queue<Runnable> reads;
+    
+    FirstLinesSniffer sniffer;
+    
+    @BeforeEach
+    void setup() {
+        reads = new ArrayDeque<>();
+        sniffer = new FirstLinesSniffer(Runnable::run);
+    }
+    
+    @Nested @DisplayName("during instanciation")
+    class DuringInstanciation {
+        
+        @Test @DisplayName("throws if executor is null")
+        void throws_if_executor_is_null() {
+            assertThatNullPointerException().isThrownBy(() ->
+                new FirstLinesSniffer(null)
+            );
+        }
+        
+    }
+    
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("firstLines")
+    @DisplayName("recognizes shebangs and modelines")
+    void recognizes_shebangs_and_modelines(String firstLine, Language expected) {
+        assertThat(language(firstLine + "\nsome content\n")).isEqualTo(expected);
+    }
+    
+    static Stream<Arguments> firstLines() {
+        return Stream.of(
+            Arguments.of("#!/bin/bash", Language.TERMINAL),
+            Arguments.of("#!/bin/sh -e", Language.TERMINAL),
+            Arguments.of("#!/usr/bin/env python3", Language.PYTHON),
+            Arguments.of("#!/usr/bin/env python3.8", Language.PYTHON),
+            Arguments.of("#! /usr/bin/env -S node --harmony", Language.JAVASCRIPT),
+            Arguments.of("#!/usr/bin/env FOO=bar ruby", Language.RUBY),
+            Arguments.of("#!/usr/local/bin/ruby2.7 -w", Language.RUBY),
+            Arguments.of("#!groovy", Language.GROOVY),
+            Arguments.of("#!/usr/bin/env Rscript", Language.R),
+            Arguments.of("#!/usr/bin/env kotlin", Language.KOTLIN),
+            Arguments.of("# -*- mode: ruby; coding: utf-8 -*-", Language.RUBY),
+            Arguments.of("// -*- groovy -*-", Language.GROOVY),
+            Arguments.of("# vim: set ft=python :", Language.PYTHON),
+            Arguments.of("// vi: syntax=javascript", Language.JAVASCRIPT),
+            Arguments.of("/* vim: set filetype=java : */", Language.JAVA)
+        );
+    }
+    
+    @ParameterizedTest
+    @ValueSource(strings = {"", "hello world", "#!/usr/bin/perl", "#!", "# -*- coding: utf-8 -*-", "vim is great"})
+    @DisplayName("does not recognize other contents")
+    void does_not_recognize_other_contents(String head) {
+        assertThat(language(head)).isEqualTo(Language.UNKNOWN);
+    }
+    
+    @Test @DisplayName("recognizes modelines on the lines following a shebang")
+    void recognizes_modelines_on_the_lines_following_a_shebang() {
+        assertThat(language("#!/usr/bin/perl\n# vim: ft=sh\n")).isEqualTo(Language.TERMINAL);
+    }
+    
+    @Test @DisplayName("skips the UTF-8 byte order mark")
+    void skips_the_utf8_byte_order_mark() {
+        assertThat(language("\u00EF\u00BB\u00BF#!/bin/sh\n")).isEqualTo(Language.TERMINAL);
+    }
+    
+    @Test @DisplayName("only matches the bytes between the position and the limit of the buffer")
+    void only_matches_the_bytes_between_the_position_and_the_limit_of_the_buffer() {
+        ByteBuffer head = bytes("#!/bin/bash\n# vim: ft=java\n# vim: ft=python\n");
+        head.position(12).limit(27);
+        
+        assertThat(FirstLinesSniffer.languageOfFirstBytes(head, LanguageIndex.builtIn())).isEqualTo(LanguageDescriptor.of(Language.JAVA));
+        assertThat(head.position()).isEqualTo(12);
+    }
+    
+    @Test @DisplayName("reads local files")
+    void reads_local_files() throws IOException {
+        IFile file = file("deploy", "#!/bin/bash\necho deploying\n", 1);
+        
+        assertThat(sniffer.languageOf(file)).isEqualTo(LanguageDescriptor.of(Language.TERMINAL));
+    }
+    
+    @Test @DisplayName("reads remote files through their contents")
+    void reads_remote_files_through_their_contents() throws CoreException {
+        IFile file = mock(IFile.class);
+        when(file.getModificationStamp()).thenReturn(1L);
+        when(file.getContents(true)).thenReturn(new ByteArrayInputStream("#!/usr/bin/env python\n".getBytes(UTF_8)));
+        
+        assertThat(sniffer.languageOf(file)).isEqualTo(LanguageDescriptor.of(Language.PYTHON));
+    }
+    
+    @Test @DisplayName("only reads the first bytes of a file")
+    void only_reads_the_first_bytes_of_a_file() throws IOException {
+        StringBuilder content = new StringBuilder();
+        
+        while (content.length() < FirstLinesSniffer.MAX_BYTES) {
+            content.append("some content\n");
+        }
+        content.append("# vim: ft=python\n");
+        IFile file = file("run", content.toString(), 1);
+        
+        assertThat(sniffer.languageOf(file)).isEqualTo(LanguageDescriptor.UNKNOWN);
+    }
+    
+    @Test @DisplayName("does not read missing files")
+    void does_not_read_missing_files() throws CoreException {
+        IFile file = mock(IFile.class);
+        when(file.getModificationStamp()).thenReturn((long) IResource.NULL_STAMP);
+        
+        assertThat(sniffer.languageOf(file)).isEqualTo(LanguageDescriptor.UNKNOWN);
+        verify(file, never()).getLocation();
+        verify(file, never()).getContents(true);
+    }
+    
+    @Test @DisplayName("does not read a file again while it is not modified")
+    void does_not_read_a_file_again_while_it_is_not_modified() throws IOException {
+        IFile file = file("deploy", "#!/bin/bash\n", 1);
+        sniffer.languageOf(file);
+        
+        Files.write(directory.resolve("deploy"), "#!/usr/bin/env python\n".getBytes(UTF_8));
+        
+        assertThat(sniffer.languageOf(file)).isEqualTo(LanguageDescriptor.of(Language.TERMINAL));
+        verify(file, times(1)).getLocation();
+    }
+    
+    @Test @DisplayName("reads a file again once it is modified")
+    void reads_a_file_again_once_it_is_modified() throws IOException {
+        IFile file = file("deploy", "#!/bin/bash\n", 1);
+        sniffer.languageOf(file);
+        
+        Files.write(directory.resolve("deploy"), "#!/usr/bin/env python\n".getBytes(UTF_8));
+        when(file.getModificationStamp()).thenReturn(2L);
+        
+        assertThat(sniffer.languageOf(file)).isEqualTo(LanguageDescriptor.of(Language.PYTHON));
+        assertThat(sniffer.cachedFiles()).isEqualTo(1);
+    }
+    
+    @Test @DisplayName("does not wait for files to be read")
+    void does_not_wait_for_files_to_be_read() throws IOException {
+        FirstLinesSniffer slow = new FirstLinesSniffer(reads::add);
+        IFile file = file("deploy", "#!/bin/bash\n", 1);
+        
+        assertThat(slow.languageOf(file)).isEqualTo(LanguageDescriptor.UNKNOWN);
+        assertThat(slow.languageOf(file)).isEqualTo(LanguageDescriptor.UNKNOWN);
+        assertThat(reads).hasSize(1);
+    }
+    
+    @Test @DisplayName("remembers the language read in the background")
+    void remembers_the_language_read_in_the_background() throws IOException {
+        FirstLinesSniffer slow = new FirstLinesSniffer(reads::add);
+        IFile file = file("deploy", "#!/bin/bash\n", 1);
+        slow.languageOf(file);
+        
+        reads.poll().run();
+        
+        assertThat(slow.languageOf(file)).isEqualTo(LanguageDescriptor.of(Language.TERMINAL));
+        assertThat(reads).isEmpty();
+    }
+    
+    @Nested @DisplayName("when a language is known after having been asked for")
+    class WhenALanguageIsKnownLate {
+        
+        FirstLinesSniffer slow;
+        
+        AtomicInteger notifications;
+        
+        @BeforeEach
+        void setup() {
+            slow = new FirstLinesSniffer(reads::add);
+            notifications = new AtomicInteger();
+            slow.addSniffListener(notifications::incrementAndGet);
+        }
+        
+        @Test @DisplayName("notifies the listeners once")
+        void notifies_the_listeners_once() throws IOException {
+            IFile file = file("deploy", "#!/bin/bash\n", 1);
+            slow.languageOf(file);
+            slow.languageOf(file);
+            assertThat(notifications).hasValue(0);
+            
+            reads.poll().run();
+            
+            assertThat(notifications).hasValue(1);
+            assertThat(slow.languageOf(file)).isEqualTo(LanguageDescriptor.of(Language.TERMINAL));
+            assertThat(notifications).hasValue(1);
+        }
+        
+        @Test @DisplayName("does not notify the listeners if the language remains unknown")
+        void does_not_notify_the_listeners_if_the_language_remains_unknown() throws IOException {
+            IFile file = file("notes", "hello world\n", 1);
+            slow.languageOf(file);
+            
+            reads.poll().run();
+            
+            assertThat(notifications).hasValue(0);
+        }
+        
+        @Test @DisplayName("does not notify the removed listeners")
+        void does_not_notify_the_removed_listeners() throws IOException {
+            Runnable removed = mock(Runnable.class);
+            slow.addSniffListener(removed);
+            slow.removeSniffListener(removed);
+            slow.languageOf(file("deploy", "#!/bin/bash\n", 1));
+            
+            reads.poll().run();
+            
+            verify(removed, never()).run();
+            assertThat(notifications).hasValue(1);
+        }
+        
+    }
+    
+    @Test @DisplayName("does not notify the listeners of the languages known right away")
+    void does_not_notify_the_listeners_of_the_languages_known_right_away() throws IOException {
+        Runnable listener = mock(Runnable.class);
+        sniffer.addSniffListener(listener);
+        
+        assertThat(sniffer.languageOf(file("deploy", "#!/bin/bash\n", 1))).isEqualTo(LanguageDescriptor.of(Language.TERMINAL));
+        verify(listener, never()).run();
+    }
+    
+    @Test @DisplayName("reads files from a background thread")
+    void reads_files_from_a_background_thread() throws IOException, InterruptedException {
+        CountDownLatch asked = new CountDownLatch(1);
+        CountDownLatch sniffed = new CountDownLatch(1);
+        FirstLinesSniffer background = new FirstLinesSniffer(task -> new Thread(() -> {
+            awaitQuietly(asked);
+            task.run();
+        }).start());
+        background.addSniffListener(sniffed::countDown);
+        IFile file = file("deploy", "#!/bin/bash\n", 1);
+        
+        assertThat(background.languageOf(file)).isEqualTo(LanguageDescriptor.UNKNOWN);
+        asked.countDown();
+        
+        assertThat(sniffed.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(background.languageOf(file)).isEqualTo(LanguageDescriptor.of(Language.TERMINAL));
+    }
+    
+    @Nested @DisplayName("when a read hangs")
+    class WhenAReadHangs {
+        
+        /** Released once the test is over, so that the hung reads end. */
+        final CountDownLatch over = new CountDownLatch(1);
+        
+        /** Counts down when a hung read is interrupted. */
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        
+        final CountDownLatch sniffed = new CountDownLatch(1);
+        
+        @AfterEach
+        void releaseHungReads() {
+            over.countDown();
+        }
+        
+        @Test @DisplayName("gives up the read once its timeout is spent")
+        void gives_up_the_read_once_its_timeout_is_spent() throws CoreException, InterruptedException {
+            BlockingQueue<Runnable> timeouts = new LinkedBlockingQueue<>();
+            FirstLinesSniffer hanging = new FirstLinesSniffer(
+                task -> new Thread(task).start(), 
+                (delay, task) -> timeouts.add(task), 
+                50, LanguageIndex::builtIn
+            );
+            hanging.addSniffListener(sniffed::countDown);
+            IFile file = hungFile(true);
+            
+            assertThat(hanging.languageOf(file)).isEqualTo(LanguageDescriptor.UNKNOWN);
+            Runnable giveUp = timeouts.poll(10, TimeUnit.SECONDS);
+            assertThat(giveUp).isNotNull();
+            giveUp.run();
+            
+            assertThat(interrupted.await(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(hanging.languageOf(file)).isEqualTo(LanguageDescriptor.UNKNOWN);
+            assertThat(sniffed.getCount()).isEqualTo(1);
+        }
+        
+        @Test @DisplayName("reads the next files from another thread")
+        void reads_the_next_files_from_another_thread() throws IOException, CoreException, InterruptedException {
+            try (FirstLinesSniffer hanging = new FirstLinesSniffer(50)) {
+                hanging.addSniffListener(sniffed::countDown);
+                IFile hung = hungFile(false);
+                IFile deploy = file("deploy", "#!/bin/bash\n", 1);
+                
+                assertThat(hanging.languageOf(hung)).isEqualTo(LanguageDescriptor.UNKNOWN);
+                assertThat(hanging.languageOf(deploy)).isEqualTo(LanguageDescriptor.UNKNOWN);
+                
+                assertThat(sniffed.await(10, TimeUnit.SECONDS)).isTrue();
+                assertThat(hanging.languageOf(deploy)).isEqualTo(LanguageDescriptor.of(Language.TERMINAL));
+                assertThat(hanging.languageOf(hung)).isEqualTo(LanguageDescriptor.UNKNOWN);
+            }
+        }
+        
+        /** Returns a file whose contents cannot be read until the test is over. */
+        private IFile hungFile(boolean interruptible) throws CoreException {
+            IFile file = mock(IFile.class);
+            when(file.getName()).thenReturn("hung");
+            when(file.getModificationStamp()).thenReturn(1L);
+            when(file.getContents(true)).thenReturn(new InputStream() {
+                @Override
+                public int read() throws IOException {
+                    while (true) {
+                        try {
+                            over.await();
+                            return -1;
+                        }
+                        catch (InterruptedException e) {
+                            interrupted.countDown();
+                            
+                            if (interruptible) {
+                                throw new InterruptedIOException();
+                            }
+                        }
+                    }
+                }
+            });
+            return file;
+        }
+        
+    }
+    
+    @Nested @DisplayName("given contributed languages")
+    class GivenContributedLanguages {
+        
+        final LanguageDescriptor julia = new LanguageDescriptor("julia", "Julia", asList("jl"), emptyList());
+        
+        final LanguageIndex index = LanguageIndex.of(singletonList(julia));
+        
+        @ParameterizedTest
+        @ValueSource(strings = {"#!/usr/bin/env julia", "#!/usr/local/bin/julia1.5", "# vim: ft=jl", "# -*- mode: Julia -*-"})
+        @DisplayName("recognizes them in shebangs and modelines")
+        void recognizes_them_in_shebangs_and_modelines(String firstLine) {
+            assertThat(FirstLinesSniffer.languageOfFirstBytes(bytes(firstLine + "\n"), index)).isEqualTo(julia);
+        }
+        
+        @Test @DisplayName("reads files with the current index")
+        void reads_files_with_the_current_index() throws IOException {
+            FirstLinesSniffer contributed = new FirstLinesSniffer(Runnable::run, () -> index);
+            IFile file = file("solve", "#!/usr/bin/env julia\n", 1);
+            
+            assertThat(contributed.languageOf(file)).isEqualTo(julia);
+        }
+        
+    }
+    
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /** Returns the built-in language of a file starting with {@code head}. */
+    private static Language language(String head) {
+        return FirstLinesSniffer.languageOfFirstBytes(bytes(head), LanguageIndex.builtIn()).builtIn().orElse(Language.UNKNOWN);
+    }
+    
+    private static ByteBuffer bytes(String head) {
+        return ByteBuffer.wrap(head.getBytes(ISO_8859_1));
+    }
+    
+    private IFile file(String name, String content, long stamp) throws IOException {
+        Path path = Files.write(directory.resolve(name), content.getBytes(UTF_8));
+        
+        IFile file = mock(IFile.class);
+        when(file.getName()).thenReturn(name);
+        when(file.getModificationStamp()).thenReturn(stamp);
+        when(file.getLocation()).thenReturn(org.eclipse.core.runtime.Path.fromOSString(path.toString()));
+        return file;
+    }
+    
+}
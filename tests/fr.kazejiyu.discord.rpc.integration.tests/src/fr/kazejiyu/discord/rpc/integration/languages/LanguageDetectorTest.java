@@ -0,0 +1,262 @@
+package fr.kazejiyu.discord.rpc.integration.languages;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+import org.assertj.core.api.WithAssertions;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.content.IContentType;
+import org.eclipse.core.runtime.content.IContentTypeManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+
+import fr.kazejiyu.discord.rpc.integration.tests.mock.MockitoExtension;
+
+/**
+ * Unit test the {@link LanguageDetector} class.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("A LanguageDetector")
+public class LanguageDetectorTest implements WithAssertions {
+    
+    @Mock
+    IContentTypeManager contentTypes;
+    
+    LanguageDetector detector;
+    
+    IContentType text;
+    
+    IContentType xml;
+    
+    @BeforeEach
+    void setup() {
+        detector = LanguageDetector.listeningTo(contentTypes);
+        text = contentType(IContentTypeManager.CT_TEXT, null);
+        xml = contentType("org.eclipse.core.runtime.xml", text, "xml");
+    }
+    
+    @Nested @DisplayName("during instanciation")
+    class DuringInstanciation {
+        
+        @Test @DisplayName("throws if the content type manager is null")
+        void throws_if_the_content_type_manager_is_null() {
+            assertThatNullPointerException().isThrownBy(() ->
+                LanguageDetector.listeningTo(null)
+            );
+        }
+        
+        @Test @DisplayName("listens to content type changes")
+        void listens_to_content_type_changes() {
+            verify(contentTypes).addContentTypeChangeListener(detector);
+        }
+        
+    }
+    
+    @Test @DisplayName("uses the extension index first")
+    void uses_the_extension_index_first() {
+        assertThat(detector.languageOf("Foo.java")).isEqualTo(Language.JAVA);
+        assertThat(detector.languageOf("Dockerfile")).isEqualTo(Language.DOCKER);
+        verify(contentTypes, never()).findContentTypeFor(anyString());
+    }
+    
+    @Test @DisplayName("is unknown when no content type matches")
+    void is_unknown_when_no_content_type_matches() {
+        assertThat(detector.languageOf("Foo.blo")).isEqualTo(Language.UNKNOWN);
+    }
+    
+    @Test @DisplayName("walks the base-type chain of the content type")
+    void walks_the_base_type_chain_of_the_content_type() {
+        IContentType pom = contentType("org.eclipse.m2e.pomFile", xml, "pom");
+        when(contentTypes.findContentTypeFor("project.pom")).thenReturn(pom);
+        
+        assertThat(detector.languageOf("project.pom")).isEqualTo(Language.TEXT);
+    }
+    
+    @Test @DisplayName("uses the well-known content types")
+    void uses_the_well_known_content_types() {
+        IContentType javaSource = contentType("org.eclipse.jdt.core.javaSource", text, "java");
+        IContentType xtend = contentType("org.eclipse.xtend.core.Xtend", javaSource, "xtend");
+        when(contentTypes.findContentTypeFor("Foo.xtend")).thenReturn(xtend);
+        
+        assertThat(detector.languageOf("Foo.xtend")).isEqualTo(Language.JAVA);
+    }
+    
+    @Test @DisplayName("uses the extensions associated with the content type")
+    void uses_the_extensions_associated_with_the_content_type() {
+        IContentType typeScript = contentType("org.example.typescript", text, "tsx", "ts");
+        when(contentTypes.findContentTypeFor("App.tsx")).thenReturn(typeScript);
+        
+        assertThat(detector.languageOf("App.tsx")).isEqualTo(Language.TYPESCRIPT);
+    }
+    
+    @Test @DisplayName("uses the file names associated with the content type")
+    void uses_the_file_names_associated_with_the_content_type() {
+        IContentType docker = contentType("org.example.docker", text);
+        when(docker.getFileSpecs(IContentType.FILE_NAME_SPEC)).thenReturn(new String[] {"Dockerfile"});
+        when(contentTypes.findContentTypeFor("Containerfile")).thenReturn(docker);
+        
+        assertThat(detector.languageOf("Containerfile")).isEqualTo(Language.DOCKER);
+    }
+    
+    @Test @DisplayName("is unknown when no type of the chain tells the language")
+    void is_unknown_when_no_type_of_the_chain_tells_the_language() {
+        IContentType binary = contentType("org.example.binary", null, "dat");
+        when(contentTypes.findContentTypeFor("data.dat")).thenReturn(binary);
+        
+        assertThat(detector.languageOf("data.dat")).isEqualTo(Language.UNKNOWN);
+    }
+    
+    @Test @DisplayName("computes the language of a content type once")
+    void computes_the_language_of_a_content_type_once() {
+        IContentType launch = contentType("org.eclipse.debug.core.launch", xml, "launch");
+        when(contentTypes.findContentTypeFor(anyString())).thenReturn(launch);
+        
+        for (int i = 0; i < 100; ++i) {
+            assertThat(detector.languageOf("Run " + i + ".launch")).isEqualTo(Language.TEXT);
+        }
+        verify(launch, times(1)).getBaseType();
+        assertThat(detector.cachedContentTypes()).isEqualTo(1);
+    }
+    
+    @Test @DisplayName("computes the languages again when content types change")
+    void computes_the_languages_again_when_content_types_change() {
+        IContentType launch = contentType("org.eclipse.debug.core.launch", xml, "launch");
+        when(contentTypes.findContentTypeFor(anyString())).thenReturn(launch);
+        detector.languageOf("Run.launch");
+        
+        detector.contentTypeChanged(null);
+        
+        assertThat(detector.cachedContentTypes()).isZero();
+        assertThat(detector.languageOf("Run.launch")).isEqualTo(Language.TEXT);
+        verify(launch, times(2)).getBaseType();
+    }
+    
+    @Test @DisplayName("guesses the language of files without extension from their first bytes")
+    void guesses_the_language_of_files_without_extension_from_their_first_bytes() throws CoreException {
+        LanguageDetector sniffing = new LanguageDetector(contentTypes, new FirstLinesSniffer(Runnable::run));
+        IFile deploy = workspaceFile("deploy", "#!/bin/bash\n");
+        IFile notes = workspaceFile("notes.blo", "#!/bin/bash\n");
+        
+        assertThat(sniffing.languageOf(deploy)).isEqualTo(Language.TERMINAL);
+        assertThat(sniffing.languageOf(notes)).isEqualTo(Language.UNKNOWN);
+        verify(notes, never()).getContents(true);
+    }
+    
+    @Test @DisplayName("notifies the listeners once the language of a file is guessed in the background")
+    void notifies_the_listeners_once_the_language_of_a_file_is_guessed_in_the_background(@Mock Runnable listener) throws CoreException {
+        Queue<Runnable> reads = new ArrayDeque<>();
+        LanguageDetector sniffing = new LanguageDetector(contentTypes, new FirstLinesSniffer(reads::add));
+        sniffing.addSniffListener(listener);
+        IFile deploy = workspaceFile("deploy", "#!/bin/bash\n");
+        
+        assertThat(sniffing.languageOf(deploy)).isEqualTo(Language.UNKNOWN);
+        verify(listener, never()).run();
+        
+        reads.poll().run();
+        
+        verify(listener).run();
+        assertThat(sniffing.languageOf(deploy)).isEqualTo(Language.TERMINAL);
+    }
+    
+    @Test @DisplayName("does not read files whose name tells the language")
+    void does_not_read_files_whose_name_tells_the_language() throws CoreException {
+        LanguageDetector sniffing = new LanguageDetector(contentTypes, new FirstLinesSniffer(Runnable::run));
+        IFile dockerfile = workspaceFile("Dockerfile", "#!/bin/bash\n");
+        
+        assertThat(sniffing.languageOf(dockerfile)).isEqualTo(Language.DOCKER);
+        verify(dockerfile, never()).getContents(true);
+    }
+    
+    @Nested @DisplayName("given contributed languages")
+    class GivenContributedLanguages {
+        
+        final LanguageDescriptor julia = new LanguageDescriptor("julia", "Julia", asList("jl"), emptyList());
+        
+        LanguageIndex index = LanguageIndex.of(singletonList(julia));
+        
+        LanguageDetector contributed;
+        
+        @BeforeEach
+        void setup() {
+            contributed = new LanguageDetector(contentTypes, new FirstLinesSniffer(Runnable::run, () -> index), () -> index);
+        }
+        
+        @Test @DisplayName("resolves the content types with the index")
+        void resolves_the_content_types_with_the_index() {
+            IContentType notebook = contentType("org.example.julia.notebook", text, "jlnb", "jl");
+            when(contentTypes.findContentTypeFor("analysis.jlnb")).thenReturn(notebook);
+            
+            assertThat(contributed.descriptorOf("analysis.jlnb")).isEqualTo(julia);
+            assertThat(contributed.languageOf("analysis.jlnb")).isEqualTo(Language.UNKNOWN);
+        }
+        
+        @Test @DisplayName("resolves the content types again when the index changes")
+        void resolves_the_content_types_again_when_the_index_changes() {
+            IContentType notebook = contentType("org.example.julia.notebook", text, "jlnb", "jl");
+            when(contentTypes.findContentTypeFor("analysis.jlnb")).thenReturn(notebook);
+            contributed.descriptorOf("analysis.jlnb");
+            
+            index = LanguageIndex.builtIn();
+            
+            assertThat(contributed.descriptorOf("analysis.jlnb").getName()).isEqualTo(Language.TEXT.getName());
+        }
+        
+        @Test @DisplayName("resolves the first bytes of files with the index")
+        void resolves_the_first_bytes_of_files_with_the_index() throws CoreException {
+            IFile solve = workspaceFile("solve", "#!/usr/bin/env julia\n");
+            
+            assertThat(contributed.descriptorOf(solve)).isEqualTo(julia);
+            assertThat(contributed.languageOf(solve)).isEqualTo(Language.UNKNOWN);
+        }
+        
+    }
+    
+    @Test @DisplayName("stops listening once closed")
+    void stops_listening_once_closed() {
+        detector.close();
+        
+        verify(contentTypes).removeContentTypeChangeListener(detector);
+    }
+    
+    @Test @DisplayName("only relies on the extension index when the platform is not running")
+    void only_relies_on_the_extension_index_when_the_platform_is_not_running() {
+        assertThat(LanguageDetector.getDefault().languageOf("Foo.java")).isEqualTo(Language.JAVA);
+        assertThat(LanguageDetector.getDefault().languageOf("project.pom")).isEqualTo(Language.UNKNOWN);
+    }
+    
+    private static IFile workspaceFile(String name, String content) throws CoreException {
+        IFile file = mock(IFile.class);
+        when(file.getName()).thenReturn(name);
+        when(file.getModificationStamp()).thenReturn(1L);
+        when(file.getContents(true)).thenReturn(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+        return file;
+    }
+    
+    private static IContentType contentType(String id, IContentType baseType, String... extensions) {
+        IContentType type = mock(IContentType.class);
+        when(type.getId()).thenReturn(id);
+        when(type.getBaseType()).thenReturn(baseType);
+        when(type.getFileSpecs(anyInt())).thenReturn(new String[0]);
+        when(type.getFileSpecs(IContentType.FILE_EXTENSION_SPEC)).thenReturn(extensions);
+        return type;
+    }
+    
+}
@@ -0,0 +1,172 @@
+package fr.kazejiyu.discord.rpc.integration.languages;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.assertj.core.api.WithAssertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Compares {@link Language#fromFileName(String)} and {@link LanguageIndex#lookup(String)} with the linear scans
+ * of {@link Language#values()} they replace,
+ * over file names distributed as in a typical Java workspace.
+ * <p>
+ * Disabled by default, run with {@code mvn verify -Dbenchmarks=true}. Results are printed on the standard output.
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+@DisplayName("Benchmark: looking for the language of a file")
+public class LanguageLookupBenchmark implements WithAssertions {
+
+    private static final int WARMUP = 2_000_000;
+
+    private static final int ITERATIONS = 20_000_000;
+
+    /** File names of a typical workspace, each one repeated according to its share of the files (in per mille). */
+    private static final Object[][] WORKSPACE = {
+        {"AbstractEditorInputAdapter.java", 520},
+        {"pom.xml", 30},
+        {"plugin.xml", 30},
+        {"MANIFEST.MF", 30},
+        {"build.properties", 40},
+        {"README.md", 30},
+        {"CHANGELOG.MD", 10},
+        {"index.js", 50},
+        {"app.component.ts", 40},
+        {"styles.css", 20},
+        {"index.html", 20},
+        {"package.json", 30},
+        {".gitignore", 20},
+        {"Dockerfile", 10},
+        {"deploy.sh", 20},
+        {"setup.py", 20},
+        {"main.c", 10},
+        {"LICENSE", 20},
+        {".classpath", 20},
+        {"application.yml", 20},
+        {"Query.SQL", 10}
+    };
+
+    private static final String[] FILE_NAMES = workspace();
+
+    /** A sink preventing the JIT from discarding the results. */
+    private long found;
+
+    @Test @DisplayName("linear scans")
+    void linear_scans() {
+        lookWithScans(WARMUP);
+
+        long allocated = allocatedBytes();
+        long start = System.nanoTime();
+        lookWithScans(ITERATIONS);
+        print("linear scans", System.nanoTime() - start, allocatedBytes() - allocated);
+    }
+
+    @Test @DisplayName("hash indexes")
+    void hash_indexes() {
+        lookWithIndexes(WARMUP);
+
+        long allocated = allocatedBytes();
+        long start = System.nanoTime();
+        lookWithIndexes(ITERATIONS);
+        print("hash indexes", System.nanoTime() - start, allocatedBytes() - allocated);
+    }
+
+    @Test @DisplayName("merged index of built-in and contributed languages")
+    void merged_index() {
+        LanguageIndex index = LanguageIndex.of(Arrays.asList(
+                new LanguageDescriptor("zig", "Zig", Arrays.asList("zig", "zon"), Arrays.asList("build.zig")),
+                new LanguageDescriptor("nim", "Nim", Arrays.asList("nim", "nims"), Collections.emptyList())
+        ));
+        lookWithMergedIndex(index, WARMUP);
+
+        long allocated = allocatedBytes();
+        long start = System.nanoTime();
+        lookWithMergedIndex(index, ITERATIONS);
+        print("merged index", System.nanoTime() - start, allocatedBytes() - allocated);
+    }
+
+    private void lookWithScans(int times) {
+        for (int i = 0; i < times; ++i) {
+            found += fromFileName(FILE_NAMES[i % FILE_NAMES.length]).ordinal();
+        }
+    }
+
+    private void lookWithIndexes(int times) {
+        for (int i = 0; i < times; ++i) {
+            found += Language.fromFileName(FILE_NAMES[i % FILE_NAMES.length]).ordinal();
+        }
+    }
+
+    private void lookWithMergedIndex(LanguageIndex index, int times) {
+        for (int i = 0; i < times; ++i) {
+            found += index.lookup(FILE_NAMES[i % FILE_NAMES.length]).getName().length();
+        }
+    }
+
+    /** The lookup previously implemented by {@link Language#fromFileName(String)}. */
+    private static Language fromFileName(String fileName) {
+        for (Language language : Language.values()) {
+            if (language.getFileNames().contains(fileName)) {
+                return language;
+            }
+        }
+        String extension = extensionOf(fileName);
+
+        if (extension.isEmpty()) {
+            return Language.UNKNOWN;
+        }
+        for (Language language : Language.values()) {
+            if (language.getFileExtensions().contains(extension)) {
+                return language;
+            }
+        }
+        return Language.UNKNOWN;
+    }
+
+    private static String extensionOf(String fileName) {
+        int dotIndex = fileName.lastIndexOf('.');
+
+        if (dotIndex <= 0 || fileName.length() <= dotIndex + 1) {
+            return "";
+        }
+        String extension = fileName.substring(dotIndex + 1);
+        return extension.toLowerCase();
+    }
+
+    /** Returns the file names of the workspace, shuffled so that branches cannot be predicted. */
+    private static String[] workspace() {
+        List<String> fileNames = new ArrayList<>();
+
+        for (Object[] file : WORKSPACE) {
+            for (int i = 0; i < (int) file[1]; ++i) {
+                // distinct instances, as returned by IFile.getName()
+                fileNames.add(new String((String) file[0]));
+            }
+        }
+        Collections.shuffle(fileNames, new Random(42));
+        return fileNames.toArray(new String[0]);
+    }
+
+    /** Returns the number of bytes allocated by the current thread so far, -1 if the JVM cannot tell. */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private void print(String name, long elapsed, long allocated) {
+        assertThat(found).isPositive();
+        System.out.println(String.format("%s: %.1f ns and %.1f bytes per lookup", 
+                name, (double) elapsed / ITERATIONS, (double) allocated / ITERATIONS));
+    }
+
+}
@@ -0,0 +1,167 @@
+package fr.kazejiyu.discord.rpc.integration.languages;
+
+import static java.util.Collections.emptyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+
+import org.assertj.core.api.WithAssertions;
+import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.IExtension;
+import org.eclipse.core.runtime.IExtensionRegistry;
+import org.eclipse.core.runtime.content.IContentTypeMatcher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+
+import fr.kazejiyu.discord.rpc.integration.Plugin;
+import fr.kazejiyu.discord.rpc.integration.tests.mock.MockitoExtension;
+
+/**
+ * Unit test the {@link LanguageRegistry} class.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("A LanguageRegistry")
+public class LanguageRegistryTest implements WithAssertions {
+
+    @Mock
+    IExtensionRegistry registry;
+
+    LanguageRegistry languages;
+
+    @BeforeEach
+    void setup() {
+        contribute(language("zig", "Zig", "zig, .zon", "build.zig"));
+        languages = LanguageRegistry.listeningTo(registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        languages.close();
+    }
+
+    @Nested @DisplayName("during instanciation")
+    class DuringInstanciation {
+
+        @Test @DisplayName("throws if registry is null")
+        void throws_if_registry_is_null() {
+            assertThatNullPointerException().isThrownBy(() ->
+                new LanguageRegistry(null)
+            );
+        }
+
+        @Test @DisplayName("listens to the registry")
+        void listens_to_the_registry() {
+            verify(registry).addListener(languages, Plugin.LANGUAGE_EXTENSION_ID);
+        }
+
+    }
+
+    @Test @DisplayName("indexes the built-in languages")
+    void indexes_the_built_in_languages() {
+        assertThat(languages.index().lookup("Foo.java")).isSameAs(LanguageDescriptor.of(Language.JAVA));
+        assertThat(languages.index().lookup("Dockerfile")).isSameAs(LanguageDescriptor.of(Language.DOCKER));
+        assertThat(languages.index().lookup("Foo.blo")).isSameAs(LanguageDescriptor.UNKNOWN);
+    }
+
+    @Test @DisplayName("indexes the contributed languages by extension and file name")
+    void indexes_the_contributed_languages_by_extension_and_file_name() {
+        LanguageDescriptor zig = languages.index().lookup("main.zig");
+
+        assertThat(zig.getKey()).isEqualTo("zig");
+        assertThat(zig.getName()).isEqualTo("Zig");
+        assertThat(zig.getFileExtensions()).containsExactly("zig", "zon");
+        assertThat(zig.builtIn()).isEmpty();
+        assertThat(languages.index().lookup("Deps.ZON")).isSameAs(zig);
+        assertThat(languages.index().lookup("build.zig")).isSameAs(zig);
+    }
+
+    @Test @DisplayName("does not let contributions override built-in languages")
+    void does_not_let_contributions_override_built_in_languages() {
+        contribute(language("other-java", "Other Java", "java", "Dockerfile"));
+        languages.added(new IExtension[0]);
+
+        assertThat(languages.index().lookup("Foo.java")).isSameAs(LanguageDescriptor.of(Language.JAVA));
+        assertThat(languages.index().lookup("Dockerfile")).isSameAs(LanguageDescriptor.of(Language.DOCKER));
+    }
+
+    @Test @DisplayName("ignores the contributions without key or name")
+    void ignores_the_contributions_without_key_or_name() {
+        contribute(language(null, "Zig", "zig", null), language("zig", " ", "zig", null));
+        languages.added(new IExtension[0]);
+
+        assertThat(languages.index().lookup("main.zig")).isSameAs(LanguageDescriptor.UNKNOWN);
+        assertThat(languages.index().languages()).hasSize(Language.values().length);
+    }
+
+    @Test @DisplayName("keeps the same index as long as contributions do not change")
+    void keeps_the_same_index_as_long_as_contributions_do_not_change() {
+        assertThat(languages.index()).isSameAs(languages.index());
+    }
+
+    @Test @DisplayName("replaces the index when contributions are removed")
+    void replaces_the_index_when_contributions_are_removed() {
+        LanguageIndex before = languages.index();
+        contribute();
+        languages.removed(new IExtension[0]);
+
+        assertThat(languages.index()).isNotSameAs(before);
+        assertThat(languages.index().lookup("main.zig")).isSameAs(LanguageDescriptor.UNKNOWN);
+        assertThat(before.lookup("main.zig").getName()).isEqualTo("Zig");
+    }
+
+    @Test @DisplayName("stops listening to the registry when closed")
+    void stops_listening_to_the_registry_when_closed() {
+        languages.close();
+        verify(registry).removeListener(languages);
+    }
+
+    @Test @DisplayName("lets a detector describe contributed languages")
+    void lets_a_detector_describe_contributed_languages(@Mock IContentTypeMatcher contentTypes) {
+        try (LanguageDetector detector = new LanguageDetector(contentTypes, new FirstLinesSniffer(), languages::index)) {
+            assertThat(detector.descriptorOf("main.zig").getName()).isEqualTo("Zig");
+            assertThat(detector.descriptorOf("Foo.java")).isSameAs(LanguageDescriptor.of(Language.JAVA));
+            assertThat(detector.languageOf("main.zig")).isEqualTo(Language.UNKNOWN);
+        }
+    }
+
+    @Test @DisplayName("describes the built-in languages once")
+    void describes_the_built_in_languages_once() {
+        for (Language language : Language.values()) {
+            assertThat(LanguageDescriptor.of(language)).isSameAs(LanguageDescriptor.of(language));
+            assertThat(LanguageDescriptor.of(language).builtIn()).contains(language);
+            assertThat(LanguageDescriptor.of(language).getKey()).isEqualTo(language.getKey());
+        }
+        assertThat(LanguageDescriptor.UNKNOWN.isUnknown()).isTrue();
+        assertThat(LanguageIndex.builtIn().lookup("Foo.py")).isSameAs(LanguageDescriptor.of(Language.PYTHON));
+    }
+
+    @Test @DisplayName("considers contributed languages with the same properties as equal")
+    void considers_contributed_languages_with_the_same_properties_as_equal() {
+        LanguageDescriptor zig = new LanguageDescriptor("zig", "Zig", Arrays.asList("zig"), emptyList());
+
+        assertThat(zig).isEqualTo(new LanguageDescriptor("zig", "Zig", Arrays.asList("zig"), emptyList()))
+                       .hasSameHashCodeAs(new LanguageDescriptor("zig", "Zig", Arrays.asList("zig"), emptyList()))
+                       .isNotEqualTo(new LanguageDescriptor("zig", "Ziggy", Arrays.asList("zig"), emptyList()));
+    }
+
+    private void contribute(IConfigurationElement... elements) {
+        when(registry.getConfigurationElementsFor(Plugin.LANGUAGE_EXTENSION_ID)).thenReturn(elements);
+    }
+
+    private static IConfigurationElement language(String key, String name, String extensions, String fileNames) {
+        IConfigurationElement element = mock(IConfigurationElement.class);
+        when(element.getAttribute(LanguageRegistry.KEY_ATTRIBUTE)).thenReturn(key);
+        when(element.getAttribute(LanguageRegistry.NAME_ATTRIBUTE)).thenReturn(name);
+        when(element.getAttribute(LanguageRegistry.EXTENSIONS_ATTRIBUTE)).thenReturn(extensions);
+        when(element.getAttribute(LanguageRegistry.FILE_NAMES_ATTRIBUTE)).thenReturn(fileNames);
+        return element;
+    }
+
+}
@@ -4,8 +4,10 @@ import java.util.stream.Stream;
 
 import org.assertj.core.api.WithAssertions;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.EnumSource;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.junit.jupiter.params.provider.ValueSource;
 
@@ -45,6 +47,43 @@ public class LanguageTest implements WithAssertions {
         assertThat(Language.fromFileName(fileName)).isEqualTo(expectedLanguage);
     }
     
+    @ParameterizedTest 
+    @ValueSource(strings= {"Foo.JAVA", "Foo.Java", "archive.tar.JaVa", "..java"})
+    @DisplayName("can be found whatever the case of the extension")
+    void whatever_the_case_of_the_extension(String fileName) {
+        assertThat(Language.fromFileName(fileName)).isEqualTo(Language.JAVA);
+    }
+    
+    @ParameterizedTest 
+    @ValueSource(strings= {"dockerfile", "DOCKERFILE"})
+    @DisplayName("cannot be found when the case of a special file name differs")
+    void but_not_when_the_case_of_a_special_file_name_differs(String fileName) {
+        assertThat(Language.fromFileName(fileName)).isEqualTo(Language.UNKNOWN);
+    }
+    
+    @Test
+    @DisplayName("is found from the extension of the last dot only")
+    void from_the_extension_of_the_last_dot_only() {
+        assertThat(Language.fromFileName("Foo.java.txt")).isEqualTo(Language.TEXT);
+        assertThat(Language.fromFileName("Foo.javax")).isEqualTo(Language.UNKNOWN);
+        assertThat(Language.fromFileName("Foo.jav")).isEqualTo(Language.UNKNOWN);
+    }
+    
+    @ParameterizedTest
+    @EnumSource(Language.class)
+    @DisplayName("gives unmodifiable views of its file extensions and file names")
+    void gives_unmodifiable_views_of_its_file_extensions_and_file_names(Language language) {
+        assertThat(language.getFileExtensions()).isSameAs(language.getFileExtensions());
+        assertThat(language.getFileNames()).isSameAs(language.getFileNames());
+        
+        assertThatExceptionOfType(UnsupportedOperationException.class).isThrownBy(() ->
+            language.getFileExtensions().add("foo")
+        );
+        assertThatExceptionOfType(UnsupportedOperationException.class).isThrownBy(() ->
+            language.getFileNames().clear()
+        );
+    }
+    
     static Stream<Arguments> fileNamesForAllExtensions() {
         Stream.Builder<Arguments> fileNames = Stream.builder();
         
@@ -1,6 +1,7 @@
 package fr.kazejiyu.discord.rpc.integration.settings;
 
 import static java.util.Arrays.asList;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.only;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
@@ -19,6 +20,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 
 import fr.kazejiyu.discord.rpc.integration.tests.mock.MockitoExtension;
@@ -180,4 +182,23 @@ public class GlobalPreferencesListenerTest implements WithAssertions {
         verify(settingChangeListener, only()).elapsedTimeResetMomentChanged(null, null);
     }
 
+    @Test @DisplayName("throws if instanciated with a null callback")
+    void throws_if_instanciated_with_a_null_callback() {
+        assertThatNullPointerException().isThrownBy(() ->
+            new GlobalPreferencesListener(asList(settingChangeListener), null)
+        );
+    }
+    
+    @Test @DisplayName("runs its callback before notifying its listeners")
+    void runs_its_callback_before_notifying_its_listeners(@Mock Runnable onChange) {
+        when(event.getProperty()).thenReturn(Settings.SHOW_FILE_NAME.property());
+        when(event.getNewValue()).thenReturn("true");
+        
+        new GlobalPreferencesListener(asList(settingChangeListener), onChange).propertyChange(event);
+        
+        InOrder inOrder = inOrder(onChange, settingChangeListener);
+        inOrder.verify(onChange).run();
+        inOrder.verify(settingChangeListener).fileNameVisibilityChanged(true);
+    }
+
 }
@@ -0,0 +1,101 @@
+package fr.kazejiyu.discord.rpc.integration.settings;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+
+import org.assertj.core.api.WithAssertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+
+import fr.kazejiyu.discord.rpc.integration.tests.mock.MockitoExtension;
+
+/**
+ * Unit test the {@link PreferencesSnapshot} class.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("A PreferencesSnapshot")
+public class PreferencesSnapshotTest implements WithAssertions {
+    
+    @Mock
+    private UserPreferences preferences;
+    
+    @BeforeEach
+    void stubPreferences() {
+        when(preferences.showsFileName()).thenReturn(true);
+        when(preferences.showsProjectName()).thenReturn(false);
+        when(preferences.showsElapsedTime()).thenReturn(true);
+        when(preferences.showsLanguageIcon()).thenReturn(true);
+        when(preferences.showsRichPresence()).thenReturn(true);
+        when(preferences.resetsElapsedTimeOnNewProject()).thenReturn(true);
+        when(preferences.getProjectName()).thenReturn(Optional.of("project"));
+        when(preferences.getDiscordApplicationId()).thenReturn(Optional.empty());
+        when(preferences.usesCustomWording()).thenReturn(true);
+        when(preferences.getCustomDetailsWording()).thenReturn(Optional.of("details"));
+        when(preferences.getCustomStateWording()).thenReturn(Optional.of("state"));
+    }
+    
+    @Nested @DisplayName("during instanciation")
+    class DuringInstanciation {
+        
+        @Test @DisplayName("throws if preferences are null")
+        void throws_if_preferences_are_null() {
+            assertThatNullPointerException().isThrownBy(() ->
+                PreferencesSnapshot.of(null, 0)
+            );
+        }
+        
+    }
+    
+    @Test @DisplayName("copies the preferences")
+    void copies_the_preferences() {
+        PreferencesSnapshot snapshot = PreferencesSnapshot.of(preferences, 0);
+        
+        assertThat(snapshot.showsFileName()).isTrue();
+        assertThat(snapshot.showsProjectName()).isFalse();
+        assertThat(snapshot.showsElapsedTime()).isTrue();
+        assertThat(snapshot.getProjectName()).contains("project");
+        assertThat(snapshot.usesCustomDiscordApplication()).isFalse();
+        assertThat(snapshot.getDiscordApplicationId()).isEmpty();
+        assertThat(snapshot.getCustomDetailsWording()).contains("details");
+        assertThat(snapshot.getCustomStateWording()).contains("state");
+    }
+    
+    @Test @DisplayName("reads each preference once")
+    void reads_each_preference_once() {
+        PreferencesSnapshot snapshot = PreferencesSnapshot.of(preferences, 0);
+        
+        snapshot.showsFileName();
+        snapshot.showsFileName();
+        
+        verify(preferences).showsFileName();
+    }
+    
+    @Test @DisplayName("knows when the elapsed time is reset")
+    void knows_when_the_elapsed_time_is_reset() {
+        PreferencesSnapshot snapshot = PreferencesSnapshot.of(preferences, 0);
+        
+        assertThat(snapshot.elapsedTimeResetMoment()).contains(Moment.ON_NEW_PROJECT);
+        assertThat(snapshot.resetsElapsedTimeOnNewProject()).isTrue();
+        assertThat(snapshot.resetsElapsedTimeOnNewFile()).isFalse();
+        assertThat(snapshot.resetsElapsedTimeOnStartup()).isFalse();
+    }
+    
+    @Test @DisplayName("keeps the reset moment when copied")
+    void keeps_the_reset_moment_when_copied() {
+        PreferencesSnapshot copy = PreferencesSnapshot.of(PreferencesSnapshot.of(preferences, 0), 1);
+        
+        assertThat(copy.elapsedTimeResetMoment()).contains(Moment.ON_NEW_PROJECT);
+    }
+    
+    @Test @DisplayName("remembers its generation")
+    void remembers_its_generation() {
+        assertThat(PreferencesSnapshot.of(preferences, 42).generation()).isEqualTo(42);
+    }
+
+}
@@ -0,0 +1,86 @@
+package fr.kazejiyu.discord.rpc.integration.settings;
+
+import static java.util.Arrays.asList;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.only;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+import org.assertj.core.api.WithAssertions;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences.PreferenceChangeEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+
+import fr.kazejiyu.discord.rpc.integration.tests.mock.MockitoExtension;
+
+/**
+ * Unit test the {@link ProjectPreferencesListener} class.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("A ProjectPreferencesListener")
+public class ProjectPreferencesListenerTest implements WithAssertions {
+    
+    private ProjectPreferencesListener listener;
+    
+    @Mock
+    private SettingChangeListener settingChangeListener;
+    
+    @Mock
+    private Runnable onChange;
+    
+    @Mock
+    private IEclipsePreferences node;
+    
+    @BeforeEach
+    void instanciateListenerUnderTest() {
+        listener = new ProjectPreferencesListener(asList(settingChangeListener), onChange);
+    }
+    
+    @Test @DisplayName("throws if instanciated with null listeners")
+    void throws_if_instanciated_with_null_listeners() {
+        assertThatNullPointerException().isThrownBy(() ->
+            new ProjectPreferencesListener(null, onChange)
+        );
+    }
+    
+    @Test @DisplayName("throws if instanciated with a null callback")
+    void throws_if_instanciated_with_a_null_callback() {
+        assertThatNullPointerException().isThrownBy(() ->
+            new ProjectPreferencesListener(asList(settingChangeListener), null)
+        );
+    }
+    
+    @Test @DisplayName("notifies its listeners when project name changes")
+    void notifies_its_listeners_when_project_name_changes() {
+        listener.preferenceChange(event(Settings.PROJECT_NAME.property(), "old", "new"));
+        
+        verify(settingChangeListener, only()).projectNameChanged("old", "new");
+    }
+    
+    @Test @DisplayName("runs its callback before notifying its listeners")
+    void runs_its_callback_before_notifying_its_listeners() {
+        listener.preferenceChange(event(Settings.SHOW_FILE_NAME.property(), "false", "true"));
+        
+        InOrder inOrder = inOrder(onChange, settingChangeListener);
+        inOrder.verify(onChange).run();
+        inOrder.verify(settingChangeListener).fileNameVisibilityChanged(true);
+    }
+    
+    @Test @DisplayName("ignores unknown preferences")
+    void ignores_unknown_preferences() {
+        listener.preferenceChange(event("unknown", "old", "new"));
+        
+        verify(onChange).run();
+        verifyZeroInteractions(settingChangeListener);
+    }
+    
+    private PreferenceChangeEvent event(String key, String oldValue, String newValue) {
+        return new PreferenceChangeEvent(node, key, oldValue, newValue);
+    }
+
+}
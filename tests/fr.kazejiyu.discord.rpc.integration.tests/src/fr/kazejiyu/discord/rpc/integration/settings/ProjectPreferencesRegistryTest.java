@@ -0,0 +1,216 @@
+package fr.kazejiyu.discord.rpc.integration.settings;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.assertj.core.api.WithAssertions;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences.IPreferenceChangeListener;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences.PreferenceChangeEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+
+import fr.kazejiyu.discord.rpc.integration.tests.mock.DetachedPreferenceStore;
+import fr.kazejiyu.discord.rpc.integration.tests.mock.MockitoExtension;
+
+/**
+ * Unit test the {@link ProjectPreferencesRegistry} class.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("A ProjectPreferencesRegistry")
+public class ProjectPreferencesRegistryTest implements WithAssertions {
+    
+    private ProjectPreferencesRegistry registry;
+    
+    /** The listeners currently registered on the preferences of each project. */
+    private final Map<IProject, List<IPreferenceChangeListener>> listeners = new HashMap<>();
+    
+    @Mock
+    private IProject project;
+    
+    @Mock
+    private IProject otherProject;
+    
+    @BeforeEach
+    void createRegistry() {
+        registry = new ProjectPreferencesRegistry(project -> new ProjectPreferences(nodeOf(project)));
+    }
+    
+    /** Creates a node keeping track of the listeners registered on it. */
+    private IEclipsePreferences nodeOf(IProject project) {
+        List<IPreferenceChangeListener> registered = listeners.computeIfAbsent(project, p -> new ArrayList<>());
+        IEclipsePreferences node = mock(IEclipsePreferences.class);
+        
+        doAnswer(invocation -> registered.add(invocation.getArgument(0)))
+            .when(node).addPreferenceChangeListener(any());
+        doAnswer(invocation -> registered.remove(invocation.getArgument(0)))
+            .when(node).removePreferenceChangeListener(any());
+        doAnswer(invocation -> invocation.getArgument(1))
+            .when(node).get(anyString(), anyString());
+        // required by ScopedPreferenceStore to listen for the removal of the node
+        when(node.parent()).thenReturn(mock(IEclipsePreferences.class));
+        
+        return node;
+    }
+    
+    @Nested @DisplayName("during instanciation")
+    class DuringInstanciation {
+        
+        @Test @DisplayName("throws if factory is null")
+        void throws_if_factory_is_null() {
+            assertThatNullPointerException().isThrownBy(() ->
+                new ProjectPreferencesRegistry(null)
+            );
+        }
+        
+        @Test @DisplayName("throws if workspace is null")
+        void throws_if_workspace_is_null() {
+            assertThatNullPointerException().isThrownBy(() ->
+                ProjectPreferencesRegistry.listeningTo(null)
+            );
+        }
+        
+    }
+    
+    @Test @DisplayName("throws if project is null")
+    void throws_if_project_is_null() {
+        assertThatNullPointerException().isThrownBy(() ->
+            registry.preferencesOf(null)
+        );
+    }
+    
+    @Test @DisplayName("returns the same preferences for a given project")
+    void returns_the_same_preferences_for_a_given_project() {
+        assertThat(registry.preferencesOf(project)).isSameAs(registry.preferencesOf(project));
+        assertThat(registry.preferencesOf(project)).isNotSameAs(registry.preferencesOf(otherProject));
+    }
+    
+    @Test @DisplayName("registers a constant number of listeners whatever the number of selections")
+    void registers_a_constant_number_of_listeners_whatever_the_number_of_selections(@Mock IProject globalScope) {
+        // the preferences are looked up the way UpdateDiscordOnEditorChange does on each selection
+        DetachedPreferenceStore store = new DetachedPreferenceStore(nodeOf(globalScope));
+        GlobalPreferences preferences = new GlobalPreferences(registry, store);
+        
+        for (int i = 0; i < 10_000; ++i) {
+            preferences.getApplicablePreferencesFor(i % 2 == 0 ? project : otherProject).showsFileName();
+        }
+        assertThat(listeners.get(project)).hasSize(1);
+        assertThat(listeners.get(otherProject)).hasSize(1);
+        assertThat(listeners.get(globalScope)).hasSize(1);
+        assertThat(store.listenerCount()).isEqualTo(1);
+        assertThat(registry.size()).isEqualTo(2);
+    }
+    
+    @Nested @DisplayName("when a project uses the global preferences")
+    class WhenAProjectUsesTheGlobalPreferences {
+        
+        DetachedPreferenceStore store;
+        
+        GlobalPreferences preferences;
+        
+        @BeforeEach
+        void createGlobalPreferences(@Mock IProject globalScope) {
+            store = new DetachedPreferenceStore(nodeOf(globalScope));
+            preferences = new GlobalPreferences(registry, store);
+        }
+        
+        @Test @DisplayName("reuses its applicable preferences while no preference changes")
+        void reuses_its_applicable_preferences_while_no_preference_changes() {
+            UserPreferences applicable = preferences.getApplicablePreferencesFor(project);
+            
+            assertThat(preferences.getApplicablePreferencesFor(project)).isSameAs(applicable);
+            assertThat(preferences.getApplicablePreferencesFor(otherProject)).isNotSameAs(applicable);
+        }
+        
+        @Test @DisplayName("rebuilds its applicable preferences once a global preference changes")
+        void rebuilds_its_applicable_preferences_once_a_global_preference_changes() {
+            UserPreferences applicable = preferences.getApplicablePreferencesFor(project);
+            
+            store.firePropertyChangeEvent(Settings.SHOW_FILE_NAME.property(), "false", "true");
+            
+            assertThat(preferences.getApplicablePreferencesFor(project)).isNotSameAs(applicable);
+        }
+        
+        @Test @DisplayName("rebuilds its applicable preferences once a project preference changes")
+        void rebuilds_its_applicable_preferences_once_a_project_preference_changes() {
+            UserPreferences applicable = preferences.getApplicablePreferencesFor(project);
+            
+            changeAPreferenceOf(project);
+            
+            assertThat(preferences.getApplicablePreferencesFor(project)).isNotSameAs(applicable);
+        }
+        
+        @Test @DisplayName("rebuilds its applicable preferences when the global and project preferences change in turn")
+        void rebuilds_its_applicable_preferences_when_the_global_and_project_preferences_change_in_turn() {
+            store.firePropertyChangeEvent(Settings.SHOW_FILE_NAME.property(), "false", "true");
+            UserPreferences applicable = preferences.getApplicablePreferencesFor(project);
+            
+            changeAPreferenceOf(project);
+            UserPreferences projectChanged = preferences.getApplicablePreferencesFor(project);
+            store.firePropertyChangeEvent(Settings.SHOW_FILE_NAME.property(), "true", "false");
+            
+            assertThat(projectChanged).isNotSameAs(applicable);
+            assertThat(preferences.getApplicablePreferencesFor(project)).isNotSameAs(applicable)
+                                                                         .isNotSameAs(projectChanged);
+        }
+        
+        private void changeAPreferenceOf(IProject changed) {
+            PreferenceChangeEvent event = new PreferenceChangeEvent(mock(IEclipsePreferences.class), 
+                                                                    Settings.PROJECT_NAME.property(), null, "renamed");
+            new ArrayList<>(listeners.get(changed)).forEach(listener -> listener.preferenceChange(event));
+        }
+        
+    }
+    
+    @Test @DisplayName("forgets the projects being closed or deleted")
+    void forgets_the_projects_being_closed_or_deleted(@Mock IResourceChangeEvent event) {
+        ProjectPreferences preferences = registry.preferencesOf(project);
+        registry.preferencesOf(otherProject);
+        when(event.getResource()).thenReturn(project);
+        
+        registry.resourceChanged(event);
+        
+        assertThat(listeners.get(project)).isEmpty();
+        assertThat(listeners.get(otherProject)).hasSize(1);
+        assertThat(registry.preferencesOf(project)).isNotSameAs(preferences);
+    }
+    
+    @Test @DisplayName("does not fail when the preferences of a deleted project are disposed")
+    void does_not_fail_when_the_preferences_of_a_deleted_project_are_disposed() {
+        IEclipsePreferences removedNode = mock(IEclipsePreferences.class);
+        doThrow(IllegalStateException.class).when(removedNode).removePreferenceChangeListener(any());
+        registry = new ProjectPreferencesRegistry(project -> new ProjectPreferences(removedNode));
+        registry.preferencesOf(project);
+        
+        assertThatCode(() -> registry.forget(project)).doesNotThrowAnyException();
+        assertThat(registry.size()).isZero();
+    }
+    
+    @Test @DisplayName("disposes all the preferences when closed")
+    void disposes_all_the_preferences_when_closed() {
+        registry.preferencesOf(project);
+        registry.preferencesOf(otherProject);
+        
+        registry.close();
+        
+        assertThat(listeners.get(project)).isEmpty();
+        assertThat(listeners.get(otherProject)).isEmpty();
+        assertThat(registry.size()).isZero();
+    }
+
+}
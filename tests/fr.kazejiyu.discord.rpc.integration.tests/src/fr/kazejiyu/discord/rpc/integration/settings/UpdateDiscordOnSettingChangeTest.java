@@ -3,6 +3,7 @@ package fr.kazejiyu.discord.rpc.integration.settings;
 import static fr.kazejiyu.discord.rpc.integration.settings.Settings.DEFAULT_DISCORD_APPLICATION_ID;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -69,6 +70,13 @@ public class UpdateDiscordOnSettingChangeTest implements WithAssertions {
         listener = new UpdateDiscordOnSettingChange(context, toRichPresence, discord, preferences);
         
         when(preferences.getApplicablePreferencesFor(any(IProject.class))).thenReturn(preferences);
+        
+        // Behave as DiscordRpcLifecycle's default implementation: shutdown then initialize the connection
+        doAnswer(invocation -> {
+            discord.shutdown();
+            discord.initialize(invocation.getArgument(0));
+            return null;
+        }).when(discord).switchTo(any(String.class));
     }
     
     @Nested @DisplayName("when instantiated")
@@ -104,6 +112,40 @@ public class UpdateDiscordOnSettingChangeTest implements WithAssertions {
         
     }
     
+    @Nested @DisplayName("when paused")
+    class WhenPaused {
+        
+        @BeforeEach
+        void pause() {
+            listener = new UpdateDiscordOnSettingChange(context, toRichPresence, discord, preferences, () -> true);
+            when(toRichPresence.apply(context)).thenReturn(Optional.of(presence));
+        }
+        
+        @Test @DisplayName("throws if the pause condition is null")
+        void throws_if_the_pause_condition_is_null() {
+            assertThatNullPointerException().isThrownBy(() -> 
+                new UpdateDiscordOnSettingChange(context, toRichPresence, discord, preferences, null)
+            );
+        }
+        
+        @Test @DisplayName("does not show the presence again when a preference changes")
+        void does_not_show_the_presence_again_when_a_preference_changes() {
+            listener.fileNameVisibilityChanged(true);
+            listener.useProjectProperties(false);
+            
+            verify(discord, never()).show(any(RichPresence.class));
+            verify(discord, never()).showNothing();
+        }
+        
+        @Test @DisplayName("still shuts the connection down when the Rich Presence is hidden")
+        void still_shuts_the_connection_down_when_the_Rich_Presence_is_hidden() {
+            listener.richPresenceVisibilityChanged(false);
+            
+            verify(discord).shutdown();
+        }
+        
+    }
+    
     @Nested @DisplayName("when no RichPresence can be created from the context")
     class WhenNoRichPresenceCanBeCreatedFromTheContext {
         
@@ -963,6 +1005,12 @@ public class UpdateDiscordOnSettingChangeTest implements WithAssertions {
                             inOrder.verify(discord, times(1)).showNothing();
                         }
                         
+                        @Test @DisplayName("switches to the custom Discord application")
+                        void switches_to_the_custom_Discord_application() {
+                            listener.discordApplicationIdChanged(CUSTOM_DISCORD_APP_ID);
+                            verify(discord, times(1)).switchTo(CUSTOM_DISCORD_APP_ID);
+                        }
+                        
                         @Test @DisplayName("shutdowns the connection before initializing a new one")
                         void shutdowns_the_connection_before_initializing_the_new_one() {
                             listener.discordApplicationIdChanged(CUSTOM_DISCORD_APP_ID);
@@ -0,0 +1,81 @@
+package fr.kazejiyu.discord.rpc.integration.tests.mock;
+
+import static java.util.Objects.requireNonNull;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+import org.eclipse.core.runtime.preferences.IScopeContext;
+import org.eclipse.ui.preferences.ScopedPreferenceStore;
+
+/**
+ * A {@link ScopedPreferenceStore} usable without a running platform.
+ * <p>
+ * The store keeps its listeners and registers itself on its node like any other {@link ScopedPreferenceStore},
+ * but reads the values straight from the node since the platform's preferences service is not available.
+ */
+public final class DetachedPreferenceStore extends ScopedPreferenceStore {
+
+    private final IEclipsePreferences node;
+
+    /**
+     * Creates a store backed by the given node.
+     * 
+     * @param node
+     *          The node holding the preferences, typically a mock recording the listeners registered on it.
+     *          Must not be {@code null}.
+     */
+    public DetachedPreferenceStore(IEclipsePreferences node) {
+        super(new SingleNodeScope(node), "fr.kazejiyu.discord.rpc.integration");
+        this.node = requireNonNull(node, "The node must not be null");
+    }
+
+    @Override
+    public String getString(String name) {
+        String value = node.get(name, "");
+        return value == null ? "" : value;
+    }
+
+    @Override
+    public boolean getBoolean(String name) {
+        return node.getBoolean(name, false);
+    }
+
+    @Override
+    public int getInt(String name) {
+        return node.getInt(name, 0);
+    }
+
+    /**
+     * Returns the number of property change listeners registered on the store.
+     * @return the number of listeners
+     */
+    public int listenerCount() {
+        return getListeners().length;
+    }
+
+    /** A scope made of a single node, whatever the qualifier. */
+    private static final class SingleNodeScope implements IScopeContext {
+
+        private final IEclipsePreferences node;
+
+        SingleNodeScope(IEclipsePreferences node) {
+            this.node = node;
+        }
+
+        @Override
+        public String getName() {
+            return "detached";
+        }
+
+        @Override
+        public IEclipsePreferences getNode(String qualifier) {
+            return node;
+        }
+
+        @Override
+        public IPath getLocation() {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,88 @@
+package fr.kazejiyu.discord.rpc.integration.wording;
+
+import static org.mockito.Mockito.when;
+
+import org.assertj.core.api.WithAssertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.mockito.Mock;
+
+import fr.kazejiyu.discord.rpc.integration.languages.Language;
+import fr.kazejiyu.discord.rpc.integration.settings.UserPreferences;
+import fr.kazejiyu.discord.rpc.integration.tests.mock.MockitoExtension;
+
+/**
+ * Unit test the {@link FileWordingVariables} class.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("A FileWordingVariables")
+public class FileWordingVariablesTest implements WithAssertions {
+    
+    @Mock
+    private UserPreferences preferences;
+    
+    @Nested @DisplayName("during instanciation")
+    class DuringInstanciation {
+        
+        @Test @DisplayName("throws if preferences are null")
+        void throws_if_preferences_are_null() {
+            assertThatNullPointerException().isThrownBy(() ->
+                new FileWordingVariables(null, "Foo.java", Language.JAVA, "bar")
+            );
+        }
+        
+        @Test @DisplayName("throws if language is null")
+        void throws_if_language_is_null() {
+            assertThatNullPointerException().isThrownBy(() ->
+                new FileWordingVariables(preferences, "Foo.java", (Language) null, "bar")
+            );
+        }
+        
+    }
+    
+    @ParameterizedTest(name = "{0} of {1} is {2}")
+    @CsvSource({
+        "file,           Foo.java,    Foo.java",
+        "file.baseName,  Foo.java,    Foo",
+        "file.extension, Foo.java,    java",
+        "file.baseName,  archive.tar.gz, archive.tar",
+        "file.baseName,  Dockerfile,  Dockerfile",
+        "file.extension, Dockerfile,  ''",
+        "file.extension, trailing.,   ''"
+    })
+    @DisplayName("describes the file")
+    void describes_the_file(String variable, String fileName, String expected) {
+        when(preferences.showsFileName()).thenReturn(true);
+        
+        assertThat(new FileWordingVariables(preferences, fileName, Language.JAVA, "bar").valueOf(variable)).isEqualTo(expected);
+    }
+    
+    @Test @DisplayName("describes the language and the project")
+    void describes_the_language_and_the_project() {
+        when(preferences.showsProjectName()).thenReturn(true);
+        FileWordingVariables variables = new FileWordingVariables(preferences, "Foo.java", Language.JAVA, "bar");
+        
+        assertThat(variables.valueOf(FileWordingVariables.LANGUAGE)).isEqualTo(Language.JAVA.getName());
+        assertThat(variables.valueOf(FileWordingVariables.PROJECT)).isEqualTo("bar");
+    }
+    
+    @Test @DisplayName("hides the names the user does not want to show")
+    void hides_the_names_the_user_does_not_want_to_show() {
+        FileWordingVariables variables = new FileWordingVariables(preferences, "Foo.java", Language.JAVA, "bar");
+        
+        assertThat(variables.valueOf(FileWordingVariables.FILE)).isEqualTo(FileWordingVariables.HIDDEN);
+        assertThat(variables.valueOf(FileWordingVariables.FILE_BASE_NAME)).isEqualTo(FileWordingVariables.HIDDEN);
+        assertThat(variables.valueOf(FileWordingVariables.FILE_EXTENSION)).isEqualTo(FileWordingVariables.HIDDEN);
+        assertThat(variables.valueOf(FileWordingVariables.PROJECT)).isEqualTo(FileWordingVariables.HIDDEN);
+    }
+    
+    @Test @DisplayName("does not know other variables")
+    void does_not_know_other_variables() {
+        assertThat(new FileWordingVariables(preferences, "Foo.java", Language.JAVA, "bar").valueOf("unknown")).isNull();
+    }
+
+}
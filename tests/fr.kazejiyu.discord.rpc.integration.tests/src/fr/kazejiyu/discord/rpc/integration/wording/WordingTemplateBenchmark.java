@@ -0,0 +1,114 @@
+package fr.kazejiyu.discord.rpc.integration.wording;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.assertj.core.api.WithAssertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import fr.kazejiyu.discord.rpc.integration.languages.Language;
+import fr.kazejiyu.discord.rpc.integration.settings.PreferencesSnapshot;
+import fr.kazejiyu.discord.rpc.integration.settings.UserPreferences;
+
+/**
+ * Compares the rendering of a {@link WordingTemplate} with the chain of {@link String#replace} it replaces.
+ * <p>
+ * Disabled by default, run with {@code mvn verify -Dbenchmarks=true}. Results are printed on the standard output.
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+@DisplayName("Benchmark: rendering wording templates")
+public class WordingTemplateBenchmark implements WithAssertions {
+
+    private static final int WARMUP = 200_000;
+
+    private static final int ITERATIONS = 2_000_000;
+
+    private static final String[] FILE_NAMES = {"Foo.java", "pom.xml", "README.md", "Dockerfile", "index.spec.ts"};
+
+    private static final String DETAILS = "Editing ${file.baseName} (${language})";
+
+    private static final String STATE = "Working on ${project}";
+
+    /** A sink preventing the JIT from discarding the results. */
+    private long renderedLength;
+
+    @Test @DisplayName("String.replace chain")
+    void string_replace_chain() {
+        UserPreferences preferences = visiblePreferences();
+        renderWithReplace(preferences, WARMUP);
+
+        long start = System.nanoTime();
+        renderWithReplace(preferences, ITERATIONS);
+        print("String.replace chain", System.nanoTime() - start);
+    }
+
+    @Test @DisplayName("compiled template")
+    void compiled_template() {
+        UserPreferences preferences = visiblePreferences();
+        renderWithTemplate(preferences, WARMUP);
+
+        long start = System.nanoTime();
+        renderWithTemplate(preferences, ITERATIONS);
+        print("compiled template", System.nanoTime() - start);
+    }
+
+    private void renderWithReplace(UserPreferences preferences, int times) {
+        for (int i = 0; i < times; ++i) {
+            String fileName = FILE_NAMES[i % FILE_NAMES.length];
+            renderedLength += replace(DETAILS, preferences, fileName).length();
+            renderedLength += replace(STATE, preferences, fileName).length();
+        }
+    }
+
+    private void renderWithTemplate(UserPreferences preferences, int times) {
+        for (int i = 0; i < times; ++i) {
+            String fileName = FILE_NAMES[i % FILE_NAMES.length];
+            WordingVariables variables = new FileWordingVariables(preferences, fileName, Language.fromFileName(fileName), "my-project");
+            renderedLength += WordingTemplate.compile(DETAILS).render(variables).length();
+            renderedLength += WordingTemplate.compile(STATE).render(variables).length();
+        }
+    }
+
+    /** The substitution previously copy-pasted into each adapter. */
+    private static String replace(String template, UserPreferences preferences, String fileName) {
+        Language language = Language.fromFileName(fileName);
+        
+        template = template.replace("${file}", preferences.showsFileName() ? fileName : "?");
+        template = template.replace("${file.baseName}", preferences.showsFileName() ? baseNameOf(fileName) : "?");
+        template = template.replace("${file.extension}", preferences.showsFileName() ? extensionOf(fileName) : "?");
+        template = template.replace("${language}", language.getName());
+        template = template.replace("${project}", preferences.showsProjectName() ? "my-project" : "?");
+        
+        return template;
+    }
+
+    private static String extensionOf(String fileName) {
+        if (!fileName.contains(".") || fileName.endsWith(".")) {
+            return "";
+        }
+        return fileName.substring(fileName.lastIndexOf('.') + 1);
+    }
+
+    private static String baseNameOf(String fileName) {
+        if (!fileName.contains(".") || fileName.endsWith(".")) {
+            return fileName;
+        }
+        return fileName.substring(0, fileName.lastIndexOf('.'));
+    }
+
+    private void print(String name, long elapsed) {
+        assertThat(renderedLength).isPositive();
+        System.out.println(String.format("%s: %.1f ns per presence (details + state)", name, (double) elapsed / ITERATIONS));
+    }
+
+    /** Returns preferences showing every name, read from a snapshot so that mocks do not weigh on the results. */
+    private static UserPreferences visiblePreferences() {
+        UserPreferences preferences = mock(UserPreferences.class);
+        when(preferences.showsFileName()).thenReturn(true);
+        when(preferences.showsProjectName()).thenReturn(true);
+        return PreferencesSnapshot.of(preferences, 0);
+    }
+
+}
@@ -0,0 +1,117 @@
+package fr.kazejiyu.discord.rpc.integration.wording;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.assertj.core.api.WithAssertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.mockito.Mock;
+
+import fr.kazejiyu.discord.rpc.integration.tests.mock.MockitoExtension;
+
+/**
+ * Unit test the {@link WordingTemplate} class.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("A WordingTemplate")
+public class WordingTemplateTest implements WithAssertions {
+    
+    private final Map<String, String> values = new HashMap<>();
+    
+    @BeforeEach
+    void defineVariables() {
+        values.put("file", "Foo.java");
+        values.put("project", "bar");
+    }
+    
+    @Nested @DisplayName("during compilation")
+    class DuringCompilation {
+        
+        @Test @DisplayName("throws if text is null")
+        void throws_if_text_is_null() {
+            assertThatNullPointerException().isThrownBy(() ->
+                WordingTemplate.compile(null)
+            );
+        }
+        
+        @Test @DisplayName("returns the template already compiled from the same text")
+        void returns_the_template_already_compiled_from_the_same_text() {
+            assertThat(WordingTemplate.compile("Editing ${file}"))
+                .isSameAs(WordingTemplate.compile(new String("Editing ${file}")));
+        }
+        
+        @Test @DisplayName("finds the variables referenced")
+        void finds_the_variables_referenced() {
+            WordingTemplate template = WordingTemplate.compile("${file} in ${project}, ${file} again");
+            
+            assertThat(template.variables()).containsExactly("file", "project");
+            assertThat(template.references("project")).isTrue();
+            assertThat(template.references("language")).isFalse();
+        }
+        
+    }
+    
+    @ParameterizedTest(name = "{0} -> {1}")
+    @CsvSource(delimiter = '|', value = {
+        "Editing ${file}                 | Editing Foo.java",
+        "${file} in ${project}           | Foo.java in bar",
+        "${file}${project}               | Foo.javabar",
+        "No variable                     | No variable",
+        "Unknown ${variable}             | Unknown ${variable}",
+        "Unclosed ${file                 | Unclosed ${file",
+        "Dollar $file and {file}         | Dollar $file and {file}",
+        "Empty ${}                       | Empty ${}"
+    })
+    @DisplayName("replaces the variables by their value")
+    void replaces_the_variables_by_their_value(String text, String expected) {
+        assertThat(WordingTemplate.compile(text).render(values::get)).isEqualTo(expected);
+    }
+    
+    @Test @DisplayName("does not replace variables within the values")
+    void does_not_replace_variables_within_the_values() {
+        values.put("file", "${project}.java");
+        
+        assertThat(WordingTemplate.compile("Editing ${file}").render(values::get)).isEqualTo("Editing ${project}.java");
+    }
+    
+    @Test @DisplayName("only asks for the values of the variables it references")
+    void only_asks_for_the_values_of_the_variables_it_references(@Mock WordingVariables variables) {
+        when(variables.valueOf(anyString())).thenReturn("value");
+        
+        WordingTemplate.compile("Editing ${file}").render(variables);
+        
+        verify(variables).valueOf("file");
+        verify(variables, never()).valueOf("project");
+    }
+    
+    @Test @DisplayName("can be rendered while rendering another template")
+    void can_be_rendered_while_rendering_another_template() {
+        WordingTemplate inner = WordingTemplate.compile("${file} in ${project}");
+        WordingTemplate outer = WordingTemplate.compile("${project}: ${inner}!");
+        
+        String rendered = outer.render(name -> "inner".equals(name) ? inner.render(values::get) : values.get(name));
+        
+        assertThat(rendered).isEqualTo("bar: Foo.java in bar!");
+    }
+    
+    @Test @DisplayName("appends the rendered text to a builder")
+    void appends_the_rendered_text_to_a_builder() {
+        StringBuilder builder = new StringBuilder("> ");
+        
+        WordingTemplate.compile("Editing ${file}").appendTo(builder, values::get);
+        
+        assertThat(builder.toString()).isEqualTo("> Editing Foo.java");
+    }
+
+}
@@ -0,0 +1,395 @@
+package fr.kazejiyu.discord.rpc.integration.wording;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayDeque;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.assertj.core.api.WithAssertions;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.IExtension;
+import org.eclipse.core.runtime.IExtensionRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+
+import fr.kazejiyu.discord.rpc.integration.Plugin;
+import fr.kazejiyu.discord.rpc.integration.languages.Language;
+import fr.kazejiyu.discord.rpc.integration.settings.UserPreferences;
+import fr.kazejiyu.discord.rpc.integration.tests.mock.MockitoExtension;
+
+/**
+ * Unit test the {@link WordingVariableRegistry} class.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("A WordingVariableRegistry")
+public class WordingVariableRegistryTest implements WithAssertions {
+    
+    @Mock
+    IExtensionRegistry registry;
+    
+    /** The tasks submitted to the background thread, run on demand. */
+    Queue<Runnable> background;
+    
+    /** The current time, in nanoseconds. */
+    long now;
+    
+    WordingVariableRegistry variables;
+    
+    WordingContext context;
+    
+    @BeforeEach
+    void setup() {
+        background = new ArrayDeque<>();
+        now = 0;
+        variables = new WordingVariableRegistry(registry, background::add, () -> now);
+        context = new WordingContext(null, "Foo.java", Language.JAVA);
+        contribute();
+    }
+    
+    @Nested @DisplayName("during instanciation")
+    class DuringInstanciation {
+        
+        @Test @DisplayName("throws if registry is null")
+        void throws_if_registry_is_null() {
+            assertThatNullPointerException().isThrownBy(() ->
+                new WordingVariableRegistry(null)
+            );
+        }
+        
+    }
+    
+    @Test @DisplayName("reads the contributions without instantiating their provider")
+    void reads_the_contributions_without_instantiating_their_provider() throws CoreException {
+        IConfigurationElement element = variable("git.branch", "the Git branch", provider("master"));
+        when(element.getAttribute(WordingVariableRegistry.EXPENSIVE_ATTRIBUTE)).thenReturn("true");
+        when(element.getAttribute(WordingVariableRegistry.MAX_AGE_ATTRIBUTE)).thenReturn("10000");
+        contribute(element);
+        
+        assertThat(variables.contributions()).containsOnlyKeys("git.branch");
+        assertThat(variables.contributions().get("git.branch")).satisfies(contribution -> {
+            assertThat(contribution.description()).isEqualTo("the Git branch");
+            assertThat(contribution.isExpensive()).isTrue();
+            assertThat(contribution.maxAge()).isEqualTo(10_000);
+            assertThat(contribution.isInstantiated()).isFalse();
+        });
+        verify(element, never()).createExecutableExtension(anyString());
+    }
+    
+    @Test @DisplayName("ignores the contributions without name")
+    void ignores_the_contributions_without_name() throws CoreException {
+        contribute(variable(null, "nameless", provider("foo")), variable("  ", "blank", provider("bar")));
+        
+        assertThat(variables.contributions()).isEmpty();
+    }
+    
+    @Test @DisplayName("keeps the first contribution of a variable")
+    void keeps_the_first_contribution_of_a_variable() throws CoreException {
+        contribute(variable("branch", "first", provider("main")), variable("branch", "second", provider("dev")));
+        
+        assertThat(variables.variables(context).valueOf("branch")).isEqualTo("main");
+    }
+    
+    @Test @DisplayName("falls back to the default maximum age when the declared one is invalid")
+    void falls_back_to_the_default_maximum_age_when_the_declared_one_is_invalid() throws CoreException {
+        IConfigurationElement element = variable("branch", "", provider("main"));
+        when(element.getAttribute(WordingVariableRegistry.MAX_AGE_ATTRIBUTE)).thenReturn("soon");
+        contribute(element);
+        
+        assertThat(variables.contributions().get("branch").maxAge()).isEqualTo(WordingVariableRegistry.DEFAULT_MAX_AGE);
+    }
+    
+    @Test @DisplayName("only instantiates the providers of the variables referenced by the template")
+    void only_instantiates_the_providers_of_the_variables_referenced_by_the_template() throws CoreException {
+        IConfigurationElement referenced = variable("branch", "", provider("main"));
+        IConfigurationElement unreferenced = variable("commit", "", provider("cafe"));
+        contribute(referenced, unreferenced);
+        
+        String rendered = WordingTemplate.compile("on ${branch}").render(variables.variables(context));
+        
+        assertThat(rendered).isEqualTo("on main");
+        verify(unreferenced, never()).createExecutableExtension(anyString());
+    }
+    
+    @Test @DisplayName("leaves unknown variables as is")
+    void leaves_unknown_variables_as_is() {
+        assertThat(WordingTemplate.compile("on ${branch}").render(variables.variables(context)))
+            .isEqualTo("on ${branch}");
+    }
+    
+    @Test @DisplayName("never overrides the built-in variables")
+    void never_overrides_the_built_in_variables(@Mock UserPreferences preferences) throws CoreException {
+        when(preferences.showsFileName()).thenReturn(true);
+        contribute(variable("file", "", provider("hijacked")), variable("branch", "", provider("main")));
+        
+        WordingVariables all = new FileWordingVariables(preferences, "Foo.java", Language.JAVA, "bar")
+                .orElse(variables.variables(context));
+        
+        assertThat(WordingTemplate.compile("${file} on ${branch}").render(all)).isEqualTo("Foo.java on main");
+    }
+    
+    @Test @DisplayName("shows an empty value when the provider has none")
+    void shows_an_empty_value_when_the_provider_has_none() throws CoreException {
+        contribute(variable("branch", "", (WordingVariableProvider) ctx -> Optional.empty()));
+        
+        assertThat(variables.variables(context).valueOf("branch")).isEmpty();
+    }
+    
+    @Test @DisplayName("takes new contributions into account")
+    void takes_new_contributions_into_account() throws CoreException {
+        variables.contributions();
+        contribute(variable("branch", "", provider("main")));
+        
+        variables.added(new IExtension[0]);
+        
+        assertThat(variables.contributions()).containsOnlyKeys("branch");
+    }
+    
+    @Test @DisplayName("computes cheap variables on the calling thread")
+    void computes_cheap_variables_on_the_calling_thread() throws CoreException {
+        contribute(variable("branch", "", provider("main")));
+        
+        assertThat(variables.variables(context).valueOf("branch")).isEqualTo("main");
+        assertThat(background).isEmpty();
+    }
+    
+    @Nested @DisplayName("with an expensive variable")
+    class WithAnExpensiveVariable {
+        
+        AtomicInteger calls;
+        
+        String value;
+        
+        @BeforeEach
+        void contributeExpensiveVariable() throws CoreException {
+            calls = new AtomicInteger();
+            value = "main";
+            
+            IConfigurationElement element = variable("branch", "", (WordingVariableProvider) ctx -> {
+                calls.incrementAndGet();
+                return Optional.of(value);
+            });
+            when(element.getAttribute(WordingVariableRegistry.EXPENSIVE_ATTRIBUTE)).thenReturn("true");
+            when(element.getAttribute(WordingVariableRegistry.MAX_AGE_ATTRIBUTE)).thenReturn("1000");
+            contribute(element);
+        }
+        
+        @Test @DisplayName("never computes it on the calling thread")
+        void never_computes_it_on_the_calling_thread() {
+            assertThat(branch()).isEmpty();
+            assertThat(calls).hasValue(0);
+            assertThat(background).hasSize(1);
+        }
+        
+        @Test @DisplayName("shows it once computed in the background")
+        void shows_it_once_computed_in_the_background() {
+            branch();
+            runBackgroundTasks();
+            
+            assertThat(branch()).isEqualTo("main");
+            assertThat(calls).hasValue(1);
+        }
+        
+        @Test @DisplayName("computes it once while it is being computed")
+        void computes_it_once_while_it_is_being_computed() {
+            branch();
+            branch();
+            branch();
+            
+            assertThat(background).hasSize(1);
+        }
+        
+        @Test @DisplayName("reuses the cached value while it is fresh")
+        void reuses_the_cached_value_while_it_is_fresh() {
+            branch();
+            runBackgroundTasks();
+            
+            elapse(400);
+            
+            assertThat(branch()).isEqualTo("main");
+            assertThat(background).isEmpty();
+        }
+        
+        @Test @DisplayName("keeps showing the cached value while refreshing it")
+        void keeps_showing_the_cached_value_while_refreshing_it() {
+            branch();
+            runBackgroundTasks();
+            value = "dev";
+            
+            elapse(600);
+            
+            assertThat(branch()).isEqualTo("main");
+            assertThat(background).hasSize(1);
+            
+            runBackgroundTasks();
+            assertThat(branch()).isEqualTo("dev");
+        }
+        
+        @Test @DisplayName("stops showing the cached value once too old")
+        void stops_showing_the_cached_value_once_too_old() {
+            branch();
+            runBackgroundTasks();
+            
+            elapse(1_001);
+            
+            assertThat(branch()).isEmpty();
+            assertThat(background).hasSize(1);
+        }
+        
+        @Test @DisplayName("renders it empty until known, then asks for the wording to be rendered again")
+        void renders_it_empty_until_known_then_asks_for_the_wording_to_be_rendered_again() {
+            AtomicInteger changes = new AtomicInteger();
+            variables.addValueChangeListener(changes::incrementAndGet);
+            
+            assertThat(branch()).isEmpty();
+            assertThat(changes).hasValue(0);
+            
+            runBackgroundTasks();
+            
+            assertThat(changes).hasValue(1);
+            assertThat(branch()).isEqualTo("main");
+        }
+        
+        @Test @DisplayName("does not ask for the wording to be rendered again when the value did not change")
+        void does_not_ask_for_the_wording_to_be_rendered_again_when_the_value_did_not_change() {
+            AtomicInteger changes = new AtomicInteger();
+            branch();
+            runBackgroundTasks();
+            variables.addValueChangeListener(changes::incrementAndGet);
+            
+            elapse(600);
+            branch();
+            runBackgroundTasks();
+            
+            assertThat(changes).hasValue(0);
+        }
+        
+        @Test @DisplayName("asks for the wording to be rendered again when the value changed")
+        void asks_for_the_wording_to_be_rendered_again_when_the_value_changed() {
+            AtomicInteger changes = new AtomicInteger();
+            branch();
+            runBackgroundTasks();
+            variables.addValueChangeListener(changes::incrementAndGet);
+            value = "dev";
+            
+            elapse(600);
+            branch();
+            runBackgroundTasks();
+            
+            assertThat(changes).hasValue(1);
+        }
+        
+        @Test @DisplayName("no longer notifies removed listeners")
+        void no_longer_notifies_removed_listeners() {
+            AtomicInteger changes = new AtomicInteger();
+            Runnable listener = changes::incrementAndGet;
+            variables.addValueChangeListener(listener);
+            variables.removeValueChangeListener(listener);
+            
+            branch();
+            runBackgroundTasks();
+            
+            assertThat(changes).hasValue(0);
+        }
+        
+        @Test @DisplayName("caches a value per context")
+        void caches_a_value_per_context() {
+            branch();
+            runBackgroundTasks();
+            
+            WordingContext other = new WordingContext(null, "Bar.java", Language.JAVA);
+            
+            assertThat(variables.variables(other).valueOf("branch")).isEmpty();
+            assertThat(background).hasSize(1);
+        }
+        
+        @Test @DisplayName("is not computed when the background thread is stopped")
+        void is_not_computed_when_the_background_thread_is_stopped() throws CoreException {
+            WordingVariableRegistry stopped = new WordingVariableRegistry(registry, task -> { 
+                throw new RejectedExecutionException(); 
+            }, () -> now);
+            
+            assertThat(stopped.variables(context).valueOf("branch")).isEmpty();
+            assertThat(calls).hasValue(0);
+        }
+        
+        private String branch() {
+            return variables.variables(context).valueOf("branch");
+        }
+        
+        private void elapse(long millis) {
+            now += TimeUnit.MILLISECONDS.toNanos(millis);
+        }
+        
+        private void runBackgroundTasks() {
+            while (! background.isEmpty()) {
+                background.poll().run();
+            }
+        }
+        
+    }
+    
+    @Test @DisplayName("computes expensive variables on a background thread")
+    void computes_expensive_variables_on_a_background_thread() throws CoreException, InterruptedException {
+        Thread caller = Thread.currentThread();
+        Thread[] computer = new Thread[1];
+        
+        IConfigurationElement element = variable("branch", "", (WordingVariableProvider) ctx -> {
+            computer[0] = Thread.currentThread();
+            return Optional.of("main");
+        });
+        when(element.getAttribute(WordingVariableRegistry.EXPENSIVE_ATTRIBUTE)).thenReturn("true");
+        contribute(element);
+        
+        try (WordingVariableRegistry real = new WordingVariableRegistry(registry)) {
+            WordingVariables contributed = real.variables(context);
+            contributed.valueOf("branch");
+            
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (contributed.valueOf("branch").isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertThat(contributed.valueOf("branch")).isEqualTo("main");
+            assertThat(computer[0]).isNotNull().isNotSameAs(caller);
+            assertThat(computer[0].isDaemon()).isTrue();
+        }
+    }
+    
+    @Test @DisplayName("closing stops listening to the registry")
+    void closing_stops_listening_to_the_registry() {
+        variables.close();
+        
+        verify(registry, times(1)).removeListener(variables);
+    }
+    
+    private void contribute(IConfigurationElement... elements) {
+        when(registry.getConfigurationElementsFor(Plugin.WORDING_VARIABLE_EXTENSION_ID))
+            .thenReturn(elements);
+    }
+    
+    private static WordingVariableProvider provider(String value) {
+        return ctx -> Optional.of(value);
+    }
+    
+    private static IConfigurationElement variable(String name, String description, Object provider) throws CoreException {
+        IConfigurationElement element = mock(IConfigurationElement.class);
+        when(element.getAttribute(WordingVariableRegistry.NAME_ATTRIBUTE)).thenReturn(name);
+        when(element.getAttribute(WordingVariableRegistry.DESCRIPTION_ATTRIBUTE)).thenReturn(description);
+        when(element.createExecutableExtension("class")).thenReturn(provider);
+        return element;
+    }
+    
+}